@@ -0,0 +1,148 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.Mapper.Context;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.map.WrappedMapper;
+import org.apache.hadoop.mapreduce.task.MapContextImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.kylinolap.cube.kv.RowConstants;
+import com.kylinolap.job.constant.BatchConstants;
+import com.kylinolap.job.hadoop.cube.BaseCuboidMapper;
+
+/**
+ * Base cuboid mapper throughput in records/sec, the same work as
+ * BaseCuboidMapperPerformanceTest but without Hadoop output, tracked across
+ * releases.
+ *
+ * Metadata is copied from system property kylin.benchmark.meta (default the
+ * test case localmeta) to ./meta, where the mapper loads it. Records are read
+ * from kylin.benchmark.input if given, one flat table row per line delimited
+ * by \177, otherwise a built-in sample of the test cube is used.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BaseCuboidMapperBenchmark {
+
+    static final String DEFAULT_META = "../examples/test_case_data/localmeta";
+    static final String DEFAULT_CUBE = "test_kylin_cube_with_slr_1_new_segment";
+    static final String DEFAULT_SEGMENT = "20130331080000_20131212080000";
+
+    static final String[] SAMPLE_RECORDS = { //
+            "2012-12-15\177" + "11848\177" + "0\177" + "Health & Beauty\177" + "Fragrances\177" + "Women\177" + "Auction\177" + "15\177" + "123456789\177" + "132.33", //
+            "2012-12-15\177" + "11848\177" + "0\177" + "Health & Beauty\177" + "Fragrances\177" + "\\N\177" + "Auction\177" + "15\177" + "123456789\177" + "\\N", //
+            "2012-12-15\177" + "11848\177" + "0\177" + "Health & Beauty\177" + "Fragrances\177" + "Women\177" + "Auction\177" + "15\177" + "123456789\177" + "-5.5", //
+            "2012-12-15\177" + "11848\177" + "0\177" + "Health & Beauty\177" + "Fragrances\177" + "Women\177" + "Auction\177" + "15\177" + "123456789\177" + "17" };
+
+    private BenchmarkMapper mapper;
+    private Text[] records;
+    private Text key = new Text("key");
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        FileUtils.deleteDirectory(new File("meta"));
+        FileUtils.copyDirectory(new File(System.getProperty("kylin.benchmark.meta", DEFAULT_META)), new File("meta"));
+
+        Configuration hconf = new Configuration();
+        hconf.set(BatchConstants.CFG_CUBE_NAME, System.getProperty("kylin.benchmark.cube", DEFAULT_CUBE));
+        hconf.set(BatchConstants.CFG_CUBE_SEGMENT_NAME, System.getProperty("kylin.benchmark.segment", DEFAULT_SEGMENT));
+        mapper = new BenchmarkMapper();
+        mapper.setup(newContext(hconf));
+
+        records = loadRecords();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(new File("meta"));
+    }
+
+    @Benchmark
+    public void map(Blackhole bh) throws IOException, InterruptedException {
+        mapper.map(key, records[next], null);
+        next = (next + 1) % records.length;
+        bh.consume(mapper.valueBuf.position());
+    }
+
+    private Text[] loadRecords() throws IOException {
+        List<String> lines = new ArrayList<String>();
+        String input = System.getProperty("kylin.benchmark.input");
+        if (input != null) {
+            lines.addAll(FileUtils.readLines(new File(input), "UTF-8"));
+        } else {
+            for (String r : SAMPLE_RECORDS)
+                lines.add(r);
+        }
+
+        Text[] result = new Text[lines.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = new Text(lines.get(i));
+        }
+        return result;
+    }
+
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static Context newContext(Configuration hconf) {
+        return new WrappedMapper().getMapContext(new MapContextImpl(hconf, new TaskAttemptID(), null, null, null, null, null));
+    }
+
+    /**
+     * encodes the record as the real mapper does, but writes nothing
+     */
+    static class BenchmarkMapper extends BaseCuboidMapper<Text> {
+
+        ByteBuffer valueBuf = ByteBuffer.allocate(RowConstants.ROWVALUE_BUFFER_SIZE);
+
+        @Override
+        protected void setup(Context context) throws IOException {
+            super.setup(context);
+        }
+
+        @Override
+        protected void outputBaseCuboidRecord(byte[] rowKey, Object[] measures, Context context) throws IOException, InterruptedException {
+            valueBuf.clear();
+            measureCodec.encode(measures, valueBuf);
+        }
+    }
+}
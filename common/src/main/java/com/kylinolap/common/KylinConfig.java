@@ -82,6 +82,12 @@ public class KylinConfig {
      */
     public static final String KYLIN_JOB_HIVE_FLATTEN = "kylin.job.hive.flatten";
 
+    /**
+     * Storage format of the intermediate flat table, "sequencefile" or "orc".
+     * Default sequencefile.
+     */
+    public static final String KYLIN_JOB_FLAT_TABLE_FORMAT = "kylin.job.flat.table.format";
+
     public static final String KYLIN_JOB_RUN_AS_REMOTE_CMD = "kylin.job.run.as.remote.cmd";
 
     public static final String KYLIN_JOB_MAPREDUCE_DEFAULT_REDUCE_COUNT_RATIO = "kylin.job.mapreduce.default.reduce.count.ratio";
@@ -94,6 +100,8 @@ public class KylinConfig {
 
     public static final String COPROCESSOR_LOCAL_JAR = "kylin.coprocessor.local.jar";
     public static final String COPROCESSOR_SCAN_BITS_THRESHOLD = "kylin.coprocessor.scan.bits.threshold";
+    public static final String COPROCESSOR_FLUSH_ROWS = "kylin.coprocessor.aggregation.flush.rows";
+    public static final String COPROCESSOR_COMPACT_ROWS = "kylin.coprocessor.aggregation.compact.rows";
 
     public static final String KYLIN_JOB_JAR_LOCAL = "kylin.job.jar.local";
 
@@ -336,6 +344,22 @@ public class KylinConfig {
         return Integer.parseInt(getOptional(COPROCESSOR_SCAN_BITS_THRESHOLD, "32"));
     }
 
+    /**
+     * Rows per partial aggregation batch the coprocessor streams back, 0 to
+     * aggregate the whole region before returning.
+     */
+    public int getCoprocessorFlushRows() {
+        return Integer.parseInt(getOptional(COPROCESSOR_FLUSH_ROWS, "0"));
+    }
+
+    /**
+     * Whether the coprocessor packs group keys and returned rows with only the
+     * columns the query needs, instead of full row keys.
+     */
+    public boolean isCoprocessorCompactRowsEnabled() {
+        return Boolean.parseBoolean(getOptional(COPROCESSOR_COMPACT_ROWS, "true"));
+    }
+
     public double getDefaultHadoopJobReducerInputMB() {
         return Double.parseDouble(getOptional(KYLIN_JOB_MAPREDUCE_DEFAULT_REDUCE_INPUT_MB, "500"));
     }
@@ -376,6 +400,10 @@ public class KylinConfig {
         return Boolean.parseBoolean(getOptional(KYLIN_JOB_HIVE_FLATTEN, "true"));
     }
 
+    public boolean isFlatTableOrc() {
+        return "orc".equalsIgnoreCase(getOptional(KYLIN_JOB_FLAT_TABLE_FORMAT, "sequencefile"));
+    }
+
     public String getOverrideHiveTableLocation(String table) {
         return getOptional(HIVE_TABLE_LOCATION_PREFIX + table.toUpperCase());
     }
@@ -413,6 +441,22 @@ public class KylinConfig {
         return nodes.split("\\s*,\\s*");
     }
 
+    /**
+     * times a failed cache wipe is resent to a rest server before its events
+     * are dropped
+     */
+    public int getBroadcastRetryMax() {
+        return Integer.parseInt(getOptional("kylin.rest.broadcast.retry.max", "5"));
+    }
+
+    /**
+     * wait before the first resend of a failed cache wipe, doubled on each
+     * further failure
+     */
+    public long getBroadcastRetryBackoffMs() {
+        return Long.parseLong(getOptional("kylin.rest.broadcast.retry.backoff.ms", "1000"));
+    }
+
     /**
      * @return
      */
@@ -431,6 +475,61 @@ public class KylinConfig {
         return Long.parseLong(getOptional("kylin.job.step.timeout", String.valueOf(2 * 60 * 60)));
     }
 
+    /**
+     * build all cuboids in one MR pass with in-memory cubing, instead of the
+     * base cuboid and N-dimension cuboid chain
+     */
+    public boolean isInMemCubingEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.job.cubing.inmem.enabled", "false"));
+    }
+
+    /**
+     * in-memory cubing applies only to cubes with less rowkey columns than this
+     */
+    public int getInMemCubingMaxDimensions() {
+        return Integer.parseInt(getOptional("kylin.job.cubing.inmem.max.dimensions", "15"));
+    }
+
+    /**
+     * memory budget of an in-memory cubing mapper, 0 for a third of the heap
+     */
+    public int getInMemCubingMemoryMB() {
+        return Integer.parseInt(getOptional("kylin.job.cubing.inmem.memory.mb", "0"));
+    }
+
+    /**
+     * memory budget of map-side aggregation in NDCuboidMapper, 0 to turn off
+     */
+    public int getNDCuboidMapperAggregationMB() {
+        return Integer.parseInt(getOptional("kylin.job.cubing.nd.mapper.aggregation.mb", "100"));
+    }
+
+    /**
+     * reducers of each dictionary column in the fact distinct columns step,
+     * more than 1 splits the distinct values of a column by hash
+     */
+    public int getFactDistinctColumnShards() {
+        return Integer.parseInt(getOptional("kylin.job.fact.distinct.column.shards", "1"));
+    }
+
+    /**
+     * total dictionary IDs a merge mapper may precompute into old-to-new ID
+     * tables (4 bytes each), columns beyond it are translated by dictionary
+     * lookup per row; 0 to turn off
+     */
+    public int getMergeDictRemapMaxIds() {
+        return Integer.parseInt(getOptional("kylin.job.merge.dict.remap.max.ids", "10000000"));
+    }
+
+    /**
+     * shards of the row key of a new segment, rows are spread across shards
+     * by hash of dimensions so each cuboid is split across regions; 0 for
+     * no shard prefix, as segments built before; at most 32768
+     */
+    public int getCubeRowKeyShardCount() {
+        return Integer.parseInt(getOptional("kylin.cube.rowkey.shard.count", "0"));
+    }
+
     public String getServerMode() {
         return this.getOptional("kylin.server.mode", "all");
     }
@@ -451,6 +550,77 @@ public class KylinConfig {
         return Integer.parseInt(this.getOptional("kylin.query.scan.thread.count", "40"));
     }
 
+    public boolean isQueryScanParallelEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.query.scan.parallel.enabled", "false"));
+    }
+
+    /**
+     * max number of key range scans a single query may run at the same time
+     * on the shared scan thread pool
+     */
+    public int getQueryScanParallelPerQuery() {
+        return Integer.parseInt(this.getOptional("kylin.query.scan.parallel.per.query", "8"));
+    }
+
+    public int getQueryScanParallelQueueSize() {
+        return Integer.parseInt(this.getOptional("kylin.query.scan.parallel.queue.size", "4096"));
+    }
+
+    /**
+     * keep dimension values as dictionary IDs on storage read path and
+     * translate them only when filling the tuple
+     */
+    public boolean isQueryIdTupleEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.query.id.tuple.enabled", "true"));
+    }
+
+    public boolean isQueryIIEndpointEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.query.ii.endpoint.enabled", "true"));
+    }
+
+    /**
+     * the minimum number of values for a loaded trie dictionary to be moved
+     * out of java heap, 0 to turn off
+     */
+    public int getDictionaryOffHeapMinValues() {
+        return Integer.parseInt(this.getOptional("kylin.dictionary.offheap.min.values", "0"));
+    }
+
+    /**
+     * local dir to memory map off-heap dictionaries from, if not set they go
+     * to direct buffers
+     */
+    public String getDictionaryOffHeapMmapDir() {
+        return this.getOptional("kylin.dictionary.offheap.mmap.dir", null);
+    }
+
+    /**
+     * budget of loaded dictionaries kept in memory, by their serialized size
+     */
+    public long getDictionaryCacheMaxBytes() {
+        return Long.parseLong(this.getOptional("kylin.dictionary.cache.max.bytes", "1073741824"));
+    }
+
+    /**
+     * budget of loaded lookup table snapshots kept in memory, by their
+     * serialized size
+     */
+    public long getSnapshotCacheMaxBytes() {
+        return Long.parseLong(this.getOptional("kylin.snapshot.cache.max.bytes", "536870912"));
+    }
+
+    /**
+     * budget of raw metadata content kept by the HBase resource store, to save
+     * re-reading unchanged resources; 0 to disable
+     */
+    public long getMetadataReadCacheMaxBytes() {
+        return Long.parseLong(this.getOptional("kylin.metadata.read.cache.max.bytes", "67108864"));
+    }
+
+    public int getDictionaryCacheMaxEntries() {
+        return Integer.parseInt(this.getOptional("kylin.dictionary.cache.max.entries", "65536"));
+    }
+
     public boolean isQueryCacheEnabled() {
         return Boolean.parseBoolean(this.getOptional("kylin.query.cache.enabled", "true"));
     }
@@ -81,6 +81,10 @@ public class HyperLogLogPlusCounter implements Comparable<HyperLogLogPlusCounter
         add(hashFunc.hashBytes(value).asLong());
     }
 
+    public void add(byte[] value, int offset, int length) {
+        add(hashFunc.hashBytes(value, offset, length).asLong());
+    }
+
     protected void add(long hash) {
         int bucketMask = m - 1;
         int bucket = (int) (hash & bucketMask);
@@ -22,7 +22,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.List;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
 import com.kylinolap.common.KylinConfig;
@@ -52,6 +54,21 @@ public class FileResourceStore extends ResourceStore {
         return r;
     }
 
+    @Override
+    protected List<RawResource> getAllResourcesImpl(String folderPath) throws IOException {
+        List<RawResource> result = new ArrayList<RawResource>();
+        File[] files = file(folderPath).listFiles();
+        if (files == null) // not a directory
+            return result;
+
+        String prefix = folderPath.endsWith("/") ? folderPath : folderPath + "/";
+        for (File f : files) {
+            if (f.isFile())
+                result.add(new RawResource(prefix + f.getName(), new ByteArrayInputStream(FileUtils.readFileToByteArray(f)), f.lastModified()));
+        }
+        return result;
+    }
+
     @Override
     protected boolean existsImpl(String resPath) throws IOException {
         File f = file(resPath);
@@ -21,7 +21,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -31,6 +33,7 @@ import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.HConnection;
 import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.Put;
@@ -40,6 +43,9 @@ import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.filter.KeyOnlyFilter;
 import org.apache.hadoop.hbase.util.Bytes;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
 import com.kylinolap.common.KylinConfig;
 import com.kylinolap.common.util.BytesUtil;
 import com.kylinolap.common.util.HadoopUtil;
@@ -72,6 +78,9 @@ public class HBaseResourceStore extends ResourceStore {
 
     final Map<String, String> tableNameMap; // path prefix ==> HBase table name
 
+    // recently read content by path, valid as long as its timestamp is the same in HBase
+    final Cache<String, CachedResource> readCache;
+
     private HConnection getConnection() throws IOException {
         return HBaseConnection.get(hbaseUrl);
     }
@@ -93,6 +102,15 @@ public class HBaseResourceStore extends ResourceStore {
             createHTableIfNeeded(tableName);
         }
 
+        readCache = CacheBuilder.newBuilder() //
+                .maximumWeight(kylinConfig.getMetadataReadCacheMaxBytes()) //
+                .weigher(new Weigher<String, CachedResource>() {
+                    @Override
+                    public int weigh(String resPath, CachedResource value) {
+                        return value.content.length;
+                    }
+                }) //
+                .build();
     }
 
     private void createHTableIfNeeded(String tableName) throws IOException {
@@ -147,45 +165,175 @@ public class HBaseResourceStore extends ResourceStore {
         return result.isEmpty() ? null : result;
     }
 
+    @Override
+    protected List<RawResource> getAllResourcesImpl(String folderPath) throws IOException {
+        String lookForPrefix = folderPath.endsWith("/") ? folderPath : folderPath + "/";
+        byte[] startRow = Bytes.toBytes(lookForPrefix);
+        byte[] endRow = Bytes.toBytes(lookForPrefix);
+        endRow[endRow.length - 1]++;
+
+        List<RawResource> result = new ArrayList<RawResource>();
+
+        for (Entry<String, String> entry : tableNameMap.entrySet()) {
+            String pathPrefix = entry.getKey();
+            String tableName = entry.getValue();
+
+            if ((pathPrefix.startsWith(lookForPrefix) || lookForPrefix.startsWith(pathPrefix)) == false)
+                continue;
+
+            HTableInterface table = getConnection().getTable(tableName);
+
+            Scan scan = new Scan(startRow, endRow);
+            scan.addColumn(B_FAMILY, B_COLUMN);
+            scan.addColumn(B_FAMILY, B_COLUMN_TS);
+            scan.setCaching(100);
+            try {
+                ResultScanner scanner = table.getScanner(scan);
+                for (Result r : scanner) {
+                    String path = Bytes.toString(r.getRow());
+                    if (path.indexOf('/', lookForPrefix.length()) >= 0)
+                        continue; // in a sub-folder
+                    result.add(toRawResource(path, r.getValue(B_FAMILY, B_COLUMN), Bytes.toLong(r.getValue(B_FAMILY, B_COLUMN_TS))));
+                }
+            } finally {
+                IOUtils.closeQuietly(table);
+            }
+        }
+        return result;
+    }
+
     @Override
     protected boolean existsImpl(String resPath) throws IOException {
-        Result r = getByScan(resPath, null, null);
-        return r != null;
+        HTableInterface table = getConnection().getTable(getTableName(resPath));
+        try {
+            return table.exists(new Get(Bytes.toBytes(resPath)));
+        } finally {
+            IOUtils.closeQuietly(table);
+        }
     }
 
     @Override
     protected InputStream getResourceImpl(String resPath) throws IOException {
-        Result r = getByScan(resPath, B_FAMILY, B_COLUMN);
-        if (r == null)
-            return null;
+        RawResource r = getResourceWithTimestampImpl(resPath);
+        return r == null ? null : r.content;
+    }
 
-        byte[] value = r.getValue(B_FAMILY, B_COLUMN);
+    @Override
+    protected RawResource getResourceWithTimestampImpl(String resPath) throws IOException {
+        return getResourcesImpl(Collections.singletonList(resPath)).get(0);
+    }
+
+    @Override
+    protected long getResourceTimestampImpl(String resPath) throws IOException {
+        Get get = new Get(Bytes.toBytes(resPath));
+        get.addColumn(B_FAMILY, B_COLUMN_TS);
+
+        HTableInterface table = getConnection().getTable(getTableName(resPath));
+        try {
+            Result r = table.get(get);
+            if (r == null || r.isEmpty())
+                return 0;
+            else
+                return Bytes.toLong(r.getValue(B_FAMILY, B_COLUMN_TS));
+        } finally {
+            IOUtils.closeQuietly(table);
+        }
+    }
+
+    @Override
+    protected List<RawResource> getResourcesImpl(List<String> resPaths) throws IOException {
+        RawResource[] result = new RawResource[resPaths.size()];
+
+        // one batch of gets per table
+        Map<String, List<Integer>> byTable = new LinkedHashMap<String, List<Integer>>();
+        for (int i = 0; i < resPaths.size(); i++) {
+            String tableName = getTableName(resPaths.get(i));
+            List<Integer> indexes = byTable.get(tableName);
+            if (indexes == null) {
+                indexes = new ArrayList<Integer>();
+                byTable.put(tableName, indexes);
+            }
+            indexes.add(i);
+        }
+        for (Entry<String, List<Integer>> entry : byTable.entrySet()) {
+            getRows(entry.getKey(), resPaths, entry.getValue(), true, result);
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * for a path in read cache, only its timestamp is fetched, and the cached
+     * content is used if the timestamp is not changed; stale ones are fetched
+     * again in another batch
+     */
+    private void getRows(String tableName, List<String> resPaths, List<Integer> indexes, boolean useCache, RawResource[] result) throws IOException {
+        List<Get> gets = new ArrayList<Get>(indexes.size());
+        for (int i : indexes) {
+            String resPath = resPaths.get(i);
+            Get get = new Get(Bytes.toBytes(resPath));
+            get.addColumn(B_FAMILY, B_COLUMN_TS);
+            if (useCache == false || readCache.getIfPresent(resPath) == null)
+                get.addColumn(B_FAMILY, B_COLUMN);
+            gets.add(get);
+        }
+
+        Result[] rows;
+        HTableInterface table = getConnection().getTable(tableName);
+        try {
+            rows = table.get(gets);
+        } finally {
+            IOUtils.closeQuietly(table);
+        }
+
+        List<Integer> stale = new ArrayList<Integer>();
+        for (int j = 0; j < rows.length; j++) {
+            int i = indexes.get(j);
+            String resPath = resPaths.get(i);
+            Result r = rows[j];
+            if (r == null || r.isEmpty()) {
+                readCache.invalidate(resPath);
+                continue;
+            }
+
+            long ts = Bytes.toLong(r.getValue(B_FAMILY, B_COLUMN_TS));
+            byte[] value = r.getValue(B_FAMILY, B_COLUMN);
+            if (value != null) {
+                result[i] = toRawResource(resPath, value, ts);
+            } else {
+                CachedResource cached = readCache.getIfPresent(resPath);
+                if (cached != null && cached.timestamp == ts) {
+                    result[i] = new RawResource(resPath, new ByteArrayInputStream(cached.content), ts);
+                } else {
+                    readCache.invalidate(resPath);
+                    stale.add(i);
+                }
+            }
+        }
+
+        if (stale.isEmpty() == false)
+            getRows(tableName, resPaths, stale, false, result);
+    }
+
+    private RawResource toRawResource(String resPath, byte[] value, long ts) throws IOException {
         if (value.length == 0) {
             Path redirectPath = bigCellHDFSPath(resPath);
             Configuration hconf = HadoopUtil.getCurrentConfiguration();
             FileSystem fileSystem = FileSystem.get(hconf);
 
-            return fileSystem.open(redirectPath);
+            return new RawResource(resPath, fileSystem.open(redirectPath), ts);
         } else {
-            return new ByteArrayInputStream(value);
+            readCache.put(resPath, new CachedResource(value, ts));
+            return new RawResource(resPath, new ByteArrayInputStream(value), ts);
         }
     }
 
-    @Override
-    protected long getResourceTimestampImpl(String resPath) throws IOException {
-        Result r = getByScan(resPath, B_FAMILY, B_COLUMN_TS);
-        if (r == null)
-            return 0;
-        else
-            return Bytes.toLong(r.getValue(B_FAMILY, B_COLUMN_TS));
-    }
-
     @Override
     protected void putResourceImpl(String resPath, InputStream content, long ts) throws IOException {
         ByteArrayOutputStream bout = new ByteArrayOutputStream();
         IOUtils.copy(content, bout);
         bout.close();
 
+        readCache.invalidate(resPath);
         HTableInterface table = getConnection().getTable(getTableName(resPath));
         try {
             byte[] row = Bytes.toBytes(resPath);
@@ -200,6 +348,7 @@ public class HBaseResourceStore extends ResourceStore {
 
     @Override
     protected long checkAndPutResourceImpl(String resPath, byte[] content, long oldTS, long newTS) throws IOException, IllegalStateException {
+        readCache.invalidate(resPath);
         HTableInterface table = getConnection().getTable(getTableName(resPath));
         try {
             byte[] row = Bytes.toBytes(resPath);
@@ -220,6 +369,7 @@ public class HBaseResourceStore extends ResourceStore {
 
     @Override
     protected void deleteResourceImpl(String resPath) throws IOException {
+        readCache.invalidate(resPath);
         HTableInterface table = getConnection().getTable(getTableName(resPath));
         try {
             Delete del = new Delete(Bytes.toBytes(resPath));
@@ -235,36 +385,6 @@ public class HBaseResourceStore extends ResourceStore {
         return tableNameBase + "(key='" + resPath + "')@" + kylinConfig.getMetadataUrl();
     }
 
-    private Result getByScan(String path, byte[] family, byte[] column) throws IOException {
-        byte[] startRow = Bytes.toBytes(path);
-        byte[] endRow = plusZero(startRow);
-
-        Scan scan = new Scan(startRow, endRow);
-        if (family == null || column == null) {
-            scan.setFilter(new KeyOnlyFilter());
-        } else {
-            scan.addColumn(family, column);
-        }
-
-        HTableInterface table = getConnection().getTable(getTableName(path));
-        try {
-            ResultScanner scanner = table.getScanner(scan);
-            Result result = null;
-            for (Result r : scanner) {
-                result = r;
-            }
-            return result == null || result.isEmpty() ? null : result;
-        } finally {
-            IOUtils.closeQuietly(table);
-        }
-    }
-
-    private byte[] plusZero(byte[] startRow) {
-        byte[] endRow = Arrays.copyOf(startRow, startRow.length + 1);
-        endRow[endRow.length - 1] = 0;
-        return endRow;
-    }
-
     private Path writeLargeCellToHdfs(String resPath, byte[] largeColumn, HTableInterface table) throws IOException {
         Path redirectPath = bigCellHDFSPath(resPath);
         Configuration hconf = HadoopUtil.getCurrentConfiguration();
@@ -304,4 +424,14 @@ public class HBaseResourceStore extends ResourceStore {
 
         return put;
     }
+
+    private static class CachedResource {
+        final byte[] content;
+        final long timestamp;
+
+        CachedResource(byte[] content, long timestamp) {
+            this.content = content;
+            this.timestamp = timestamp;
+        }
+    }
 }
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.common.persistence;
+
+import java.io.InputStream;
+
+/**
+ * Content and timestamp of a resource, as read from store in one go.
+ */
+public class RawResource {
+
+    public final String path;
+    public final InputStream content;
+    public final long timestamp;
+
+    public RawResource(String path, InputStream content, long timestamp) {
+        this.path = path;
+        this.content = content;
+        this.timestamp = timestamp;
+    }
+}
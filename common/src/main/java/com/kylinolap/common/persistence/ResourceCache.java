@@ -0,0 +1,146 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.common.persistence;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+
+/**
+ * A bounded cache of big resources (like dictionaries and snapshots) by
+ * resource path. Entries are weighted by their serialized size in bytes and
+ * the least recently used are evicted once the total goes beyond budget.
+ *
+ * Concurrent get() of the same missing path loads it only once, the other
+ * callers wait for the result. A path that does not exist in store is cached
+ * as absent.
+ */
+public class ResourceCache<T extends RootPersistentEntity> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceCache.class);
+
+    public interface Loader<T> {
+        /** @return the loaded resource, or null if not exist */
+        public T load(String resourcePath) throws IOException;
+    }
+
+    private final String name;
+    private final LoadingCache<String, Optional<T>> cache;
+
+    public ResourceCache(final String name, long maxBytes, final Serializer<T> serializer, final Loader<T> loader) {
+        this.name = name;
+        this.cache = CacheBuilder.newBuilder() //
+                .concurrencyLevel(1) // one segment, otherwise the budget is split and a big entry may not fit
+                .maximumWeight(maxBytes) //
+                .weigher(new Weigher<String, Optional<T>>() {
+                    @Override
+                    public int weigh(String resourcePath, Optional<T> value) {
+                        return value.isPresent() ? serializedSize(serializer, value.get()) : 1;
+                    }
+                }) //
+                .removalListener(new RemovalListener<String, Optional<T>>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<String, Optional<T>> notification) {
+                        if (notification.getCause() == RemovalCause.SIZE)
+                            logger.debug(name + " evicted " + notification.getKey());
+                    }
+                }) //
+                .recordStats() //
+                .build(new CacheLoader<String, Optional<T>>() {
+                    @Override
+                    public Optional<T> load(String resourcePath) throws Exception {
+                        return Optional.fromNullable(loader.load(resourcePath));
+                    }
+                });
+    }
+
+    /**
+     * @return the resource, loading it if not cached, or null if not exist
+     */
+    public T get(String resourcePath) throws IOException {
+        try {
+            return cache.get(resourcePath).orNull();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    public void put(String resourcePath, T value) {
+        cache.put(resourcePath, Optional.fromNullable(value));
+    }
+
+    public void remove(String resourcePath) {
+        cache.invalidate(resourcePath);
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * hit, miss, load and eviction counts since creation
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + cache.stats();
+    }
+
+    static <T extends RootPersistentEntity> int serializedSize(Serializer<T> serializer, T value) {
+        DataOutputStream out = new DataOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        });
+        try {
+            serializer.serialize(value, out);
+            out.flush();
+        } catch (IOException e) {
+            throw new RuntimeException(e); // shall not happen, writing to nowhere
+        }
+        return out.size(); // counts bytes written, saturates at Integer.MAX_VALUE
+    }
+}
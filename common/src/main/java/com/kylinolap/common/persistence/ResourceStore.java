@@ -15,12 +15,14 @@
  */
 package com.kylinolap.common.persistence;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -119,19 +121,113 @@ abstract public class ResourceStore {
      * read a resource, return null in case of not found
      */
     final public <T extends RootPersistentEntity> T getResource(String resPath, Class<T> clz, Serializer<T> serializer) throws IOException {
-        resPath = norm(resPath);
+        RawResource res = getResourceWithTimestampImpl(norm(resPath));
+        if (res == null)
+            return null;
+
+        return deserialize(res, serializer);
+    }
+
+    /**
+     * read content and timestamp of a resource together, return null in case
+     * of not found
+     */
+    protected RawResource getResourceWithTimestampImpl(String resPath) throws IOException {
         InputStream in = getResourceImpl(resPath);
         if (in == null)
             return null;
+        return new RawResource(resPath, in, getResourceTimestampImpl(resPath));
+    }
+
+    /**
+     * read a batch of resources, the result is in the same order as given
+     * paths, with null for the not found or unreadable
+     */
+    final public <T extends RootPersistentEntity> List<T> getResources(List<String> resPaths, Class<T> clz, Serializer<T> serializer) throws IOException {
+        List<String> normPaths = new ArrayList<String>(resPaths.size());
+        for (String resPath : resPaths) {
+            normPaths.add(norm(resPath));
+        }
+        return deserialize(getResourcesImpl(normPaths), serializer);
+    }
+
+    /**
+     * reads one by one by default, stores that can fetch many in one round
+     * trip should override
+     */
+    protected List<RawResource> getResourcesImpl(List<String> resPaths) throws IOException {
+        List<RawResource> result = new ArrayList<RawResource>(resPaths.size());
+        for (String resPath : resPaths) {
+            result.add(readFully(getResourceWithTimestampImpl(resPath)));
+        }
+        return result;
+    }
+
+    /**
+     * read all resources directly under a folder, sub-folders and the
+     * unreadable are skipped; return empty list if the folder does not exist
+     */
+    final public <T extends RootPersistentEntity> List<T> getAllResources(String folderPath, Class<T> clz, Serializer<T> serializer) throws IOException {
+        List<T> result = deserialize(getAllResourcesImpl(norm(folderPath)), serializer);
+        result.removeAll(Collections.singleton(null));
+        return result;
+    }
+
+    /**
+     * lists then reads one by one by default, stores that can fetch the
+     * content together with the listing should override
+     */
+    protected List<RawResource> getAllResourcesImpl(String folderPath) throws IOException {
+        ArrayList<String> children = listResourcesImpl(folderPath);
+        if (children == null)
+            return new ArrayList<RawResource>();
+
+        List<RawResource> result = new ArrayList<RawResource>(children.size());
+        for (String child : children) {
+            RawResource res = readFully(getResourceWithTimestampImpl(child));
+            if (res != null) // null for a sub-folder
+                result.add(res);
+        }
+        return result;
+    }
+
+    // buffer the content so a batch does not hold many streams open
+    private RawResource readFully(RawResource res) throws IOException {
+        if (res == null || res.content instanceof ByteArrayInputStream)
+            return res;
+        try {
+            return new RawResource(res.path, new ByteArrayInputStream(IOUtils.toByteArray(res.content)), res.timestamp);
+        } finally {
+            IOUtils.closeQuietly(res.content);
+        }
+    }
+
+    // a broken resource is logged and read as null, not to fail the others
+    private <T extends RootPersistentEntity> List<T> deserialize(List<RawResource> resources, Serializer<T> serializer) {
+        List<T> result = new ArrayList<T>(resources.size());
+        for (RawResource res : resources) {
+            T r = null;
+            if (res != null) {
+                try {
+                    r = deserialize(res, serializer);
+                } catch (Exception e) {
+                    logger.error("Error reading resource " + res.path, e);
+                }
+            }
+            result.add(r);
+        }
+        return result;
+    }
 
-        DataInputStream din = new DataInputStream(in);
+    private <T extends RootPersistentEntity> T deserialize(RawResource res, Serializer<T> serializer) throws IOException {
+        DataInputStream din = new DataInputStream(res.content);
         try {
             T r = serializer.deserialize(din);
-            r.setLastModified(getResourceTimestamp(resPath));
+            r.setLastModified(res.timestamp);
             return r;
         } finally {
             IOUtils.closeQuietly(din);
-            IOUtils.closeQuietly(in);
+            IOUtils.closeQuietly(res.content);
         }
     }
 
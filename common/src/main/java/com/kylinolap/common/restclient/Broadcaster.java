@@ -18,10 +18,16 @@ package com.kylinolap.common.restclient;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,6 +37,12 @@ import com.kylinolap.common.KylinConfig;
 /**
  * Broadcast kylin event out
  * 
+ * Events are coalesced by type and name until flushed, the later action wins,
+ * and a metadata event covers all others. Each rest server has its own queue,
+ * at most one wipe cache call is in flight to a server at a time, events
+ * arriving meanwhile go out together in the next call. Calls run on a small
+ * shared pool, a failed call is resent with exponential backoff.
+ * 
  * @author jianliu
  * 
  */
@@ -38,21 +50,47 @@ public class Broadcaster {
 
     private static final Logger logger = LoggerFactory.getLogger(Broadcaster.class);
 
-    private static List<BroadcastEvent> broadcaseEvents = new ArrayList<BroadcastEvent>();
+    private static final int THREADS = 4;
+    private static final long FLUSH_INTERVAL_SECONDS = 10;
+    private static final long MAX_BACKOFF_MS = 60 * 1000;
+
+    // events not flushed yet, guarded by itself
+    private static final LinkedHashMap<String, BroadcastEvent> broadcaseEvents = new LinkedHashMap<String, BroadcastEvent>();
 
     static class BroadcasterHolder {
         static final Broadcaster INSTANCE = new Broadcaster();
     }
 
+    private final ScheduledExecutorService executor;
+    private final ConcurrentHashMap<String, NodeQueue> nodeQueues = new ConcurrentHashMap<String, NodeQueue>();
+
+    private final AtomicLong queuedEvents = new AtomicLong();
+    private final AtomicLong coalescedEvents = new AtomicLong();
+    private final AtomicLong sentBatches = new AtomicLong();
+    private final AtomicLong sentEvents = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+
     private Broadcaster() {
-        Timer timer = new Timer();
-        TimerTask task = new TimerTask() {
+        executor = new ScheduledThreadPoolExecutor(THREADS, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Broadcaster-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
             public void run() {
-                Broadcaster.flush();
+                try {
+                    Broadcaster.flush();
+                } catch (Throwable e) {
+                    logger.error("Broadcaster flush failed", e);
+                }
             }
-        };
-
-        timer.schedule(task, new Date(), 10 * 1000);
+        }, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
     }
 
     public Broadcaster getInstance() {
@@ -69,28 +107,39 @@ public class Broadcaster {
      * @param action
      *            event action
      */
-    public static synchronized void queue(String type, String action, String key) {
-        BroadcastEvent event = BroadcasterHolder.INSTANCE.new BroadcastEvent(type, action, key);
+    public static void queue(String type, String action, String key) {
+        Broadcaster broadcaster = BroadcasterHolder.INSTANCE;
+        BroadcastEvent event = new BroadcastEvent(type, action, key);
 
-        if (!broadcaseEvents.contains(event)) {
-            broadcaseEvents.add(event);
+        int coalesced;
+        synchronized (broadcaseEvents) {
+            coalesced = coalesce(broadcaseEvents, event);
         }
+        broadcaster.queuedEvents.incrementAndGet();
+        broadcaster.coalescedEvents.addAndGet(coalesced);
     }
 
-    public static synchronized void flush() {
+    /**
+     * hand the queued events over to each rest server, returns without
+     * waiting for them to be sent
+     */
+    public static void flush() {
+        Broadcaster broadcaster = BroadcasterHolder.INSTANCE;
+        List<BroadcastEvent> events;
+        synchronized (broadcaseEvents) {
+            if (broadcaseEvents.isEmpty())
+                return;
+            events = new ArrayList<BroadcastEvent>(broadcaseEvents.values());
+            broadcaseEvents.clear();
+        }
+
         String[] nodes = KylinConfig.getInstanceFromEnv().getRestServers();
         if (nodes == null)
             return;
 
-        for (BroadcastEvent event : broadcaseEvents) {
-            for (String nodeUri : nodes) {
-                logger.debug("Broadcast nodeUri: " + nodeUri + ", type: " + event.getType() + ", action: " + event.getAction() + ", name: " + event.getName());
-                WipeCacheThread thread = BroadcasterHolder.INSTANCE.new WipeCacheThread(nodeUri, event.getType(), event.getAction(), event.getName());
-                thread.start();
-            }
+        for (String nodeUri : nodes) {
+            broadcaster.getNodeQueue(nodeUri).add(events);
         }
-
-        broadcaseEvents.clear();
     }
 
     public static String genEventkey(String type, String action, String name) {
@@ -98,31 +147,158 @@ public class Broadcaster {
         return time + "_" + type + "_" + action + "_" + name;
     }
 
-    protected class WipeCacheThread extends Thread {
-        private String nodeUri;
-        private String type;
-        private String action;
-        private String name;
+    /**
+     * puts an event into pending ones, returns how many pending events became
+     * redundant
+     */
+    static int coalesce(LinkedHashMap<String, BroadcastEvent> pending, BroadcastEvent event) {
+        int coalesced = 0;
+        if (event.isMetadata()) {
+            coalesced = pending.size();
+            pending.clear();
+        } else if (pending.containsKey(TYPE.METADATA.getType())) {
+            return 1; // a pending metadata wipe reloads everything anyway
+        } else if (pending.remove(event.key()) != null) {
+            coalesced = 1;
+        }
+        pending.put(event.key(), event);
+        return coalesced;
+    }
+
+    private NodeQueue getNodeQueue(String nodeUri) {
+        NodeQueue queue = nodeQueues.get(nodeUri);
+        if (queue == null) {
+            nodeQueues.putIfAbsent(nodeUri, new NodeQueue(nodeUri));
+            queue = nodeQueues.get(nodeUri);
+        }
+        return queue;
+    }
+
+    // ============================================================================
+    // metrics
+
+    public static int getPendingEventCount() {
+        int count;
+        synchronized (broadcaseEvents) {
+            count = broadcaseEvents.size();
+        }
+        for (NodeQueue queue : BroadcasterHolder.INSTANCE.nodeQueues.values()) {
+            count += queue.size();
+        }
+        return count;
+    }
+
+    public static long getQueuedEventCount() {
+        return BroadcasterHolder.INSTANCE.queuedEvents.get();
+    }
+
+    public static long getCoalescedEventCount() {
+        return BroadcasterHolder.INSTANCE.coalescedEvents.get();
+    }
+
+    public static long getSentBatchCount() {
+        return BroadcasterHolder.INSTANCE.sentBatches.get();
+    }
+
+    public static long getSentEventCount() {
+        return BroadcasterHolder.INSTANCE.sentEvents.get();
+    }
+
+    public static long getFailedBatchCount() {
+        return BroadcasterHolder.INSTANCE.failedBatches.get();
+    }
+
+    public static long getDroppedEventCount() {
+        return BroadcasterHolder.INSTANCE.droppedEvents.get();
+    }
 
-        public WipeCacheThread(String nodeUri, String type, String action, String name) {
+    // ============================================================================
+
+    /**
+     * events waiting to be sent to one rest server
+     */
+    private class NodeQueue implements Runnable {
+        private final String nodeUri;
+        private final RestClient restClient;
+        private final LinkedHashMap<String, BroadcastEvent> pending = new LinkedHashMap<String, BroadcastEvent>();
+        private boolean scheduled; // a send is waiting or running
+        private int retries;
+
+        NodeQueue(String nodeUri) {
             this.nodeUri = nodeUri;
-            this.type = type;
-            this.action = action;
-            this.name = name;
+            this.restClient = new RestClient(nodeUri);
+        }
+
+        synchronized int size() {
+            return pending.size();
+        }
+
+        synchronized void add(Collection<BroadcastEvent> events) {
+            for (BroadcastEvent event : events) {
+                coalescedEvents.addAndGet(coalesce(pending, event));
+            }
+            schedule(0);
+        }
+
+        // call with lock held
+        private void schedule(long delayMs) {
+            if (scheduled || pending.isEmpty())
+                return;
+            scheduled = true;
+            executor.schedule(this, delayMs, TimeUnit.MILLISECONDS);
         }
 
-        /*
-         * (non-Javadoc)
-         * 
-         * @see java.lang.Thread#run()
-         */
         @Override
         public void run() {
-            RestClient restClient = new RestClient(nodeUri);
+            List<BroadcastEvent> batch;
+            synchronized (this) {
+                batch = new ArrayList<BroadcastEvent>(pending.values());
+                pending.clear();
+            }
+
+            boolean success = false;
             try {
-                restClient.wipeCache(this.type, this.action, this.name);
-            } catch (IOException e) {
-                logger.warn("Thread failed during wipe cache at " + type + "." + action + "." + name + ", " + e.toString());
+                logger.debug("Broadcast nodeUri: " + nodeUri + ", events: " + batch);
+                restClient.wipeCache(batch);
+                success = true;
+            } catch (Throwable e) {
+                logger.warn("Failed during wipe cache at " + nodeUri + " for " + batch + ", " + e.toString());
+            }
+
+            synchronized (this) {
+                scheduled = false;
+                if (success) {
+                    retries = 0;
+                    sentBatches.incrementAndGet();
+                    sentEvents.addAndGet(batch.size());
+                    schedule(0);
+                    return;
+                }
+
+                failedBatches.incrementAndGet();
+                KylinConfig config = KylinConfig.getInstanceFromEnv();
+                if (retries >= config.getBroadcastRetryMax()) {
+                    logger.error("Gave up wipe cache at " + nodeUri + " after " + retries + " retries, dropped " + batch);
+                    droppedEvents.addAndGet(batch.size());
+                    retries = 0;
+                    schedule(0);
+                    return;
+                }
+
+                // put the failed events back, those queued since are newer
+                LinkedHashMap<String, BroadcastEvent> merged = new LinkedHashMap<String, BroadcastEvent>();
+                for (BroadcastEvent event : batch) {
+                    coalesce(merged, event);
+                }
+                for (BroadcastEvent event : pending.values()) {
+                    coalesce(merged, event);
+                }
+                pending.clear();
+                pending.putAll(merged);
+
+                long backoff = Math.min(config.getBroadcastRetryBackoffMs() << retries, MAX_BACKOFF_MS);
+                retries++;
+                schedule(backoff);
             }
         }
     }
@@ -177,11 +353,14 @@ public class Broadcaster {
         }
     }
 
-    public class BroadcastEvent {
+    public static class BroadcastEvent {
         private String type;
         private String action;
         private String name;
 
+        public BroadcastEvent() {
+        }
+
         public BroadcastEvent(String type, String action, String name) {
             super();
             this.type = type;
@@ -213,11 +392,19 @@ public class Broadcaster {
             this.name = name;
         }
 
+        boolean isMetadata() {
+            return TYPE.METADATA.getType().equalsIgnoreCase(type);
+        }
+
+        // events on the same entity coalesce, whatever the action
+        String key() {
+            return isMetadata() ? TYPE.METADATA.getType() : type + "." + name;
+        }
+
         @Override
         public int hashCode() {
             final int prime = 31;
             int result = 1;
-            result = prime * result + getOuterType().hashCode();
             result = prime * result + ((action == null) ? 0 : action.hashCode());
             result = prime * result + ((name == null) ? 0 : name.hashCode());
             result = prime * result + ((type == null) ? 0 : type.hashCode());
@@ -233,8 +420,6 @@ public class Broadcaster {
             if (getClass() != obj.getClass())
                 return false;
             BroadcastEvent other = (BroadcastEvent) obj;
-            if (!getOuterType().equals(other.getOuterType()))
-                return false;
             if (action == null) {
                 if (other.action != null)
                     return false;
@@ -253,9 +438,9 @@ public class Broadcaster {
             return true;
         }
 
-        private Broadcaster getOuterType() {
-            return Broadcaster.this;
+        @Override
+        public String toString() {
+            return type + "." + action + "." + name;
         }
-
     }
 }
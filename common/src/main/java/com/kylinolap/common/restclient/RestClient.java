@@ -17,6 +17,7 @@
 package com.kylinolap.common.restclient;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,10 +29,14 @@ import org.apache.commons.httpclient.UsernamePasswordCredentials;
 import org.apache.commons.httpclient.auth.AuthScope;
 import org.apache.commons.httpclient.methods.GetMethod;
 import org.apache.commons.httpclient.methods.PutMethod;
+import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
 
+import com.kylinolap.common.restclient.Broadcaster.BroadcastEvent;
+import com.kylinolap.common.util.JsonUtil;
+
 /**
  * @author yangli9
  */
@@ -77,6 +82,9 @@ public class RestClient {
         this.baseUrl = "http://" + host + ":" + port + "/kylin/api";
 
         client = new HttpClient();
+        // do not let a hung server hold the caller, e.g. broadcaster threads
+        client.getHttpConnectionManager().getParams().setConnectionTimeout(10 * 1000);
+        client.getHttpConnectionManager().getParams().setSoTimeout(60 * 1000);
 
         if (userName != null && password != null) {
             client.getParams().setAuthenticationPreemptive(true);
@@ -103,6 +111,36 @@ public class RestClient {
         }
     }
 
+    /**
+     * wipe cache for a batch of events in one call, falls back to one call
+     * per event if the server does not know batch yet
+     */
+    public void wipeCache(List<BroadcastEvent> events) throws IOException {
+        String url = baseUrl + "/cache/batch";
+        PutMethod put = new PutMethod(url);
+        int code;
+
+        try {
+            put.setRequestEntity(new StringRequestEntity(JsonUtil.writeValueAsString(events), "application/json", "UTF-8"));
+            code = client.executeMethod(put);
+            String msg = Bytes.toString(put.getResponseBody());
+
+            if (code != 200 && code != 404 && code != 405)
+                throw new IOException("Invalid response " + code + " with cache wipe url " + url + "\n" + msg);
+
+        } catch (HttpException ex) {
+            throw new IOException(ex);
+        } finally {
+            put.releaseConnection();
+        }
+
+        if (code != 200) {
+            for (BroadcastEvent event : events) {
+                wipeCache(event.getType(), event.getAction(), event.getName());
+            }
+        }
+    }
+
     public String getKylinProperties() throws IOException {
         String url = baseUrl + "/admin/config";
         HttpMethod get = new GetMethod(url);
@@ -21,6 +21,8 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -115,6 +117,7 @@ public class HBaseResourceStoreTest extends HBaseMetadataTestCase {
         // overwrite
         t.str = "new string";
         store.putResource(path2, t, StringEntity.serializer);
+        assertEquals(t, store.getResource(path2, StringEntity.class, StringEntity.serializer));
 
         // write conflict
         try {
@@ -125,6 +128,9 @@ public class HBaseResourceStoreTest extends HBaseMetadataTestCase {
             // expected
         }
 
+        // batch read
+        testBatchRead(store);
+
         // list
         ArrayList<String> list;
 
@@ -159,6 +165,44 @@ public class HBaseResourceStoreTest extends HBaseMetadataTestCase {
         assertTrue(list == null || list.contains(path2) == false);
     }
 
+    void testBatchRead(ResourceStore store) throws IOException {
+        String dir = "/_test_batch";
+        String pathA = dir + "/a.json";
+        String pathB = dir + "/b.json";
+        String pathSub = dir + "/sub/c.json";
+        StringEntity a = new StringEntity("a");
+        StringEntity b = new StringEntity("b");
+
+        store.putResource(pathA, a, StringEntity.serializer);
+        store.putResource(pathB, b, StringEntity.serializer);
+        store.putResource(pathSub, new StringEntity("c"), StringEntity.serializer);
+        try {
+            // sub-folder is not included
+            List<StringEntity> all = store.getAllResources(dir, StringEntity.class, StringEntity.serializer);
+            assertEquals(2, all.size());
+            assertTrue(all.contains(a));
+            assertTrue(all.contains(b));
+            assertTrue(store.getAllResources(dir + "/not_exist", StringEntity.class, StringEntity.serializer).isEmpty());
+
+            List<StringEntity> got = store.getResources(Arrays.asList(pathB, dir + "/not_exist.json", pathA), StringEntity.class, StringEntity.serializer);
+            assertEquals(3, got.size());
+            assertEquals(b, got.get(0));
+            assertNull(got.get(1));
+            assertEquals(a, got.get(2));
+            assertEquals(store.getResourceTimestamp(pathA), got.get(2).getLastModified());
+
+            // changed after read
+            a.str = "a2";
+            store.putResource(pathA, a, StringEntity.serializer);
+            got = store.getResources(Arrays.asList(pathA), StringEntity.class, StringEntity.serializer);
+            assertEquals(a, got.get(0));
+        } finally {
+            store.deleteResource(pathA);
+            store.deleteResource(pathB);
+            store.deleteResource(pathSub);
+        }
+    }
+
     public static class StringEntity extends RootPersistentEntity {
 
         static final Serializer<StringEntity> serializer = new Serializer<StringEntity>() {
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.common.persistence;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import com.kylinolap.common.persistence.LocalFileResourceStoreTest.StringEntity;
+
+public class ResourceCacheTest {
+
+    @Test
+    public void testWeightedEviction() throws IOException {
+        final AtomicInteger loads = new AtomicInteger();
+        // each entry is 2 + 100 bytes serialized, room for 3 of them
+        ResourceCache<StringEntity> cache = new ResourceCache<StringEntity>("test", 350, StringEntity.serializer, new ResourceCache.Loader<StringEntity>() {
+            @Override
+            public StringEntity load(String resourcePath) throws IOException {
+                loads.incrementAndGet();
+                return resourcePath.startsWith("/none") ? null : new StringEntity(StringUtils.repeat("x", 100));
+            }
+        });
+
+        for (int i = 0; i < 5; i++)
+            assertNotNull(cache.get("/res" + i));
+        assertEquals(5, loads.get());
+        assertEquals(3, cache.size());
+        assertEquals(2, cache.getStats().evictionCount());
+
+        assertNotNull(cache.get("/res4"));
+        assertEquals(1, cache.getStats().hitCount());
+
+        // absent resource is cached too
+        assertNull(cache.get("/none"));
+        assertNull(cache.get("/none"));
+        assertEquals(6, loads.get());
+
+        cache.remove("/res4");
+        assertNotNull(cache.get("/res4"));
+        assertEquals(7, loads.get());
+    }
+
+    @Test
+    public void testSingleFlightLoad() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final ResourceCache<StringEntity> cache = new ResourceCache<StringEntity>("test", 1000, StringEntity.serializer, new ResourceCache.Loader<StringEntity>() {
+            @Override
+            public StringEntity load(String resourcePath) throws IOException {
+                loads.incrementAndGet();
+                try {
+                    loading.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return new StringEntity(resourcePath);
+            }
+        });
+
+        Thread[] threads = new Thread[8];
+        final StringEntity[] results = new StringEntity[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int n = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    try {
+                        results[n] = cache.get("/same");
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        Thread.sleep(200);
+        loading.countDown();
+        for (Thread t : threads)
+            t.join();
+
+        assertEquals(1, loads.get());
+        for (StringEntity r : results)
+            assertSame(results[0], r);
+    }
+}
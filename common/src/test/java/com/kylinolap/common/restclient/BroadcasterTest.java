@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.common.restclient;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.kylinolap.common.KylinConfig;
+import com.kylinolap.common.restclient.Broadcaster.BroadcastEvent;
+import com.kylinolap.common.util.JsonUtil;
+import com.kylinolap.common.util.LocalFileMetadataTestCase;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class BroadcasterTest extends LocalFileMetadataTestCase {
+
+    private HttpServer server;
+    private BlockingQueue<List<BroadcastEvent>> received = new LinkedBlockingQueue<List<BroadcastEvent>>();
+    private AtomicInteger failures = new AtomicInteger();
+
+    @Before
+    public void setup() throws Exception {
+        this.createTestMetadata();
+
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/kylin/api/cache/batch", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                String body = IOUtils.toString(exchange.getRequestBody(), "UTF-8");
+                int code = 200;
+                if (failures.getAndDecrement() > 0) {
+                    code = 500;
+                } else {
+                    received.add(Arrays.asList(JsonUtil.readValue(body, BroadcastEvent[].class)));
+                }
+                exchange.sendResponseHeaders(code, 0);
+                OutputStream out = exchange.getResponseBody();
+                out.close();
+            }
+        });
+        server.start();
+
+        KylinConfig config = getTestConfig();
+        config.setProperty(KylinConfig.KYLIN_REST_SERVERS, "localhost:" + server.getAddress().getPort());
+        config.setProperty("kylin.rest.broadcast.retry.backoff.ms", "10");
+    }
+
+    @After
+    public void after() throws Exception {
+        server.stop(0);
+        this.cleanupTestMetadata();
+    }
+
+    @Test
+    public void testCoalesce() {
+        LinkedHashMap<String, BroadcastEvent> pending = new LinkedHashMap<String, BroadcastEvent>();
+        assertEquals(0, Broadcaster.coalesce(pending, new BroadcastEvent("cube", "create", "a")));
+        assertEquals(0, Broadcaster.coalesce(pending, new BroadcastEvent("cube", "update", "b")));
+        assertEquals(1, Broadcaster.coalesce(pending, new BroadcastEvent("cube", "drop", "a")));
+        assertEquals(0, Broadcaster.coalesce(pending, new BroadcastEvent("project", "update", "a")));
+        assertEquals(Arrays.asList(new BroadcastEvent("cube", "update", "b"), new BroadcastEvent("cube", "drop", "a"), new BroadcastEvent("project", "update", "a")), new ArrayList<BroadcastEvent>(pending.values()));
+
+        assertEquals(3, Broadcaster.coalesce(pending, new BroadcastEvent("metadata", "create", "metadata")));
+        assertEquals(1, Broadcaster.coalesce(pending, new BroadcastEvent("cube", "update", "c")));
+        assertEquals(Arrays.asList(new BroadcastEvent("metadata", "create", "metadata")), new ArrayList<BroadcastEvent>(pending.values()));
+    }
+
+    @Test
+    public void testBatchAndRetry() throws Exception {
+        failures.set(2);
+        long failed = Broadcaster.getFailedBatchCount();
+
+        Broadcaster.queue("cube", "update", "test_a");
+        Broadcaster.queue("cube", "update", "test_b");
+        Broadcaster.queue("cube", "drop", "test_a");
+        Broadcaster.flush();
+
+        List<BroadcastEvent> batch = received.poll(10, TimeUnit.SECONDS);
+        assertNotNull(batch);
+        assertTrue(batch.contains(new BroadcastEvent("cube", "update", "test_b")));
+        assertTrue(batch.contains(new BroadcastEvent("cube", "drop", "test_a")));
+        assertFalse(batch.contains(new BroadcastEvent("cube", "update", "test_a")));
+        assertEquals(2, Broadcaster.getFailedBatchCount() - failed);
+    }
+}
@@ -16,8 +16,14 @@
 package com.kylinolap.cube;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
@@ -29,9 +35,12 @@ import com.google.common.collect.Lists;
 import com.kylinolap.common.KylinConfig;
 import com.kylinolap.common.persistence.ResourceStore;
 import com.kylinolap.common.persistence.RootPersistentEntity;
+import com.kylinolap.cube.cuboid.Cuboid;
 import com.kylinolap.metadata.MetadataManager;
 import com.kylinolap.metadata.model.cube.CubeDesc;
 import com.kylinolap.metadata.model.cube.CubePartitionDesc;
+import com.kylinolap.metadata.model.cube.RowKeyColDesc;
+import com.kylinolap.metadata.model.cube.TblColRef;
 import com.kylinolap.metadata.model.invertedindex.InvertedIndexDesc;
 
 @JsonAutoDetect(fieldVisibility = Visibility.NONE, getterVisibility = Visibility.NONE, isGetterVisibility = Visibility.NONE, setterVisibility = Visibility.NONE)
@@ -74,6 +83,10 @@ public class CubeInstance extends RootPersistentEntity {
     @JsonProperty("create_time")
     private String createTime;
 
+    // cuboid rows summed over ready segments, cleared when segments are saved
+    @JsonIgnore
+    private volatile SummedCuboidRows summedCuboidRows;
+
     public List<CubeSegment> getBuildingSegments() {
         List<CubeSegment> buildingSegments = new ArrayList<CubeSegment>();
         if (null != segments) {
@@ -228,6 +241,90 @@ public class CubeInstance extends RootPersistentEntity {
         return sizeRecordSize;
     }
 
+    /**
+     * @return rows of each cuboid summed over ready segments, read only; null
+     *         if there is no ready segment, or one has no statistics from build
+     */
+    public Map<Long, Long> getCuboidRowCounts() {
+        SummedCuboidRows summed = summedCuboidRows;
+        if (summed == null) {
+            summed = new SummedCuboidRows(sumCuboidRowCounts());
+            summedCuboidRows = summed;
+        }
+        return summed.rows;
+    }
+
+    /**
+     * to be called after segments are changed, so cuboid rows are summed
+     * again
+     */
+    void clearCuboidRowCounts() {
+        summedCuboidRows = null;
+    }
+
+    private Map<Long, Long> sumCuboidRowCounts() {
+        List<CubeSegment> readySegments = getSegments(CubeSegmentStatusEnum.READY);
+        if (readySegments.isEmpty())
+            return null;
+
+        Map<Long, Long> result = new HashMap<Long, Long>();
+        for (CubeSegment cubeSegment : readySegments) {
+            Map<Long, Long> segmentRows = cubeSegment.getCuboidRowCounts();
+            if (segmentRows == null)
+                return null;
+            for (Map.Entry<Long, Long> entry : segmentRows.entrySet()) {
+                Long rows = result.get(entry.getKey());
+                result.put(entry.getKey(), rows == null ? entry.getValue() : rows + entry.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static class SummedCuboidRows {
+        final Map<Long, Long> rows;
+
+        SummedCuboidRows(Map<Long, Long> rows) {
+            this.rows = rows;
+        }
+    }
+
+    /**
+     * @return the cuboid to answer a query of the given cuboid ID, the valid
+     *         ancestor of the fewest rows if there are statistics
+     */
+    public Cuboid findCheapestCuboid(long cuboidID) {
+        return Cuboid.findCheapest(getDescriptor(), cuboidID, getCuboidRowCounts());
+    }
+
+    /**
+     * @return rows to scan for a query on the given dimensions, derived ones
+     *         taken as their host columns; -1 if there are no statistics
+     */
+    public long estimateRowsToScan(Collection<TblColRef> dimensions) {
+        Map<Long, Long> cuboidRows = getCuboidRowCounts();
+        if (cuboidRows == null)
+            return -1;
+
+        CubeDesc cubeDesc = getDescriptor();
+        Set<TblColRef> hostColumns = new HashSet<TblColRef>();
+        for (TblColRef col : dimensions) {
+            if (cubeDesc.isDerived(col))
+                hostColumns.addAll(Arrays.asList(cubeDesc.getHostInfo(col).columns));
+            else
+                hostColumns.add(col);
+        }
+
+        long cuboidID = 0;
+        for (RowKeyColDesc rowKeyCol : cubeDesc.getRowkey().getRowKeyColumns()) {
+            if (hostColumns.contains(rowKeyCol.getColRef()))
+                cuboidID |= 1L << rowKeyCol.getBitIndex();
+        }
+
+        Cuboid cuboid = Cuboid.findCheapest(cubeDesc, cuboidID, cuboidRows);
+        Long rows = cuboidRows.get(cuboid.getId());
+        return rows == null ? 0 : rows; // a built cuboid of no rows is not in statistics
+    }
+
     public KylinConfig getConfig() {
         return config;
     }
@@ -347,6 +444,7 @@ public class CubeInstance extends RootPersistentEntity {
 
     public void setSegments(List<CubeSegment> segments) {
         this.segments = segments;
+        clearCuboidRowCounts();
     }
 
     public CubeSegment getSegmentById(String segmentId) {
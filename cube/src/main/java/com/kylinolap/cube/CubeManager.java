@@ -32,6 +32,7 @@ import com.kylinolap.common.persistence.Serializer;
 import com.kylinolap.common.restclient.Broadcaster;
 import com.kylinolap.common.restclient.SingleValueCache;
 import com.kylinolap.cube.exception.CubeIntegrityException;
+import com.kylinolap.cube.kv.RowKeyShard;
 import com.kylinolap.cube.project.ProjectInstance;
 import com.kylinolap.cube.project.ProjectManager;
 import com.kylinolap.dict.Dictionary;
@@ -340,6 +341,15 @@ public class CubeManager {
     }
 
     public void updateSegmentOnJobSucceed(CubeInstance cubeInstance, CubeBuildTypeEnum buildType, String segmentName, String jobUuid, long lastBuildTime, long sizeKB, long sourceRecordCount, long sourceRecordsSize) throws IOException, CubeIntegrityException {
+        updateSegmentOnJobSucceed(cubeInstance, buildType, segmentName, jobUuid, lastBuildTime, sizeKB, sourceRecordCount, sourceRecordsSize, null);
+    }
+
+    /**
+     * @param cuboidRowCounts
+     *            rows of each cuboid of the segment as collected by the
+     *            build, null if not collected
+     */
+    public void updateSegmentOnJobSucceed(CubeInstance cubeInstance, CubeBuildTypeEnum buildType, String segmentName, String jobUuid, long lastBuildTime, long sizeKB, long sourceRecordCount, long sourceRecordsSize, Map<Long, Long> cuboidRowCounts) throws IOException, CubeIntegrityException {
 
         List<CubeSegment> segmentsInNewStatus = cubeInstance.getSegments(CubeSegmentStatusEnum.NEW);
         CubeSegment cubeSegment = cubeInstance.getSegmentById(jobUuid);
@@ -369,6 +379,7 @@ public class CubeManager {
         cubeSegment.setSizeKB(sizeKB);
         cubeSegment.setSourceRecords(sourceRecordCount);
         cubeSegment.setSourceRecordsSize(sourceRecordsSize);
+        cubeSegment.setCuboidRowCounts(cuboidRowCounts);
         if (segmentsInNewStatus.size() == 1) {
             cubeSegment.setStatus(CubeSegmentStatusEnum.READY);
             cubeInstance.setStatus(CubeStatusEnum.READY);
@@ -518,6 +529,7 @@ public class CubeManager {
     }
 
     private void afterCubeUpdated(CubeInstance updatedCube) {
+        updatedCube.clearCuboidRowCounts();
         MetadataManager.getInstance(config).reload();
         cubeMap.put(updatedCube.getName().toUpperCase(), updatedCube);
 
@@ -561,6 +573,7 @@ public class CubeManager {
         segment.setDateRangeEnd(endDate);
         segment.setStatus(CubeSegmentStatusEnum.NEW);
         segment.setStorageLocationIdentifier(generateStorageLocation());
+        segment.setRowKeyShardCount(Math.min(config.getCubeRowKeyShardCount(), RowKeyShard.MAX_SHARD_COUNT));
 
         segment.setCubeInstance(cubeInstance);
 
@@ -607,15 +620,14 @@ public class CubeManager {
 
     private void loadAllCubeInstance() throws IOException {
         ResourceStore store = getStore();
-        List<String> paths = store.collectResourceRecursively(ResourceStore.CUBE_RESOURCE_ROOT, ".json");
-
         logger.debug("Loading Cube from folder " + store.getReadableResourcePath(ResourceStore.CUBE_RESOURCE_ROOT));
 
-        for (String path : paths) {
-            loadCubeInstance(path);
+        List<CubeInstance> cubes = store.getAllResources(ResourceStore.CUBE_RESOURCE_ROOT, CubeInstance.class, CUBE_SERIALIZER);
+        for (CubeInstance cubeInstance : cubes) {
+            initCubeInstance(cubeInstance, cubeInstance.getResourcePath());
         }
 
-        logger.debug("Loaded " + paths.size() + " Cube(s)");
+        logger.debug("Loaded " + cubes.size() + " Cube(s)");
     }
 
     private synchronized CubeInstance loadCubeInstance(String path) throws IOException {
@@ -624,6 +636,15 @@ public class CubeManager {
         CubeInstance cubeInstance = null;
         try {
             cubeInstance = store.getResource(path, CubeInstance.class, CUBE_SERIALIZER);
+        } catch (Exception e) {
+            logger.error("Error during load cube instance " + path, e);
+            return null;
+        }
+        return initCubeInstance(cubeInstance, path);
+    }
+
+    private synchronized CubeInstance initCubeInstance(CubeInstance cubeInstance, String path) {
+        try {
             cubeInstance.setConfig(config);
 
             if (StringUtils.isBlank(cubeInstance.getName()))
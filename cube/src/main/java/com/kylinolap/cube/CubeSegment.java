@@ -58,6 +58,10 @@ public class CubeSegment implements Comparable<CubeSegment> {
     private String lastBuildJobID;
     @JsonProperty("create_time")
     private String createTime;
+    @JsonProperty("rowkey_shard_count")
+    private int rowKeyShardCount; // 0 means no shard prefix in row key
+    @JsonProperty("cuboid_row_counts")
+    private ConcurrentHashMap<Long, Long> cuboidRowCounts; // cuboid ID ==> row count, collected at build
 
     @JsonProperty("binary_signature")
     private String binarySignature; // a hash of cube schema and dictionary ID,
@@ -180,6 +184,26 @@ public class CubeSegment implements Comparable<CubeSegment> {
         this.createTime = createTime;
     }
 
+    public int getRowKeyShardCount() {
+        return rowKeyShardCount;
+    }
+
+    public void setRowKeyShardCount(int rowKeyShardCount) {
+        this.rowKeyShardCount = rowKeyShardCount;
+    }
+
+    /**
+     * @return rows of each cuboid in this segment, or null if not collected
+     *         at build
+     */
+    public Map<Long, Long> getCuboidRowCounts() {
+        return cuboidRowCounts;
+    }
+
+    public void setCuboidRowCounts(Map<Long, Long> cuboidRowCounts) {
+        this.cuboidRowCounts = cuboidRowCounts == null ? null : new ConcurrentHashMap<Long, Long>(cuboidRowCounts);
+    }
+
     public String getBinarySignature() {
         return binarySignature;
     }
@@ -62,8 +62,7 @@ public class BytesSplitter {
         for (int i = 0; i < byteLen; i++) {
             if (bytes[i] == delimiter) {
                 SplittedBytes split = this.splitBuffers[this.bufferSize++];
-                split.length = length;
-                System.arraycopy(bytes, offset, split.value, 0, length);
+                copy(bytes, offset, length, split);
                 offset = i + 1;
                 length = 0;
             } else {
@@ -71,12 +70,20 @@ public class BytesSplitter {
             }
         }
         SplittedBytes split = this.splitBuffers[this.bufferSize++];
-        System.arraycopy(bytes, offset, split.value, 0, length);
-        split.length = length;
+        copy(bytes, offset, length, split);
 
         return bufferSize;
     }
 
+    // buffers are reused across records, and grow for a long value
+    private void copy(byte[] bytes, int offset, int length, SplittedBytes split) {
+        if (split.value.length < length) {
+            split.value = new byte[Math.max(length, split.value.length * 2)];
+        }
+        System.arraycopy(bytes, offset, split.value, 0, length);
+        split.length = length;
+    }
+
     public byte inferByteRowDelimiter(byte[] bytes, int byteLen, int expectedSplits) throws IOException {
 
         if (expectedSplits > this.splitBuffers.length)
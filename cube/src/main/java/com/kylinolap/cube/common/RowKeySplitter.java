@@ -21,6 +21,7 @@ import com.kylinolap.cube.CubeSegment;
 import com.kylinolap.cube.cuboid.Cuboid;
 import com.kylinolap.cube.kv.RowConstants;
 import com.kylinolap.cube.kv.RowKeyColumnIO;
+import com.kylinolap.cube.kv.RowKeyShard;
 import com.kylinolap.metadata.model.cube.CubeDesc;
 import com.kylinolap.metadata.model.cube.TblColRef;
 
@@ -32,6 +33,7 @@ public class RowKeySplitter {
 
     private CubeDesc cubeDesc;
     private RowKeyColumnIO colIO;
+    private int shardLength;
 
     private SplittedBytes[] splitBuffers;
     private int bufferSize;
@@ -47,6 +49,7 @@ public class RowKeySplitter {
     public RowKeySplitter(CubeSegment cubeSeg, int splitLen, int bytesLen) {
         this.cubeDesc = cubeSeg.getCubeDesc();
         this.colIO = new RowKeyColumnIO(cubeSeg);
+        this.shardLength = RowKeyShard.getShardLength(cubeSeg);
 
         this.splitBuffers = new SplittedBytes[splitLen];
         for (int i = 0; i < splitLen; i++) {
@@ -62,7 +65,7 @@ public class RowKeySplitter {
      */
     public long split(byte[] bytes, int byteLen) {
         this.bufferSize = 0;
-        int offset = 0;
+        int offset = shardLength; // shard prefix, if any, is not split out
 
         // extract cuboid id
         SplittedBytes cuboidIdSplit = this.splitBuffers[this.bufferSize++];
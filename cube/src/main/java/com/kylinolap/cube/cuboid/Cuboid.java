@@ -59,6 +59,40 @@ public class Cuboid implements Comparable<Cuboid> {
         return cuboid;
     }
 
+    /**
+     * Like findById(), but if the cuboid is not built, answers from the valid
+     * ancestor of the fewest rows by given statistics, rather than the first
+     * ancestor found. Falls back to findById() if no ancestor is in the
+     * statistics.
+     * 
+     * @param cuboidRows
+     *            cuboid ID ==> row count, may be null
+     */
+    public static Cuboid findCheapest(CubeDesc cube, long cuboidID, Map<Long, Long> cuboidRows) {
+        Cuboid cuboid = findById(cube, cuboidID);
+        if (cuboid.useAncestor() == false || cuboidRows == null)
+            return cuboid;
+
+        long cheapestID = -1;
+        long cheapestRows = Long.MAX_VALUE;
+        for (Map.Entry<Long, Long> entry : cuboidRows.entrySet()) {
+            long ancestor = entry.getKey();
+            long rows = entry.getValue();
+            if ((ancestor & cuboidID) != cuboidID || rows > cheapestRows)
+                continue;
+            if (rows == cheapestRows && ancestor > cheapestID)
+                continue;
+            if (ancestor > getBaseCuboidId(cube) || Cuboid.isValid(cube, ancestor) == false)
+                continue;
+            cheapestID = ancestor;
+            cheapestRows = rows;
+        }
+
+        if (cheapestID < 0 || cheapestID == cuboid.getId())
+            return cuboid;
+        return new Cuboid(cube, cuboidID, cheapestID);
+    }
+
     public static boolean isValid(CubeDesc cube, long cuboidID) {
         RowKeyDesc rowkey = cube.getRowkey();
 
@@ -85,6 +85,24 @@ public class BitMapContainer implements ColumnValueContainer {
         return Dictionary.NULL_ID[valueLen];
     }
 
+    /**
+     * @return records having the value, or null if value is out of dictionary
+     *         range; the returned set must not be modified
+     */
+    public ConciseSet getBitMap(int valueId) {
+        if (valueId == Dictionary.NULL_ID[valueLen]) {
+            return sets[nValues];
+        }
+        if (valueId < 0 || valueId >= nValues) {
+            return null;
+        }
+        return sets[valueId];
+    }
+
+    public int getMaxValueId() {
+        return nValues - 1;
+    }
+
     private void checkUpdateMode() {
         if (isClosedForChange()) {
             throw new IllegalStateException();
@@ -16,7 +16,11 @@
 
 package com.kylinolap.cube.invertedindex;
 
+import it.uniroma3.mat.extendedset.intset.ConciseSet;
+import it.uniroma3.mat.extendedset.intset.IntSet.IntIterator;
+
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
 
@@ -59,6 +63,14 @@ public class Slice implements Iterable<TableRecordBytes>, Comparable<Slice> {
         return timestamp;
     }
 
+    public int getRecordCount() {
+        return nRecords;
+    }
+
+    public ColumnValueContainer getColumnValueContainer(int col) {
+        return containers[col];
+    }
+
     /**
      * Standard iterator of Slice will return a iterator of TableRecordBytes,
      * which cannot be printed/formated to readable text.
@@ -109,10 +121,7 @@ public class Slice implements Iterable<TableRecordBytes>, Comparable<Slice> {
 
             @Override
             public TableRecordBytes next() {
-                for (int col = 0; col < nColumns; col++) {
-                    containers[col].getValueAt(i, temp);
-                    rec.setValueBytes(col, temp);
-                }
+                fillRecord(i, rec, temp);
                 i++;
                 return rec;
             }
@@ -125,6 +134,56 @@ public class Slice implements Iterable<TableRecordBytes>, Comparable<Slice> {
         };
     }
 
+    /**
+     * Iterates only the records in given set (e.g. as evaluated by bitmaps), in
+     * record order. The returned record instance is reused.
+     */
+    public Iterator<TableRecordBytes> iterator(final ConciseSet recordSet) {
+        return new Iterator<TableRecordBytes>() {
+            IntIterator it = recordSet.iterator();
+            TableRecord rec = new TableRecord(info);
+            ImmutableBytesWritable temp = new ImmutableBytesWritable();
+            int next = fetchNext();
+
+            private int fetchNext() {
+                // the set may be a complement that goes beyond record count
+                if (it.hasNext()) {
+                    int i = it.next();
+                    if (i < nRecords)
+                        return i;
+                }
+                return -1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public TableRecordBytes next() {
+                if (next < 0)
+                    throw new NoSuchElementException();
+                fillRecord(next, rec, temp);
+                next = fetchNext();
+                return rec;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+        };
+    }
+
+    private void fillRecord(int i, TableRecord rec, ImmutableBytesWritable temp) {
+        for (int col = 0; col < nColumns; col++) {
+            containers[col].getValueAt(i, temp);
+            rec.setValueBytes(col, temp);
+        }
+    }
+
     /* (non-Javadoc)
      * @see java.lang.Object#hashCode()
      */
@@ -72,4 +72,14 @@ public abstract class AbstractRowKeyEncoder {
     abstract public byte[] encode(Map<TblColRef, String> valueMap);
 
     abstract public byte[] encode(byte[][] values);
+
+    /**
+     * Encodes into a given buffer of getRowKeyLength() bytes, so a caller can
+     * reuse one buffer for all rows. A value may be part of a bigger array,
+     * its length given by valueLengths, or by the array length if valueLengths
+     * is null.
+     */
+    abstract public void encode(byte[][] values, int[] valueLengths, byte[] output);
+
+    abstract public int getRowKeyLength();
 }
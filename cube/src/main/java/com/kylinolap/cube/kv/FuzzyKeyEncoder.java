@@ -32,9 +32,7 @@ public class FuzzyKeyEncoder extends RowKeyEncoder {
     }
 
     @Override
-    protected byte[] defaultValue(int length) {
-        byte[] keyBytes = new byte[length];
-        Arrays.fill(keyBytes, RowConstants.FUZZY_MASK_ZERO);
-        return keyBytes;
+    protected void fillDefaultValue(byte[] output, int offset, int length) {
+        Arrays.fill(output, offset, offset + length, RowConstants.FUZZY_MASK_ZERO);
     }
 }
@@ -17,6 +17,8 @@
 package com.kylinolap.cube.kv;
 
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.hadoop.hbase.util.Bytes;
 import org.slf4j.Logger;
@@ -39,9 +41,14 @@ public class RowKeyColumnIO {
 
     private static final Logger logger = LoggerFactory.getLogger(RowKeyColumnIO.class);
 
+    // marks a column without dictionary in dictCache
+    private static final Object NO_DICT = new Object();
+
     private CubeSegment seg;
     private RowKeyDesc rowkeyDesc;
     private boolean forceNoDict = Boolean.getBoolean("forceNoDict");
+    // dictionaries of a segment never change, save the lookup per row
+    private ConcurrentMap<TblColRef, Object> dictCache = new ConcurrentHashMap<TblColRef, Object>();
 
     public RowKeyColumnIO(CubeSegment cubeSeg) {
         this.seg = cubeSeg;
@@ -72,8 +79,9 @@ public class RowKeyColumnIO {
 
         // non-dict value
         if (dict == null) {
-            byte[] valueBytes = padFixLen(columnLen, value);
-            System.arraycopy(valueBytes, 0, output, outputOffset, columnLen);
+            int n = Math.min(valueLen, columnLen);
+            System.arraycopy(value, 0, output, outputOffset, n);
+            Arrays.fill(output, outputOffset + n, outputOffset + columnLen, RowConstants.ROWKEY_PLACE_HOLDER_BYTE);
             return;
         }
 
@@ -88,20 +96,6 @@ public class RowKeyColumnIO {
         }
     }
 
-    private byte[] padFixLen(int length, byte[] valueBytes) {
-        int valLen = valueBytes.length;
-        if (valLen == length) {
-            return valueBytes;
-        } else if (valLen < length) {
-            byte[] newValueBytes = new byte[length];
-            System.arraycopy(valueBytes, 0, newValueBytes, 0, valLen);
-            Arrays.fill(newValueBytes, valLen, length, RowConstants.ROWKEY_PLACE_HOLDER_BYTE);
-            return newValueBytes;
-        } else {
-            return Arrays.copyOf(valueBytes, length);
-        }
-    }
-
     public String readColumnString(TblColRef col, byte[] bytes, int bytesLen) {
         Dictionary<String> dict = getDictionary(col);
         if (dict == null) {
@@ -113,13 +107,17 @@ public class RowKeyColumnIO {
             return Bytes.toString(bytes);
         } else {
             int id = BytesUtil.readUnsigned(bytes, 0, bytesLen);
-            try {
-                String value = dict.getValueFromId(id);
-                return value;
-            } catch (IllegalArgumentException e) {
-                logger.error("Can't get dictionary value for column " + col.getName() + " (id = " + id + ")");
-                return "";
-            }
+            return readColumnString(dict, col, id);
+        }
+    }
+
+    public String readColumnString(Dictionary<String> dict, TblColRef col, int id) {
+        try {
+            String value = dict.getValueFromId(id);
+            return value;
+        } catch (IllegalArgumentException e) {
+            logger.error("Can't get dictionary value for column " + col.getName() + " (id = " + id + ")");
+            return "";
         }
     }
 
@@ -159,7 +157,14 @@ public class RowKeyColumnIO {
         if (forceNoDict)
             return null;
 
-        return (Dictionary<String>) CubeManager.getInstance(seg.getCubeInstance().getConfig()).getDictionary(seg, col);
+        Object dict = dictCache.get(col);
+        if (dict == null) {
+            dict = CubeManager.getInstance(seg.getCubeInstance().getConfig()).getDictionary(seg, col);
+            if (dict == null)
+                dict = NO_DICT;
+            dictCache.put(col, dict);
+        }
+        return dict == NO_DICT ? null : (Dictionary<String>) dict;
     }
 
 }
@@ -16,14 +16,18 @@
 package com.kylinolap.cube.kv;
 
 import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import com.kylinolap.common.util.BytesUtil;
 import com.kylinolap.cube.CubeSegment;
 import com.kylinolap.cube.common.RowKeySplitter;
 import com.kylinolap.cube.common.SplittedBytes;
 import com.kylinolap.cube.cuboid.Cuboid;
+import com.kylinolap.dict.Dictionary;
 import com.kylinolap.metadata.model.cube.CubeDesc;
 import com.kylinolap.metadata.model.cube.TblColRef;
 
@@ -42,11 +46,34 @@ public class RowKeyDecoder {
     private List<String> names;
     private List<String> values;
 
+    // for decodeIds(), values are translated from IDs on demand
+    private Cuboid dictCuboid;
+    private Dictionary<String>[] dicts;
+    private final int[] ids;
+    private final String[] lazyValues;
+    private final boolean[] lazyDecoded;
+    private final List<String> lazyValueList;
+
     public RowKeyDecoder(CubeSegment cubeSegment) {
         this.cubeDesc = cubeSegment.getCubeDesc();
         this.rowKeySplitter = new RowKeySplitter(cubeSegment, 65, 255);
         this.colIO = new RowKeyColumnIO(cubeSegment);
         this.values = new ArrayList<String>();
+
+        this.ids = new int[64];
+        this.lazyValues = new String[64];
+        this.lazyDecoded = new boolean[64];
+        this.lazyValueList = new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return getValue(index);
+            }
+
+            @Override
+            public int size() {
+                return cuboid.getColumns().size();
+            }
+        };
     }
 
     public long decode(byte[] bytes) throws IOException {
@@ -68,6 +95,82 @@ public class RowKeyDecoder {
         return cuboidId;
     }
 
+    /**
+     * Splits the row key but keeps dimension values in their encoded form. For
+     * dictionary columns the ID is available via getValueId(), the String value
+     * is only looked up when getValue() or getLazyValues() asks for it.
+     */
+    public long decodeIds(byte[] bytes) {
+        long cuboidId = rowKeySplitter.split(bytes, bytes.length);
+        initCuboid(cuboidId);
+        initDictionaries();
+
+        SplittedBytes[] splits = rowKeySplitter.getSplitBuffers();
+        int n = this.cuboid.getColumns().size();
+        for (int i = 0; i < n; i++) {
+            SplittedBytes split = splits[i + 1]; // skip cuboid id part
+            ids[i] = dicts[i] == null ? -1 : BytesUtil.readUnsigned(split.value, 0, split.length);
+        }
+        Arrays.fill(lazyDecoded, 0, n, false);
+
+        return cuboidId;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void initDictionaries() {
+        if (dictCuboid == cuboid)
+            return;
+
+        List<TblColRef> columns = cuboid.getColumns();
+        dicts = new Dictionary[columns.size()];
+        for (int i = 0; i < dicts.length; i++) {
+            dicts[i] = colIO.getDictionary(columns.get(i));
+        }
+        dictCuboid = cuboid;
+    }
+
+    /**
+     * @return the dictionary of i-th column of current cuboid, or null if the
+     *         column is not dictionary encoded
+     */
+    public Dictionary<String> getDictionary(int i) {
+        initDictionaries();
+        return dicts[i];
+    }
+
+    /**
+     * @return dictionary ID of i-th column after decodeIds(), or -1 if the
+     *         column is not dictionary encoded
+     */
+    public int getValueId(int i) {
+        return ids[i];
+    }
+
+    /**
+     * @return String value of i-th column after decodeIds(), translated on
+     *         first access
+     */
+    public String getValue(int i) {
+        if (lazyDecoded[i] == false) {
+            if (dicts[i] != null) {
+                lazyValues[i] = colIO.readColumnString(dicts[i], cuboid.getColumns().get(i), ids[i]);
+            } else {
+                SplittedBytes split = rowKeySplitter.getSplitBuffers()[i + 1];
+                lazyValues[i] = colIO.readColumnString(cuboid.getColumns().get(i), split.value, split.length);
+            }
+            lazyDecoded[i] = true;
+        }
+        return lazyValues[i];
+    }
+
+    /**
+     * @return a list view of column values after decodeIds(), each element is
+     *         translated on first access
+     */
+    public List<String> getLazyValues() {
+        return lazyValueList;
+    }
+
     private void initCuboid(long cuboidID) {
         if (this.cuboid != null && this.cuboid.getId() == cuboidID) {
             return;
@@ -33,14 +33,22 @@ public class RowKeyEncoder extends AbstractRowKeyEncoder {
 
     private int bytesLength;
     protected int headerLength;
+    private int shardCount;
     private RowKeyColumnIO colIO;
+    // column plan, resolved once for encoding every row
+    private final TblColRef[] columns;
+    private final int[] columnLengths;
 
     protected RowKeyEncoder(CubeSegment cubeSeg, Cuboid cuboid) {
         super(cuboid);
         colIO = new RowKeyColumnIO(cubeSeg);
-        bytesLength = headerLength = RowConstants.ROWKEY_CUBOIDID_LEN; // header
-        for (TblColRef column : cuboid.getColumns()) {
-            bytesLength += colIO.getColumnLength(column);
+        columns = cuboid.getColumns().toArray(new TblColRef[cuboid.getColumns().size()]);
+        columnLengths = new int[columns.length];
+        shardCount = cubeSeg.getRowKeyShardCount();
+        bytesLength = headerLength = RowKeyShard.getHeaderLength(cubeSeg); // header
+        for (int i = 0; i < columns.length; i++) {
+            columnLengths[i] = colIO.getColumnLength(columns[i]);
+            bytesLength += columnLengths[i];
         }
     }
 
@@ -49,7 +57,7 @@ public class RowKeyEncoder extends AbstractRowKeyEncoder {
     }
 
     public int getColumnOffset(TblColRef col) {
-        int offset = RowConstants.ROWKEY_CUBOIDID_LEN;
+        int offset = headerLength;
 
         for (TblColRef dimCol : cuboid.getColumns()) {
             if (col.equals(dimCol))
@@ -64,6 +72,7 @@ public class RowKeyEncoder extends AbstractRowKeyEncoder {
         return colIO.getColumnLength(col);
     }
 
+    @Override
     public int getRowKeyLength() {
         return bytesLength;
     }
@@ -93,48 +102,50 @@ public class RowKeyEncoder extends AbstractRowKeyEncoder {
     @Override
     public byte[] encode(byte[][] values) {
         byte[] bytes = new byte[this.bytesLength];
-        int offset = fillHeader(bytes, values);
+        encode(values, null, bytes);
+        return bytes;
+    }
 
-        for (int i = 0; i < cuboid.getColumns().size(); i++) {
-            TblColRef column = cuboid.getColumns().get(i);
-            int colLength = colIO.getColumnLength(column);
+    @Override
+    public void encode(byte[][] values, int[] valueLengths, byte[] output) {
+        // header goes last, the shard is hashed from column values
+        int offset = headerLength;
+        for (int i = 0; i < columns.length; i++) {
             byte[] value = values[i];
             if (value == null) {
-                fillColumnValue(column, colLength, null, 0, bytes, offset);
+                fillColumnValue(columns[i], columnLengths[i], null, 0, output, offset);
             } else {
-                fillColumnValue(column, colLength, value, value.length, bytes, offset);
+                int valueLen = valueLengths == null ? value.length : valueLengths[i];
+                fillColumnValue(columns[i], columnLengths[i], value, valueLen, output, offset);
             }
-            offset += colLength;
-
+            offset += columnLengths[i];
         }
-        return bytes;
+
+        fillHeader(output, values);
     }
 
+    /**
+     * called after column values are filled
+     */
     protected int fillHeader(byte[] bytes, byte[][] values) {
-        int offset = 0;
+        int offset = headerLength - RowConstants.ROWKEY_CUBOIDID_LEN;
         System.arraycopy(cuboid.getBytes(), 0, bytes, offset, RowConstants.ROWKEY_CUBOIDID_LEN);
-        offset += RowConstants.ROWKEY_CUBOIDID_LEN;
-        if (this.headerLength != offset) {
-            throw new IllegalStateException("Expected header length is " + headerLength + ". But the offset is " + offset);
-        }
-        return offset;
+        RowKeyShard.fillShard(bytes, bytesLength, shardCount);
+        return headerLength;
     }
 
     protected void fillColumnValue(TblColRef column, int columnLen, byte[] value, int valueLen, byte[] outputValue, int outputValueOffset) {
         // special null value case
         if (value == null) {
-            byte[] valueBytes = defaultValue(columnLen);
-            System.arraycopy(valueBytes, 0, outputValue, outputValueOffset, columnLen);
+            fillDefaultValue(outputValue, outputValueOffset, columnLen);
             return;
         }
 
         colIO.writeColumn(column, value, valueLen, this.blankByte, outputValue, outputValueOffset);
     }
 
-    protected byte[] defaultValue(int length) {
-        byte[] values = new byte[length];
-        Arrays.fill(values, this.blankByte);
-        return values;
+    protected void fillDefaultValue(byte[] output, int offset, int length) {
+        Arrays.fill(output, offset, offset + length, this.blankByte);
     }
 
 }
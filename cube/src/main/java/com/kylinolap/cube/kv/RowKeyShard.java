@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.cube.kv;
+
+import org.apache.hadoop.hbase.util.MurmurHash;
+
+import com.kylinolap.common.util.BytesUtil;
+import com.kylinolap.cube.CubeSegment;
+
+/**
+ * Shard prefix of row key. A segment of shards starts every row key with
+ * ROWKEY_SHARDID_LEN bytes of shard, the hash of dimension bytes after the
+ * cuboid ID modulo shard count, so rows of each cuboid spread evenly across
+ * the shards. The table is split by shard and a scan is done per shard.
+ */
+public class RowKeyShard {
+
+    // keeps the first byte under 0x80, as of a cuboid ID
+    public static final int MAX_SHARD_COUNT = 1 << (RowConstants.ROWKEY_SHARDID_LEN * 8 - 1);
+
+    public static int getShardLength(CubeSegment cubeSeg) {
+        return cubeSeg.getRowKeyShardCount() > 0 ? RowConstants.ROWKEY_SHARDID_LEN : 0;
+    }
+
+    /**
+     * @return length of shard prefix and cuboid ID
+     */
+    public static int getHeaderLength(CubeSegment cubeSeg) {
+        return getShardLength(cubeSeg) + RowConstants.ROWKEY_CUBOIDID_LEN;
+    }
+
+    public static int getShard(byte[] key, int dimOffset, int dimLength, int shardCount) {
+        int hash = MurmurHash.getInstance().hash(key, dimOffset, dimLength, 0);
+        return (hash & Integer.MAX_VALUE) % shardCount;
+    }
+
+    /**
+     * computes the shard of a row key whose cuboid ID and dimensions are in
+     * place, and writes it to the head; does nothing if shardCount is 0
+     */
+    public static void fillShard(byte[] key, int keyLength, int shardCount) {
+        if (shardCount <= 0)
+            return;
+
+        int dimOffset = RowConstants.ROWKEY_SHARDID_LEN + RowConstants.ROWKEY_CUBOIDID_LEN;
+        writeShard(getShard(key, dimOffset, keyLength - dimOffset, shardCount), key, 0);
+    }
+
+    public static void writeShard(int shard, byte[] key, int offset) {
+        BytesUtil.writeUnsigned(shard, key, offset, RowConstants.ROWKEY_SHARDID_LEN);
+    }
+
+    public static int readShard(byte[] key, int offset) {
+        return BytesUtil.readUnsigned(key, offset, RowConstants.ROWKEY_SHARDID_LEN);
+    }
+
+    /**
+     * @return split keys that divide the shards evenly into nRegion regions,
+     *         the first shard of each region but the first; null if only one
+     *         region
+     */
+    public static byte[][] getShardSplitKeys(int shardCount, int nRegion) {
+        nRegion = Math.min(nRegion, shardCount);
+        if (nRegion <= 1)
+            return null;
+
+        byte[][] result = new byte[nRegion - 1][];
+        for (int i = 1; i < nRegion; i++) {
+            result[i - 1] = new byte[RowConstants.ROWKEY_SHARDID_LEN];
+            writeShard((int) ((long) i * shardCount / nRegion), result[i - 1], 0);
+        }
+        return result;
+    }
+}
@@ -58,4 +58,12 @@ public class BigDecimalSerializer extends MeasureSerializer<BigDecimal> {
             return new BigDecimal(Bytes.toString(value));
     }
 
+    @Override
+    public BigDecimal valueOf(byte[] value, int offset, int length) {
+        if (value == null)
+            return new BigDecimal(0);
+        else
+            return new BigDecimal(Bytes.toString(value, offset, length));
+    }
+
 }
@@ -50,4 +50,13 @@ public class DoubleSerializer extends MeasureSerializer<DoubleWritable> {
         return current;
     }
 
+    @Override
+    public DoubleWritable valueOf(byte[] value, int offset, int length) {
+        if (value == null)
+            current.set(0d);
+        else
+            current.set(Double.parseDouble(Bytes.toString(value, offset, length)));
+        return current;
+    }
+
 }
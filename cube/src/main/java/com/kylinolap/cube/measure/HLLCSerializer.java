@@ -62,4 +62,14 @@ public class HLLCSerializer extends MeasureSerializer<HyperLogLogPlusCounter> {
         return current;
     }
 
+    @Override
+    public HyperLogLogPlusCounter valueOf(byte[] value, int offset, int length) {
+        current.clear();
+        if (value == null)
+            current.add("__nUlL__");
+        else
+            current.add(value, offset, length);
+        return current;
+    }
+
 }
@@ -52,4 +52,33 @@ public class LongSerializer extends MeasureSerializer<LongWritable> {
         return current;
     }
 
+    @Override
+    public LongWritable valueOf(byte[] value, int offset, int length) {
+        if (value == null)
+            current.set(0L);
+        else
+            current.set(parseLong(value, offset, length));
+        return current;
+    }
+
+    // plain decimal digits parsed in place, anything else goes to Long.parseLong()
+    private static long parseLong(byte[] bytes, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        boolean negative = length > 0 && bytes[i] == '-';
+        if (negative)
+            i++;
+        if (i == end || end - i > 18) // no overflow under 19 digits
+            return Long.parseLong(Bytes.toString(bytes, offset, length));
+
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9)
+                return Long.parseLong(Bytes.toString(bytes, offset, length));
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
 }
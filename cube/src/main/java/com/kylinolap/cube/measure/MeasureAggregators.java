@@ -77,4 +77,18 @@ public class MeasureAggregators {
         }
     }
 
+    /**
+     * estimated memory of the aggregation states, see
+     * MeasureAggregator.getMemBytes()
+     */
+    public int getMemBytes() {
+        int bytes = 0;
+        for (int i = 0; i < aggs.length; i++) {
+            int b = aggs[i].getMemBytes();
+            if (b > 0)
+                bytes += b;
+        }
+        return bytes;
+    }
+
 }
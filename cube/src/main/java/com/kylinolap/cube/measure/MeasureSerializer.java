@@ -16,6 +16,7 @@
 
 package com.kylinolap.cube.measure;
 
+import java.util.Arrays;
 import java.util.HashMap;
 
 import com.kylinolap.common.util.BytesSerializer;
@@ -57,6 +58,14 @@ abstract public class MeasureSerializer<T> implements BytesSerializer<T> {
 
     abstract public T valueOf(byte[] value);
 
+    /**
+     * Same as valueOf(byte[]) on bytes [offset, offset + length) of the array,
+     * subclass overrides to parse without copying.
+     */
+    public T valueOf(byte[] value, int offset, int length) {
+        return valueOf(value == null ? null : Arrays.copyOfRange(value, offset, offset + length));
+    }
+
     public String toString(T value) {
         if (value == null)
             return "NULL";
@@ -416,6 +416,10 @@ public class ProjectManager {
         ResourceStore store = getStore();
 
         ProjectInstance projectInstance = store.getResource(path, ProjectInstance.class, PROJECT_SERIALIZER);
+        return initProject(projectInstance, triggerUpdate);
+    }
+
+    private synchronized ProjectInstance initProject(ProjectInstance projectInstance, boolean triggerUpdate) {
         projectInstance.init();
 
         if (StringUtils.isBlank(projectInstance.getName()))
@@ -435,7 +439,10 @@ public class ProjectManager {
 
         ProjectInstance projectInstance = store.getResource(path, ProjectInstance.class, PROJECT_SERIALIZER);
         projectInstance.init();
+        loadTables(projectInstance);
+    }
 
+    private synchronized void loadTables(ProjectInstance projectInstance) throws IOException {
         String project = ProjectInstance.getNormalizedProjectName(projectInstance.getName());
         projectTables.removeAll(project);
 
@@ -447,16 +454,15 @@ public class ProjectManager {
 
     private void loadAllProjects() throws IOException {
         ResourceStore store = getStore();
-        List<String> paths = store.collectResourceRecursively(ResourceStore.PROJECT_RESOURCE_ROOT, ".json");
-
         logger.debug("Loading Project from folder " + store.getReadableResourcePath(ResourceStore.PROJECT_RESOURCE_ROOT));
 
-        for (String path : paths) {
-            loadProject(path, false);
-            loadTables(path);
+        List<ProjectInstance> projects = store.getAllResources(ResourceStore.PROJECT_RESOURCE_ROOT, ProjectInstance.class, PROJECT_SERIALIZER);
+        for (ProjectInstance projectInstance : projects) {
+            initProject(projectInstance, false);
+            loadTables(projectInstance);
         }
 
-        logger.debug("Loaded " + paths.size() + " Project(s)");
+        logger.debug("Loaded " + projects.size() + " Project(s)");
     }
 
     private ProjectInstance addCubeToProject(String cubeName, String project, String user) throws IOException {
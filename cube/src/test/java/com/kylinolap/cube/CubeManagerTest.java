@@ -18,6 +18,9 @@ package com.kylinolap.cube;
 
 import static org.junit.Assert.*;
 
+import java.util.Collections;
+import java.util.Map;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -82,6 +85,25 @@ public class CubeManagerTest extends LocalFileMetadataTestCase {
         assertNull(CubeManager.getInstance(this.getTestConfig()).getCube("a_whole_new_cube"));
     }
 
+    @Test
+    public void testCuboidRowCounts() throws Exception {
+        CubeManager cubeMgr = CubeManager.getInstance(this.getTestConfig());
+        CubeInstance cube = cubeMgr.getCube("test_kylin_cube_without_slr_ready");
+        CubeSegment seg = cube.getSegments(CubeSegmentStatusEnum.READY).get(0);
+        assertNull(cube.getCuboidRowCounts());
+
+        seg.setCuboidRowCounts(Collections.singletonMap(255L, 100L));
+        cubeMgr.updateCube(cube);
+        Map<Long, Long> rows = cube.getCuboidRowCounts();
+        assertEquals(Long.valueOf(100), rows.get(255L));
+        // summed once until segments are saved again
+        assertSame(rows, cube.getCuboidRowCounts());
+
+        seg.setCuboidRowCounts(Collections.singletonMap(255L, 50L));
+        cubeMgr.updateCube(cube);
+        assertEquals(Long.valueOf(50), cube.getCuboidRowCounts().get(255L));
+    }
+
     private MetadataManager getMetadataManager() {
         return MetadataManager.getInstance(getTestConfig());
     }
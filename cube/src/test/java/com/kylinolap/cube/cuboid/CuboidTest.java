@@ -17,6 +17,9 @@ package com.kylinolap.cube.cuboid;
 
 import static org.junit.Assert.*;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -113,6 +116,37 @@ public class CuboidTest extends LocalFileMetadataTestCase {
         assertEquals(toLong("11111111"), cuboid.getId());
     }
 
+    @Test
+    public void testFindCheapest() {
+        CubeDesc cube = getTestKylinCubeWithoutSeller();
+        Map<Long, Long> cuboidRows = new HashMap<Long, Long>();
+        cuboidRows.put(toLong("10000010"), 1000L);
+        cuboidRows.put(toLong("11111000"), 10L); // not an ancestor
+        cuboidRows.put(toLong("11111111"), 500L);
+        Cuboid cuboid;
+
+        // no statistics, the default ancestor
+        cuboid = Cuboid.findCheapest(cube, toLong("00000010"), null);
+        assertEquals(toLong("10000010"), cuboid.getId());
+
+        // the ancestor of fewer rows
+        cuboid = Cuboid.findCheapest(cube, toLong("00000010"), cuboidRows);
+        assertEquals(toLong("11111111"), cuboid.getId());
+        assertEquals(toLong("00000010"), cuboid.getInputID());
+        assertTrue(cuboid.requirePostAggregation());
+
+        // a valid cuboid is always itself
+        cuboid = Cuboid.findCheapest(cube, toLong("10000010"), cuboidRows);
+        assertEquals(toLong("10000010"), cuboid.getId());
+        assertFalse(cuboid.useAncestor());
+
+        // no ancestor in statistics
+        cuboidRows.remove(toLong("11111111"));
+        cuboidRows.remove(toLong("10000010"));
+        cuboid = Cuboid.findCheapest(cube, toLong("00000010"), cuboidRows);
+        assertEquals(toLong("10000010"), cuboid.getId());
+    }
+
     @Test
     public void testIsValid2() {
         CubeDesc cube = getTestKylinCubeWithoutSeller();
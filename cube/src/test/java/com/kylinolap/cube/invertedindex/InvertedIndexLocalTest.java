@@ -1,6 +1,7 @@
 package com.kylinolap.cube.invertedindex;
 
 import static org.junit.Assert.*;
+import it.uniroma3.mat.extendedset.intset.ConciseSet;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -8,6 +9,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.commons.io.IOUtils;
@@ -121,6 +123,33 @@ public class InvertedIndexLocalTest extends LocalFileMetadataTestCase {
         dump(recordsCopy);
     }
 
+    @Test
+    public void testBitMapIterator() throws IOException {
+        List<Slice> slices = buildTimeSlices(loadRecordsSorted());
+        Slice slice = slices.get(0);
+        int col = info.getDescriptor().getBitmapColumns()[0];
+        BitMapContainer container = (BitMapContainer) slice.getColumnValueContainer(col);
+
+        // records having the same value as the first record
+        int valueId = container.getValueIntAt(0);
+        ConciseSet bitMap = container.getBitMap(valueId);
+
+        int expected = 0;
+        for (TableRecordBytes rec : slice) {
+            if (rec.getValueID(col) == valueId)
+                expected++;
+        }
+
+        int count = 0;
+        Iterator<TableRecordBytes> it = slice.iterator(bitMap);
+        while (it.hasNext()) {
+            assertEquals(valueId, it.next().getValueID(col));
+            count++;
+        }
+        assertEquals(expected, count);
+        assertEquals(bitMap.size(), count);
+    }
+
     private List<TableRecord> loadRecordsSorted() throws IOException {
         File file = new File(LOCALMETA_TEST_DATA, "data/TEST_KYLIN_FACT.csv");
         FileInputStream in = new FileInputStream(file);
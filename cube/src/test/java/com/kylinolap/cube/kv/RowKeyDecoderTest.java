@@ -66,6 +66,28 @@ public class RowKeyDecoderTest extends LocalFileMetadataTestCase {
 
     }
 
+    @Test
+    public void testDecodeIds() throws Exception {
+        CubeInstance cube = CubeManager.getInstance(this.getTestConfig()).getCube("TEST_KYLIN_CUBE_WITHOUT_SLR_READY");
+
+        RowKeyDecoder rowKeyDecoder = new RowKeyDecoder(cube.getFirstSegment());
+
+        byte[] key = { 0, 0, 0, 0, 0, 0, 0, -1, 11, 55, -13, 13, 22, 34, 121, 70, 80, 45, 71, 84, 67, 9, 9, 9, 9, 9, 9, 0, 10, 5 };
+
+        rowKeyDecoder.decodeIds(key);
+        List<String> values = rowKeyDecoder.getLazyValues();
+
+        assertEquals("FP-GTC", rowKeyDecoder.getValue(5));
+        assertEquals("[2012-12-15, 11848, Health & Beauty, Fragrances, Women, FP-GTC, 0, 15]", values.toString());
+        for (int i = 0; i < values.size(); i++) {
+            if (rowKeyDecoder.getDictionary(i) == null) {
+                assertEquals(-1, rowKeyDecoder.getValueId(i));
+            } else {
+                assertEquals(values.get(i), rowKeyDecoder.getDictionary(i).getValueFromId(rowKeyDecoder.getValueId(i)));
+            }
+        }
+    }
+
     @Test
     public void testDecodeWithSlr() throws Exception {
         CubeInstance cube = CubeManager.getInstance(this.getTestConfig()).getCube("TEST_KYLIN_CUBE_WITH_SLR_READY");
@@ -27,6 +27,7 @@ import org.junit.Test;
 import com.kylinolap.common.util.LocalFileMetadataTestCase;
 import com.kylinolap.cube.CubeInstance;
 import com.kylinolap.cube.CubeManager;
+import com.kylinolap.cube.CubeSegment;
 import com.kylinolap.cube.cuboid.Cuboid;
 import com.kylinolap.metadata.MetadataManager;
 import com.kylinolap.metadata.model.cube.CubeDesc;
@@ -140,4 +141,70 @@ public class RowKeyEncoderTest extends LocalFileMetadataTestCase {
         assertEquals(511, Bytes.toLong(cuboidId));
         assertArrayEquals(new byte[] { -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1 }, rest);
     }
+
+    @Test
+    public void testEncodeIntoBuffer() throws Exception {
+        CubeInstance cube = CubeManager.getInstance(this.getTestConfig()).getCube("TEST_KYLIN_CUBE_WITH_SLR_READY");
+        CubeDesc cubeDesc = cube.getDescriptor();
+        String[] values = { "123456789", "2012-12-15", "11848", "Health & Beauty", "Fragrances", "Women", "FP-GTC", "0", "15" };
+
+        // values are slices of bigger buffers, like split from a flat table row
+        byte[][] data = new byte[values.length][];
+        int[] lengths = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = Bytes.toBytes(values[i]);
+            data[i] = Arrays.copyOf(bytes, 64);
+            Arrays.fill(data[i], bytes.length, 64, (byte) 'x');
+            lengths[i] = bytes.length;
+        }
+        data[5] = null;
+
+        long baseCuboidId = Cuboid.getBaseCuboidId(cubeDesc);
+        Cuboid baseCuboid = Cuboid.findById(cubeDesc, baseCuboidId);
+        AbstractRowKeyEncoder rowKeyEncoder = AbstractRowKeyEncoder.createInstance(cube.getFirstSegment(), baseCuboid);
+
+        byte[] buffer = new byte[rowKeyEncoder.getRowKeyLength()];
+        Arrays.fill(buffer, (byte) 7); // left by a previous row
+        rowKeyEncoder.encode(data, lengths, buffer);
+
+        byte[][] expectedData = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            expectedData[i] = i == 5 ? null : Bytes.toBytes(values[i]);
+        }
+        assertArrayEquals(rowKeyEncoder.encode(expectedData), buffer);
+        assertTrue(Bytes.toString(buffer, 8, 18).startsWith("123456789"));
+    }
+
+    @Test
+    public void testEncodeWithShard() throws Exception {
+        CubeInstance cube = CubeManager.getInstance(this.getTestConfig()).getCube("TEST_KYLIN_CUBE_WITH_SLR_READY");
+        CubeSegment seg = cube.getFirstSegment();
+        CubeDesc cubeDesc = cube.getDescriptor();
+        String[] values = { "123456789", "2012-12-15", "11848", "Health & Beauty", "Fragrances", "Women", "FP-GTC", "0", "15" };
+        byte[][] data = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            data[i] = Bytes.toBytes(values[i]);
+        }
+        Cuboid baseCuboid = Cuboid.findById(cubeDesc, Cuboid.getBaseCuboidId(cubeDesc));
+        byte[] plainKey = new RowKeyEncoder(seg, baseCuboid).encode(data);
+
+        seg.setRowKeyShardCount(16);
+        byte[] shardedKey = new RowKeyEncoder(seg, baseCuboid).encode(data);
+        assertEquals(plainKey.length + 2, shardedKey.length);
+        assertArrayEquals(plainKey, Arrays.copyOfRange(shardedKey, 2, shardedKey.length));
+        int shard = RowKeyShard.readShard(shardedKey, 0);
+        assertTrue(shard >= 0 && shard < 16);
+        assertEquals(RowKeyShard.getShard(plainKey, 8, plainKey.length - 8, 16), shard);
+
+        // the prefix is skipped in decoding
+        RowKeyDecoder decoder = new RowKeyDecoder(seg);
+        assertEquals(511, decoder.decode(shardedKey));
+        assertEquals(Arrays.asList(values), decoder.getValues());
+
+        byte[][] splits = RowKeyShard.getShardSplitKeys(16, 4);
+        assertEquals(3, splits.length);
+        assertEquals(4, RowKeyShard.readShard(splits[0], 0));
+        assertEquals(12, RowKeyShard.readShard(splits[2], 0));
+        assertNull(RowKeyShard.getShardSplitKeys(16, 1));
+    }
 }
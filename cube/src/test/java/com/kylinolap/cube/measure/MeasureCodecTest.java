@@ -65,6 +65,23 @@ public class MeasureCodecTest {
         assertTrue(Arrays.equals(values, copy));
     }
 
+    @Test
+    public void testValueOfSlice() {
+        byte[] bytes = "|-12345|3.25|".getBytes();
+        MeasureSerializer<?> longSer = MeasureSerializer.create("long");
+        assertEquals(new LongWritable(-12345), longSer.valueOf(bytes, 1, 6));
+        assertEquals(new LongWritable(3), longSer.valueOf(bytes, 8, 1));
+        assertEquals(new LongWritable(0), longSer.valueOf(null, 0, 0));
+        assertEquals(new LongWritable(Long.MAX_VALUE), longSer.valueOf(String.valueOf(Long.MAX_VALUE).getBytes(), 0, 19));
+
+        assertEquals(new DoubleWritable(3.25), MeasureSerializer.create("double").valueOf(bytes, 8, 4));
+        assertEquals(new BigDecimal("3.25"), MeasureSerializer.create("decimal").valueOf(bytes, 8, 4));
+
+        HyperLogLogPlusCounter hllc = new HyperLogLogPlusCounter(16);
+        hllc.add("3.25".getBytes());
+        assertEquals(hllc, MeasureSerializer.create("HLLC16").valueOf(bytes, 8, 4));
+    }
+
     private MeasureDesc measure(String returnType) {
         MeasureDesc desc = new MeasureDesc();
         FunctionDesc func = new FunctionDesc();
@@ -160,6 +160,16 @@ public class DateStrDictionary extends Dictionary<String> {
         return dateToString(d, pattern);
     }
 
+    /**
+     * @return number of days since 1970-01-01 of the date an ID stands for,
+     *         same as parsing getValueFromId() but without going through String
+     */
+    public int getEpochDayFromId(int id) {
+        if (id < baseId)
+            throw new IllegalArgumentException("ID '" + id + "' must not be less than base ID " + baseId);
+        return calcSeqNoFromId(id) - 719530;
+    }
+
     private int getNumOfDaysSince0000(Date d) {
         // 86400000 = 1000 * 60 * 60 * 24
         // -719530 is offset of 0000-01-01
@@ -22,13 +22,15 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.apache.hadoop.hbase.util.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Lists;
 import com.kylinolap.common.util.JsonUtil;
 import com.kylinolap.dict.lookup.ReadableTable;
 import com.kylinolap.dict.lookup.TableReader;
@@ -47,8 +49,14 @@ public class DictionaryGenerator {
     private static final String[] DATE_PATTERNS = new String[] { "yyyy-MM-dd" };
 
     public static Dictionary<?> buildDictionaryFromValueList(DictionaryInfo info, List<byte[]> values) {
-        info.setCardinality(values.size());
+        return buildDictionaryFromValues(info, values.iterator());
+    }
 
+    /**
+     * values may repeat, string and number values are streamed into the trie
+     * builder without being held elsewhere
+     */
+    private static Dictionary<?> buildDictionaryFromValues(DictionaryInfo info, Iterator<byte[]> values) {
         Dictionary dict = null;
         int baseId = 0; // always 0 for now
         int nSamples = 5;
@@ -56,12 +64,22 @@ public class DictionaryGenerator {
 
         // build dict, case by data type
         DataType dataType = DataType.getInstance(info.getDataType());
-        if (dataType.isDateTimeFamily())
-            dict = buildDateStrDict(values, baseId, nSamples, samples);
-        else if (dataType.isNumberFamily())
-            dict = buildNumberDict(values, baseId, nSamples, samples);
-        else
-            dict = buildStringDict(values, baseId, nSamples, samples);
+        if (dataType.isDateTimeFamily()) {
+            LinkedHashSet<String> dedup = new LinkedHashSet<String>();
+            while (values.hasNext())
+                dedup.add(Bytes.toString(values.next()));
+            List<byte[]> valueList = new ArrayList<byte[]>(dedup.size());
+            for (String v : dedup)
+                valueList.add(Bytes.toBytes(v));
+            dict = buildDateStrDict(valueList, baseId, nSamples, samples);
+            info.setCardinality(valueList.size());
+        } else {
+            if (dataType.isNumberFamily())
+                dict = buildNumberDict(values, baseId, nSamples, samples);
+            else
+                dict = buildStringDict(values, baseId, nSamples, samples);
+            info.setCardinality(dict.getMaxId() - dict.getMinId() + 1);
+        }
 
         // log a few samples
         StringBuilder buf = new StringBuilder();
@@ -73,8 +91,8 @@ public class DictionaryGenerator {
         logger.info("Dictionary value samples: " + buf.toString());
         logger.info("Dictionary cardinality " + info.getCardinality());
 
-        if (values.size() > DICT_MAX_CARDINALITY)
-            throw new IllegalArgumentException("Too high cardinality is not suitable for dictionary -- " + info.getSourceTable() + "." + info.getSourceColumn() + " cardinality: " + values.size());
+        if (info.getCardinality() > DICT_MAX_CARDINALITY)
+            throw new IllegalArgumentException("Too high cardinality is not suitable for dictionary -- " + info.getSourceTable() + "." + info.getSourceColumn() + " cardinality: " + info.getCardinality());
 
         return dict;
     }
@@ -107,9 +125,14 @@ public class DictionaryGenerator {
 
         logger.info("Building dictionary " + JsonUtil.writeValueAsString(info));
 
-        ArrayList<byte[]> values = loadColumnValues(inpTable, info.getSourceColumnIndex());
-
-        return buildDictionaryFromValueList(info, values);
+        TableReader reader = inpTable.getReader();
+        try {
+            return buildDictionaryFromValues(info, new ColumnValueIterator(reader, info.getSourceColumnIndex()));
+        } catch (ColumnReadException e) {
+            throw e.getCause();
+        } finally {
+            reader.close();
+        }
     }
 
     private static Dictionary buildDateStrDict(List<byte[]> values, int baseId, int nSamples, ArrayList samples) {
@@ -144,10 +167,10 @@ public class DictionaryGenerator {
         throw new IllegalStateException("Unrecognized datetime value");
     }
 
-    private static Dictionary buildStringDict(List<byte[]> values, int baseId, int nSamples, ArrayList samples) {
+    private static Dictionary buildStringDict(Iterator<byte[]> values, int baseId, int nSamples, ArrayList samples) {
         TrieDictionaryBuilder builder = new TrieDictionaryBuilder(new StringBytesConverter());
-        for (byte[] value : values) {
-            String v = Bytes.toString(value);
+        while (values.hasNext()) {
+            String v = Bytes.toString(values.next());
             builder.addValue(v);
             if (samples.size() < nSamples && samples.contains(v) == false)
                 samples.add(v);
@@ -155,10 +178,10 @@ public class DictionaryGenerator {
         return builder.build(baseId);
     }
 
-    private static Dictionary buildNumberDict(List<byte[]> values, int baseId, int nSamples, ArrayList samples) {
+    private static Dictionary buildNumberDict(Iterator<byte[]> values, int baseId, int nSamples, ArrayList samples) {
         NumberDictionaryBuilder builder = new NumberDictionaryBuilder(new StringBytesConverter());
-        for (byte[] value : values) {
-            String v = Bytes.toString(value);
+        while (values.hasNext()) {
+            String v = Bytes.toString(values.next());
             builder.addValue(v);
             if (samples.size() < nSamples && samples.contains(v) == false)
                 samples.add(v);
@@ -166,39 +189,74 @@ public class DictionaryGenerator {
         return builder.build(baseId);
     }
 
-    static ArrayList<byte[]> loadColumnValues(ReadableTable inpTable, int colIndex) throws IOException {
+    /**
+     * reads values of a column row by row, IOException is thrown as
+     * ColumnReadException
+     */
+    private static class ColumnValueIterator implements Iterator<byte[]> {
+        private final TableReader reader;
+        private final int colIndex;
+        private byte[] next;
+
+        ColumnValueIterator(TableReader reader, int colIndex) {
+            this.reader = reader;
+            this.colIndex = colIndex;
+        }
 
-        TableReader reader = inpTable.getReader();
+        @Override
+        public boolean hasNext() {
+            if (next != null)
+                return true;
 
-        try {
-            ArrayList<byte[]> result = Lists.newArrayList();
-            HashSet<String> dedup = new HashSet<String>();
+            try {
+                if (reader.next() == false)
+                    return false;
+            } catch (IOException e) {
+                throw new ColumnReadException(e);
+            }
 
-            while (reader.next()) {
-                String[] split = reader.getRow();
+            String[] split = reader.getRow();
 
-                String colValue;
-                // special single column file, e.g. common_indicator.txt
-                if (split.length == 1) {
-                    colValue = split[0];
-                }
-                // normal case
-                else {
-                    if (split.length <= colIndex) {
-                        throw new ArrayIndexOutOfBoundsException("Column no. " + colIndex + " not found, line split is " + Arrays.asList(split));
-                    }
-                    colValue = split[colIndex];
-                }
-
-                if (dedup.contains(colValue) == false) {
-                    dedup.add(colValue);
-                    result.add(Bytes.toBytes(colValue));
+            String colValue;
+            // special single column file, e.g. common_indicator.txt
+            if (split.length == 1) {
+                colValue = split[0];
+            }
+            // normal case
+            else {
+                if (split.length <= colIndex) {
+                    throw new ArrayIndexOutOfBoundsException("Column no. " + colIndex + " not found, line split is " + Arrays.asList(split));
                 }
+                colValue = split[colIndex];
             }
-            return result;
+            next = Bytes.toBytes(colValue);
+            return true;
+        }
 
-        } finally {
-            reader.close();
+        @Override
+        public byte[] next() {
+            if (hasNext() == false)
+                throw new NoSuchElementException();
+            byte[] r = next;
+            next = null;
+            return r;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static class ColumnReadException extends RuntimeException {
+        ColumnReadException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
         }
     }
 
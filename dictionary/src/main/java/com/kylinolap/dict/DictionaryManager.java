@@ -17,6 +17,7 @@ package com.kylinolap.dict;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -31,6 +32,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.kylinolap.common.KylinConfig;
+import com.kylinolap.common.persistence.ResourceCache;
 import com.kylinolap.common.persistence.ResourceStore;
 import com.kylinolap.common.util.HadoopUtil;
 import com.kylinolap.dict.lookup.FileTable;
@@ -45,8 +47,6 @@ public class DictionaryManager {
 
     private static final Logger logger = LoggerFactory.getLogger(DictionaryManager.class);
 
-    private static final DictionaryInfo NONE_INDICATOR = new DictionaryInfo();
-
     // static cached instances
     private static final ConcurrentHashMap<KylinConfig, DictionaryManager> SERVICE_CACHE = new ConcurrentHashMap<KylinConfig, DictionaryManager>();
 
@@ -69,13 +69,25 @@ public class DictionaryManager {
     // ============================================================================
 
     private KylinConfig config;
-    private ConcurrentHashMap<String, DictionaryInfo> dictCache; // resource
+    private ResourceCache<DictionaryInfo> dictCache; // resource
     // path ==>
     // DictionaryInfo
 
     private DictionaryManager(KylinConfig config) {
         this.config = config;
-        dictCache = new ConcurrentHashMap<String, DictionaryInfo>();
+        dictCache = new ResourceCache<DictionaryInfo>("DictionaryCache", config.getDictionaryCacheMaxBytes(), DictionaryInfoSerializer.FULL_SERIALIZER, new ResourceCache.Loader<DictionaryInfo>() {
+            @Override
+            public DictionaryInfo load(String resourcePath) throws IOException {
+                DictionaryInfo dictInfo = DictionaryManager.this.load(resourcePath, true);
+                if (dictInfo != null)
+                    tuneLoadedDict(dictInfo.getDictionaryObject());
+                return dictInfo;
+            }
+        });
+    }
+
+    public ResourceCache<DictionaryInfo> getDictionaryCache() {
+        return dictCache;
     }
 
     public Dictionary<?> getDictionary(String resourcePath) throws IOException {
@@ -84,14 +96,22 @@ public class DictionaryManager {
     }
 
     public DictionaryInfo getDictionaryInfo(String resourcePath) throws IOException {
-        DictionaryInfo dictInfo = dictCache.get(resourcePath);
-        if (dictInfo == null) {
-            dictInfo = load(resourcePath, true);
-            if (dictInfo == null)
-                dictInfo = NONE_INDICATOR;
-            dictCache.put(resourcePath, dictInfo);
+        return dictCache.get(resourcePath);
+    }
+
+    // apply cache size and off-heap settings to a dictionary that is going to be shared
+    private void tuneLoadedDict(Dictionary<?> dict) throws IOException {
+        if ((dict instanceof TrieDictionary) == false)
+            return;
+
+        TrieDictionary<?> trieDict = (TrieDictionary<?>) dict;
+        trieDict.setCacheMaxEntries(config.getDictionaryCacheMaxEntries());
+
+        int offHeapMinValues = config.getDictionaryOffHeapMinValues();
+        if (offHeapMinValues > 0 && trieDict.getMaxId() - trieDict.getMinId() + 1 >= offHeapMinValues) {
+            String mmapDir = config.getDictionaryOffHeapMmapDir();
+            trieDict.toOffHeap(mmapDir == null ? null : new File(mmapDir));
         }
-        return dictInfo == NONE_INDICATOR ? null : dictInfo;
     }
 
     public DictionaryInfo trySaveNewDict(Dictionary<?> newDict, DictionaryInfo newDictInfo) throws IOException {
@@ -106,6 +126,7 @@ public class DictionaryManager {
         newDictInfo.setDictionaryClass(newDict.getClass().getName());
 
         save(newDictInfo);
+        tuneLoadedDict(newDict); // same as dictionaries loaded from store
         dictCache.put(newDictInfo.getResourcePath(), newDictInfo);
 
         return newDictInfo;
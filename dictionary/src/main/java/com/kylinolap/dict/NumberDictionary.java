@@ -16,6 +16,8 @@
 
 package com.kylinolap.dict;
 
+import java.nio.ByteBuffer;
+
 import org.apache.hadoop.hbase.util.Bytes;
 
 /**
@@ -154,6 +156,10 @@ public class NumberDictionary<T> extends TrieDictionary<T> {
         super(trieBytes);
     }
 
+    public NumberDictionary(ByteBuffer trieBuffer) {
+        super(trieBuffer);
+    }
+
     private NumberBytesCodec getCodec() {
         NumberBytesCodec codec = localCodec.get();
         if (codec == null) {
@@ -19,11 +19,13 @@ import java.io.ByteArrayInputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.lang.ref.SoftReference;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 
 import com.kylinolap.common.util.BytesUtil;
 import org.slf4j.Logger;
@@ -35,8 +37,12 @@ import org.slf4j.LoggerFactory;
  * 
  * With Trie the memory footprint of the mapping is kinda minimized at the cost
  * CPU, if compared to HashMap of ID Arrays. Performance test shows Trie is
- * roughly 10 times slower, so there's a cache layer overlays on top of Trie and
- * gracefully fall back to Trie using a weak reference.
+ * roughly 10 times slower, so there's a bounded cache layer overlays on top of
+ * Trie, see TrieDictionaryCache.
+ * 
+ * The trie is read via a ByteBuffer, which can be a heap buffer (the default),
+ * a direct buffer or a memory mapped file. The latter two keep big
+ * dictionaries out of the java heap, see toOffHeap().
  * 
  * The implementation is thread-safe.
  * 
@@ -53,7 +59,7 @@ public class TrieDictionary<T> extends Dictionary<T> {
 
     private static final Logger logger = LoggerFactory.getLogger(TrieDictionary.class);
 
-    private byte[] trieBytes;
+    private ByteBuffer trie; // absolute get only, position is never touched
 
     // non-persistent part
     transient private int headSize;
@@ -70,25 +76,39 @@ public class TrieDictionary<T> extends Dictionary<T> {
     transient private int childOffsetMask;
     transient private int firstByteOffset;
 
-    transient private boolean enableCache = true;
-    transient private SoftReference<HashMap> valueToIdCache;
-    transient private SoftReference<Object[]> idToValueCache;
+    transient private int cacheMaxEntries = TrieDictionaryCache.DEFAULT_MAX_ENTRIES;
+    transient private TrieDictionaryCache<T> cache;
 
     public TrieDictionary() { // default constructor for Writable interface
     }
 
     public TrieDictionary(byte[] trieBytes) {
-        init(trieBytes);
+        init(ByteBuffer.wrap(trieBytes));
+    }
+
+    /**
+     * Reads the trie from position to limit of the given buffer, which is
+     * typically a direct buffer or a mapped file, see mapTrieFile(). The
+     * buffer must not be modified afterwards.
+     */
+    public TrieDictionary(ByteBuffer trieBuffer) {
+        init(trieBuffer);
     }
 
-    private void init(byte[] trieBytes) {
-        this.trieBytes = trieBytes;
-        if (BytesUtil.compareBytes(HEAD_MAGIC, 0, trieBytes, 0, HEAD_MAGIC.length) != 0)
+    private void init(ByteBuffer trieBuffer) {
+        this.trie = trieBuffer.slice();
+        byte[] magic = new byte[HEAD_MAGIC.length];
+        for (int i = 0; i < magic.length && i < trie.limit(); i++)
+            magic[i] = trie.get(i);
+        if (BytesUtil.compareBytes(HEAD_MAGIC, 0, magic, 0, HEAD_MAGIC.length) != 0)
             throw new IllegalArgumentException("Wrong file type (magic does not match)");
 
         try {
+            byte[] head = new byte[readUnsigned(HEAD_SIZE_I, 2)];
+            for (int i = 0; i < head.length; i++)
+                head[i] = trie.get(i);
             DataInputStream headIn = new DataInputStream( //
-                    new ByteArrayInputStream(trieBytes, HEAD_SIZE_I, trieBytes.length - HEAD_SIZE_I));
+                    new ByteArrayInputStream(head, HEAD_SIZE_I, head.length - HEAD_SIZE_I));
             this.headSize = headIn.readShort();
             this.bodyLen = headIn.readInt();
             this.sizeChildOffset = headIn.read();
@@ -100,7 +120,7 @@ public class TrieDictionary<T> extends Dictionary<T> {
             if (converterName.isEmpty() == false)
                 this.bytesConvert = (BytesConverter<T>) Class.forName(converterName).newInstance();
 
-            this.nValues = BytesUtil.readUnsigned(trieBytes, headSize + sizeChildOffset, sizeNoValuesBeneath);
+            this.nValues = readUnsigned(headSize + sizeChildOffset, sizeNoValuesBeneath);
             this.sizeOfId = BytesUtil.sizeForValue(baseId + nValues + 1); // note
                                                                           // baseId
                                                                           // could
@@ -137,9 +157,77 @@ public class TrieDictionary<T> extends Dictionary<T> {
                 throw new RuntimeException(e);
         }
 
-        if (enableCache) {
-            valueToIdCache = new SoftReference<HashMap>(new HashMap());
-            idToValueCache = new SoftReference<Object[]>(new Object[nValues]);
+        this.cache = cacheMaxEntries > 0 ? new TrieDictionaryCache<T>(nValues, cacheMaxEntries) : null;
+    }
+
+    /**
+     * Resets the cache to hold at most given entries in each direction, or
+     * turns the cache off if maxEntries <= 0.
+     */
+    public void setCacheMaxEntries(int maxEntries) {
+        this.cacheMaxEntries = maxEntries;
+        this.cache = maxEntries > 0 ? new TrieDictionaryCache<T>(nValues, maxEntries) : null;
+    }
+
+    /**
+     * @return the cache with its hit/miss/eviction stats, or null if cache is
+     *         off
+     */
+    public TrieDictionaryCache<T> getCache() {
+        return cache;
+    }
+
+    public boolean isOffHeap() {
+        return trie.isDirect();
+    }
+
+    /**
+     * Moves the trie out of java heap. If mmapDir is given, the trie is written
+     * to a temp file under it and memory mapped, and the file is deleted right
+     * away as the mapping keeps the data, otherwise it is copied to a direct
+     * buffer. Supposed to be called once after load and before the
+     * dictionary is shared between threads.
+     */
+    public void toOffHeap(File mmapDir) throws IOException {
+        if (isOffHeap())
+            return;
+
+        ByteBuffer offHeap;
+        if (mmapDir != null) {
+            mmapDir.mkdirs();
+            File file = File.createTempFile("trie_", ".dict", mmapDir);
+            try {
+                FileOutputStream out = new FileOutputStream(file);
+                try {
+                    out.getChannel().write(trie.duplicate());
+                } finally {
+                    out.close();
+                }
+                offHeap = mapTrieFile(file);
+            } finally {
+                // a mapped file can't be deleted on windows, leave it till exit
+                if (file.delete() == false)
+                    file.deleteOnExit();
+            }
+        } else {
+            offHeap = ByteBuffer.allocateDirect(trie.limit());
+            offHeap.put(trie.duplicate());
+            offHeap.flip();
+        }
+        init(offHeap);
+    }
+
+    /**
+     * Maps a file that holds a serialized trie (as written by write()) into
+     * memory, read only.
+     */
+    public static ByteBuffer mapTrieFile(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close(); // the mapping remains valid after close
         }
     }
 
@@ -165,22 +253,17 @@ public class TrieDictionary<T> extends Dictionary<T> {
 
     @Override
     final protected int getIdFromValueImpl(T value, int roundingFlag) {
-        if (enableCache && roundingFlag == 0) {
-            HashMap cache = valueToIdCache.get(); // SoftReference to skip cache
-                                                  // gracefully when short of
-                                                  // memory
-            if (cache != null) {
-                Integer id = null;
-                id = (Integer) cache.get(value);
-                if (id != null)
-                    return id.intValue();
-
-                byte[] valueBytes = bytesConvert.convertToBytes(value);
-                id = getIdFromValueBytes(valueBytes, 0, valueBytes.length, roundingFlag);
-
-                cache.put(value, id);
+        TrieDictionaryCache<T> cache = this.cache;
+        if (cache != null && roundingFlag == 0) {
+            int id = cache.getId(value);
+            if (id >= 0)
                 return id;
-            }
+
+            byte[] valueBytes = bytesConvert.convertToBytes(value);
+            id = getIdFromValueBytes(valueBytes, 0, valueBytes.length, roundingFlag);
+
+            cache.putId(value, id);
+            return id;
         }
         byte[] valueBytes = bytesConvert.convertToBytes(value);
         return getIdFromValueBytes(valueBytes, 0, valueBytes.length, roundingFlag);
@@ -221,15 +304,16 @@ public class TrieDictionary<T> extends Dictionary<T> {
             // match the current node, note [0] of node's value has been matched
             // when this node is selected by its parent
             int p = n + firstByteOffset; // start of node's value
-            int end = p + BytesUtil.readUnsigned(trieBytes, p - 1, 1); // end of
+            int end = p + readUnsigned(p - 1, 1); // end of
                                                                        // node's
                                                                        // value
             for (p++; p < end && o < inpEnd; p++, o++) { // note matching start
                                                          // from [1]
-                if (trieBytes[p] != inp[o]) {
-                    int comp = BytesUtil.compareByteUnsigned(trieBytes[p], inp[o]);
+                byte b = trie.get(p);
+                if (b != inp[o]) {
+                    int comp = BytesUtil.compareByteUnsigned(b, inp[o]);
                     if (comp < 0) {
-                        seq += BytesUtil.readUnsigned(trieBytes, n + sizeChildOffset, sizeNoValuesBeneath);
+                        seq += readUnsigned(n + sizeChildOffset, sizeNoValuesBeneath);
                     }
                     return roundSeqNo(roundingFlag, seq - 1, -1, seq); // mismatch
                 }
@@ -246,7 +330,7 @@ public class TrieDictionary<T> extends Dictionary<T> {
                 seq++;
 
             // find a child to continue
-            int c = headSize + (BytesUtil.readUnsigned(trieBytes, n, sizeChildOffset) & childOffsetMask);
+            int c = headSize + (readUnsigned(n, sizeChildOffset) & childOffsetMask);
             if (c == headSize) // has no children
                 return roundSeqNo(roundingFlag, seq - 1, -1, seq); // input only
                                                                    // partially
@@ -255,14 +339,14 @@ public class TrieDictionary<T> extends Dictionary<T> {
             int comp;
             while (true) {
                 p = c + firstByteOffset;
-                comp = BytesUtil.compareByteUnsigned(trieBytes[p], inpByte);
+                comp = BytesUtil.compareByteUnsigned(trie.get(p), inpByte);
                 if (comp == 0) { // continue in the matching child, reset n and
                                  // loop again
                     n = c;
                     o++;
                     break;
                 } else if (comp < 0) { // try next child
-                    seq += BytesUtil.readUnsigned(trieBytes, c + sizeChildOffset, sizeNoValuesBeneath);
+                    seq += readUnsigned(c + sizeChildOffset, sizeNoValuesBeneath);
                     if (checkFlag(c, BIT_IS_LAST_CHILD))
                         return roundSeqNo(roundingFlag, seq - 1, -1, seq); // no
                                                                            // child
@@ -273,7 +357,7 @@ public class TrieDictionary<T> extends Dictionary<T> {
                                                                            // byte
                                                                            // of
                                                                            // input
-                    c = p + BytesUtil.readUnsigned(trieBytes, p - 1, 1);
+                    c = p + readUnsigned(p - 1, 1);
                 } else { // children are ordered by their first value byte
                     return roundSeqNo(roundingFlag, seq - 1, -1, seq); // no
                                                                        // child
@@ -300,24 +384,21 @@ public class TrieDictionary<T> extends Dictionary<T> {
 
     @Override
     final protected T getValueFromIdImpl(int id) {
-        if (enableCache) {
-            Object[] cache = idToValueCache.get(); // SoftReference to skip
-                                                   // cache gracefully when
-                                                   // short of memory
-            if (cache != null) {
-                int seq = calcSeqNoFromId(id);
-                if (seq < 0 || seq >= nValues)
-                    throw new IllegalArgumentException("Not a valid ID: " + id);
-                if (cache[seq] != null)
-                    return (T) cache[seq];
-
-                byte[] value = new byte[getSizeOfValue()];
-                int length = getValueBytesFromId(id, value, 0);
-                T result = bytesConvert.convertFromBytes(value, 0, length);
-
-                cache[seq] = result;
+        TrieDictionaryCache<T> cache = this.cache;
+        if (cache != null) {
+            int seq = calcSeqNoFromId(id);
+            if (seq < 0 || seq >= nValues)
+                throw new IllegalArgumentException("Not a valid ID: " + id);
+            T result = cache.getValue(seq);
+            if (result != null)
                 return result;
-            }
+
+            byte[] value = new byte[getSizeOfValue()];
+            int length = getValueBytesFromId(id, value, 0);
+            result = bytesConvert.convertFromBytes(value, 0, length);
+
+            cache.putValue(seq, result);
+            return result;
         }
         byte[] value = new byte[getSizeOfValue()];
         int length = getValueBytesFromId(id, value, 0);
@@ -350,8 +431,9 @@ public class TrieDictionary<T> extends Dictionary<T> {
         while (true) {
             // write current node value
             int p = n + firstByteOffset;
-            int len = BytesUtil.readUnsigned(trieBytes, p - 1, 1);
-            System.arraycopy(trieBytes, p, returnValue, o, len);
+            int len = readUnsigned(p - 1, 1);
+            for (int i = 0; i < len; i++)
+                returnValue[o + i] = trie.get(p + i);
             o += len;
 
             // if the value is ended
@@ -363,12 +445,12 @@ public class TrieDictionary<T> extends Dictionary<T> {
             }
 
             // find a child to continue
-            int c = headSize + (BytesUtil.readUnsigned(trieBytes, n, sizeChildOffset) & childOffsetMask);
+            int c = headSize + (readUnsigned(n, sizeChildOffset) & childOffsetMask);
             if (c == headSize) // has no children
                 return -1; // no child? corrupted dictionary!
             int nValuesBeneath;
             while (true) {
-                nValuesBeneath = BytesUtil.readUnsigned(trieBytes, c + sizeChildOffset, sizeNoValuesBeneath);
+                nValuesBeneath = readUnsigned(c + sizeChildOffset, sizeNoValuesBeneath);
                 if (seq - nValuesBeneath < 0) { // value is under this child,
                                                 // reset n and loop again
                     n = c;
@@ -378,14 +460,24 @@ public class TrieDictionary<T> extends Dictionary<T> {
                     if (checkFlag(c, BIT_IS_LAST_CHILD))
                         return -1; // no more child? corrupted dictionary!
                     p = c + firstByteOffset;
-                    c = p + BytesUtil.readUnsigned(trieBytes, p - 1, 1);
+                    c = p + readUnsigned(p - 1, 1);
                 }
             }
         }
     }
 
     private boolean checkFlag(int offset, int bit) {
-        return (trieBytes[offset] & bit) > 0;
+        return (trie.get(offset) & bit) > 0;
+    }
+
+    // same as BytesUtil.readUnsigned(), but on the trie buffer
+    private int readUnsigned(int offset, int size) {
+        int integer = 0;
+        for (int i = offset, n = offset + size; i < n; i++) {
+            integer <<= 8;
+            integer |= (int) trie.get(i) & 0xFF;
+        }
+        return integer;
     }
 
     private int calcIdFromSeqNo(int seq) {
@@ -401,7 +493,17 @@ public class TrieDictionary<T> extends Dictionary<T> {
 
     @Override
     public void write(DataOutput out) throws IOException {
-        out.write(trieBytes);
+        if (trie.hasArray()) {
+            out.write(trie.array(), trie.arrayOffset(), trie.limit());
+        } else {
+            ByteBuffer src = trie.duplicate();
+            byte[] chunk = new byte[Math.min(src.remaining(), 64 * 1024)];
+            while (src.hasRemaining()) {
+                int n = Math.min(src.remaining(), chunk.length);
+                src.get(chunk, 0, n);
+                out.write(chunk, 0, n);
+            }
+        }
     }
 
     @Override
@@ -422,7 +524,7 @@ public class TrieDictionary<T> extends Dictionary<T> {
         System.arraycopy(headPartial, 0, all, 0, headPartial.length);
         in.readFully(all, headPartial.length, all.length - headPartial.length);
 
-        init(all);
+        init(ByteBuffer.wrap(all));
     }
 
     @Override
@@ -437,7 +539,7 @@ public class TrieDictionary<T> extends Dictionary<T> {
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(trieBytes);
+        return trie.hashCode();
     }
 
     @Override
@@ -447,7 +549,7 @@ public class TrieDictionary<T> extends Dictionary<T> {
             return false;
         }
         TrieDictionary that = (TrieDictionary) o;
-        return Arrays.equals(this.trieBytes, that.trieBytes);
+        return this.trie.equals(that.trie);
     }
 
     public static void main(String[] args) throws Exception {
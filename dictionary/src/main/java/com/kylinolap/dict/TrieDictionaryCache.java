@@ -0,0 +1,150 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.dict;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free cache of ID to value and value to ID lookups on top of
+ * a TrieDictionary.
+ *
+ * Both directions are direct mapped tables of a fixed number of slots. An ID
+ * (sequence number in fact) goes to slot (seq & mask), so as long as the
+ * dictionary is no bigger than the table, IDs never collide. A value goes to
+ * slot by its hash code. A colliding put simply replaces the old entry and is
+ * counted as an eviction. Entries are immutable, reads and writes are single
+ * atomic operations on the slot, no lock is involved.
+ *
+ * Unlike the SoftReference caches this replaces, the footprint is bounded and
+ * does not vanish all at once on a GC.
+ *
+ * @author yangli9
+ */
+public class TrieDictionaryCache<T> {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+
+    private static final class IdEntry<T> {
+        final int seq;
+        final T value;
+
+        IdEntry(int seq, T value) {
+            this.seq = seq;
+            this.value = value;
+        }
+    }
+
+    private static final class ValueEntry<T> {
+        final T value;
+        final int id;
+
+        ValueEntry(T value, int id) {
+            this.value = value;
+            this.id = id;
+        }
+    }
+
+    private final AtomicReferenceArray<IdEntry<T>> idToValue;
+    private final AtomicReferenceArray<ValueEntry<T>> valueToId;
+    private final int mask;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param nValues
+     *            -- number of values in the dictionary
+     * @param maxEntries
+     *            -- the upper bound of slots in each direction
+     */
+    public TrieDictionaryCache(int nValues, int maxEntries) {
+        int size = Math.max(1, Math.min(nValues, maxEntries));
+        int capacity = Integer.highestOneBit(size);
+        if (capacity < size && capacity < (1 << 30))
+            capacity <<= 1;
+
+        this.idToValue = new AtomicReferenceArray<IdEntry<T>>(capacity);
+        this.valueToId = new AtomicReferenceArray<ValueEntry<T>>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return the cached value, or null if missed (trie values are never null)
+     */
+    public T getValue(int seq) {
+        IdEntry<T> e = idToValue.get(seq & mask);
+        if (e != null && e.seq == seq) {
+            hits.incrementAndGet();
+            return e.value;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void putValue(int seq, T value) {
+        IdEntry<T> old = idToValue.getAndSet(seq & mask, new IdEntry<T>(seq, value));
+        if (old != null && old.seq != seq)
+            evictions.incrementAndGet();
+    }
+
+    /**
+     * @return the cached ID, or -1 if missed
+     */
+    public int getId(T value) {
+        ValueEntry<T> e = valueToId.get(slotOf(value));
+        if (e != null && e.value.equals(value)) {
+            hits.incrementAndGet();
+            return e.id;
+        }
+        misses.incrementAndGet();
+        return -1;
+    }
+
+    public void putId(T value, int id) {
+        ValueEntry<T> old = valueToId.getAndSet(slotOf(value), new ValueEntry<T>(value, id));
+        if (old != null && old.value.equals(value) == false)
+            evictions.incrementAndGet();
+    }
+
+    private int slotOf(T value) {
+        int h = value.hashCode();
+        h ^= (h >>> 16);
+        return h & mask;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TrieDictionaryCache [capacity=" + getCapacity() + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+    }
+}
@@ -17,6 +17,9 @@
 package com.kylinolap.dict.lookup;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
@@ -25,6 +28,9 @@ import org.apache.hadoop.fs.Path;
 import com.kylinolap.common.util.HadoopUtil;
 
 /**
+ * A file, or a folder of files read one after another (e.g. output of a MR
+ * job with many reducers).
+ * 
  * @author yangli9
  * 
  */
@@ -51,14 +57,86 @@ public class FileTable implements ReadableTable {
 
     @Override
     public TableReader getReader() throws IOException {
-        return new FileTableReader(path, delim, nColumns);
+        FileSystem fs = HadoopUtil.getFileSystem(path);
+        if (fs.getFileStatus(new Path(path)).isDirectory() == false)
+            return new FileTableReader(path, delim, nColumns);
+
+        return new FolderTableReader(listFiles(fs), delim, nColumns);
     }
 
     @Override
     public TableSignature getSignature() throws IOException {
         FileSystem fs = HadoopUtil.getFileSystem(path);
         FileStatus status = fs.getFileStatus(new Path(path));
-        return new TableSignature(path, status.getLen(), status.getModificationTime());
+        if (status.isDirectory() == false)
+            return new TableSignature(path, status.getLen(), status.getModificationTime());
+
+        long size = 0;
+        long lastModified = status.getModificationTime();
+        for (String file : listFiles(fs)) {
+            FileStatus fileStatus = fs.getFileStatus(new Path(file));
+            size += fileStatus.getLen();
+            lastModified = Math.max(lastModified, fileStatus.getModificationTime());
+        }
+        return new TableSignature(path, size, lastModified);
+    }
+
+    // data files in the folder, without hidden ones like _SUCCESS
+    private List<String> listFiles(FileSystem fs) throws IOException {
+        List<String> files = new ArrayList<String>();
+        for (FileStatus child : fs.listStatus(new Path(path))) {
+            String name = child.getPath().getName();
+            if (child.isDirectory() || name.startsWith("_") || name.startsWith("."))
+                continue;
+            files.add(child.getPath().toString());
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    private static class FolderTableReader implements TableReader {
+        private final List<String> files;
+        private final String delim;
+        private int expectedColumnNumber;
+        private int next;
+        private TableReader current;
+
+        FolderTableReader(List<String> files, String delim, int expectedColumnNumber) {
+            this.files = files;
+            this.delim = delim;
+            this.expectedColumnNumber = expectedColumnNumber;
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            while (current == null || current.next() == false) {
+                close();
+                if (next >= files.size())
+                    return false;
+                current = new FileTableReader(files.get(next++), delim, expectedColumnNumber);
+            }
+            return true;
+        }
+
+        @Override
+        public String[] getRow() {
+            return current.getRow();
+        }
+
+        @Override
+        public void setExpectedColumnNumber(int expectedColumnNumber) {
+            this.expectedColumnNumber = expectedColumnNumber;
+            if (current != null)
+                current.setExpectedColumnNumber(expectedColumnNumber);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                current.close();
+                current = null;
+            }
+        }
     }
 
     @Override
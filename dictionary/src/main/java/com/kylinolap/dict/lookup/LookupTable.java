@@ -19,6 +19,9 @@ package com.kylinolap.dict.lookup;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -33,6 +36,11 @@ import com.kylinolap.metadata.model.schema.TableDesc;
  * An in-memory lookup table, in which each cell is an object of type T. The
  * table is indexed by specified PK for fast lookup.
  * 
+ * For lookup by other columns, the rows are also sorted by a column on first
+ * such lookup, then a value or a range of the column is found by binary
+ * search. The table is not changed after load, so a sorted column is kept for
+ * the life of the table.
+ * 
  * @author yangli9
  */
 abstract public class LookupTable<T extends Comparable<T>> {
@@ -41,6 +49,8 @@ abstract public class LookupTable<T extends Comparable<T>> {
     protected String[] keyColumns;
     protected ReadableTable table;
     protected ConcurrentHashMap<Array<T>, T[]> data;
+    // column index ==> rows sorted by the column, null cells left out
+    private ConcurrentHashMap<Integer, List<T[]>> sortedRows = new ConcurrentHashMap<Integer, List<T[]>>();
 
     public LookupTable(TableDesc tableDesc, String[] keyColumns, ReadableTable table) throws IOException {
         this.tableDesc = tableDesc;
@@ -91,31 +101,93 @@ abstract public class LookupTable<T extends Comparable<T>> {
         return data.values();
     }
 
+    /**
+     * @return rows whose value of the column is one of the given values
+     */
+    public List<T[]> findRows(String col, Collection<T> values) {
+        int colIdx = tableDesc.findColumnByName(col).getZeroBasedIndex();
+        List<T[]> sorted = getSortedRows(colIdx);
+        List<T[]> result = new ArrayList<T[]>();
+        for (T value : new LinkedHashSet<T>(values)) {
+            if (value == null)
+                continue;
+            int from = search(sorted, colIdx, value, true);
+            int to = search(sorted, colIdx, value, false);
+            result.addAll(sorted.subList(from, to));
+        }
+        return result;
+    }
+
+    /**
+     * @return rows whose value of the column is between the given bounds, a
+     *         null bound means unbounded
+     */
+    public List<T[]> findRows(String col, T beginValue, boolean beginInclusive, T endValue, boolean endInclusive) {
+        int colIdx = tableDesc.findColumnByName(col).getZeroBasedIndex();
+        List<T[]> sorted = getSortedRows(colIdx);
+        int from = beginValue == null ? 0 : search(sorted, colIdx, beginValue, beginInclusive);
+        int to = endValue == null ? sorted.size() : search(sorted, colIdx, endValue, endInclusive == false);
+        if (from >= to)
+            return Collections.emptyList();
+        return sorted.subList(from, to);
+    }
+
+    private List<T[]> getSortedRows(final int colIdx) {
+        List<T[]> result = sortedRows.get(colIdx);
+        if (result == null) {
+            ArrayList<T[]> rows = new ArrayList<T[]>(data.size());
+            for (T[] row : data.values()) {
+                if (row[colIdx] != null)
+                    rows.add(row);
+            }
+            Collections.sort(rows, new Comparator<T[]>() {
+                @Override
+                public int compare(T[] r1, T[] r2) {
+                    return r1[colIdx].compareTo(r2[colIdx]);
+                }
+            });
+            result = Collections.unmodifiableList(rows);
+            sortedRows.put(colIdx, result);
+        }
+        return result;
+    }
+
+    // index of the first row whose value is not less than (inclusive) or
+    // greater than (exclusive) the given value
+    private int search(List<T[]> sorted, int colIdx, T value, boolean inclusive) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            int comp = sorted.get(mid)[colIdx].compareTo(value);
+            if (comp < 0 || (comp == 0 && inclusive == false))
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
     public List<T> scan(String col, List<T> values, String returnCol) {
         ArrayList<T> result = new ArrayList<T>();
-        int colIdx = tableDesc.findColumnByName(col).getZeroBasedIndex();
         int returnIdx = tableDesc.findColumnByName(returnCol).getZeroBasedIndex();
-        for (T[] row : data.values()) {
-            if (values.contains(row[colIdx]))
-                result.add(row[returnIdx]);
+        for (T[] row : findRows(col, values)) {
+            result.add(row[returnIdx]);
         }
         return result;
     }
 
     public Pair<T, T> mapRange(String col, T beginValue, T endValue, String returnCol) {
-        int colIdx = tableDesc.findColumnByName(col).getZeroBasedIndex();
         int returnIdx = tableDesc.findColumnByName(returnCol).getZeroBasedIndex();
         T returnBegin = null;
         T returnEnd = null;
-        for (T[] row : data.values()) {
-            if (between(beginValue, row[colIdx], endValue)) {
-                T returnValue = row[returnIdx];
-                if (returnBegin == null || returnValue.compareTo(returnBegin) < 0) {
-                    returnBegin = returnValue;
-                }
-                if (returnEnd == null || returnValue.compareTo(returnEnd) > 0) {
-                    returnEnd = returnValue;
-                }
+        for (T[] row : findRows(col, beginValue, true, endValue, true)) {
+            T returnValue = row[returnIdx];
+            if (returnBegin == null || returnValue.compareTo(returnBegin) < 0) {
+                returnBegin = returnValue;
+            }
+            if (returnEnd == null || returnValue.compareTo(returnEnd) > 0) {
+                returnEnd = returnValue;
             }
         }
         if (returnBegin == null && returnEnd == null)
@@ -125,21 +197,14 @@ abstract public class LookupTable<T extends Comparable<T>> {
     }
 
     public Set<T> mapValues(String col, Set<T> values, String returnCol) {
-        int colIdx = tableDesc.findColumnByName(col).getZeroBasedIndex();
         int returnIdx = tableDesc.findColumnByName(returnCol).getZeroBasedIndex();
         Set<T> result = Sets.newHashSetWithExpectedSize(values.size());
-        for (T[] row : data.values()) {
-            if (values.contains(row[colIdx])) {
-                result.add(row[returnIdx]);
-            }
+        for (T[] row : findRows(col, values)) {
+            result.add(row[returnIdx]);
         }
         return result;
     }
 
-    private boolean between(T beginValue, T v, T endValue) {
-        return (beginValue == null || beginValue.compareTo(v) <= 0) && (endValue == null || v.compareTo(endValue) <= 0);
-    }
-
     public String toString() {
         return "LookupTable [path=" + table + "]";
     }
@@ -24,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.kylinolap.common.KylinConfig;
+import com.kylinolap.common.persistence.ResourceCache;
 import com.kylinolap.common.persistence.ResourceStore;
 import com.kylinolap.metadata.MetadataManager;
 import com.kylinolap.metadata.model.schema.TableDesc;
@@ -53,26 +54,30 @@ public class SnapshotManager {
     // ============================================================================
 
     private KylinConfig config;
-    private ConcurrentHashMap<String, SnapshotTable> snapshotCache; // resource
+    private ResourceCache<SnapshotTable> snapshotCache; // resource
     // path ==>
     // SnapshotTable
 
     private SnapshotManager(KylinConfig config) {
         this.config = config;
-        snapshotCache = new ConcurrentHashMap<String, SnapshotTable>();
+        snapshotCache = new ResourceCache<SnapshotTable>("SnapshotCache", config.getSnapshotCacheMaxBytes(), SnapshotTableSerializer.FULL_SERIALIZER, new ResourceCache.Loader<SnapshotTable>() {
+            @Override
+            public SnapshotTable load(String resourcePath) throws IOException {
+                return SnapshotManager.this.load(resourcePath, true);
+            }
+        });
     }
 
     public void wipeoutCache() {
         snapshotCache.clear();
     }
 
+    public ResourceCache<SnapshotTable> getSnapshotCache() {
+        return snapshotCache;
+    }
+
     public SnapshotTable getSnapshotTable(String resourcePath) throws IOException {
-        SnapshotTable r = snapshotCache.get(resourcePath);
-        if (r == null) {
-            r = load(resourcePath, true);
-            snapshotCache.put(resourcePath, r);
-        }
-        return r;
+        return snapshotCache.get(resourcePath);
     }
 
     public void removeSnapshot(String resourcePath) throws IOException {
@@ -26,6 +26,7 @@ import org.junit.Test;
 
 import com.kylinolap.common.util.JsonUtil;
 import com.kylinolap.common.util.LocalFileMetadataTestCase;
+import com.kylinolap.dict.lookup.TableSignature;
 import com.kylinolap.metadata.MetadataManager;
 import com.kylinolap.metadata.model.cube.CubeDesc;
 import com.kylinolap.metadata.model.cube.TblColRef;
@@ -67,6 +68,21 @@ public class DictionaryManagerTest extends LocalFileMetadataTestCase {
         touchDictValues(info1);
     }
 
+    @Test
+    public void testNewDictTuned() throws Exception {
+        getTestConfig().setProperty("kylin.dictionary.offheap.min.values", "1");
+
+        TrieDictionaryBuilder<String> builder = new TrieDictionaryBuilder<String>(new StringBytesConverter());
+        builder.addValue("a");
+        builder.addValue("b");
+        TrieDictionary<String> dict = builder.build(0);
+        DictionaryInfo info = new DictionaryInfo("TEST_TABLE", "TEST_COLUMN", 0, "varchar", new TableSignature("test_path", 2, System.currentTimeMillis()), "");
+
+        DictionaryInfo saved = dictMgr.trySaveNewDict(dict, info);
+        assertTrue(((TrieDictionary<?>) saved.getDictionaryObject()).isOffHeap());
+        assertTrue(saved == dictMgr.getDictionaryInfo(saved.getResourcePath()));
+    }
+
     @SuppressWarnings("unchecked")
     private void touchDictValues(DictionaryInfo info1) {
         Dictionary<String> dict = (Dictionary<String>) info1.getDictionaryObject();
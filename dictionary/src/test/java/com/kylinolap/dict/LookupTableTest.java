@@ -16,6 +16,14 @@
 
 package com.kylinolap.dict;
 
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.After;
 import org.junit.Before;
@@ -26,6 +34,7 @@ import com.kylinolap.common.util.ByteArray;
 import com.kylinolap.common.util.LocalFileMetadataTestCase;
 import com.kylinolap.dict.lookup.FileTable;
 import com.kylinolap.dict.lookup.LookupBytesTable;
+import com.kylinolap.dict.lookup.LookupStringTable;
 import com.kylinolap.metadata.MetadataManager;
 import com.kylinolap.metadata.model.schema.TableDesc;
 
@@ -67,4 +76,44 @@ public class LookupTableTest extends LocalFileMetadataTestCase {
         Array<ByteArray> key = new Array<ByteArray>(new ByteArray[] { k1, k2 });
         System.out.println(lookup.getRow(key));
     }
+
+    @Test
+    public void testFindRows() throws Exception {
+        TableDesc siteTable = MetadataManager.getInstance(this.getTestConfig()).getTableDesc("TEST_SITES");
+        LookupStringTable lookup = new LookupStringTable(siteTable, new String[] { "SITE_ID" }, new FileTable(LOCALMETA_TEST_DATA + "/data/TEST_SITES.csv", 10));
+        int col = siteTable.findColumnByName("DFAULT_LSTG_CURNCY").getZeroBasedIndex();
+
+        // same as a scan of all rows
+        assertEquals(scan(lookup, col, "1", "1"), siteIds(lookup.findRows("DFAULT_LSTG_CURNCY", Arrays.asList("1"))));
+        assertEquals(scan(lookup, col, "1", "1"), siteIds(lookup.findRows("DFAULT_LSTG_CURNCY", Arrays.asList("1", "1", "no such value"))));
+        assertEquals(scan(lookup, col, "13", "2"), siteIds(lookup.findRows("DFAULT_LSTG_CURNCY", "13", true, "2", true)));
+        assertEquals(scan(lookup, col, "-999", null), siteIds(lookup.findRows("DFAULT_LSTG_CURNCY", "-999", true, null, false)));
+
+        // exclusive bounds
+        Set<String> between = scan(lookup, col, "13", "2");
+        between.removeAll(scan(lookup, col, "13", "13"));
+        between.removeAll(scan(lookup, col, "2", "2"));
+        assertEquals(between, siteIds(lookup.findRows("DFAULT_LSTG_CURNCY", "13", false, "2", false)));
+
+        assertTrue(lookup.findRows("DFAULT_LSTG_CURNCY", "2", true, "13", true).isEmpty());
+        assertEquals(lookup.getAllRows().size(), lookup.findRows("DFAULT_LSTG_CURNCY", null, false, null, false).size());
+    }
+
+    // site IDs of rows whose value of column is between begin and end, null for unbounded
+    private Set<String> scan(LookupStringTable lookup, int col, String begin, String end) {
+        List<String[]> rows = new ArrayList<String[]>();
+        for (String[] row : lookup.getAllRows()) {
+            if ((begin == null || begin.compareTo(row[col]) <= 0) && (end == null || row[col].compareTo(end) <= 0))
+                rows.add(row);
+        }
+        return siteIds(rows);
+    }
+
+    private Set<String> siteIds(List<String[]> rows) {
+        Set<String> result = new HashSet<String>();
+        for (String[] row : rows) {
+            assertTrue(result.add(row[0]));
+        }
+        return result;
+    }
 }
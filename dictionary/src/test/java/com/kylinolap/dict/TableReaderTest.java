@@ -18,13 +18,20 @@ package com.kylinolap.dict;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 
+import com.kylinolap.dict.lookup.FileTable;
 import com.kylinolap.dict.lookup.FileTableReader;
 import com.kylinolap.dict.lookup.ReadableTable;
+import com.kylinolap.dict.lookup.TableReader;
+import com.kylinolap.dict.lookup.TableSignature;
 
 /**
  * @author yangli9
@@ -42,4 +49,35 @@ public class TableReaderTest {
         reader.close();
 
     }
+
+    @Test
+    public void testFolderTable() throws IOException {
+        File dir = File.createTempFile("kylin_table", "");
+        dir.delete();
+        dir.mkdirs();
+        try {
+            FileUtils.writeStringToFile(new File(dir, "part-00000"), "a\nc\n");
+            FileUtils.writeStringToFile(new File(dir, "part-00001"), "b\na\n");
+            FileUtils.writeStringToFile(new File(dir, "_SUCCESS"), "");
+
+            FileTable table = new FileTable(dir.getAbsolutePath(), -1);
+            List<String> values = new ArrayList<String>();
+            TableReader reader = table.getReader();
+            while (reader.next()) {
+                values.add(reader.getRow()[0]);
+            }
+            reader.close();
+            assertEquals(Arrays.asList("a", "c", "b", "a"), values);
+
+            TableSignature signature = table.getSignature();
+            assertEquals(8, signature.getSize());
+
+            DictionaryInfo info = new DictionaryInfo("", "", 0, "string", signature, "");
+            Dictionary<?> dict = DictionaryGenerator.buildDictionary(info, table);
+            assertEquals(3, info.getCardinality());
+            assertEquals(3, dict.getMaxId() - dict.getMinId() + 1);
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
 }
@@ -22,6 +22,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -142,6 +143,73 @@ public class TrieDictionaryTest {
         testStringDictionary(str, null);
     }
 
+    @Test
+    public void offHeapTest() throws Exception {
+        InputStream is = new FileInputStream("src/test/resources/dict/eng_com.dic");
+        ArrayList<String> str = loadStrings(is);
+        TrieDictionary<String> heap = newDictBuilder(str).build(0);
+
+        TrieDictionary<String> direct = testSerialize(heap);
+        direct.toOffHeap(null);
+        assertTrue(direct.isOffHeap());
+        checkSameLookups(heap, direct, str);
+
+        File mmapDir = new File(System.getProperty("java.io.tmpdir"), "trie_dict_test");
+        TrieDictionary<String> mapped = testSerialize(heap);
+        mapped.toOffHeap(mmapDir);
+        assertTrue(mapped.isOffHeap());
+        checkSameLookups(heap, mapped, str);
+        // the temp file is gone once mapped
+        assertEquals(0, mmapDir.list().length);
+
+        // serialize back from off-heap
+        assertEquals(heap, testSerialize(mapped));
+        assertEquals(heap, direct);
+    }
+
+    private static void checkSameLookups(TrieDictionary<String> expect, TrieDictionary<String> actual, ArrayList<String> str) {
+        for (int id = expect.getMinId(); id <= expect.getMaxId(); id++) {
+            assertEquals(expect.getValueFromId(id), actual.getValueFromId(id));
+        }
+        for (String s : str) {
+            assertEquals(expect.getIdFromValue(s), actual.getIdFromValue(s));
+            String probe = s + "~";
+            assertEquals(roundedId(expect, probe, -1), roundedId(actual, probe, -1));
+            assertEquals(roundedId(expect, probe, 1), roundedId(actual, probe, 1));
+        }
+    }
+
+    private static int roundedId(TrieDictionary<String> dict, String value, int roundingFlag) {
+        try {
+            return dict.getIdFromValue(value, roundingFlag);
+        } catch (IllegalArgumentException e) {
+            return -1; // rounded out of range
+        }
+    }
+
+    @Test
+    public void cacheEvictionTest() {
+        ArrayList<String> str = new ArrayList<String>();
+        for (int i = 0; i < 100; i++)
+            str.add("v" + i);
+        TrieDictionary<String> dict = newDictBuilder(str).build(0);
+        dict.setCacheMaxEntries(16);
+        TrieDictionaryCache<String> cache = dict.getCache();
+        assertEquals(16, cache.getCapacity());
+
+        for (int round = 0; round < 2; round++) {
+            for (int id = dict.getMinId(); id <= dict.getMaxId(); id++) {
+                assertEquals(id, dict.getIdFromValue(dict.getValueFromId(id)));
+            }
+        }
+        assertEquals(400, cache.getHitCount() + cache.getMissCount());
+        assertTrue(cache.getEvictionCount() > 0);
+
+        dict.setCacheMaxEntries(0);
+        assertNull(dict.getCache());
+        assertEquals("v42", dict.getValueFromId(dict.getIdFromValue("v42")));
+    }
+
     private static void benchmarkStringDictionary(ArrayList<String> str) throws UnsupportedEncodingException {
         TrieDictionaryBuilder<String> b = newDictBuilder(str);
         b.stats().print();
@@ -117,6 +117,15 @@ public abstract class KylinConnectionImpl extends AvaticaConnection {
         return (isSsl ? "https://" : "http://") + this.baseUrl + ":" + (isSsl ? 443 : 80) + "/kylin/api/query";
     }
 
+    /**
+     * whether to take query result rows as server sends them, by connection
+     * property "stream", default false as streamed results skip the server
+     * query cache
+     */
+    public boolean isStreamingResult() {
+        return Boolean.parseBoolean(this.info.getProperty("stream", "false"));
+    }
+
     public String getProject() {
         return this.project;
     }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kylinolap.jdbc;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import net.hydromatic.avatica.ColumnMetaData;
+import net.hydromatic.linq4j.Enumerator;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.kylinolap.jdbc.stub.SQLResponseStub;
+import com.kylinolap.jdbc.stub.SQLResponseStub.ColumnMetaStub;
+import com.kylinolap.jdbc.util.SQLTypeMap;
+
+/**
+ * Enumerates rows of a streamed query response while they arrive. The
+ * response is a SQLResponse JSON with the column metas first, then the
+ * results, then the rest.
+ */
+public class KylinStreamEnumerator implements Enumerator<Object[]> {
+
+    private final JsonParser parser;
+    private final List<ColumnMetaData> metas;
+    private final Closeable source;
+
+    private Object[] current;
+    private boolean done = false;
+
+    /**
+     * @param parser
+     *            positioned in results array, see readHeader()
+     * @param source
+     *            closed when rows are exhausted or enumerator is closed
+     */
+    public KylinStreamEnumerator(JsonParser parser, List<ColumnMetaData> metas, Closeable source) {
+        this.parser = parser;
+        this.metas = metas;
+        this.source = source;
+    }
+
+    /**
+     * reads response till the start of results, returns what has been read
+     */
+    public static SQLResponseStub readHeader(JsonParser parser) throws IOException {
+        SQLResponseStub header = new SQLResponseStub();
+        if (parser.nextToken() != JsonToken.START_OBJECT)
+            throw new IOException("Unexpected query response, " + parser.getCurrentToken());
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("columnMetas".equals(field)) {
+                List<ColumnMetaStub> columnMetas = parser.readValueAs(new TypeReference<List<ColumnMetaStub>>() {
+                });
+                header.setColumnMetas(columnMetas);
+            } else if ("results".equals(field)) {
+                return header;
+            } else {
+                parser.skipChildren();
+            }
+        }
+        throw new IOException("No results in query response");
+    }
+
+    @Override
+    public Object[] current() {
+        return current;
+    }
+
+    @Override
+    public boolean moveNext() {
+        if (done)
+            return false;
+
+        try {
+            if (parser.nextToken() == JsonToken.START_ARRAY) {
+                current = readRow();
+                return true;
+            }
+
+            // end of results, the rest tells whether query failed half way
+            readTrailer();
+            close();
+            return false;
+        } catch (IOException e) {
+            close();
+            throw new RuntimeException("Failed to read query result", e);
+        }
+    }
+
+    private Object[] readRow() throws IOException {
+        Object[] row = new Object[metas.size()];
+        int i = 0;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            String value = parser.getCurrentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+            row[i] = SQLTypeMap.wrapObject(value, metas.get(i).type.type);
+            i++;
+        }
+        return row;
+    }
+
+    private void readTrailer() throws IOException {
+        boolean isException = false;
+        String exceptionMessage = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("isException".equals(field)) {
+                isException = parser.getBooleanValue();
+            } else if ("exceptionMessage".equals(field)) {
+                exceptionMessage = parser.getCurrentToken() == JsonToken.VALUE_NULL ? null : parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (isException) {
+            close();
+            throw new RuntimeException("Query failed after some rows returned: " + exceptionMessage);
+        }
+    }
+
+    @Override
+    public void reset() {
+        throw new UnsupportedOperationException("A streamed result can not be reset");
+    }
+
+    @Override
+    public void close() {
+        done = true;
+        current = null;
+        closeQuietly(parser);
+        closeQuietly(source);
+    }
+
+    private static void closeQuietly(Closeable c) {
+        try {
+            c.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+}
@@ -16,6 +16,7 @@
 
 package com.kylinolap.jdbc.stub;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -37,12 +38,14 @@ import org.apache.commons.httpclient.protocol.ProtocolSocketFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.HashMultimap;
 import com.kylinolap.jdbc.KylinConnectionImpl;
 import com.kylinolap.jdbc.KylinEnumerator;
+import com.kylinolap.jdbc.KylinStreamEnumerator;
 import com.kylinolap.jdbc.KylinJdbc41Factory.KylinJdbc41PreparedStatement;
 import com.kylinolap.jdbc.KylinMetaImpl.MetaCatalog;
 import com.kylinolap.jdbc.KylinMetaImpl.MetaColumn;
@@ -179,6 +182,12 @@ public class KylinClient implements RemoteClient {
             params = genPrestateStates(statement);
         }
 
+        if (conn.isStreamingResult()) {
+            DataSet<Object[]> result = streamKylinQuery(sql, params);
+            if (result != null)
+                return result;
+        }
+
         queryRes = runKylinQuery(sql, params);
 
         List<ColumnMetaData> metas = genColumnMeta(queryRes);
@@ -241,12 +250,83 @@ public class KylinClient implements RemoteClient {
         return metas;
     }
 
+    /**
+     * rows are read from response as they arrive, the result set is
+     * returned once column metas are received
+     * 
+     * @return null if server does not support streaming
+     */
+    private DataSet<Object[]> streamKylinQuery(String sql, List<StateParam> params) throws SQLException {
+        final PostMethod post = executeKylinQuery(sql, params, true);
+
+        try {
+            if (post.getStatusCode() == 404 || post.getStatusCode() == 405) {
+                logger.debug("Server does not support result streaming, status code " + post.getStatusCode());
+                post.releaseConnection();
+                return null;
+            }
+
+            if (post.getStatusCode() != 200 && post.getStatusCode() != 201) {
+                String response = post.getResponseBodyAsString();
+                post.releaseConnection();
+                logger.error("Failed to query", response);
+                throw new SQLException(response);
+            }
+
+            JsonParser parser = new ObjectMapper().getFactory().createParser(post.getResponseBodyAsStream());
+            List<ColumnMetaData> metas = genColumnMeta(KylinStreamEnumerator.readHeader(parser));
+
+            return new DataSet<Object[]>(metas, new KylinStreamEnumerator(parser, metas, new Closeable() {
+                @Override
+                public void close() {
+                    // don't drain the rest of response when closed early
+                    post.abort();
+                    post.releaseConnection();
+                }
+            }));
+        } catch (IOException e) {
+            post.abort();
+            post.releaseConnection();
+            logger.error(e.getLocalizedMessage(), e);
+            throw new SQLException(e.getLocalizedMessage());
+        }
+    }
+
     /**
      * @param sql
      * @return
      * @throws IOException
      */
     private SQLResponseStub runKylinQuery(String sql, List<StateParam> params) throws SQLException {
+        PostMethod post = executeKylinQuery(sql, params, false);
+        String response = null;
+        SQLResponseStub queryRes = null;
+
+        try {
+            response = post.getResponseBodyAsString();
+
+            if (post.getStatusCode() != 200 && post.getStatusCode() != 201) {
+                logger.error("Failed to query", response);
+                throw new SQLException(response);
+            }
+
+            queryRes = new ObjectMapper().readValue(response, SQLResponseStub.class);
+
+        } catch (IOException e) {
+            logger.error(e.getLocalizedMessage(), e);
+            throw new SQLException(e.getLocalizedMessage());
+        } finally {
+            post.releaseConnection();
+        }
+
+        return queryRes;
+    }
+
+    /**
+     * posts the query, returns the executed method for caller to read
+     * response
+     */
+    private PostMethod executeKylinQuery(String sql, List<StateParam> params, boolean stream) throws SQLException {
         String url = conn.getQueryUrl();
         String project = conn.getProject();
         QueryRequest request = null;
@@ -258,6 +338,9 @@ public class KylinClient implements RemoteClient {
         } else {
             request = new QueryRequest();
         }
+        if (stream) {
+            url += "/stream";
+        }
         request.setSql(sql);
         request.setProject(project);
 
@@ -276,23 +359,12 @@ public class KylinClient implements RemoteClient {
         } catch (JsonProcessingException e) {
             logger.error(e.getLocalizedMessage(), e);
         }
-        String response = null;
-        SQLResponseStub queryRes = null;
 
         try {
             StringRequestEntity requestEntity = new StringRequestEntity(postBody, "application/json", "UTF-8");
             post.setRequestEntity(requestEntity);
 
             httpClient.executeMethod(post);
-            response = post.getResponseBodyAsString();
-
-            if (post.getStatusCode() != 200 && post.getStatusCode() != 201) {
-                logger.error("Failed to query", response);
-                throw new SQLException(response);
-            }
-
-            queryRes = new ObjectMapper().readValue(response, SQLResponseStub.class);
-
         } catch (HttpException e) {
             logger.error(e.getLocalizedMessage(), e);
             throw new SQLException(e.getLocalizedMessage());
@@ -301,7 +373,7 @@ public class KylinClient implements RemoteClient {
             throw new SQLException(e.getLocalizedMessage());
         }
 
-        return queryRes;
+        return post;
     }
 
     private void addPostHeaders(HttpMethodBase method) {
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.kylinolap.jdbc;
+
+import static org.junit.Assert.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.hydromatic.avatica.ColumnMetaData;
+import net.hydromatic.avatica.ColumnMetaData.Rep;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kylinolap.jdbc.stub.SQLResponseStub;
+
+public class KylinStreamEnumeratorTest {
+
+    static final String HEADER = "{\"columnMetas\":[{\"name\":\"NAME\",\"columnType\":12},{\"name\":\"CNT\",\"columnType\":4}],\"results\":[";
+
+    boolean sourceClosed = false;
+
+    Closeable source = new Closeable() {
+        @Override
+        public void close() throws IOException {
+            sourceClosed = true;
+        }
+    };
+
+    @Test
+    public void testRows() throws IOException {
+        KylinStreamEnumerator enumerator = open(HEADER + "[\"foo\",\"1\"],[\"bar\",null]],\"cube\":\"test_cube\",\"isException\":false,\"exceptionMessage\":null,\"duration\":10}");
+
+        assertTrue(enumerator.moveNext());
+        assertArrayEquals(new Object[] { "foo", 1 }, enumerator.current());
+        assertTrue(enumerator.moveNext());
+        assertArrayEquals(new Object[] { "bar", null }, enumerator.current());
+        assertFalse(sourceClosed);
+
+        assertFalse(enumerator.moveNext());
+        assertTrue(sourceClosed);
+        assertFalse(enumerator.moveNext());
+    }
+
+    @Test
+    public void testFailedHalfWay() throws IOException {
+        KylinStreamEnumerator enumerator = open(HEADER + "[\"foo\",\"1\"]],\"isException\":true,\"exceptionMessage\":\"scan timeout\"}");
+
+        assertTrue(enumerator.moveNext());
+        try {
+            enumerator.moveNext();
+            fail("failure after rows must not look like end of result");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("scan timeout"));
+        }
+        assertTrue(sourceClosed);
+    }
+
+    @Test
+    public void testCloseEarly() throws IOException {
+        KylinStreamEnumerator enumerator = open(HEADER + "[\"foo\",\"1\"],[\"bar\",\"2\"]],\"isException\":false}");
+
+        assertTrue(enumerator.moveNext());
+        enumerator.close();
+        assertTrue(sourceClosed);
+        assertFalse(enumerator.moveNext());
+        assertNull(enumerator.current());
+    }
+
+    @Test(expected = IOException.class)
+    public void testNoResults() throws IOException {
+        open("{\"isException\":true,\"exceptionMessage\":\"table not found\"}");
+    }
+
+    private KylinStreamEnumerator open(String json) throws IOException {
+        JsonParser parser = new ObjectMapper().getFactory().createParser(json);
+        SQLResponseStub header = KylinStreamEnumerator.readHeader(parser);
+        assertEquals(2, header.getColumnMetas().size());
+
+        List<ColumnMetaData> metas = new ArrayList<ColumnMetaData>();
+        metas.add(ColumnMetaData.dummy(ColumnMetaData.scalar(Types.VARCHAR, "varchar", Rep.STRING), true));
+        metas.add(ColumnMetaData.dummy(ColumnMetaData.scalar(Types.INTEGER, "integer", Rep.INTEGER), true));
+        return new KylinStreamEnumerator(parser, metas, source);
+    }
+}
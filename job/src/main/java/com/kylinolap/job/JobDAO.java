@@ -17,8 +17,11 @@ package com.kylinolap.job;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
@@ -34,6 +37,12 @@ import com.kylinolap.job.constant.JobStepStatusEnum;
 import com.kylinolap.metadata.MetadataManager;
 
 /**
+ * Jobs are indexed in memory by status and cube, list of certain status or
+ * cube only reads the jobs it returns. The index is loaded from store once and
+ * kept in sync on write and delete; a list also re-reads the jobs not yet
+ * FINISHED or DISCARDED, in case another process changed them. Jobs created
+ * by another process show up after reloadJobIndex() or listAllJobs().
+ * 
  * @author ysong1
  */
 public class JobDAO {
@@ -44,6 +53,10 @@ public class JobDAO {
 
     private ResourceStore store;
 
+    // job resource path ==> status & cube of the job
+    private final ConcurrentHashMap<String, JobIndexEntry> jobIndex = new ConcurrentHashMap<String, JobIndexEntry>();
+    private volatile boolean jobIndexLoaded = false;
+
     private static final Logger logger = LoggerFactory.getLogger(JobDAO.class);
 
     private static final ConcurrentHashMap<KylinConfig, JobDAO> CACHE = new ConcurrentHashMap<KylinConfig, JobDAO>();
@@ -67,61 +80,103 @@ public class JobDAO {
     }
 
     public List<JobInstance> listAllJobs() throws IOException {
-        ArrayList<String> jobResources = store.listResources(ResourceStore.JOB_PATH_ROOT);
-        if (jobResources == null)
-            return Collections.emptyList();
-
-        ArrayList<JobInstance> result = new ArrayList<JobInstance>(jobResources.size());
-        for (String path : jobResources) {
-            JobInstance job = readJobResource(path);
-            if (job != null) {
-                result.add(job);
+        List<JobInstance> result = store.getAllResources(ResourceStore.JOB_PATH_ROOT, JobInstance.class, JOB_SERIALIZER);
+        synchronized (jobIndex) {
+            jobIndex.clear();
+            for (JobInstance job : result) {
+                jobIndex.put(pathOfJob(job), new JobIndexEntry(job));
             }
+            jobIndexLoaded = true;
         }
 
         return result;
     }
 
     public List<JobInstance> listAllJobs(String cubeName) throws IOException {
+        return listAllJobs(cubeName, null);
+    }
+
+    public List<JobInstance> listAllJobs(JobStatusEnum status) throws IOException {
+        return listAllJobs(null, Collections.singleton(status));
+    }
 
-        List<JobInstance> allJobs = listAllJobs();
-        if (allJobs.size() == 0) {
-            return Collections.emptyList();
+    /**
+     * @param cubeName
+     *            null or empty for all cubes
+     * @param statusList
+     *            null or empty for all status
+     */
+    public List<JobInstance> listAllJobs(String cubeName, Collection<JobStatusEnum> statusList) throws IOException {
+        if (cubeName != null && cubeName.trim().length() == 0) {
+            cubeName = null;
+        }
+        if (statusList != null && statusList.isEmpty()) {
+            statusList = null;
         }
 
-        if (null == cubeName || cubeName.trim().length() == 0) {
-            return allJobs;
+        if (jobIndexLoaded == false) {
+            reloadJobIndex();
         }
 
+        // read the matching ones, and the not yet final ones whose status may have changed, in one batch
+        List<String> toRead = new ArrayList<String>();
+        for (Map.Entry<String, JobIndexEntry> entry : jobIndex.entrySet()) {
+            if (entry.getValue().isFinal() == false || entry.getValue().matches(cubeName, statusList))
+                toRead.add(entry.getKey());
+        }
+        List<JobInstance> jobs = store.getResources(toRead, JobInstance.class, JOB_SERIALIZER);
+
         ArrayList<JobInstance> result = new ArrayList<JobInstance>();
-        for (JobInstance job : allJobs) {
-            if (job != null) {
-                if (job.getRelatedCube().equalsIgnoreCase(cubeName)) {
-                    result.add(job);
-                }
+        for (int i = 0; i < toRead.size(); i++) {
+            String path = toRead.get(i);
+            JobInstance job = jobs.get(i);
+            if (job == null) {
+                jobIndex.remove(path);
+                continue;
+            }
+
+            JobIndexEntry entry = new JobIndexEntry(job);
+            jobIndex.put(path, entry);
+            if (entry.matches(cubeName, statusList)) {
+                result.add(job);
             }
         }
 
         return result;
     }
 
-    public List<JobInstance> listAllJobs(JobStatusEnum status) throws IOException {
+    /**
+     * rebuilds the index from all the jobs in store, only the status and cube
+     * of a FINISHED or DISCARDED job already indexed are not read again
+     */
+    public void reloadJobIndex() throws IOException {
+        synchronized (jobIndex) {
+            ArrayList<String> jobResources = store.listResources(ResourceStore.JOB_PATH_ROOT);
+            if (jobResources == null) {
+                jobIndex.clear();
+                jobIndexLoaded = true;
+                return;
+            }
 
-        List<JobInstance> allJobs = listAllJobs();
-        if (allJobs.size() == 0) {
-            return Collections.emptyList();
-        }
+            jobIndex.keySet().retainAll(new HashSet<String>(jobResources));
 
-        ArrayList<JobInstance> result = new ArrayList<JobInstance>();
-        for (JobInstance job : allJobs) {
-            if (job != null) {
-                if (job.getStatus().equals(status)) {
-                    result.add(job);
+            List<String> toRead = new ArrayList<String>();
+            for (String path : jobResources) {
+                JobIndexEntry entry = jobIndex.get(path);
+                if (entry == null || entry.isFinal() == false)
+                    toRead.add(path);
+            }
+            List<JobInstance> jobs = store.getResources(toRead, JobInstance.class, JOB_SERIALIZER);
+            for (int i = 0; i < toRead.size(); i++) {
+                JobInstance job = jobs.get(i);
+                if (job == null) {
+                    jobIndex.remove(toRead.get(i));
+                } else {
+                    jobIndex.put(toRead.get(i), new JobIndexEntry(job));
                 }
             }
+            jobIndexLoaded = true;
         }
-
-        return result;
     }
 
     public JobStepOutput getJobOutput(String jobUuid, int stepSequenceId) throws IOException {
@@ -150,6 +205,7 @@ public class JobDAO {
 
     private void saveJob(JobInstance job) throws IOException {
         writeJobResource(pathOfJob(job), job);
+        jobIndex.put(pathOfJob(job), new JobIndexEntry(job));
     }
 
     public JobInstance getJob(String uuid) throws IOException {
@@ -157,11 +213,13 @@ public class JobDAO {
     }
 
     public void deleteJob(JobInstance job) throws IOException {
-        store.deleteResource(pathOfJob(job));
+        deleteJob(job.getUuid());
     }
 
     public void deleteJob(String uuid) throws IOException {
-        store.deleteResource(ResourceStore.JOB_PATH_ROOT + "/" + uuid);
+        String path = ResourceStore.JOB_PATH_ROOT + "/" + uuid;
+        store.deleteResource(path);
+        jobIndex.remove(path);
     }
 
     public void updateJobInstance(JobInstance jobInstance) throws IOException {
@@ -237,4 +295,24 @@ public class JobDAO {
     private void writeJobOutputResource(String path, JobStepOutput output) throws IOException {
         store.putResource(path, output, JOB_OUTPUT_SERIALIZER);
     }
+
+    private static class JobIndexEntry {
+        final JobStatusEnum status;
+        final String cubeName;
+
+        JobIndexEntry(JobInstance job) {
+            this.status = job.getStatus();
+            this.cubeName = job.getRelatedCube();
+        }
+
+        boolean isFinal() {
+            return status == JobStatusEnum.FINISHED || status == JobStatusEnum.DISCARDED;
+        }
+
+        boolean matches(String cube, Collection<JobStatusEnum> statusList) {
+            if (cube != null && cube.equalsIgnoreCase(cubeName) == false)
+                return false;
+            return statusList == null || statusList.contains(status);
+        }
+    }
 }
@@ -214,14 +214,19 @@ public class JobInstanceBuilder {
         final String cuboidTmpRootPath = jobWorkingDir + "/" + cubeName + "/tmp_cuboid/";
         final boolean incBuildMerge = cube.needMergeImmediatelyAfterBuild(cubeSegment);
 
-        String[] cuboidOutputTempPath = getCuboidOutputPaths(incBuildMerge?cuboidTmpRootPath:cuboidRootPath, totalRowkeyColumnsCount, groupRowkeyColumnsCount);
-        // base cuboid step
-        result.add(createBaseCuboidStep(jobInstance, stepSeqNum++, cuboidOutputTempPath));
-
-        // n dim cuboid steps
-        for (int i = 1; i <= groupRowkeyColumnsCount; i++) {
-            int dimNum = totalRowkeyColumnsCount - i;
-            result.add(createNDimensionCuboidStep(jobInstance, stepSeqNum++, cuboidOutputTempPath, dimNum, totalRowkeyColumnsCount));
+        if (isInMemCubing(totalRowkeyColumnsCount)) {
+            // all cuboids in one step
+            result.add(createInMemCubeStep(jobInstance, stepSeqNum++, (incBuildMerge ? cuboidTmpRootPath : cuboidRootPath) + "all_cuboid"));
+        } else {
+            String[] cuboidOutputTempPath = getCuboidOutputPaths(incBuildMerge ? cuboidTmpRootPath : cuboidRootPath, totalRowkeyColumnsCount, groupRowkeyColumnsCount);
+            // base cuboid step
+            result.add(createBaseCuboidStep(jobInstance, stepSeqNum++, cuboidOutputTempPath));
+
+            // n dim cuboid steps
+            for (int i = 1; i <= groupRowkeyColumnsCount; i++) {
+                int dimNum = totalRowkeyColumnsCount - i;
+                result.add(createNDimensionCuboidStep(jobInstance, stepSeqNum++, cuboidOutputTempPath, dimNum, totalRowkeyColumnsCount));
+            }
         }
 
         if (incBuildMerge) {
@@ -288,7 +293,7 @@ public class JobInstanceBuilder {
     private JobStep createIntermediateHiveTableStep(JobInstance jobInstance, int stepSeqNum) throws IOException {
         JoinedFlatTableDesc intermediateTableDesc = new JoinedFlatTableDesc(cube.getDescriptor(), this.cubeSegment);
         String dropTableHql = JoinedFlatTable.generateDropTableStatement(intermediateTableDesc, jobUUID);
-        String createTableHql = JoinedFlatTable.generateCreateTableStatement(intermediateTableDesc, jobWorkingDir, jobUUID);
+        String createTableHql = JoinedFlatTable.generateCreateTableStatement(intermediateTableDesc, jobWorkingDir, jobUUID, isFlatTableOrc());
         String insertDataHql = JoinedFlatTable.generateInsertDataStatement(intermediateTableDesc, jobUUID, this.engineConfig);
 
         JobStep intermediateHiveTableStep = new JobStep();
@@ -318,6 +323,9 @@ public class JobInstanceBuilder {
 
         inputLocation = getIntermediateHiveTablePath();
         cmd = appendMapReduceParameters(cmd, jobInstance);
+        if (isFlatTableOrc()) {
+            cmd = appendExecCmdParameters(cmd, "inputformat", "orc");
+        }
 
         factDistinctColumnsStep.setName(JobConstants.STEP_NAME_FACT_DISTINCT_COLUMNS);
 
@@ -344,6 +352,9 @@ public class JobInstanceBuilder {
         if (this.engineConfig.isFlatTableByHive()) {
             inputLocation = getIntermediateHiveTablePath();
             cmd = appendMapReduceParameters(cmd, jobInstance);
+            if (isFlatTableOrc()) {
+                cmd = appendExecCmdParameters(cmd, "inputformat", "orc");
+            }
         } else {
             HiveTable factTableInHive = new HiveTable(MetadataManager.getInstance(this.engineConfig.getConfig()), cube.getDescriptor().getFactTable());
             inputLocation = factTableInHive.getHDFSLocation(false);
@@ -368,6 +379,50 @@ public class JobInstanceBuilder {
         return baseCuboidStep;
     }
 
+    private boolean isFlatTableOrc() {
+        return engineConfig.isFlatTableByHive() && engineConfig.getConfig().isFlatTableOrc();
+    }
+
+    private boolean isInMemCubing(int totalRowkeyColumnsCount) {
+        return engineConfig.getConfig().isInMemCubingEnabled() && totalRowkeyColumnsCount < engineConfig.getConfig().getInMemCubingMaxDimensions();
+    }
+
+    private JobStep createInMemCubeStep(JobInstance jobInstance, int stepSeqNum, String outputPath) throws IOException {
+        JobStep inMemCubeStep = new JobStep();
+
+        String inputLocation;
+        String cmd = "";
+
+        if (this.engineConfig.isFlatTableByHive()) {
+            inputLocation = getIntermediateHiveTablePath();
+            cmd = appendMapReduceParameters(cmd, jobInstance);
+            if (isFlatTableOrc()) {
+                cmd = appendExecCmdParameters(cmd, "inputformat", "orc");
+            }
+        } else {
+            HiveTable factTableInHive = new HiveTable(MetadataManager.getInstance(this.engineConfig.getConfig()), cube.getDescriptor().getFactTable());
+            inputLocation = factTableInHive.getHDFSLocation(false);
+            cmd = appendMapReduceParameters(cmd, jobInstance);
+            cmd = appendExecCmdParameters(cmd, "inputformat", "TextInputFormat");
+        }
+
+        inMemCubeStep.setName(JobConstants.STEP_NAME_BUILD_IN_MEM_CUBE);
+
+        cmd = appendExecCmdParameters(cmd, "cubename", cubeName);
+        cmd = appendExecCmdParameters(cmd, "segmentname", segmentName);
+        cmd = appendExecCmdParameters(cmd, "input", inputLocation);
+        cmd = appendExecCmdParameters(cmd, "output", outputPath);
+        cmd = appendExecCmdParameters(cmd, "jobname", "Kylin_InMem_Cube_Builder_" + jobInstance.getRelatedCube() + "_Step_" + stepSeqNum);
+        cmd = appendExecCmdParameters(cmd, "level", "-1");
+
+        inMemCubeStep.setExecCmd(cmd);
+        inMemCubeStep.setSequenceID(stepSeqNum);
+        inMemCubeStep.setStatus(JobStepStatusEnum.PENDING);
+        inMemCubeStep.setRunAsync(true);
+        inMemCubeStep.setCmdType(JobStepCmdTypeEnum.JAVA_CMD_HADOOP_INMEMCUBOID);
+        return inMemCubeStep;
+    }
+
     private JobStep createNDimensionCuboidStep(JobInstance jobInstance, int stepSeqNum, String[] cuboidOutputTempPath, int dimNum, int totalRowkeyColumnCount) throws IOException {
         // ND cuboid job
         JobStep ndCuboidStep = new JobStep();
@@ -401,6 +456,7 @@ public class JobInstanceBuilder {
         cmd = appendExecCmdParameters(cmd, "output", getRowkeyDistributionOutputPath());
         cmd = appendExecCmdParameters(cmd, "jobname", "Kylin_Region_Splits_Calculator_" + jobInstance.getRelatedCube() + "_Step_" + stepSeqNum);
         cmd = appendExecCmdParameters(cmd, "cubename", cubeName);
+        cmd = appendExecCmdParameters(cmd, "segmentname", segmentName);
 
         rowkeyDistributionStep.setExecCmd(cmd);
         rowkeyDistributionStep.setSequenceID(stepSeqNum);
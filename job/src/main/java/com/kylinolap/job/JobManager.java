@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.net.UnknownHostException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
@@ -101,6 +102,7 @@ public class JobManager {
             // submitted job status should always be PENDING
             // job.setStatus(JobStatusEnum.PENDING);
             jobDAO.updateJobInstance(job);
+            jobEngine.triggerFetch();
             return job.getUuid();
         } else {
             throw new InvalidJobInstanceException("Job " + job.getName() + " is duplicated!");
@@ -123,10 +125,11 @@ public class JobManager {
             }
         }
         jobDAO.updateJobInstance(jobInstance);
+        jobEngine.triggerFetch();
     }
 
     private boolean hasDuplication(JobInstance newJob) throws IOException {
-        List<JobInstance> allJobs = listJobs(null, null);
+        List<JobInstance> allJobs = listJobs(newJob.getRelatedCube(), null, Collections.singletonList(newJob.getStatus()));
         for (JobInstance job : allJobs) {
             if (job.getRelatedCube().equals(newJob.getRelatedCube()) && job.getRelatedSegment().equals(newJob.getRelatedSegment()) && job.getType().equals(newJob.getType()) && job.getStatus().equals(newJob.getStatus())) {
                 return true;
@@ -195,7 +198,16 @@ public class JobManager {
     }
 
     public List<JobInstance> listJobs(String cubeName, String projectName) throws IOException {
-        List<JobInstance> jobs = jobDAO.listAllJobs(cubeName);
+        return listJobs(cubeName, projectName, null);
+    }
+
+    /**
+     * @param statusList
+     *            null or empty for all status, otherwise only jobs of the
+     *            status are read from store
+     */
+    public List<JobInstance> listJobs(String cubeName, String projectName, List<JobStatusEnum> statusList) throws IOException {
+        List<JobInstance> jobs = jobDAO.listAllJobs(cubeName, statusList);
 
         if (null == projectName || null == ProjectManager.getInstance(config).getProject(projectName)) {
             return jobs;
@@ -53,6 +53,15 @@ public class JoinedFlatTable {
     }
 
     public static String generateCreateTableStatement(JoinedFlatTableDesc intermediateTableDesc, String storageDfsDir, String jobUUID) {
+        return generateCreateTableStatement(intermediateTableDesc, storageDfsDir, jobUUID, false);
+    }
+
+    /**
+     * @param orc
+     *            store as ORC, so jobs can read only the columns they need,
+     *            see FlatTableOrcInputFormat
+     */
+    public static String generateCreateTableStatement(JoinedFlatTableDesc intermediateTableDesc, String storageDfsDir, String jobUUID, boolean orc) {
         StringBuilder ddl = new StringBuilder();
 
         ddl.append("CREATE EXTERNAL TABLE IF NOT EXISTS " + intermediateTableDesc.getTableName(jobUUID) + "\n");
@@ -67,8 +76,12 @@ public class JoinedFlatTable {
         }
         ddl.append(")" + "\n");
 
-        ddl.append("ROW FORMAT DELIMITED FIELDS TERMINATED BY '\\177'" + "\n");
-        ddl.append("STORED AS SEQUENCEFILE" + "\n");
+        if (orc) {
+            ddl.append("STORED AS ORC" + "\n");
+        } else {
+            ddl.append("ROW FORMAT DELIMITED FIELDS TERMINATED BY '\\177'" + "\n");
+            ddl.append("STORED AS SEQUENCEFILE" + "\n");
+        }
         ddl.append("LOCATION '" + storageDfsDir + "/" + intermediateTableDesc.getTableName(jobUUID) + "'" + ";");
         // ddl.append("TBLPROPERTIES ('serialization.null.format'='\\\\N')" +
         // ";\n");
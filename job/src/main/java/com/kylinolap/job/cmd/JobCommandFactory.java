@@ -25,6 +25,7 @@ import com.kylinolap.job.hadoop.cube.BaseCuboidMapper;
 import com.kylinolap.job.hadoop.cube.CubeHFileJob;
 import com.kylinolap.job.hadoop.cube.CuboidJob;
 import com.kylinolap.job.hadoop.cube.FactDistinctColumnsJob;
+import com.kylinolap.job.hadoop.cube.InMemCuboidJob;
 import com.kylinolap.job.hadoop.cube.MergeCuboidJob;
 import com.kylinolap.job.hadoop.cube.NDCuboidMapper;
 import com.kylinolap.job.hadoop.cube.RangeKeyDistributionJob;
@@ -66,6 +67,10 @@ public class JobCommandFactory {
             ndCuboidJob.setAsync(isAsync);
             ndCuboidJob.setMapperClass(NDCuboidMapper.class);
             return new JavaHadoopCmd(command, instanceID, jobStepID, engineConfig, ndCuboidJob, isAsync);
+        case JAVA_CMD_HADOOP_INMEMCUBOID:
+            CuboidJob inMemCuboidJob = new InMemCuboidJob();
+            inMemCuboidJob.setAsync(isAsync);
+            return new JavaHadoopCmd(command, instanceID, jobStepID, engineConfig, inMemCuboidJob, isAsync);
         case JAVA_CMD_HADOOP_RANGEKEYDISTRIBUTION:
             AbstractHadoopJob rangeKeyDistributionJob = new RangeKeyDistributionJob();
             rangeKeyDistributionJob.setAsync(isAsync);
@@ -30,6 +30,9 @@ public interface BatchConstants {
 
     public static final String OUTPUT_PATH = "output.path";
 
+    public static final String CFG_FACT_DICT_COLUMNS = "cube.fact.dict.columns";
+    public static final String CFG_FACT_DICT_COLUMN_SHARDS = "cube.fact.dict.column.shards";
+
     public static final String TABLE_NAME = "table.name";
     public static final String TABLE_COLUMNS = "table.columns";
 
@@ -40,6 +43,9 @@ public interface BatchConstants {
     public static final String MAPPER_SAMPLE_NUMBER = "mapper.sample.number";
     public static final String REGION_NUMBER = "region.number";
     public static final String CUBE_CAPACITY = "cube.capacity";
+    public static final String CFG_ROWKEY_SHARD_COUNT = "cube.rowkey.shard.count";
+
+    public static final String CUBOID_ROW_COUNTS_FILE_PREFIX = "_cuboid_rows";
 
     public static final int COUNTER_MAX = 100000;
     public static final int ERROR_RECORD_THRESHOLD = 100;
@@ -158,6 +158,13 @@ public class JobEngine implements ConnectionStateListener {
         }
     }
 
+    /**
+     * starts pending jobs now if there is capacity, e.g. on job submit
+     */
+    public void triggerFetch() {
+        this.scheduler.triggerFetcher();
+    }
+
     public void interruptJob(JobInstance jobInstance, JobStep jobStep) throws IOException, JobException {
         // kill the running step
         this.scheduler.interrupt(jobInstance, jobStep);
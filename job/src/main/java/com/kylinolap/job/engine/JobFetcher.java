@@ -16,20 +16,23 @@
 
 package com.kylinolap.job.engine;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
 
+import org.quartz.DisallowConcurrentExecution;
 import org.quartz.Job;
 import org.quartz.JobDetail;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
+import org.quartz.JobKey;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.kylinolap.common.util.StringSplitter;
 import com.kylinolap.job.JobDAO;
 import com.kylinolap.job.JobInstance;
 import com.kylinolap.job.constant.JobConstants;
@@ -37,15 +40,35 @@ import com.kylinolap.job.constant.JobStatusEnum;
 import com.kylinolap.job.flow.JobFlow;
 
 /**
+ * Starts pending jobs, oldest first, one running job per cube. Besides the
+ * scheduled interval, it is triggered at once when a job is submitted or a
+ * running job completes, see trigger().
+ * 
  * @author ysong1, xduo
  * 
  */
+@DisallowConcurrentExecution
 public class JobFetcher implements Job {
 
     private static final Logger log = LoggerFactory.getLogger(JobFetcher.class);
 
     public static final int JOB_THRESHOLD = 10;
 
+    public static final JobKey JOB_KEY = new JobKey(JobFetcher.class.getCanonicalName(), JobConstants.DAEMON_JOB_GROUP_NAME);
+
+    /**
+     * runs the fetcher now, does nothing if it is not scheduled
+     */
+    public static void trigger(Scheduler scheduler) {
+        try {
+            if (scheduler.checkExists(JOB_KEY)) {
+                scheduler.triggerJob(JOB_KEY);
+            }
+        } catch (SchedulerException e) {
+            log.error("Failed to trigger job fetcher", e);
+        }
+    }
+
     @Override
     public void execute(JobExecutionContext context) throws JobExecutionException {
 
@@ -58,14 +81,15 @@ public class JobFetcher implements Job {
             List<JobInstance> pendingJobList = jobDAO.listAllJobs(JobStatusEnum.PENDING);
 
             log.debug(pendingJobList.size() + " pending jobs");
+            // oldest first
+            Collections.sort(pendingJobList, Collections.reverseOrder());
             int leftJobs = JOB_THRESHOLD;
-            Random rand = new Random();
             int maxConcurrentJobCount = engineConfig.getMaxConcurrentJobLimit();
 
-            for (JobInstance jobInstance : pendingJobList) {
-                @SuppressWarnings("unchecked")
-                ConcurrentHashMap<String, JobFlow> jobFlows = (ConcurrentHashMap<String, JobFlow>) context.getScheduler().getContext().get(JobConstants.PROP_JOB_RUNTIME_FLOWS);
+            @SuppressWarnings("unchecked")
+            ConcurrentHashMap<String, JobFlow> jobFlows = (ConcurrentHashMap<String, JobFlow>) context.getScheduler().getContext().get(JobConstants.PROP_JOB_RUNTIME_FLOWS);
 
+            for (JobInstance jobInstance : pendingJobList) {
                 if (jobFlows.size() >= maxConcurrentJobCount) {
                     // If too many job instances in current job context, just
                     // wait.
@@ -73,28 +97,25 @@ public class JobFetcher implements Job {
                 }
 
                 try {
-                    // there should be only 1 job for a certain job running
-                    boolean cubeHasRunningJob = false;
-                    for (String s : jobFlows.keySet()) {
-                        String[] tmp = StringSplitter.split(s, ".");
-                        String cubename = tmp[0];
-                        String jobid = tmp[1];
-                        if (cubename.equals(jobInstance.getRelatedCube())) {
-                            log.info("There is already a job of cube " + jobInstance.getRelatedCube() + " running, job uuid is " + jobid);
-                            cubeHasRunningJob = true;
-                            break;
-                        }
+                    // there should be only 1 job for a certain cube running
+                    JobFlow runningFlow = jobFlows.get(jobInstance.getRelatedCube());
+                    if (runningFlow != null) {
+                        log.info("There is already a job of cube " + jobInstance.getRelatedCube() + " running, job uuid is " + runningFlow.getJobInstance().getUuid());
+                        continue;
                     }
 
-                    if (cubeHasRunningJob == false && jobFlows.containsKey(JobInstance.getJobIdentity(jobInstance)) == false) {
-                        // create job flow
-                        JobFlow jobFlow = new JobFlow(jobInstance, engineConfig);
-                        jobFlows.put(JobInstance.getJobIdentity(jobInstance), jobFlow);
-
+                    // create job flow
+                    JobFlow jobFlow = new JobFlow(jobInstance, engineConfig);
+                    if (jobFlows.putIfAbsent(jobInstance.getRelatedCube(), jobFlow) == null) {
                         // schedule the 1st step
                         Trigger trigger = TriggerBuilder.newTrigger().startNow().build();
                         JobDetail firstStep = jobFlow.getFirst();
-                        context.getScheduler().scheduleJob(firstStep, trigger);
+                        try {
+                            context.getScheduler().scheduleJob(firstStep, trigger);
+                        } catch (SchedulerException e) {
+                            jobFlows.remove(jobInstance.getRelatedCube(), jobFlow);
+                            throw e;
+                        }
 
                         log.info("Job " + jobInstance.getUuid() + " has been scheduled with the first step " + firstStep.getKey().toString());
                     }
@@ -106,8 +127,6 @@ public class JobFetcher implements Job {
                     log.info("Too many pending jobs!");
                     break;
                 }
-                long ms = Math.abs(rand.nextLong() % 10L);
-                Thread.sleep(ms * 1000L);
             }
         } catch (Throwable t) {
             log.error(t.getMessage());
@@ -78,7 +78,7 @@ public class QuatzScheduler {
             this.scheduler = sf.getScheduler();
             this.scheduler.getListenerManager().addJobListener(this.globalJobListener, GroupMatcher.jobGroupEquals(JobConstants.CUBE_JOB_GROUP_NAME));
 
-            // cubename.jobUuid -> job flow
+            // cubename -> running job flow, one at most per cube
             this.scheduler.getContext().put(JobConstants.PROP_JOB_RUNTIME_FLOWS, new ConcurrentHashMap<String, JobFlow>());
 
             // put the scheduler in standby mode first
@@ -97,7 +97,7 @@ public class QuatzScheduler {
     }
 
     public void scheduleFetcher(int intervalInSeconds, JobEngineConfig engineConfig) throws JobException {
-        JobDetail job = JobBuilder.newJob(JobFetcher.class).withIdentity(JobFetcher.class.getCanonicalName(), JobConstants.DAEMON_JOB_GROUP_NAME).build();
+        JobDetail job = JobBuilder.newJob(JobFetcher.class).withIdentity(JobFetcher.JOB_KEY).build();
         job.getJobDataMap().put(JobConstants.PROP_ENGINE_CONTEXT, engineConfig);
 
         Trigger trigger = TriggerBuilder.newTrigger().startNow().withSchedule(SimpleScheduleBuilder.simpleSchedule().withIntervalInSeconds(intervalInSeconds).repeatForever()).build();
@@ -109,6 +109,13 @@ public class QuatzScheduler {
         }
     }
 
+    /**
+     * fetches pending jobs now rather than at next interval
+     */
+    public void triggerFetcher() {
+        JobFetcher.trigger(this.scheduler);
+    }
+
     public boolean interrupt(JobInstance jobInstance, JobStep jobStep) throws JobException, IOException {
         JobKey jobKey = new JobKey(JobInstance.getStepIdentity(jobInstance, jobStep), JobConstants.CUBE_JOB_GROUP_NAME);
 
@@ -126,7 +133,11 @@ public class QuatzScheduler {
 
             @SuppressWarnings("unchecked")
             ConcurrentHashMap<String, JobFlow> jobFlows = (ConcurrentHashMap<String, JobFlow>) this.scheduler.getContext().get(JobConstants.PROP_JOB_RUNTIME_FLOWS);
-            jobFlows.remove(JobInstance.getJobIdentity(jobInstance));
+            JobFlow jobFlow = jobFlows.get(jobInstance.getRelatedCube());
+            if (jobFlow != null && jobFlow.getJobInstance().getUuid().equals(jobInstance.getUuid())) {
+                jobFlows.remove(jobInstance.getRelatedCube(), jobFlow);
+            }
+            triggerFetcher();
         } catch (UnableToInterruptJobException e) {
             log.error(e.getLocalizedMessage(), e);
             throw new JobException(e);
@@ -104,11 +104,18 @@ public class AsyncJobFlowNode extends JobFlowNode {
 
     }
 
+    /**
+     * checks again in 1, 2, 4... seconds up to the configured interval, so a
+     * short hadoop job is followed by its next step without waiting a full
+     * interval
+     */
     private void scheduleStatusChecker(JobExecutionContext context) throws SchedulerException {
         JobDataMap jobDataMap = this.currentJobDetail.getJobDataMap();
         JobFlow jobFlow = (JobFlow) jobDataMap.get(JobConstants.PROP_JOB_FLOW);
         JobEngineConfig engineConfig = jobFlow.getJobengineConfig();
-        int interval = engineConfig.getAsyncJobCheckInterval();
+        int checks = jobDataMap.containsKey(JobConstants.PROP_JOB_STATUS_CHECKS) ? jobDataMap.getInt(JobConstants.PROP_JOB_STATUS_CHECKS) : 0;
+        jobDataMap.put(JobConstants.PROP_JOB_STATUS_CHECKS, checks + 1);
+        int interval = Math.max(1, Math.min(engineConfig.getAsyncJobCheckInterval(), 1 << Math.min(checks, 30)));
         log.debug("Trigger a status check job in " + interval + " seconds for job " + currentJobDetail.getKey());
 
         Trigger trigger = TriggerBuilder.newTrigger().startAt(DateBuilder.futureDate(interval, IntervalUnit.SECOND)).build();
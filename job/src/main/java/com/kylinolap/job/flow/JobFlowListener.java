@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.kylinolap.cube.CubeSegmentStatusEnum;
@@ -39,6 +40,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.kylinolap.common.KylinConfig;
+import com.kylinolap.common.util.HadoopUtil;
 import com.kylinolap.common.util.MailService;
 import com.kylinolap.cube.CubeInstance;
 import com.kylinolap.cube.CubeManager;
@@ -51,6 +53,8 @@ import com.kylinolap.job.constant.JobConstants;
 import com.kylinolap.job.constant.JobStatusEnum;
 import com.kylinolap.job.constant.JobStepStatusEnum;
 import com.kylinolap.job.engine.JobEngineConfig;
+import com.kylinolap.job.engine.JobFetcher;
+import com.kylinolap.job.hadoop.cube.CuboidRowCounts;
 
 /**
  * Handle kylin job and cube change update.
@@ -124,7 +128,10 @@ public class JobFlowListener implements JobListener {
                     context.getScheduler().deleteJob(context.getJobDetail().getKey());
                     @SuppressWarnings("unchecked")
                     ConcurrentHashMap<String, JobFlow> jobFlows = (ConcurrentHashMap<String, JobFlow>) context.getScheduler().getContext().get(JobConstants.PROP_JOB_RUNTIME_FLOWS);
-                    jobFlows.remove(JobInstance.getJobIdentity(jobInstance));
+                    jobFlows.remove(jobInstance.getRelatedCube(), jobFlow);
+
+                    // the cube is free, start its next pending job now
+                    JobFetcher.trigger(context.getScheduler());
                 } catch (SchedulerException e) {
                     log.error(e.getMessage(), e);
                 }
@@ -260,6 +267,10 @@ public class JobFlowListener implements JobListener {
             switch (jobInstance.getType()) {
             case BUILD:
                 JobStep baseCuboidStep = jobInstance.findStep(JobConstants.STEP_NAME_BUILD_BASE_CUBOID);
+                if (null == baseCuboidStep) {
+                    // in-memory cubing reads the source the same way
+                    baseCuboidStep = jobInstance.findStep(JobConstants.STEP_NAME_BUILD_IN_MEM_CUBE);
+                }
                 if (null != baseCuboidStep) {
                     String sourceRecordsCount = baseCuboidStep.getInfo(JobInstance.SOURCE_RECORDS_COUNT);
                     if (sourceRecordsCount == null || sourceRecordsCount.equals("")) {
@@ -296,11 +307,27 @@ public class JobFlowListener implements JobListener {
                 break;
             }
 
-            cubeMgr.updateSegmentOnJobSucceed(cubeInstance, jobInstance.getType(), jobInstance.getRelatedSegment(), jobInstance.getUuid(), jobInstance.getExecEndTime(), cubeSize, sourceCount, sourceSize);
+            Map<Long, Long> cuboidRowCounts = readCuboidRowCounts(jobInstance, engineConfig);
+
+            cubeMgr.updateSegmentOnJobSucceed(cubeInstance, jobInstance.getType(), jobInstance.getRelatedSegment(), jobInstance.getUuid(), jobInstance.getExecEndTime(), cubeSize, sourceCount, sourceSize, cuboidRowCounts);
             log.info("Update cube segment succeed" + jobInstance.getRelatedSegment() + " for cube " + jobInstance.getRelatedCube());
         }
     }
 
+    // statistics for query routing only, the segment is fine without them
+    private Map<Long, Long> readCuboidRowCounts(JobInstance jobInstance, JobEngineConfig engineConfig) {
+        String cuboidRootPath = JobInstance.getJobWorkingDir(jobInstance, engineConfig) + "/" + jobInstance.getRelatedCube() + "/cuboid";
+        try {
+            Map<Long, Long> result = CuboidRowCounts.read(HadoopUtil.getCurrentConfiguration(), cuboidRootPath);
+            if (result == null)
+                log.info("No cuboid row counts found under " + cuboidRootPath);
+            return result;
+        } catch (Exception e) {
+            log.warn("Failed to read cuboid row counts under " + cuboidRootPath, e);
+            return null;
+        }
+    }
+
     private void validate(JobInstance jobInstance) {
         List<JobStep> steps = jobInstance.getSteps();
         if (steps == null || steps.size() == 0) {
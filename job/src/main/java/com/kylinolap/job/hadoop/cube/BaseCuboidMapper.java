@@ -38,6 +38,7 @@ import com.kylinolap.cube.cuboid.Cuboid;
 import com.kylinolap.cube.kv.AbstractRowKeyEncoder;
 import com.kylinolap.cube.kv.RowConstants;
 import com.kylinolap.cube.measure.MeasureCodec;
+import com.kylinolap.cube.measure.MeasureSerializer;
 import com.kylinolap.job.constant.BatchConstants;
 import com.kylinolap.job.hadoop.AbstractHadoopJob;
 import com.kylinolap.job.hadoop.hive.JoinedFlatTableDesc;
@@ -59,10 +60,10 @@ public class BaseCuboidMapper<KEYIN> extends KylinMapper<KEYIN, Text, Text, Text
     private String cubeName;
     private String segmentName;
     private Cuboid baseCuboid;
-    private CubeInstance cube;
-    private CubeDesc cubeDesc;
-    private CubeSegment cubeSegment;
-    private List<byte[]> nullBytes;
+    protected CubeInstance cube;
+    protected CubeDesc cubeDesc;
+    protected CubeSegment cubeSegment;
+    private byte[][] nullBytes;
 
     private JoinedFlatTableDesc intermediateTableDesc;
     private String intermediateTableRowDelimiter;
@@ -70,15 +71,25 @@ public class BaseCuboidMapper<KEYIN> extends KylinMapper<KEYIN, Text, Text, Text
 
     private int counter;
     private int errorRecordCounter;
-    private Text outputKey = new Text();
-    private Text outputValue = new Text();
+    protected Text outputKey = new Text();
+    protected Text outputValue = new Text();
     private Object[] measures;
     private byte[][] keyBytesBuf;
-    private ByteBuffer valueBuf = ByteBuffer.allocate(RowConstants.ROWVALUE_BUFFER_SIZE);
+    private int[] keyLengthsBuf;
+    private byte[] rowKeyBuf;
+    protected ByteBuffer valueBuf = ByteBuffer.allocate(RowConstants.ROWVALUE_BUFFER_SIZE);
+    private byte[] valueJoinBuf = new byte[256];
+
+    // column plan of key and measures, resolved once for all records
+    private int[] rowKeyColumnIndexes;
+    private int[][] measureColumnIndexes;
+    private byte[][] measureConstants;
+    private boolean[] measureIsOne;
 
     private BytesSplitter bytesSplitter;
     private AbstractRowKeyEncoder rowKeyEncoder;
-    private MeasureCodec measureCodec;
+    protected MeasureCodec measureCodec;
+    protected KylinConfig config;
 
     @Override
     protected void setup(Context context) throws IOException {
@@ -93,7 +104,7 @@ public class BaseCuboidMapper<KEYIN> extends KylinMapper<KEYIN, Text, Text, Text
 
         byteRowDelimiter = Bytes.toBytes(intermediateTableRowDelimiter)[0];
 
-        KylinConfig config = AbstractHadoopJob.loadKylinPropsAndMetadata(context.getConfiguration());
+        config = AbstractHadoopJob.loadKylinPropsAndMetadata(context.getConfiguration());
 
         cube = CubeManager.getInstance(config).getCube(cubeName);
         cubeDesc = cube.getDescriptor();
@@ -110,92 +121,122 @@ public class BaseCuboidMapper<KEYIN> extends KylinMapper<KEYIN, Text, Text, Text
         measureCodec = new MeasureCodec(cubeDesc.getMeasures());
         measures = new Object[cubeDesc.getMeasures().size()];
 
-        int colCount = cubeDesc.getRowkey().getRowKeyColumns().length;
+        int colCount = baseCuboid.getColumns().size();
         keyBytesBuf = new byte[colCount][];
+        keyLengthsBuf = new int[colCount];
+        rowKeyBuf = new byte[rowKeyEncoder.getRowKeyLength()];
+        rowKeyColumnIndexes = Arrays.copyOf(intermediateTableDesc.getRowKeyColumnIndexes(), colCount);
 
         initNullBytes();
+        initMeasurePlan();
     }
 
     private void initNullBytes() {
-        nullBytes = Lists.newArrayList();
-        nullBytes.add(HIVE_NULL);
+        List<byte[]> list = Lists.newArrayList();
+        list.add(HIVE_NULL);
         String[] nullStrings = cubeDesc.getNullStrings();
         if (nullStrings != null) {
             for (String s : nullStrings) {
-                nullBytes.add(Bytes.toBytes(s));
+                list.add(Bytes.toBytes(s));
+            }
+        }
+        nullBytes = list.toArray(new byte[list.size()][]);
+    }
+
+    private void initMeasurePlan() {
+        List<MeasureDesc> measureDescs = cubeDesc.getMeasures();
+        measureColumnIndexes = intermediateTableDesc.getMeasureColumnIndexes();
+        measureConstants = new byte[measureDescs.size()][];
+        measureIsOne = new boolean[measureDescs.size()];
+        for (int i = 0; i < measureDescs.size(); i++) {
+            FunctionDesc func = measureDescs.get(i).getFunction();
+            ParameterDesc paramDesc = func.getParameter();
+            // note for holistic count distinct, this value will be ignored
+            measureIsOne[i] = func.isCount() || func.isHolisticCountDistinct();
+            if (measureColumnIndexes[i] == null) {
+                byte[] constant = Bytes.toBytes(paramDesc.getValue());
+                measureConstants[i] = isNull(constant, 0, constant.length) ? null : constant;
             }
         }
     }
 
-    private boolean isNull(byte[] v) {
-        for (byte[] nullByte : nullBytes) {
-            if (Bytes.equals(v, nullByte))
+    private boolean isNull(byte[] v, int offset, int length) {
+        for (int i = 0; i < nullBytes.length; i++) {
+            if (Bytes.equals(v, offset, length, nullBytes[i], 0, nullBytes[i].length))
                 return true;
         }
         return false;
     }
 
+    // split buffers are encoded in place, no copy
     private byte[] buildKey(SplittedBytes[] splitBuffers) {
-        int[] rowKeyColumnIndexes = intermediateTableDesc.getRowKeyColumnIndexes();
-        for (int i = 0; i < baseCuboid.getColumns().size(); i++) {
-            int index = rowKeyColumnIndexes[i];
-            keyBytesBuf[i] = Arrays.copyOf(splitBuffers[index].value, splitBuffers[index].length);
-            if (isNull(keyBytesBuf[i])) {
+        for (int i = 0; i < rowKeyColumnIndexes.length; i++) {
+            SplittedBytes split = splitBuffers[rowKeyColumnIndexes[i]];
+            if (isNull(split.value, 0, split.length)) {
                 keyBytesBuf[i] = null;
+            } else {
+                keyBytesBuf[i] = split.value;
+                keyLengthsBuf[i] = split.length;
             }
         }
-        return rowKeyEncoder.encode(keyBytesBuf);
+        rowKeyEncoder.encode(keyBytesBuf, keyLengthsBuf, rowKeyBuf);
+        return rowKeyBuf;
     }
 
     private void buildValue(SplittedBytes[] splitBuffers) {
 
         for (int i = 0; i < measures.length; i++) {
-            byte[] valueBytes = getValueBytes(splitBuffers, i);
-            measures[i] = measureCodec.getSerializer(i).valueOf(valueBytes);
+            measures[i] = parseMeasure(splitBuffers, i);
         }
-
-        valueBuf.clear();
-        measureCodec.encode(measures, valueBuf);
     }
 
-    private byte[] getValueBytes(SplittedBytes[] splitBuffers, int measureIdx) {
-        MeasureDesc desc = cubeDesc.getMeasures().get(measureIdx);
-        FunctionDesc func = desc.getFunction();
-        ParameterDesc paramDesc = func.getParameter();
-        int[] flatTableIdx = intermediateTableDesc.getMeasureColumnIndexes()[measureIdx];
-
-        byte[] result = null;
+    private Object parseMeasure(SplittedBytes[] splitBuffers, int measureIdx) {
+        MeasureSerializer<?> serializer = measureCodec.getSerializer(measureIdx);
+        int[] flatTableIdx = measureColumnIndexes[measureIdx];
 
+        if (measureIsOne[measureIdx]) {
+            return serializer.valueOf(ONE);
+        }
         // constant
         if (flatTableIdx == null) {
-            result = Bytes.toBytes(paramDesc.getValue());
+            return serializer.valueOf(measureConstants[measureIdx]);
         }
-        // column values
-        else {
-            // for multiple columns, their values are joined
-            for (int i = 0; i < flatTableIdx.length; i++) {
-                SplittedBytes split = splitBuffers[flatTableIdx[i]];
-                if (result == null) {
-                    result = Arrays.copyOf(split.value, split.length);
-                } else {
-                    byte[] newResult = new byte[result.length + split.length];
-                    System.arraycopy(result, 0, newResult, 0, result.length);
-                    System.arraycopy(split.value, 0, newResult, result.length, split.length);
-                    result = newResult;
-                }
-            }
+        // single column value, parsed in place
+        if (flatTableIdx.length == 1) {
+            SplittedBytes split = splitBuffers[flatTableIdx[0]];
+            if (isNull(split.value, 0, split.length))
+                return serializer.valueOf(null);
+            return serializer.valueOf(split.value, 0, split.length);
         }
 
-        if (func.isCount() || func.isHolisticCountDistinct()) {
-            // note for holistic count distinct, this value will be ignored
-            result = ONE;
+        // for multiple columns, their values are joined
+        int length = 0;
+        for (int i = 0; i < flatTableIdx.length; i++) {
+            SplittedBytes split = splitBuffers[flatTableIdx[i]];
+            if (valueJoinBuf.length < length + split.length) {
+                valueJoinBuf = Arrays.copyOf(valueJoinBuf, Math.max(length + split.length, valueJoinBuf.length * 2));
+            }
+            System.arraycopy(split.value, 0, valueJoinBuf, length, split.length);
+            length += split.length;
         }
+        if (isNull(valueJoinBuf, 0, length))
+            return serializer.valueOf(null);
+        return serializer.valueOf(valueJoinBuf, 0, length);
+    }
 
-        if (isNull(result)) {
-            result = null;
-        }
+    /**
+     * Outputs a base cuboid record, subclass may override to process the
+     * record differently, e.g. aggregate in memory. The row key buffer is
+     * reused by the next record, copy it to keep.
+     */
+    protected void outputBaseCuboidRecord(byte[] rowKey, Object[] measures, Context context) throws IOException, InterruptedException {
+        outputKey.set(rowKey, 0, rowKey.length);
 
-        return result;
+        valueBuf.clear();
+        measureCodec.encode(measures, valueBuf);
+        outputValue.set(valueBuf.array(), 0, valueBuf.position());
+
+        context.write(outputKey, outputValue);
     }
 
     @Override
@@ -210,12 +251,9 @@ public class BaseCuboidMapper<KEYIN> extends KylinMapper<KEYIN, Text, Text, Text
             intermediateTableDesc.sanityCheck(bytesSplitter);
 
             byte[] rowKey = buildKey(bytesSplitter.getSplitBuffers());
-            outputKey.set(rowKey, 0, rowKey.length);
-
             buildValue(bytesSplitter.getSplitBuffers());
-            outputValue.set(valueBuf.array(), 0, valueBuf.position());
 
-            context.write(outputKey, outputValue);
+            outputBaseCuboidRecord(rowKey, measures, context);
         } catch (Exception ex) {
             handleErrorRecord(bytesSplitter, ex);
         }
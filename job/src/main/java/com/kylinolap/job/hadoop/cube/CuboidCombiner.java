@@ -0,0 +1,29 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.job.hadoop.cube;
+
+/**
+ * CuboidReducer as combiner, which only aggregates and leaves the counting of
+ * cuboid rows to the reducer, as its output is partial.
+ */
+public class CuboidCombiner extends CuboidReducer {
+
+    @Override
+    protected boolean isCountingCuboidRows() {
+        return false;
+    }
+
+}
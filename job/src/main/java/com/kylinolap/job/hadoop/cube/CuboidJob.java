@@ -40,6 +40,8 @@ import com.kylinolap.cube.cuboid.CuboidCLI;
 import com.kylinolap.job.constant.BatchConstants;
 import com.kylinolap.job.exception.JobException;
 import com.kylinolap.job.hadoop.AbstractHadoopJob;
+import com.kylinolap.job.hadoop.hive.FlatTableOrcInputFormat;
+import com.kylinolap.job.hadoop.hive.JoinedFlatTableDesc;
 import com.kylinolap.metadata.model.cube.CubeDesc;
 
 /**
@@ -94,20 +96,27 @@ public class CuboidJob extends AbstractHadoopJob {
             }
 
             boolean isInputTextFormat = false;
+            boolean isInputOrc = false;
             if (hasOption(OPTION_INPUT_FORMAT) && ("textinputformat".equalsIgnoreCase(getOptionValue(OPTION_INPUT_FORMAT)))) {
                 isInputTextFormat = true;
             }
+            if (hasOption(OPTION_INPUT_FORMAT) && ("orc".equalsIgnoreCase(getOptionValue(OPTION_INPUT_FORMAT)))) {
+                isInputOrc = true;
+            }
 
             if (isInputTextFormat) {
                 job.setInputFormatClass(TextInputFormat.class);
 
+            } else if (isInputOrc) {
+                // base cuboid reads every column of flat table
+                FlatTableOrcInputFormat.setup(job, new JoinedFlatTableDesc(cube.getDescriptor(), null), null);
             } else {
                 job.setInputFormatClass(SequenceFileInputFormat.class);
             }
             job.setMapperClass(this.mapperClass);
             job.setMapOutputKeyClass(Text.class);
             job.setMapOutputValueClass(Text.class);
-            job.setCombinerClass(CuboidReducer.class); // for base cuboid shuffle skew, some rowkey aggregates far more records than others
+            job.setCombinerClass(CuboidCombiner.class); // for base cuboid shuffle skew, some rowkey aggregates far more records than others
 
             // Reducer
             job.setReducerClass(CuboidReducer.class);
@@ -149,7 +158,13 @@ public class CuboidJob extends AbstractHadoopJob {
 
         // output / input ratio
         int preLevelCuboids, thisLevelCuboids;
-        if (level == 0) { // base cuboid
+        if (level < 0) { // all cuboids in one pass, see InMemCuboidJob
+            preLevelCuboids = 1;
+            thisLevelCuboids = 0;
+            for (int count : CuboidCLI.calculateAllLevelCount(cubeDesc)) {
+                thisLevelCuboids += count;
+            }
+        } else if (level == 0) { // base cuboid
             preLevelCuboids = thisLevelCuboids = 1;
         } else { // n-cuboid
             int[] allLevelCount = CuboidCLI.calculateAllLevelCount(cubeDesc);
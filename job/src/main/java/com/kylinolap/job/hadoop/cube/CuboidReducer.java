@@ -17,16 +17,25 @@ package com.kylinolap.job.hadoop.cube;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.kylinolap.common.mr.KylinReducer;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.kylinolap.common.KylinConfig;
+import com.kylinolap.cube.CubeInstance;
 import com.kylinolap.cube.CubeManager;
+import com.kylinolap.cube.CubeSegment;
+import com.kylinolap.cube.CubeSegmentStatusEnum;
 import com.kylinolap.cube.kv.RowConstants;
+import com.kylinolap.cube.kv.RowKeyShard;
 import com.kylinolap.cube.measure.MeasureAggregators;
 import com.kylinolap.cube.measure.MeasureCodec;
 import com.kylinolap.job.constant.BatchConstants;
@@ -35,6 +44,9 @@ import com.kylinolap.metadata.model.cube.CubeDesc;
 import com.kylinolap.metadata.model.cube.MeasureDesc;
 
 /**
+ * Aggregates the measures of each row key, and counts the rows of each cuboid,
+ * see CuboidRowCounts. CuboidCombiner does the aggregation only.
+ * 
  * @author George Song (ysong1)
  * 
  */
@@ -56,6 +68,13 @@ public class CuboidReducer extends KylinReducer<Text, Text, Text, Text> {
     private ByteBuffer valueBuf = ByteBuffer.allocate(RowConstants.ROWVALUE_BUFFER_SIZE);
     private Text outputValue = new Text();
 
+    // rows of each cuboid, keys come sorted so a cuboid is counted in a run
+    private boolean countCuboidRows;
+    private int cuboidIDOffset;
+    private long currentCuboidID = -1;
+    private long currentCuboidRows;
+    private Map<Long, Long> cuboidRows = new HashMap<Long, Long>();
+
     @Override
     protected void setup(Context context) throws IOException {
         super.publishConfiguration(context.getConfiguration());
@@ -63,7 +82,8 @@ public class CuboidReducer extends KylinReducer<Text, Text, Text, Text> {
 
         KylinConfig config = AbstractHadoopJob.loadKylinPropsAndMetadata(context.getConfiguration());
 
-        cubeDesc = CubeManager.getInstance(config).getCube(cubeName).getDescriptor();
+        CubeInstance cube = CubeManager.getInstance(config).getCube(cubeName);
+        cubeDesc = cube.getDescriptor();
         measuresDescs = cubeDesc.getMeasures();
 
         codec = new MeasureCodec(measuresDescs);
@@ -71,6 +91,20 @@ public class CuboidReducer extends KylinReducer<Text, Text, Text, Text> {
 
         input = new Object[measuresDescs.size()];
         result = new Object[measuresDescs.size()];
+
+        // only for a job writing files
+        if (isCountingCuboidRows() && FileOutputFormat.getOutputPath(context) != null) {
+            String segmentName = context.getConfiguration().get(BatchConstants.CFG_CUBE_SEGMENT_NAME);
+            CubeSegment cubeSegment = segmentName == null ? null : cube.getSegment(segmentName, CubeSegmentStatusEnum.NEW);
+            if (cubeSegment != null) {
+                countCuboidRows = true;
+                cuboidIDOffset = RowKeyShard.getShardLength(cubeSegment);
+            }
+        }
+    }
+
+    protected boolean isCountingCuboidRows() {
+        return true;
     }
 
     @Override
@@ -90,10 +124,47 @@ public class CuboidReducer extends KylinReducer<Text, Text, Text, Text> {
         outputValue.set(valueBuf.array(), 0, valueBuf.position());
         context.write(key, outputValue);
 
+        if (countCuboidRows) {
+            countCuboidRow(key);
+        }
+
         counter++;
         if (counter % BatchConstants.COUNTER_MAX == 0) {
             logger.info("Handled " + counter + " records!");
         }
     }
 
+    private void countCuboidRow(Text key) {
+        long cuboidID = Bytes.toLong(key.getBytes(), cuboidIDOffset, RowConstants.ROWKEY_CUBOIDID_LEN);
+        if (cuboidID != currentCuboidID) {
+            flushCuboidRows();
+            currentCuboidID = cuboidID;
+        }
+        currentCuboidRows++;
+    }
+
+    private void flushCuboidRows() {
+        if (currentCuboidRows > 0) {
+            Long rows = cuboidRows.get(currentCuboidID);
+            cuboidRows.put(currentCuboidID, rows == null ? currentCuboidRows : rows + currentCuboidRows);
+            currentCuboidRows = 0;
+        }
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        if (countCuboidRows == false)
+            return;
+
+        flushCuboidRows();
+        Path file = getCuboidRowsFile(context);
+        CuboidRowCounts.write(file.getFileSystem(context.getConfiguration()), file, cuboidRows);
+        logger.info("Rows of " + cuboidRows.size() + " cuboids written to " + file);
+    }
+
+    Path getCuboidRowsFile(Context context) throws IOException, InterruptedException {
+        String fileName = String.format("%s-r-%05d", BatchConstants.CUBOID_ROW_COUNTS_FILE_PREFIX, context.getTaskAttemptID().getTaskID().getId());
+        return new Path(FileOutputFormat.getWorkOutputPath(context), fileName);
+    }
+
 }
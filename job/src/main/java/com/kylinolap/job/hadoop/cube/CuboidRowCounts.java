@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.job.hadoop.cube;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+
+import com.kylinolap.job.constant.BatchConstants;
+
+/**
+ * Rows of each cuboid, counted by CuboidReducer as it writes the cuboid data.
+ * Each reducer writes a file of "cuboid ID \t rows" lines next to its output,
+ * hidden from the jobs reading the output by the "_" prefix of the name.
+ */
+public class CuboidRowCounts {
+
+    public static void write(FileSystem fs, Path file, Map<Long, Long> cuboidRows) throws IOException {
+        PrintWriter out = new PrintWriter(fs.create(file));
+        try {
+            for (Map.Entry<Long, Long> entry : cuboidRows.entrySet()) {
+                out.print(entry.getKey());
+                out.print('\t');
+                out.println(entry.getValue());
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * sums all the row count files under the given folder and its
+     * sub-folders
+     * 
+     * @return cuboid ID ==> rows, or null if there is no such file
+     */
+    public static Map<Long, Long> read(Configuration conf, String cuboidRootPath) throws IOException {
+        Path root = new Path(cuboidRootPath);
+        FileSystem fs = root.getFileSystem(conf);
+        if (fs.exists(root) == false)
+            return null;
+
+        Map<Long, Long> result = null;
+        RemoteIterator<LocatedFileStatus> it = fs.listFiles(root, true);
+        while (it.hasNext()) {
+            Path file = it.next().getPath();
+            if (file.getName().startsWith(BatchConstants.CUBOID_ROW_COUNTS_FILE_PREFIX) == false)
+                continue;
+
+            if (result == null)
+                result = new HashMap<Long, Long>();
+            BufferedReader in = new BufferedReader(new InputStreamReader(fs.open(file), "UTF-8"));
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    long cuboidID = Long.parseLong(line.substring(0, tab));
+                    long rows = Long.parseLong(line.substring(tab + 1));
+                    Long sum = result.get(cuboidID);
+                    result.put(cuboidID, sum == null ? rows : sum + rows);
+                }
+            } finally {
+                IOUtils.closeQuietly(in);
+            }
+        }
+        return result;
+    }
+}
@@ -16,21 +16,16 @@
 package com.kylinolap.job.hadoop.cube;
 
 import java.io.IOException;
-import java.util.HashSet;
 
-import com.kylinolap.common.mr.KylinReducer;
-import org.apache.hadoop.hbase.util.Bytes;
-import org.apache.hadoop.io.ShortWritable;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 
-import com.kylinolap.common.util.ByteArray;
+import com.kylinolap.common.mr.KylinReducer;
 
 /**
  * @author yangli9
  */
-public class FactDistinctColumnsCombiner extends KylinReducer<ShortWritable, Text, ShortWritable, Text> {
-
-    private Text outputValue = new Text();
+public class FactDistinctColumnsCombiner extends KylinReducer<Text, NullWritable, Text, NullWritable> {
 
     @Override
     protected void setup(Context context) throws IOException {
@@ -38,18 +33,9 @@ public class FactDistinctColumnsCombiner extends KylinReducer<ShortWritable, Tex
     }
 
     @Override
-    public void reduce(ShortWritable key, Iterable<Text> values, Context context) throws IOException, InterruptedException {
-
-        HashSet<ByteArray> set = new HashSet<ByteArray>();
-        for (Text textValue : values) {
-            ByteArray value = new ByteArray(Bytes.copy(textValue.getBytes(), 0, textValue.getLength()));
-            set.add(value);
-        }
-
-        for (ByteArray value : set) {
-            outputValue.set(value.data);
-            context.write(key, outputValue);
-        }
+    public void reduce(Text key, Iterable<NullWritable> values, Context context) throws IOException, InterruptedException {
+        // a key is a distinct value of a column
+        context.write(key, NullWritable.get());
     }
 
 }
@@ -18,11 +18,12 @@ package com.kylinolap.job.hadoop.cube;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.cli.Options;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.ShortWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
@@ -36,8 +37,14 @@ import org.slf4j.LoggerFactory;
 
 import com.kylinolap.common.KylinConfig;
 import com.kylinolap.cube.CubeManager;
+import com.kylinolap.cube.cuboid.Cuboid;
+import com.kylinolap.dict.DictionaryManager;
 import com.kylinolap.job.constant.BatchConstants;
 import com.kylinolap.job.hadoop.AbstractHadoopJob;
+import com.kylinolap.job.hadoop.hive.FlatTableOrcInputFormat;
+import com.kylinolap.job.hadoop.hive.JoinedFlatTableDesc;
+import com.kylinolap.metadata.model.cube.CubeDesc;
+import com.kylinolap.metadata.model.cube.TblColRef;
 
 /**
  * @author yangli9
@@ -68,8 +75,8 @@ public class FactDistinctColumnsJob extends AbstractHadoopJob {
             job.getConfiguration().set(BatchConstants.CFG_CUBE_NAME, cubeName);
             System.out.println("Starting: " + job.getJobName());
 
-            setupMapInput(input, inputFormat);
-            setupReduceOutput(output);
+            setupMapInput(input, inputFormat, cubeName);
+            setupReduceOutput(output, cubeName);
 
             // add metadata to distributed cache
             CubeManager cubeMgr = CubeManager.getInstance(KylinConfig.getInstanceFromEnv());
@@ -87,7 +94,7 @@ public class FactDistinctColumnsJob extends AbstractHadoopJob {
 
     }
 
-    private void setupMapInput(Path input, String inputFormat) throws IOException {
+    private void setupMapInput(Path input, String inputFormat, String cubeName) throws IOException {
         FileInputFormat.setInputPaths(job, input);
 
         File JarFile = new File(KylinConfig.getInstanceFromEnv().getKylinJobJarPath());
@@ -99,16 +106,43 @@ public class FactDistinctColumnsJob extends AbstractHadoopJob {
 
         if ("text".equalsIgnoreCase(inputFormat) || "textinputformat".equalsIgnoreCase(inputFormat)) {
             job.setInputFormatClass(TextInputFormat.class);
+        } else if ("orc".equalsIgnoreCase(inputFormat)) {
+            // read only the dictionary columns
+            CubeDesc cubeDesc = CubeManager.getInstance(KylinConfig.getInstanceFromEnv()).getCube(cubeName).getDescriptor();
+            JoinedFlatTableDesc flatTableDesc = new JoinedFlatTableDesc(cubeDesc, null);
+            List<TblColRef> columns = Cuboid.findById(cubeDesc, Cuboid.getBaseCuboidId(cubeDesc)).getColumns();
+            List<Integer> readColumns = new ArrayList<Integer>();
+            for (int i = 0; i < columns.size(); i++) {
+                if (cubeDesc.getRowkey().isUseDictionary(columns.get(i)))
+                    readColumns.add(flatTableDesc.getRowKeyColumnIndexes()[i]);
+            }
+            FlatTableOrcInputFormat.setup(job, flatTableDesc, readColumns);
         } else {
             job.setInputFormatClass(SequenceFileInputFormat.class);
         }
         job.setMapperClass(FactDistinctColumnsMapper.class);
         job.setCombinerClass(FactDistinctColumnsCombiner.class);
-        job.setMapOutputKeyClass(ShortWritable.class);
-        job.setMapOutputValueClass(Text.class);
+        job.setMapOutputKeyClass(Text.class);
+        job.setMapOutputValueClass(NullWritable.class);
     }
 
-    private void setupReduceOutput(Path output) throws IOException {
+    private void setupReduceOutput(Path output, String cubeName) throws IOException {
+        KylinConfig config = KylinConfig.getInstanceFromEnv();
+        CubeDesc cubeDesc = CubeManager.getInstance(config).getCube(cubeName).getDescriptor();
+        int[] factDictCols = FactDistinctColumnsMapper.getFactDictColumns(cubeDesc, DictionaryManager.getInstance(config));
+        int shards = Math.max(1, config.getFactDistinctColumnShards());
+
+        // spread the columns, and shards of a column, over reducers
+        StringBuilder buf = new StringBuilder();
+        for (int c : factDictCols) {
+            if (buf.length() > 0)
+                buf.append(",");
+            buf.append(c);
+        }
+        job.getConfiguration().set(BatchConstants.CFG_FACT_DICT_COLUMNS, buf.toString());
+        job.getConfiguration().setInt(BatchConstants.CFG_FACT_DICT_COLUMN_SHARDS, shards);
+        job.setPartitionerClass(FactDistinctColumnsPartitioner.class);
+
         job.setReducerClass(FactDistinctColumnsReducer.class);
         job.setOutputFormatClass(SequenceFileOutputFormat.class);
         job.setOutputKeyClass(NullWritable.class);
@@ -117,7 +151,9 @@ public class FactDistinctColumnsJob extends AbstractHadoopJob {
         FileOutputFormat.setOutputPath(job, output);
         job.getConfiguration().set(BatchConstants.OUTPUT_PATH, output.toString());
 
-        job.setNumReduceTasks(1);
+        int reducers = Math.max(1, Math.min(factDictCols.length * shards, config.getHadoopJobMaxReducerNumber()));
+        log.info("Fact distinct columns of " + factDictCols.length + " columns with " + shards + " shards each, " + reducers + " reducers");
+        job.setNumReduceTasks(reducers);
 
         deletePath(job.getConfiguration(), output);
     }
@@ -20,11 +20,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
-import org.apache.hadoop.io.ShortWritable;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.io.Text;
 
 import com.kylinolap.common.KylinConfig;
 import com.kylinolap.common.mr.KylinMapper;
+import com.kylinolap.common.util.BytesUtil;
 import com.kylinolap.cube.CubeInstance;
 import com.kylinolap.cube.CubeManager;
 import com.kylinolap.cube.common.BytesSplitter;
@@ -39,9 +40,13 @@ import com.kylinolap.metadata.model.cube.RowKeyDesc;
 import com.kylinolap.metadata.model.cube.TblColRef;
 
 /**
+ * Emits each value of the fact table dictionary columns as key, prefixed by
+ * the 2 bytes column index, so the shuffle sorts and groups distinct values of
+ * a column together.
+ * 
  * @author yangli9
  */
-public class FactDistinctColumnsMapper<KEYIN> extends KylinMapper<KEYIN, Text, ShortWritable, Text> {
+public class FactDistinctColumnsMapper<KEYIN> extends KylinMapper<KEYIN, Text, Text, NullWritable> {
 
     private String cubeName;
     private CubeInstance cube;
@@ -53,8 +58,8 @@ public class FactDistinctColumnsMapper<KEYIN> extends KylinMapper<KEYIN, Text, S
     private byte byteRowDelimiter;
     private BytesSplitter bytesSplitter;
 
-    private ShortWritable outputKey = new ShortWritable();
-    private Text outputValue = new Text();
+    private Text outputKey = new Text();
+    private byte[] keyBuf = new byte[256];
     private int errorRecordCounter;
 
     @Override
@@ -72,13 +77,20 @@ public class FactDistinctColumnsMapper<KEYIN> extends KylinMapper<KEYIN, Text, S
         cubeDesc = cube.getDescriptor();
         intermediateTableDesc = new JoinedFlatTableDesc(cubeDesc, null);
 
+        this.factDictCols = getFactDictColumns(cubeDesc, DictionaryManager.getInstance(config));
+    }
+
+    /**
+     * indexes in base cuboid of the dictionary columns whose values come from
+     * fact table
+     */
+    public static int[] getFactDictColumns(CubeDesc cubeDesc, DictionaryManager dictMgr) throws IOException {
         long baseCuboidId = Cuboid.getBaseCuboidId(cubeDesc);
         Cuboid baseCuboid = Cuboid.findById(cubeDesc, baseCuboidId);
         List<TblColRef> columns = baseCuboid.getColumns();
 
         ArrayList<Integer> factDictCols = new ArrayList<Integer>();
         RowKeyDesc rowkey = cubeDesc.getRowkey();
-        DictionaryManager dictMgr = DictionaryManager.getInstance(config);
         for (int i = 0; i < columns.size(); i++) {
             TblColRef col = columns.get(i);
             if (rowkey.isUseDictionary(col) == false)
@@ -89,9 +101,10 @@ public class FactDistinctColumnsMapper<KEYIN> extends KylinMapper<KEYIN, Text, S
                 factDictCols.add(i);
             }
         }
-        this.factDictCols = new int[factDictCols.size()];
+        int[] result = new int[factDictCols.size()];
         for (int i = 0; i < factDictCols.size(); i++)
-            this.factDictCols[i] = factDictCols.get(i);
+            result[i] = factDictCols.get(i);
+        return result;
     }
 
     @Override
@@ -104,10 +117,13 @@ public class FactDistinctColumnsMapper<KEYIN> extends KylinMapper<KEYIN, Text, S
 
             int[] flatTableIndexes = intermediateTableDesc.getRowKeyColumnIndexes();
             for (int i : factDictCols) {
-                outputKey.set((short) i);
                 SplittedBytes bytes = splitBuffers[flatTableIndexes[i]];
-                outputValue.set(bytes.value, 0, bytes.length);
-                context.write(outputKey, outputValue);
+                if (keyBuf.length < bytes.length + 2)
+                    keyBuf = new byte[2 * (bytes.length + 2)];
+                BytesUtil.writeUnsigned(i, keyBuf, 0, 2);
+                System.arraycopy(bytes.value, 0, keyBuf, 2, bytes.length);
+                outputKey.set(keyBuf, 0, bytes.length + 2);
+                context.write(outputKey, NullWritable.get());
             }
         } catch (Exception ex) {
             handleErrorRecord(bytesSplitter, ex);
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.job.hadoop.cube;
+
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.mapreduce.Partitioner;
+
+import com.kylinolap.common.util.BytesUtil;
+import com.kylinolap.job.constant.BatchConstants;
+
+/**
+ * Gives each dictionary column its own reducers, so columns are collected in
+ * parallel. When a column has more than one shard, its distinct values are
+ * split among the shards by hash.
+ */
+public class FactDistinctColumnsPartitioner extends Partitioner<Text, NullWritable> implements Configurable {
+
+    private Configuration conf;
+    private int[] columnOrdinals; // base cuboid column index to ordinal among dictionary columns
+    private int shards;
+
+    @Override
+    public int getPartition(Text key, NullWritable value, int numPartitions) {
+        byte[] bytes = key.getBytes();
+        int col = BytesUtil.readUnsigned(bytes, 0, 2);
+        int shard = 0;
+        if (shards > 1)
+            shard = (WritableComparator.hashBytes(bytes, 2, key.getLength() - 2) & Integer.MAX_VALUE) % shards;
+        return (columnOrdinals[col] * shards + shard) % numPartitions;
+    }
+
+    @Override
+    public void setConf(Configuration conf) {
+        this.conf = conf;
+        this.shards = Math.max(1, conf.getInt(BatchConstants.CFG_FACT_DICT_COLUMN_SHARDS, 1));
+
+        int[] columns = conf.getInts(BatchConstants.CFG_FACT_DICT_COLUMNS);
+        int max = -1;
+        for (int c : columns)
+            max = Math.max(max, c);
+        this.columnOrdinals = new int[max + 1];
+        for (int i = 0; i < columns.length; i++)
+            columnOrdinals[columns[i]] = i;
+    }
+
+    @Override
+    public Configuration getConf() {
+        return conf;
+    }
+
+}
@@ -17,21 +17,18 @@ package com.kylinolap.job.hadoop.cube;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.ShortWritable;
 import org.apache.hadoop.io.Text;
 
 import com.kylinolap.common.KylinConfig;
 import com.kylinolap.common.mr.KylinReducer;
-import com.kylinolap.common.util.ByteArray;
+import com.kylinolap.common.util.BytesUtil;
 import com.kylinolap.cube.CubeInstance;
 import com.kylinolap.cube.CubeManager;
 import com.kylinolap.cube.cuboid.Cuboid;
@@ -41,11 +38,21 @@ import com.kylinolap.metadata.model.cube.CubeDesc;
 import com.kylinolap.metadata.model.cube.TblColRef;
 
 /**
+ * Keys come sorted by column then value, each is written out once as it
+ * arrives, nothing is held in memory.
+ * 
+ * A column of one shard goes to file (output path)/(column name), otherwise
+ * each reducer writes its part of the column to folder (output path)/(column
+ * name)/.
+ * 
  * @author yangli9
  */
-public class FactDistinctColumnsReducer extends KylinReducer<ShortWritable, Text, NullWritable, Text> {
+public class FactDistinctColumnsReducer extends KylinReducer<Text, NullWritable, NullWritable, Text> {
 
     private List<TblColRef> columnList = new ArrayList<TblColRef>();
+    private int shards;
+    private int currentCol = -1;
+    private FSDataOutputStream out;
 
     @Override
     protected void setup(Context context) throws IOException {
@@ -60,32 +67,42 @@ public class FactDistinctColumnsReducer extends KylinReducer<ShortWritable, Text
         long baseCuboidId = Cuboid.getBaseCuboidId(cubeDesc);
         Cuboid baseCuboid = Cuboid.findById(cubeDesc, baseCuboidId);
         columnList = baseCuboid.getColumns();
+        shards = Math.max(1, conf.getInt(BatchConstants.CFG_FACT_DICT_COLUMN_SHARDS, 1));
     }
 
     @Override
-    public void reduce(ShortWritable key, Iterable<Text> values, Context context) throws IOException, InterruptedException {
-        TblColRef col = columnList.get(key.get());
-
-        HashSet<ByteArray> set = new HashSet<ByteArray>();
-        for (Text textValue : values) {
-            ByteArray value = new ByteArray(Bytes.copy(textValue.getBytes(), 0, textValue.getLength()));
-            set.add(value);
+    public void reduce(Text key, Iterable<NullWritable> values, Context context) throws IOException, InterruptedException {
+        byte[] bytes = key.getBytes();
+        int col = BytesUtil.readUnsigned(bytes, 0, 2);
+        if (col != currentCol) {
+            closeOutput();
+            out = createOutput(context, columnList.get(col));
+            currentCol = col;
         }
 
+        out.write(bytes, 2, key.getLength() - 2);
+        out.write('\n');
+    }
+
+    private FSDataOutputStream createOutput(Context context, TblColRef col) throws IOException {
         Configuration conf = context.getConfiguration();
         FileSystem fs = FileSystem.get(conf);
-        String outputPath = conf.get(BatchConstants.OUTPUT_PATH);
-        FSDataOutputStream out = fs.create(new Path(outputPath, col.getName()));
+        Path path = new Path(conf.get(BatchConstants.OUTPUT_PATH), col.getName());
+        if (shards > 1)
+            path = new Path(path, String.format("part-%05d", context.getTaskAttemptID().getTaskID().getId()));
+        return fs.create(path);
+    }
 
-        try {
-            for (ByteArray value : set) {
-                out.write(value.data);
-                out.write('\n');
-            }
-        } finally {
+    private void closeOutput() throws IOException {
+        if (out != null) {
             out.close();
+            out = null;
         }
+    }
 
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        closeOutput();
     }
 
 }
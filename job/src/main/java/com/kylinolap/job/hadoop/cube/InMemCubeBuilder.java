@@ -0,0 +1,213 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.job.hadoop.cube;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.kylinolap.common.util.ByteArray;
+import com.kylinolap.cube.CubeSegment;
+import com.kylinolap.cube.common.RowKeySplitter;
+import com.kylinolap.cube.common.SplittedBytes;
+import com.kylinolap.cube.cuboid.Cuboid;
+import com.kylinolap.cube.cuboid.CuboidScheduler;
+import com.kylinolap.cube.kv.RowConstants;
+import com.kylinolap.cube.kv.RowKeyShard;
+import com.kylinolap.cube.measure.MeasureAggregators;
+import com.kylinolap.metadata.model.cube.CubeDesc;
+import com.kylinolap.metadata.model.cube.MeasureDesc;
+
+/**
+ * Aggregates base cuboid records in memory, then computes all the other
+ * cuboids from them by walking the spanning tree of CuboidScheduler, the same
+ * tree the layered NDCuboidJob chain follows.
+ *
+ * The tree is walked depth first, only the cuboids on the current path are
+ * held in memory. Every cuboid is aggregated from its parent, not from the
+ * base cuboid.
+ *
+ * Output records are partial aggregates of the input fed so far, thus the
+ * builder can be flushed whenever memory runs short and a merge reducer
+ * (CuboidReducer) gives the final result.
+ */
+public class InMemCubeBuilder {
+
+    public interface CuboidRecordWriter {
+        public void write(byte[] key, int keyLength, Object[] states) throws IOException, InterruptedException;
+    }
+
+    // rough overhead of a hash entry, the key wrapper and aggregator objects
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final int MEASURE_OVERHEAD_BYTES = 32;
+
+    private final CubeDesc cubeDesc;
+    private final List<MeasureDesc> measureDescs;
+    private final CuboidScheduler cuboidScheduler;
+    private final long baseCuboidId;
+    private final RowKeySplitter rowKeySplitter;
+    private final int shardCount;
+    private final byte[] keyBuf = new byte[4096];
+    private final Object[] states;
+
+    private Map<ByteArray, MeasureAggregators> baseCuboid;
+    private long baseCuboidMemBytes;
+
+    private long flushCount;
+    private long outputCount;
+
+    public InMemCubeBuilder(CubeSegment cubeSegment) {
+        this.cubeDesc = cubeSegment.getCubeDesc();
+        this.measureDescs = cubeDesc.getMeasures();
+        this.cuboidScheduler = new CuboidScheduler(cubeDesc);
+        this.baseCuboidId = Cuboid.getBaseCuboidId(cubeDesc);
+        this.rowKeySplitter = new RowKeySplitter(cubeSegment, 65, 256);
+        this.shardCount = cubeSegment.getRowKeyShardCount();
+        this.states = new Object[measureDescs.size()];
+        this.baseCuboid = new HashMap<ByteArray, MeasureAggregators>();
+    }
+
+    /**
+     * aggregates a record of base cuboid, the measures are as decoded by
+     * MeasureCodec
+     */
+    public void addBaseCuboidRecord(byte[] rowKey, Object[] measures) {
+        ByteArray key = new ByteArray(rowKey);
+        MeasureAggregators aggs = baseCuboid.get(key);
+        if (aggs == null) {
+            aggs = new MeasureAggregators(measureDescs);
+            aggs.aggregate(measures);
+            baseCuboid.put(new ByteArray(Arrays.copyOf(rowKey, rowKey.length)), aggs);
+            baseCuboidMemBytes += ENTRY_OVERHEAD_BYTES + rowKey.length + measureDescs.size() * MEASURE_OVERHEAD_BYTES + aggs.getMemBytes();
+        } else {
+            aggs.aggregate(measures);
+        }
+    }
+
+    public int getBaseCuboidSize() {
+        return baseCuboid.size();
+    }
+
+    /**
+     * estimated memory held by the base cuboid, the cuboids derived during
+     * flush() take no more than this each
+     */
+    public long getBaseCuboidMemBytes() {
+        return baseCuboidMemBytes;
+    }
+
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    public long getOutputCount() {
+        return outputCount;
+    }
+
+    /**
+     * outputs the base cuboid and all its descendants, then clears the base
+     * cuboid for new input
+     */
+    public void flush(CuboidRecordWriter writer) throws IOException, InterruptedException {
+        if (baseCuboid.isEmpty())
+            return;
+
+        Map<ByteArray, MeasureAggregators> base = baseCuboid;
+        baseCuboid = new HashMap<ByteArray, MeasureAggregators>();
+        baseCuboidMemBytes = 0;
+
+        buildCuboidTree(baseCuboidId, base, writer);
+        flushCount++;
+    }
+
+    private void buildCuboidTree(long cuboidId, Map<ByteArray, MeasureAggregators> cuboid, CuboidRecordWriter writer) throws IOException, InterruptedException {
+        output(cuboid, writer);
+
+        Collection<Long> children = cuboidScheduler.getSpanningCuboid(cuboidId);
+        if (children == null || children.isEmpty())
+            return;
+
+        Cuboid parent = Cuboid.findById(cubeDesc, cuboidId);
+        for (Long childId : children) {
+            Cuboid child = Cuboid.findById(cubeDesc, childId);
+            Map<ByteArray, MeasureAggregators> childCuboid = aggregateChild(parent, child, cuboid);
+            buildCuboidTree(childId, childCuboid, writer);
+        }
+    }
+
+    private Map<ByteArray, MeasureAggregators> aggregateChild(Cuboid parent, Cuboid child, Map<ByteArray, MeasureAggregators> parentCuboid) {
+        Map<ByteArray, MeasureAggregators> result = new HashMap<ByteArray, MeasureAggregators>();
+        for (Entry<ByteArray, MeasureAggregators> entry : parentCuboid.entrySet()) {
+            byte[] parentKey = entry.getKey().data;
+            rowKeySplitter.split(parentKey, parentKey.length);
+            int keyLength = buildChildKey(parent, child, rowKeySplitter.getSplitBuffers());
+            ByteArray childKey = new ByteArray(Arrays.copyOf(keyBuf, keyLength));
+
+            entry.getValue().collectStates(states);
+            MeasureAggregators aggs = result.get(childKey);
+            if (aggs == null) {
+                aggs = new MeasureAggregators(measureDescs);
+                result.put(childKey, aggs);
+            }
+            aggs.aggregate(states);
+        }
+        return result;
+    }
+
+    // same as NDCuboidMapper.buildKey()
+    private int buildChildKey(Cuboid parentCuboid, Cuboid childCuboid, SplittedBytes[] splitBuffers) {
+        int offset = shardCount > 0 ? RowConstants.ROWKEY_SHARDID_LEN : 0;
+
+        // cuboid id
+        System.arraycopy(childCuboid.getBytes(), 0, keyBuf, offset, childCuboid.getBytes().length);
+        offset += childCuboid.getBytes().length;
+
+        // rowkey columns
+        long mask = Long.highestOneBit(parentCuboid.getId());
+        long parentCuboidId = parentCuboid.getId();
+        long childCuboidId = childCuboid.getId();
+        long parentCuboidIdActualLength = Long.SIZE - Long.numberOfLeadingZeros(parentCuboid.getId());
+        int index = 1; // skip cuboidId
+        for (int i = 0; i < parentCuboidIdActualLength; i++) {
+            if ((mask & parentCuboidId) > 0) { // parent has this column
+                if ((mask & childCuboidId) > 0) { // child has this column
+                    System.arraycopy(splitBuffers[index].value, 0, keyBuf, offset, splitBuffers[index].length);
+                    offset += splitBuffers[index].length;
+                }
+                index++;
+            }
+            mask = mask >> 1;
+        }
+
+        // the shard of child, by its own dimensions
+        RowKeyShard.fillShard(keyBuf, offset, shardCount);
+
+        return offset;
+    }
+
+    private void output(Map<ByteArray, MeasureAggregators> cuboid, CuboidRecordWriter writer) throws IOException, InterruptedException {
+        for (Entry<ByteArray, MeasureAggregators> entry : cuboid.entrySet()) {
+            byte[] key = entry.getKey().data;
+            entry.getValue().collectStates(states);
+            writer.write(key, key.length, states);
+            outputCount++;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.job.hadoop.cube;
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.Text;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.kylinolap.job.constant.BatchConstants;
+
+/**
+ * Builds the whole cube of an input split in memory, see InMemCubeBuilder.
+ * Parses the flat table record the same as BaseCuboidMapper, but instead of
+ * writing the base cuboid out, aggregates it in memory and emits all cuboids
+ * when the split is done or the memory budget is used up.
+ */
+public class InMemCuboidMapper<KEYIN> extends BaseCuboidMapper<KEYIN> {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemCuboidMapper.class);
+
+    private InMemCubeBuilder builder;
+    private long baseCuboidMemBudget;
+
+    @Override
+    protected void setup(Context context) throws IOException {
+        super.setup(context);
+
+        builder = new InMemCubeBuilder(cubeSegment);
+
+        long memBudget = config.getInMemCubingMemoryMB() * 1024L * 1024L;
+        if (memBudget <= 0)
+            memBudget = Runtime.getRuntime().maxMemory() / 3;
+        // during flush the cuboids on current path of the tree are held
+        // together, each is no bigger than the base cuboid
+        int treeDepth = cubeDesc.getRowkey().getRowKeyColumns().length + 1;
+        baseCuboidMemBudget = memBudget / treeDepth;
+        logger.info("In-memory cubing budget " + memBudget + " bytes, base cuboid flushes at " + baseCuboidMemBudget + " bytes");
+    }
+
+    @Override
+    protected void outputBaseCuboidRecord(byte[] rowKey, Object[] measures, Context context) throws IOException, InterruptedException {
+        builder.addBaseCuboidRecord(rowKey, measures);
+    }
+
+    @Override
+    public void map(KEYIN key, Text value, Context context) throws IOException, InterruptedException {
+        super.map(key, value, context);
+
+        // flush out of super.map(), where errors are taken as bad records
+        if (builder.getBaseCuboidMemBytes() > baseCuboidMemBudget) {
+            logger.info("Flushing " + builder.getBaseCuboidSize() + " base cuboid records, estimated " + builder.getBaseCuboidMemBytes() + " bytes");
+            flush(context);
+        }
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        flush(context);
+        logger.info("Flushed " + builder.getFlushCount() + " times, output " + builder.getOutputCount() + " records");
+    }
+
+    private void flush(final Context context) throws IOException, InterruptedException {
+        builder.flush(new InMemCubeBuilder.CuboidRecordWriter() {
+            @Override
+            public void write(byte[] key, int keyLength, Object[] states) throws IOException, InterruptedException {
+                outputKey.set(key, 0, keyLength);
+                valueBuf.clear();
+                measureCodec.encode(states, valueBuf);
+                outputValue.set(valueBuf.array(), 0, valueBuf.position());
+                context.write(outputKey, outputValue);
+            }
+        });
+        context.getCounter(BatchConstants.MAPREDUCE_COUTNER_GROUP_NAME, "In-memory cube flushes").increment(1L);
+    }
+}
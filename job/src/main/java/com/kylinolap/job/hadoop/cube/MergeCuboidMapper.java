@@ -24,6 +24,8 @@ import java.util.regex.Pattern;
 
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.kylinolap.common.KylinConfig;
 import com.kylinolap.common.mr.KylinMapper;
@@ -36,11 +38,13 @@ import com.kylinolap.cube.common.RowKeySplitter;
 import com.kylinolap.cube.common.SplittedBytes;
 import com.kylinolap.cube.cuboid.Cuboid;
 import com.kylinolap.cube.kv.RowConstants;
+import com.kylinolap.cube.kv.RowKeyShard;
 import com.kylinolap.dict.Dictionary;
 import com.kylinolap.dict.DictionaryManager;
 import com.kylinolap.job.constant.BatchConstants;
 import com.kylinolap.job.hadoop.AbstractHadoopJob;
 import com.kylinolap.metadata.model.cube.CubeDesc;
+import com.kylinolap.metadata.model.cube.RowKeyColDesc;
 import com.kylinolap.metadata.model.cube.TblColRef;
 
 /**
@@ -48,6 +52,8 @@ import com.kylinolap.metadata.model.cube.TblColRef;
  */
 public class MergeCuboidMapper extends KylinMapper<Text, Text, Text, Text> {
 
+    private static final Logger logger = LoggerFactory.getLogger(MergeCuboidMapper.class);
+
     private KylinConfig config;
     private String cubeName;
     private String segmentName;
@@ -65,6 +71,17 @@ public class MergeCuboidMapper extends KylinMapper<Text, Text, Text, Text> {
 
     private HashMap<TblColRef, Boolean> dictsNeedMerging = new HashMap<TblColRef, Boolean>();
 
+    private HashMap<TblColRef, IdRemap> idRemaps = new HashMap<TblColRef, IdRemap>();
+
+    /**
+     * source segment dictionary ID to merged segment dictionary ID
+     */
+    private static class IdRemap {
+        int minId;
+        int[] newIds; // indexed by (source ID - minId)
+        int sizeOfId;
+    }
+
     private static final Pattern JOB_NAME_PATTERN = Pattern.compile("kylin-([0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12})");
 
     private Boolean checkNeedMerging(TblColRef col) throws IOException {
@@ -123,6 +140,58 @@ public class MergeCuboidMapper extends KylinMapper<Text, Text, Text, Text> {
         sourceCubeSegment = findSegmentWithUuid(jobID, cube);
 
         this.rowKeySplitter = new RowKeySplitter(sourceCubeSegment, 65, 255);
+
+        buildIdRemaps();
+    }
+
+    /**
+     * translate every ID of the source dictionaries once here, so map() does
+     * an array lookup instead of two trie walks per cell
+     */
+    private void buildIdRemaps() throws IOException {
+        DictionaryManager dictMgr = DictionaryManager.getInstance(config);
+        long budget = config.getMergeDictRemapMaxIds();
+        for (RowKeyColDesc rowKeyCol : cubeDesc.getRowkey().getRowKeyColumns()) {
+            TblColRef col = rowKeyCol.getColRef();
+            if (this.checkNeedMerging(col) == false)
+                continue;
+
+            Dictionary<?> sourceDict = dictMgr.getDictionary(sourceCubeSegment.getDictResPath(col));
+            Dictionary<?> mergedDict = dictMgr.getDictionary(mergedCubeSegment.getDictResPath(col));
+            long size = (long) sourceDict.getMaxId() - sourceDict.getMinId() + 1;
+            if (size <= 0)
+                continue;
+            if (size > budget) {
+                logger.info("Not remapping IDs of " + col + ", " + size + " IDs exceed the remaining budget " + budget);
+                continue;
+            }
+
+            IdRemap idRemap = new IdRemap();
+            idRemap.minId = sourceDict.getMinId();
+            idRemap.newIds = buildIdRemap(sourceDict, mergedDict);
+            idRemap.sizeOfId = mergedDict.getSizeOfId();
+            idRemaps.put(col, idRemap);
+            budget -= size;
+        }
+    }
+
+    /**
+     * merged dictionary IDs of all source dictionary IDs, -1 where the source
+     * ID does not translate
+     */
+    static int[] buildIdRemap(Dictionary<?> sourceDict, Dictionary<?> mergedDict) {
+        int minId = sourceDict.getMinId();
+        int[] remap = new int[sourceDict.getMaxId() - minId + 1];
+        byte[] valueBuf = new byte[sourceDict.getSizeOfValue()];
+        for (int i = 0; i < remap.length; i++) {
+            try {
+                int size = sourceDict.getValueBytesFromId(minId + i, valueBuf, 0);
+                remap[i] = mergedDict.getIdFromValueBytes(valueBuf, 0, size);
+            } catch (IllegalArgumentException e) {
+                remap[i] = -1;
+            }
+        }
+        return remap;
     }
 
     @Override
@@ -131,14 +200,30 @@ public class MergeCuboidMapper extends KylinMapper<Text, Text, Text, Text> {
         Cuboid cuboid = Cuboid.findById(cubeDesc, cuboidID);
 
         SplittedBytes[] splittedByteses = rowKeySplitter.getSplitBuffers();
-        int bufOffset = 0;
+        // shards of the merged segment may differ from the source, always re-shard
+        int bufOffset = RowKeyShard.getShardLength(mergedCubeSegment);
         BytesUtil.writeLong(cuboidID, newKeyBuf, bufOffset, RowConstants.ROWKEY_CUBOIDID_LEN);
         bufOffset += RowConstants.ROWKEY_CUBOIDID_LEN;
 
         for (int i = 0; i < cuboid.getColumns().size(); ++i) {
             TblColRef col = cuboid.getColumns().get(i);
 
-            if (this.checkNeedMerging(col)) {
+            IdRemap idRemap = idRemaps.get(col);
+            int remapIndex = -1;
+            if (idRemap != null) {
+                remapIndex = BytesUtil.readUnsigned(splittedByteses[i + 1].value, 0, splittedByteses[i + 1].length) - idRemap.minId;
+            }
+
+            if (remapIndex >= 0 && remapIndex < idRemap.newIds.length && idRemap.newIds[remapIndex] >= 0) {
+                while (idRemap.sizeOfId > newKeyBuf.length - bufOffset) {
+                    byte[] oldBuf = newKeyBuf;
+                    newKeyBuf = new byte[2 * newKeyBuf.length];
+                    System.arraycopy(oldBuf, 0, newKeyBuf, 0, oldBuf.length);
+                }
+
+                BytesUtil.writeUnsigned(idRemap.newIds[remapIndex], newKeyBuf, bufOffset, idRemap.sizeOfId);
+                bufOffset += idRemap.sizeOfId;
+            } else if (this.checkNeedMerging(col)) {
                 // if dictionary on fact table column, needs rewrite
                 DictionaryManager dictMgr = DictionaryManager.getInstance(config);
                 Dictionary<?> sourceDict = dictMgr.getDictionary(sourceCubeSegment.getDictResPath(col));
@@ -168,6 +253,7 @@ public class MergeCuboidMapper extends KylinMapper<Text, Text, Text, Text> {
                 bufOffset += splittedByteses[i + 1].length;
             }
         }
+        RowKeyShard.fillShard(newKeyBuf, bufOffset, mergedCubeSegment.getRowKeyShardCount());
         byte[] newKey = Arrays.copyOf(newKeyBuf, bufOffset);
         outputKey.set(newKey, 0, newKey.length);
 
@@ -16,7 +16,12 @@
 package com.kylinolap.job.hadoop.cube;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.apache.hadoop.io.Text;
 import org.slf4j.Logger;
@@ -24,6 +29,7 @@ import org.slf4j.LoggerFactory;
 
 import com.kylinolap.common.KylinConfig;
 import com.kylinolap.common.mr.KylinMapper;
+import com.kylinolap.common.util.ByteArray;
 import com.kylinolap.cube.CubeInstance;
 import com.kylinolap.cube.CubeManager;
 import com.kylinolap.cube.CubeSegment;
@@ -32,6 +38,10 @@ import com.kylinolap.cube.common.RowKeySplitter;
 import com.kylinolap.cube.common.SplittedBytes;
 import com.kylinolap.cube.cuboid.Cuboid;
 import com.kylinolap.cube.cuboid.CuboidScheduler;
+import com.kylinolap.cube.kv.RowConstants;
+import com.kylinolap.cube.kv.RowKeyShard;
+import com.kylinolap.cube.measure.MeasureAggregators;
+import com.kylinolap.cube.measure.MeasureCodec;
 import com.kylinolap.job.constant.BatchConstants;
 import com.kylinolap.job.hadoop.AbstractHadoopJob;
 import com.kylinolap.metadata.model.cube.CubeDesc;
@@ -55,6 +65,18 @@ public class NDCuboidMapper extends KylinMapper<Text, Text, Text, Text> {
 
     private byte[] keyBuf = new byte[4096];
     private RowKeySplitter rowKeySplitter;
+    private int shardCount;
+
+    // map-side aggregation of child cuboid records, by child row key
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final int MEASURE_OVERHEAD_BYTES = 32;
+    private long aggrMemBudget;
+    private long aggrMemBytes;
+    private Map<ByteArray, MeasureAggregators> aggrBuffer = new HashMap<ByteArray, MeasureAggregators>();
+    private MeasureCodec measureCodec;
+    private Object[] measures;
+    private Text outputValue = new Text();
+    private ByteBuffer valueBuf = ByteBuffer.allocate(RowConstants.ROWVALUE_BUFFER_SIZE);
 
     @Override
     protected void setup(Context context) throws IOException {
@@ -74,10 +96,15 @@ public class NDCuboidMapper extends KylinMapper<Text, Text, Text, Text> {
         cuboidScheduler = new CuboidScheduler(cubeDesc);
 
         rowKeySplitter = new RowKeySplitter(cubeSegment, 65, 256);
+        shardCount = cubeSegment.getRowKeyShardCount();
+
+        aggrMemBudget = config.getNDCuboidMapperAggregationMB() * 1024L * 1024L;
+        measureCodec = new MeasureCodec(cubeDesc.getMeasures());
+        measures = new Object[cubeDesc.getMeasures().size()];
     }
 
     private int buildKey(Cuboid parentCuboid, Cuboid childCuboid, SplittedBytes[] splitBuffers) {
-        int offset = 0;
+        int offset = shardCount > 0 ? RowConstants.ROWKEY_SHARDID_LEN : 0;
 
         // cuboid id
         System.arraycopy(childCuboid.getBytes(), 0, keyBuf, offset, childCuboid.getBytes().length);
@@ -102,6 +129,9 @@ public class NDCuboidMapper extends KylinMapper<Text, Text, Text, Text> {
             mask = mask >> 1;
         }
 
+        // the shard of child, by its own dimensions
+        RowKeyShard.fillShard(keyBuf, offset, shardCount);
+
         return offset;
     }
 
@@ -129,12 +159,62 @@ public class NDCuboidMapper extends KylinMapper<Text, Text, Text, Text> {
             logger.info("Handled " + handleCounter + " records!");
         }
 
+        if (aggrMemBudget > 0) {
+            measureCodec.decode(value, measures);
+        }
+
         for (Long child : myChildren) {
             Cuboid childCuboid = Cuboid.findById(cubeDesc, child);
             int keyLength = buildKey(parentCuboid, childCuboid, rowKeySplitter.getSplitBuffers());
-            outputKey.set(keyBuf, 0, keyLength);
-            context.write(outputKey, value);
+            if (aggrMemBudget > 0) {
+                aggregate(keyLength);
+            } else {
+                outputKey.set(keyBuf, 0, keyLength);
+                context.write(outputKey, value);
+            }
         }
 
+        if (aggrMemBytes > aggrMemBudget) {
+            flushAggregation(context);
+        }
+    }
+
+    private void aggregate(int keyLength) {
+        ByteArray key = new ByteArray(Arrays.copyOf(keyBuf, keyLength));
+        MeasureAggregators aggs = aggrBuffer.get(key);
+        if (aggs == null) {
+            aggs = new MeasureAggregators(cubeDesc.getMeasures());
+            aggs.aggregate(measures);
+            aggrBuffer.put(key, aggs);
+            aggrMemBytes += ENTRY_OVERHEAD_BYTES + keyLength + measures.length * MEASURE_OVERHEAD_BYTES + aggs.getMemBytes();
+        } else {
+            aggs.aggregate(measures);
+        }
+    }
+
+    private void flushAggregation(Context context) throws IOException, InterruptedException {
+        if (aggrBuffer.isEmpty())
+            return;
+
+        context.getCounter(BatchConstants.MAPREDUCE_COUTNER_GROUP_NAME, "Map-side aggregation flushes").increment(1L);
+        context.getCounter(BatchConstants.MAPREDUCE_COUTNER_GROUP_NAME, "Map-side aggregated records").increment(aggrBuffer.size());
+
+        for (Entry<ByteArray, MeasureAggregators> entry : aggrBuffer.entrySet()) {
+            byte[] key = entry.getKey().data;
+            entry.getValue().collectStates(measures);
+            valueBuf.clear();
+            measureCodec.encode(measures, valueBuf);
+
+            outputKey.set(key, 0, key.length);
+            outputValue.set(valueBuf.array(), 0, valueBuf.position());
+            context.write(outputKey, outputValue);
+        }
+        aggrBuffer.clear();
+        aggrMemBytes = 0;
+    }
+
+    @Override
+    protected void cleanup(Context context) throws IOException, InterruptedException {
+        flushAggregation(context);
     }
 }
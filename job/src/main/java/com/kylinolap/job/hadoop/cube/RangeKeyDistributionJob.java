@@ -18,6 +18,8 @@ package com.kylinolap.job.hadoop.cube;
 
 import java.io.File;
 
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.OptionBuilder;
 import org.apache.commons.cli.Options;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.LongWritable;
@@ -33,6 +35,8 @@ import org.slf4j.LoggerFactory;
 import com.kylinolap.common.KylinConfig;
 import com.kylinolap.cube.CubeInstance;
 import com.kylinolap.cube.CubeManager;
+import com.kylinolap.cube.CubeSegment;
+import com.kylinolap.cube.CubeSegmentStatusEnum;
 import com.kylinolap.job.constant.BatchConstants;
 import com.kylinolap.job.hadoop.AbstractHadoopJob;
 import com.kylinolap.metadata.model.cube.CubeDesc.CubeCapacity;
@@ -42,9 +46,13 @@ import com.kylinolap.metadata.model.cube.CubeDesc.CubeCapacity;
  * 
  */
 
+@SuppressWarnings("static-access")
 public class RangeKeyDistributionJob extends AbstractHadoopJob {
     protected static final Logger log = LoggerFactory.getLogger(RangeKeyDistributionJob.class);
 
+    // optional, given to split by row key shards of the segment
+    protected static final Option OPTION_SHARDED_SEGMENT_NAME = OptionBuilder.withArgName("name").hasArg().isRequired(false).withDescription("Cube segment name").create("segmentname");
+
     /*
      * (non-Javadoc)
      * 
@@ -59,6 +67,7 @@ public class RangeKeyDistributionJob extends AbstractHadoopJob {
             options.addOption(OPTION_OUTPUT_PATH);
             options.addOption(OPTION_JOB_NAME);
             options.addOption(OPTION_CUBE_NAME);
+            options.addOption(OPTION_SHARDED_SEGMENT_NAME);
 
             parseOptions(options, args);
 
@@ -100,6 +109,12 @@ public class RangeKeyDistributionJob extends AbstractHadoopJob {
             CubeCapacity cubeCapacity = cube.getDescriptor().getCapacity();
             job.getConfiguration().set(BatchConstants.CUBE_CAPACITY, cubeCapacity.toString());
 
+            if (hasOption(OPTION_SHARDED_SEGMENT_NAME)) {
+                String segmentName = getOptionValue(OPTION_SHARDED_SEGMENT_NAME);
+                CubeSegment segment = cube.getSegment(segmentName, CubeSegmentStatusEnum.NEW);
+                job.getConfiguration().setInt(BatchConstants.CFG_ROWKEY_SHARD_COUNT, segment.getRowKeyShardCount());
+            }
+
             return waitForCompletion(job);
         } catch (Exception e) {
             printUsage(options);
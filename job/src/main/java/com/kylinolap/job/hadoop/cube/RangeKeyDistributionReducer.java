@@ -25,6 +25,7 @@ import org.apache.hadoop.io.Text;
 import org.apache.hadoop.util.StringUtils;
 
 import com.kylinolap.common.mr.KylinReducer;
+import com.kylinolap.cube.kv.RowKeyShard;
 import com.kylinolap.job.constant.BatchConstants;
 import com.kylinolap.metadata.model.cube.CubeDesc.CubeCapacity;
 
@@ -44,6 +45,7 @@ public class RangeKeyDistributionReducer extends KylinReducer<Text, LongWritable
     private LongWritable outputValue = new LongWritable(0);
 
     private int cut;
+    private int shardCount;
     private long bytesRead = 0;
     private List<Text> gbPoints = new ArrayList<Text>();
 
@@ -63,6 +65,8 @@ public class RangeKeyDistributionReducer extends KylinReducer<Text, LongWritable
             cut = LARGE_CUT;
             break;
         }
+
+        shardCount = context.getConfiguration().getInt(BatchConstants.CFG_ROWKEY_SHARD_COUNT, 0);
     }
 
     @Override
@@ -82,6 +86,16 @@ public class RangeKeyDistributionReducer extends KylinReducer<Text, LongWritable
         int nRegion = Math.round((float) gbPoints.size() / (float) cut);
         nRegion = Math.max(1,  nRegion);
         nRegion = Math.min(MAX_REGION, nRegion);
+
+        // every cuboid is spread across shards evenly, so a region per shard
+        // at least, and splits on shard boundaries unless more regions needed
+        if (shardCount > 0) {
+            nRegion = Math.min(MAX_REGION, Math.max(nRegion, shardCount));
+            if (nRegion <= shardCount) {
+                writeShardSplits(nRegion, context);
+                return;
+            }
+        }
         
         int gbPerRegion = gbPoints.size() / nRegion;
         gbPerRegion = Math.max(1, gbPerRegion);
@@ -96,4 +110,17 @@ public class RangeKeyDistributionReducer extends KylinReducer<Text, LongWritable
             context.write(key, outputValue);
         }
     }
+
+    private void writeShardSplits(int nRegion, Context context) throws IOException, InterruptedException {
+        System.out.println(nRegion + " regions");
+        System.out.println(shardCount + " row key shards");
+
+        byte[][] splits = RowKeyShard.getShardSplitKeys(shardCount, nRegion);
+        for (int i = 0; splits != null && i < splits.length; i++) {
+            Text key = new Text(splits[i]);
+            outputValue.set(i);
+            System.out.println(StringUtils.byteToHexString(key.getBytes()) + "\t" + outputValue.get());
+            context.write(key, outputValue);
+        }
+    }
 }
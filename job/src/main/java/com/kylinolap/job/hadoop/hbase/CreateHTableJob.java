@@ -46,7 +46,10 @@ import com.kylinolap.common.KylinConfig;
 import com.kylinolap.common.util.HadoopUtil;
 import com.kylinolap.cube.CubeInstance;
 import com.kylinolap.cube.CubeManager;
+import com.kylinolap.cube.CubeSegment;
+import com.kylinolap.cube.kv.RowKeyShard;
 import com.kylinolap.job.hadoop.AbstractHadoopJob;
+import com.kylinolap.job.hadoop.cube.RangeKeyDistributionReducer;
 import com.kylinolap.job.tools.DeployCoprocessorCLI;
 import com.kylinolap.job.tools.LZOSupportnessChecker;
 import com.kylinolap.metadata.model.cube.CubeDesc;
@@ -110,6 +113,9 @@ public class CreateHTableJob extends AbstractHadoopJob {
             }
 
             byte[][] splitKeys = getSplits(conf, partitionFilePath);
+            if (splitKeys == null) {
+                splitKeys = getShardSplits(cube, tableName);
+            }
 
             if (admin.tableExists(tableName)) {
                 // admin.disableTable(tableName);
@@ -185,6 +191,18 @@ public class CreateHTableJob extends AbstractHadoopJob {
         return retValue.length == 0 ? null : retValue;
     }
 
+    // without key distribution, a segment of row key shards is still split by shard
+    private byte[][] getShardSplits(CubeInstance cube, String tableName) {
+        for (CubeSegment segment : cube.getSegments()) {
+            if (tableName.equals(segment.getStorageLocationIdentifier()) && segment.getRowKeyShardCount() > 0) {
+                int shardCount = segment.getRowKeyShardCount();
+                System.out.println("Split by " + shardCount + " row key shards");
+                return RowKeyShard.getShardSplitKeys(shardCount, Math.min(shardCount, RangeKeyDistributionReducer.MAX_REGION));
+            }
+        }
+        return null;
+    }
+
     public static void main(String[] args) throws Exception {
         int exitCode = ToolRunner.run(new CreateHTableJob(), args);
         System.exit(exitCode);
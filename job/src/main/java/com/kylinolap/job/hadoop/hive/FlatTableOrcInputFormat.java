@@ -0,0 +1,203 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.job.hadoop.hive;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.ql.io.orc.OrcNewInputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcStruct;
+import org.apache.hadoop.hive.serde2.ByteStream;
+import org.apache.hadoop.hive.serde2.ColumnProjectionUtils;
+import org.apache.hadoop.hive.serde2.lazy.LazyUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputFormat;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.JobContext;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.util.ClassUtil;
+
+import com.kylinolap.job.constant.BatchConstants;
+import com.kylinolap.job.hadoop.hive.JoinedFlatTableDesc.IntermediateColumnDesc;
+
+/**
+ * Reads the intermediate flat table stored as ORC, see
+ * JoinedFlatTable.generateCreateTableStatement(). Only the columns given to
+ * setup() are decoded from disk, the rest of the ORC stripes are skipped.
+ *
+ * Each row is given to mapper in the same layout as the delimited flat table,
+ * so mappers work on either storage. Values are written as text by Hive's
+ * LazySimpleSerDe, the serde of the delimited flat table, so both give the
+ * same dictionaries. Columns not read are left empty, and null is \N.
+ */
+public class FlatTableOrcInputFormat extends InputFormat<NullWritable, Text> {
+
+    public static final String CFG_FLAT_TABLE_ORC_SCHEMA = "kylin.flat.table.orc.schema";
+
+    private static final byte[] NULL_BYTES = new byte[] { '\\', 'N' };
+
+    private final OrcNewInputFormat orcInputFormat = new OrcNewInputFormat();
+
+    /**
+     * sets the input format of job, reads only the given flat table columns,
+     * or all if readColumns is null
+     */
+    public static void setup(Job job, JoinedFlatTableDesc flatTableDesc, List<Integer> readColumns) throws IOException {
+        Configuration conf = job.getConfiguration();
+        job.setInputFormatClass(FlatTableOrcInputFormat.class);
+        conf.set(CFG_FLAT_TABLE_ORC_SCHEMA, getSchema(flatTableDesc));
+
+        if (readColumns == null) {
+            ColumnProjectionUtils.setReadAllColumns(conf);
+        } else {
+            List<Integer> ids = new ArrayList<Integer>(readColumns.size());
+            for (Integer c : readColumns) {
+                if (ids.contains(c) == false)
+                    ids.add(c);
+            }
+            ColumnProjectionUtils.appendReadColumns(conf, ids);
+        }
+
+        // hive is not in the job jar, ship it with the job
+        String hiveJar = ClassUtil.findContainingJar(OrcNewInputFormat.class);
+        if (hiveJar != null) {
+            String tmpJars = conf.get("tmpjars");
+            conf.set("tmpjars", tmpJars == null ? hiveJar : tmpJars + "," + hiveJar);
+        }
+    }
+
+    static String getSchema(JoinedFlatTableDesc flatTableDesc) {
+        StringBuilder buf = new StringBuilder("struct<");
+        List<IntermediateColumnDesc> columns = flatTableDesc.getColumnList();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0)
+                buf.append(",");
+            buf.append("_col").append(i).append(":").append(SqlHiveDataTypeMapping.getHiveDataType(columns.get(i).getDataType()));
+        }
+        buf.append(">");
+        return buf.toString();
+    }
+
+    @Override
+    public List<InputSplit> getSplits(JobContext context) throws IOException, InterruptedException {
+        return orcInputFormat.getSplits(context);
+    }
+
+    @Override
+    public RecordReader<NullWritable, Text> createRecordReader(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
+        return new FlatTableRecordReader(orcInputFormat.createRecordReader(split, context));
+    }
+
+    static class FlatTableRecordReader extends RecordReader<NullWritable, Text> {
+
+        private final RecordReader<NullWritable, OrcStruct> reader;
+        private final Text value = new Text();
+        private final ByteStream.Output fieldBuf = new ByteStream.Output();
+        private StructObjectInspector inspector;
+        private StructField[] fields;
+        private PrimitiveObjectInspector[] fieldInspectors;
+        private boolean[] included;
+        private byte[] delimiter;
+
+        FlatTableRecordReader(RecordReader<NullWritable, OrcStruct> reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public void initialize(InputSplit split, TaskAttemptContext context) throws IOException, InterruptedException {
+            reader.initialize(split, context);
+
+            Configuration conf = context.getConfiguration();
+            String schema = conf.get(CFG_FLAT_TABLE_ORC_SCHEMA);
+            if (schema == null)
+                throw new IllegalStateException(CFG_FLAT_TABLE_ORC_SCHEMA + " is not set");
+            inspector = (StructObjectInspector) OrcStruct.createObjectInspector(TypeInfoUtils.getTypeInfoFromTypeString(schema));
+            fields = inspector.getAllStructFieldRefs().toArray(new StructField[0]);
+            fieldInspectors = new PrimitiveObjectInspector[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                fieldInspectors[i] = (PrimitiveObjectInspector) fields[i].getFieldObjectInspector();
+            }
+
+            included = new boolean[fields.length];
+            if (ColumnProjectionUtils.isReadAllColumns(conf)) {
+                Arrays.fill(included, true);
+            } else {
+                for (int c : ColumnProjectionUtils.getReadColumnIDs(conf)) {
+                    included[c] = true;
+                }
+            }
+
+            String delim = conf.get(BatchConstants.CFG_CUBE_INTERMEDIATE_TABLE_ROW_DELIMITER, Character.toString(BatchConstants.INTERMEDIATE_TABLE_ROW_DELIMITER));
+            delimiter = new byte[] { delim.getBytes("UTF-8")[0] };
+        }
+
+        @Override
+        public boolean nextKeyValue() throws IOException, InterruptedException {
+            if (reader.nextKeyValue() == false)
+                return false;
+
+            OrcStruct row = reader.getCurrentValue();
+            value.clear();
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0)
+                    value.append(delimiter, 0, 1);
+                if (included[i] == false)
+                    continue;
+
+                Object field = inspector.getStructFieldData(row, fields[i]);
+                if (field == null) {
+                    value.append(NULL_BYTES, 0, NULL_BYTES.length);
+                } else {
+                    // the delimited flat table is not escaped
+                    fieldBuf.reset();
+                    LazyUtils.writePrimitiveUTF8(fieldBuf, field, fieldInspectors[i], false, (byte) 0, null);
+                    value.append(fieldBuf.getData(), 0, fieldBuf.getLength());
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public NullWritable getCurrentKey() throws IOException, InterruptedException {
+            return NullWritable.get();
+        }
+
+        @Override
+        public Text getCurrentValue() throws IOException, InterruptedException {
+            return value;
+        }
+
+        @Override
+        public float getProgress() throws IOException, InterruptedException {
+            return reader.getProgress();
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -15,8 +15,12 @@
  */
 package com.kylinolap.job.hadoop.invertedindex;
 
+import java.io.IOException;
+
 import org.apache.commons.cli.Options;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.HColumnDescriptor;
 import org.apache.hadoop.hbase.HTableDescriptor;
@@ -34,6 +38,7 @@ import com.kylinolap.cube.CubeInstance;
 import com.kylinolap.cube.CubeManager;
 import com.kylinolap.cube.invertedindex.IIKeyValueCodec;
 import com.kylinolap.job.hadoop.AbstractHadoopJob;
+import com.kylinolap.job.tools.DeployCoprocessorCLI;
 import com.kylinolap.metadata.model.invertedindex.InvertedIndexDesc;
 
 /**
@@ -69,6 +74,14 @@ public class IICreateHTableJob extends AbstractHadoopJob {
                 tableDesc.addCoprocessor("org.apache.hadoop.hbase.security.access.SecureBulkLoadEndpoint");
             }
 
+            try {
+                initHTableCoprocessor(tableDesc);
+                log.info("hbase table " + tableName + " deployed with coprocessor.");
+            } catch (Exception ex) {
+                log.error("Error deploying coprocessor on " + tableName, ex);
+                log.error("Will try creating the table without coprocessor.");
+            }
+
             // drop the table first
             HBaseAdmin admin = new HBaseAdmin(conf);
             if (admin.tableExists(tableName)) {
@@ -98,6 +111,18 @@ public class IICreateHTableJob extends AbstractHadoopJob {
         }
     }
 
+    private void initHTableCoprocessor(HTableDescriptor desc) throws IOException {
+        KylinConfig kylinConfig = KylinConfig.getInstanceFromEnv();
+        Configuration hconf = HadoopUtil.getCurrentConfiguration();
+        FileSystem fileSystem = FileSystem.get(hconf);
+
+        String localCoprocessorJar = kylinConfig.getCoprocessorLocalJar();
+        Path hdfsCoprocessorJar = DeployCoprocessorCLI.uploadCoprocessorJar(localCoprocessorJar, fileSystem, null);
+
+        DeployCoprocessorCLI.setCoprocessorOnHTable(desc, hdfsCoprocessorJar);
+        DeployCoprocessorCLI.setIIEndpointOnHTable(desc, hdfsCoprocessorJar);
+    }
+
     //one region for one shard
     private byte[][] getSplits(int shard) {
         byte[][] result = new byte[shard - 1][];
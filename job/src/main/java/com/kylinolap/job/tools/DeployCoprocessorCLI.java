@@ -58,6 +58,7 @@ public class DeployCoprocessorCLI {
     private static final Logger logger = LoggerFactory.getLogger(DeployCoprocessorCLI.class);
 
     public static final String AGGR_COPROCESSOR_CLS_NAME = "com.kylinolap.storage.hbase.observer.AggregateRegionObserver";
+    public static final String II_ENDPOINT_CLS_NAME = "com.kylinolap.storage.hbase.coprocessor.IIEndpoint";
 
     public static void main(String[] args) throws IOException {
         KylinConfig kylinConfig = KylinConfig.getInstanceFromEnv();
@@ -71,13 +72,16 @@ public class DeployCoprocessorCLI {
         List<String> tableNames = getHTableNames(kylinConfig);
         logger.info("Identify tables " + tableNames);
 
+        Set<String> iiTableNames = getIIHTableNames(kylinConfig);
+        logger.info("Identify inverted index tables " + iiTableNames);
+
         Set<String> oldJarPaths = getCoprocessorJarPaths(hbaseAdmin, tableNames);
         logger.info("Old coprocessor jar: " + oldJarPaths);
 
         Path hdfsCoprocessorJar = uploadCoprocessorJar(localCoprocessorJar, fileSystem, oldJarPaths);
         logger.info("New coprocessor jar: " + hdfsCoprocessorJar);
 
-        List<String> processedTables = resetCoprocessorOnHTables(hbaseAdmin, hdfsCoprocessorJar, tableNames);
+        List<String> processedTables = resetCoprocessorOnHTables(hbaseAdmin, hdfsCoprocessorJar, tableNames, iiTableNames);
 
         // Don't remove old jars, missing coprocessor jar will fail hbase
         // removeOldJars(oldJarPaths, fileSystem);
@@ -93,7 +97,16 @@ public class DeployCoprocessorCLI {
         desc.addCoprocessor(AGGR_COPROCESSOR_CLS_NAME, hdfsCoprocessorJar, 1001, null);
     }
 
+    public static void setIIEndpointOnHTable(HTableDescriptor desc, Path hdfsCoprocessorJar) throws IOException {
+        logger.info("Set inverted index endpoint on " + desc.getNameAsString());
+        desc.addCoprocessor(II_ENDPOINT_CLS_NAME, hdfsCoprocessorJar, 1002, null);
+    }
+
     public static void resetCoprocessor(String tableName, HBaseAdmin hbaseAdmin, Path hdfsCoprocessorJar) throws IOException {
+        resetCoprocessor(tableName, hbaseAdmin, hdfsCoprocessorJar, false);
+    }
+
+    public static void resetCoprocessor(String tableName, HBaseAdmin hbaseAdmin, Path hdfsCoprocessorJar, boolean isInvertedIndex) throws IOException {
         logger.info("Disable " + tableName);
         hbaseAdmin.disableTable(tableName);
 
@@ -102,20 +115,26 @@ public class DeployCoprocessorCLI {
         while (desc.hasCoprocessor(AGGR_COPROCESSOR_CLS_NAME)) {
             desc.removeCoprocessor(AGGR_COPROCESSOR_CLS_NAME);
         }
+        while (desc.hasCoprocessor(II_ENDPOINT_CLS_NAME)) {
+            desc.removeCoprocessor(II_ENDPOINT_CLS_NAME);
+        }
 
         setCoprocessorOnHTable(desc, hdfsCoprocessorJar);
+        if (isInvertedIndex) {
+            setIIEndpointOnHTable(desc, hdfsCoprocessorJar);
+        }
         hbaseAdmin.modifyTable(tableName, desc);
 
         logger.info("Enable " + tableName);
         hbaseAdmin.enableTable(tableName);
     }
 
-    private static List<String> resetCoprocessorOnHTables(HBaseAdmin hbaseAdmin, Path hdfsCoprocessorJar, List<String> tableNames) throws IOException {
+    private static List<String> resetCoprocessorOnHTables(HBaseAdmin hbaseAdmin, Path hdfsCoprocessorJar, List<String> tableNames, Set<String> iiTableNames) throws IOException {
         List<String> processed = new ArrayList<String>();
 
         for (String tableName : tableNames) {
             try {
-                resetCoprocessor(tableName, hbaseAdmin, hdfsCoprocessorJar);
+                resetCoprocessor(tableName, hbaseAdmin, hdfsCoprocessorJar, iiTableNames.contains(tableName));
                 processed.add(tableName);
             } catch (IOException ex) {
                 logger.error("Error processing " + tableName, ex);
@@ -244,7 +263,7 @@ public class DeployCoprocessorCLI {
                 String jarPath = valueMatcher.group(1).trim();
                 String clsName = valueMatcher.group(2).trim();
 
-                if (AGGR_COPROCESSOR_CLS_NAME.equals(clsName)) {
+                if (AGGR_COPROCESSOR_CLS_NAME.equals(clsName) || II_ENDPOINT_CLS_NAME.equals(clsName)) {
                     result.add(jarPath);
                 }
             }
@@ -267,4 +286,21 @@ public class DeployCoprocessorCLI {
 
         return result;
     }
+
+    private static Set<String> getIIHTableNames(KylinConfig config) {
+        CubeManager cubeMgr = CubeManager.getInstance(config);
+
+        HashSet<String> result = new HashSet<String>();
+        for (CubeInstance cube : cubeMgr.listAllCubes()) {
+            if (cube.isInvertedIndex() == false)
+                continue;
+            for (CubeSegment seg : cube.getSegments(CubeSegmentStatusEnum.READY)) {
+                String tableName = seg.getStorageLocationIdentifier();
+                if (StringUtils.isBlank(tableName) == false)
+                    result.add(tableName);
+            }
+        }
+
+        return result;
+    }
 }
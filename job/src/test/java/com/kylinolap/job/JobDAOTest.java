@@ -18,6 +18,8 @@ package com.kylinolap.job;
 import static org.junit.Assert.*;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.After;
 import org.junit.Before;
@@ -25,8 +27,13 @@ import org.junit.Test;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.kylinolap.common.persistence.JsonSerializer;
+import com.kylinolap.common.persistence.ResourceStore;
 import com.kylinolap.common.util.LocalFileMetadataTestCase;
 import com.kylinolap.cube.CubeBuildTypeEnum;
+import com.kylinolap.job.JobInstance.JobStep;
+import com.kylinolap.job.constant.JobStatusEnum;
+import com.kylinolap.job.constant.JobStepStatusEnum;
 import com.kylinolap.job.exception.InvalidJobInstanceException;
 
 /**
@@ -72,6 +79,47 @@ public class JobDAOTest extends LocalFileMetadataTestCase {
         assertNull(job4);
     }
 
+    @Test
+    public void testListByStatusAndCube() throws Exception {
+        JobDAO service = JobDAO.getInstance(getTestConfig());
+        JobInstance pending = createDumbJobInstance("8f0bb8c2-1cbb-4cf0-8c06-5a4ea4ea2b01", JobStepStatusEnum.PENDING);
+        JobInstance finished = createDumbJobInstance("8f0bb8c2-1cbb-4cf0-8c06-5a4ea4ea2b02", JobStepStatusEnum.FINISHED);
+        finished.setRelatedCube("abc");
+        service.updateJobInstance(pending);
+        service.updateJobInstance(finished);
+
+        assertUuids(service.listAllJobs(JobStatusEnum.PENDING), pending);
+        assertUuids(service.listAllJobs("ABC"), finished);
+        assertUuids(service.listAllJobs("abc", Arrays.asList(JobStatusEnum.PENDING)));
+        assertEquals(2, service.listAllJobs(null, null).size());
+
+        // changed by another process, not through this DAO, in a later millisecond
+        Thread.sleep(10);
+        pending.getSteps().get(0).setStatus(JobStepStatusEnum.RUNNING);
+        getStore().putResource(ResourceStore.JOB_PATH_ROOT + "/" + pending.getUuid(), pending, new JsonSerializer<JobInstance>(JobInstance.class));
+        assertUuids(service.listAllJobs(JobStatusEnum.PENDING));
+        assertUuids(service.listAllJobs(JobStatusEnum.RUNNING), pending);
+
+        // created by another process, listed after reload
+        JobInstance other = createDumbJobInstance("8f0bb8c2-1cbb-4cf0-8c06-5a4ea4ea2b03", JobStepStatusEnum.PENDING);
+        getStore().putResource(ResourceStore.JOB_PATH_ROOT + "/" + other.getUuid(), other, new JsonSerializer<JobInstance>(JobInstance.class));
+        assertUuids(service.listAllJobs(JobStatusEnum.PENDING));
+        service.reloadJobIndex();
+        assertUuids(service.listAllJobs(JobStatusEnum.PENDING), other);
+        service.deleteJob(other);
+
+        service.deleteJob(pending);
+        service.deleteJob(finished);
+        assertEquals(0, service.listAllJobs(null, null).size());
+    }
+
+    private void assertUuids(List<JobInstance> jobs, JobInstance... expected) {
+        assertEquals(expected.length, jobs.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i].getUuid(), jobs.get(i).getUuid());
+        }
+    }
+
     @Test
     public void testOutput() throws IOException, InvalidJobInstanceException {
         String uuid = "132432cb-8c68-42d8-aa3a-504151b39d1b";
@@ -87,6 +135,15 @@ public class JobDAOTest extends LocalFileMetadataTestCase {
 
     }
 
+    private JobInstance createDumbJobInstance(String uuid, JobStepStatusEnum stepStatus) {
+        JobInstance jobInstance = createDumbJobInstance(uuid);
+        JobStep step = new JobStep();
+        step.setName("Dummy_Step");
+        step.setStatus(stepStatus);
+        jobInstance.addStep(step);
+        return jobInstance;
+    }
+
     private JobInstance createDumbJobInstance(String uuid) {
         try {
             ObjectMapper mapper = new ObjectMapper();
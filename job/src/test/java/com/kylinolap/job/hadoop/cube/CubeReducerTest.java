@@ -22,10 +22,15 @@ import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.lib.output.FileOutputFormat;
 import org.apache.hadoop.mrunit.mapreduce.ReduceDriver;
 import org.apache.hadoop.mrunit.types.Pair;
 import org.junit.After;
@@ -108,6 +113,76 @@ public class CubeReducerTest extends LocalFileMetadataTestCase {
         assertTrue(result.contains(p3));
     }
 
+    @Test
+    public void testCountCuboidRows() throws Exception {
+        File outputDir = new File(localTempDir, "cuboid_rows_test");
+        FileUtils.deleteDirectory(outputDir);
+
+        List<Pair<Text, Text>> result = runNewSegment(newCountingReducer(new CuboidReducer(), outputDir), outputDir);
+        assertEquals(3, result.size());
+
+        Map<Long, Long> cuboidRows = CuboidRowCounts.read(new Configuration(), outputDir.getAbsolutePath());
+        FileUtils.deleteDirectory(outputDir);
+
+        assertEquals(2, cuboidRows.size());
+        assertEquals(Long.valueOf(2), cuboidRows.get(255L));
+        assertEquals(Long.valueOf(1), cuboidRows.get(3L));
+    }
+
+    @Test
+    public void testCombinerNotCountCuboidRows() throws Exception {
+        File outputDir = new File(localTempDir, "cuboid_rows_test");
+        FileUtils.deleteDirectory(outputDir);
+
+        List<Pair<Text, Text>> result = runNewSegment(newCountingReducer(new CuboidCombiner(), outputDir), outputDir);
+        assertEquals(3, result.size());
+
+        assertNull(CuboidRowCounts.read(new Configuration(), outputDir.getAbsolutePath()));
+        FileUtils.deleteDirectory(outputDir);
+    }
+
+    private CuboidReducer newCountingReducer(final CuboidReducer reducer, final File outputDir) {
+        // the mocked context has no output committer, write next to the output
+        return new CuboidReducer() {
+            @Override
+            protected boolean isCountingCuboidRows() {
+                return reducer.isCountingCuboidRows();
+            }
+
+            @Override
+            Path getCuboidRowsFile(Context context) {
+                return new Path(outputDir.getAbsolutePath(), BatchConstants.CUBOID_ROW_COUNTS_FILE_PREFIX + "-r-00000");
+            }
+        };
+    }
+
+    private List<Pair<Text, Text>> runNewSegment(CuboidReducer reducer, File outputDir) throws Exception {
+        ReduceDriver<Text, Text, Text, Text> driver = ReduceDriver.newReduceDriver(reducer);
+        driver.getConfiguration().set(BatchConstants.CFG_CUBE_NAME, "test_kylin_cube_with_slr_1_new_segment");
+        driver.getConfiguration().set(BatchConstants.CFG_CUBE_SEGMENT_NAME, "20130331080000_20131212080000");
+        driver.getConfiguration().set(FileOutputFormat.OUTDIR, outputDir.getAbsolutePath());
+
+        CubeDesc cubeDesc = CubeManager.getInstance(this.getTestConfig()).getCube("test_kylin_cube_with_slr_1_new_segment").getDescriptor();
+        MeasureCodec codec = new MeasureCodec(cubeDesc.getMeasures());
+
+        // keys come sorted, so rows of a cuboid are in a run
+        driver.withInput(newCuboidKey(3, "tech"), newValues(codec));
+        driver.withInput(newCuboidKey(255, "72010ustech"), newValues(codec));
+        driver.withInput(newCuboidKey(255, "72020ustech"), newValues(codec));
+
+        return driver.run();
+    }
+
+    private Text newCuboidKey(long cuboidID, String dims) {
+        return new Text(Bytes.add(Bytes.toBytes(cuboidID), Bytes.toBytes(dims)));
+    }
+
+    private List<Text> newValues(MeasureCodec codec) {
+        List<Text> values = new ArrayList<Text>();
+        values.add(newValueText(codec, "15.09", "15.09", "15.09", 1));
+        return values;
+    }
+
     private Text newValueText(MeasureCodec codec, String sum, String min, String max, int count) {
         Object[] values = new Object[] { new BigDecimal(sum), new BigDecimal(min), new BigDecimal(max), new LongWritable(count) };
 
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.job.hadoop.cube;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.kylinolap.job.constant.BatchConstants;
+
+public class CuboidRowCountsTest {
+
+    File root = new File(System.getProperty("java.io.tmpdir"), "cuboid_row_counts_test");
+    Configuration conf = new Configuration();
+    FileSystem fs;
+
+    @Before
+    public void setUp() throws Exception {
+        FileUtils.deleteDirectory(root);
+        fs = FileSystem.getLocal(conf);
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(root);
+    }
+
+    @Test
+    public void testWriteRead() throws Exception {
+        Map<Long, Long> rows1 = new HashMap<Long, Long>();
+        rows1.put(255L, 100L);
+        rows1.put(3L, 7L);
+        Map<Long, Long> rows2 = new HashMap<Long, Long>();
+        rows2.put(255L, 50L);
+        rows2.put(1L, 1L);
+
+        // one file in the root, one in a sub-folder of each cuboid level
+        CuboidRowCounts.write(fs, rowsFile("", 0), rows1);
+        CuboidRowCounts.write(fs, rowsFile("level_1_cuboid", 1), rows2);
+        FileUtils.writeStringToFile(new File(root, "level_1_cuboid/part-r-00000"), "not\ta\tcount");
+
+        Map<Long, Long> result = CuboidRowCounts.read(conf, root.getAbsolutePath());
+        assertEquals(3, result.size());
+        assertEquals(Long.valueOf(150), result.get(255L));
+        assertEquals(Long.valueOf(7), result.get(3L));
+        assertEquals(Long.valueOf(1), result.get(1L));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        CuboidRowCounts.write(fs, rowsFile("", 0), new HashMap<Long, Long>());
+
+        Map<Long, Long> result = CuboidRowCounts.read(conf, root.getAbsolutePath());
+        assertEquals(0, result.size());
+    }
+
+    @Test
+    public void testNoFile() throws Exception {
+        assertNull(CuboidRowCounts.read(conf, root.getAbsolutePath()));
+
+        FileUtils.writeStringToFile(new File(root, "part-r-00000"), "data");
+        assertNull(CuboidRowCounts.read(conf, root.getAbsolutePath()));
+    }
+
+    private Path rowsFile(String folder, int taskId) {
+        return new Path(new File(root, folder).getAbsolutePath(), String.format("%s-r-%05d", BatchConstants.CUBOID_ROW_COUNTS_FILE_PREFIX, taskId));
+    }
+}
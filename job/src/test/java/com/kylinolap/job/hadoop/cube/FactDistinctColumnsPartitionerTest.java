@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.job.hadoop.cube;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+import com.kylinolap.common.util.BytesUtil;
+import com.kylinolap.job.constant.BatchConstants;
+
+public class FactDistinctColumnsPartitionerTest {
+
+    @Test
+    public void testOneShard() {
+        FactDistinctColumnsPartitioner partitioner = newPartitioner(1);
+        assertEquals(0, partitioner.getPartition(key(2, "a"), NullWritable.get(), 3));
+        assertEquals(0, partitioner.getPartition(key(2, "b"), NullWritable.get(), 3));
+        assertEquals(1, partitioner.getPartition(key(5, "a"), NullWritable.get(), 3));
+        assertEquals(2, partitioner.getPartition(key(7, "a"), NullWritable.get(), 3));
+
+        // less reducers than columns
+        assertEquals(0, partitioner.getPartition(key(7, "a"), NullWritable.get(), 2));
+    }
+
+    @Test
+    public void testShards() {
+        FactDistinctColumnsPartitioner partitioner = newPartitioner(4);
+        Set<Integer> col2 = new HashSet<Integer>();
+        Set<Integer> col5 = new HashSet<Integer>();
+        for (int i = 0; i < 100; i++) {
+            col2.add(partitioner.getPartition(key(2, "v" + i), NullWritable.get(), 12));
+            col5.add(partitioner.getPartition(key(5, "v" + i), NullWritable.get(), 12));
+        }
+        assertEquals(4, col2.size());
+        assertEquals(4, col5.size());
+        for (int p : col2) {
+            assertTrue(p >= 0 && p < 4);
+        }
+        for (int p : col5) {
+            assertTrue(p >= 4 && p < 8);
+        }
+
+        // a value always goes to the same shard
+        assertEquals(partitioner.getPartition(key(2, "v1"), NullWritable.get(), 12), partitioner.getPartition(key(2, "v1"), NullWritable.get(), 12));
+    }
+
+    private FactDistinctColumnsPartitioner newPartitioner(int shards) {
+        Configuration conf = new Configuration();
+        conf.set(BatchConstants.CFG_FACT_DICT_COLUMNS, "2,5,7");
+        conf.setInt(BatchConstants.CFG_FACT_DICT_COLUMN_SHARDS, shards);
+        FactDistinctColumnsPartitioner partitioner = new FactDistinctColumnsPartitioner();
+        partitioner.setConf(conf);
+        return partitioner;
+    }
+
+    private Text key(int col, String value) {
+        byte[] v = Bytes.toBytes(value);
+        byte[] key = new byte[v.length + 2];
+        BytesUtil.writeUnsigned(col, key, 0, 2);
+        System.arraycopy(v, 0, key, 2, v.length);
+        return new Text(key);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.job.hadoop.cube;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mrunit.mapreduce.MapDriver;
+import org.apache.hadoop.mrunit.types.Pair;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.kylinolap.common.util.LocalFileMetadataTestCase;
+import com.kylinolap.cube.CubeInstance;
+import com.kylinolap.cube.CubeManager;
+import com.kylinolap.cube.cuboid.Cuboid;
+import com.kylinolap.cube.cuboid.CuboidCLI;
+import com.kylinolap.cube.measure.MeasureCodec;
+import com.kylinolap.job.constant.BatchConstants;
+import com.kylinolap.metadata.model.cube.CubeDesc;
+
+public class InMemCuboidMapperTest extends LocalFileMetadataTestCase {
+
+    MapDriver<Text, Text, Text, Text> mapDriver;
+
+    @Before
+    public void setUp() throws Exception {
+        createTestMetadata();
+
+        // hack for distributed cache
+        FileUtils.deleteDirectory(new File("../job/meta"));
+        FileUtils.copyDirectory(new File(this.getTestConfig().getMetadataUrl()), new File("../job/meta"));
+
+        InMemCuboidMapper<Text> mapper = new InMemCuboidMapper<Text>();
+        mapDriver = MapDriver.newMapDriver(mapper);
+    }
+
+    @After
+    public void after() throws Exception {
+        cleanupTestMetadata();
+        FileUtils.deleteDirectory(new File("../job/meta"));
+    }
+
+    @Test
+    public void testAllCuboidsOfOneSplit() throws Exception {
+        String cubeName = "test_kylin_cube_with_slr_1_new_segment";
+        String segmentName = "20130331080000_20131212080000";
+        mapDriver.getConfiguration().set(BatchConstants.CFG_CUBE_NAME, cubeName);
+        mapDriver.getConfiguration().set(BatchConstants.CFG_CUBE_SEGMENT_NAME, segmentName);
+        // two identical records aggregate in memory
+        String row = "2012-12-15\u007f11848\u007f0\u007fHealth & Beauty\u007fFragrances\u007fWomen\u007fAuction\u007f15\u007f123456789\u007f132.33";
+        mapDriver.withInput(new Text("key"), new Text(row));
+        mapDriver.withInput(new Text("key"), new Text(row));
+        List<Pair<Text, Text>> result = mapDriver.run();
+
+        CubeInstance cube = CubeManager.getInstance(this.getTestConfig()).getCube(cubeName);
+        CubeDesc cubeDesc = cube.getDescriptor();
+        int cuboidCount = 0;
+        for (int count : CuboidCLI.calculateAllLevelCount(cubeDesc))
+            cuboidCount += count;
+
+        // one record per cuboid, as all input falls in the same group
+        assertEquals(cuboidCount, result.size());
+
+        MeasureCodec codec = new MeasureCodec(cubeDesc.getMeasures());
+        Object[] values = new Object[cubeDesc.getMeasures().size()];
+        Set<Long> cuboids = new HashSet<Long>();
+        for (Pair<Text, Text> pair : result) {
+            cuboids.add(Bytes.toLong(pair.getFirst().getBytes(), 0, 8));
+            codec.decode(pair.getSecond(), values);
+            assertEquals(2, ((LongWritable) values[3]).get());
+        }
+        assertEquals(cuboidCount, cuboids.size());
+        assertTrue(cuboids.contains(Cuboid.getBaseCuboidId(cubeDesc)));
+    }
+}
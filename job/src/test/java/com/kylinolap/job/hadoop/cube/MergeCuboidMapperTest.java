@@ -16,6 +16,8 @@
 
 package com.kylinolap.job.hadoop.cube;
 
+import static org.junit.Assert.*;
+
 import java.io.File;
 import java.io.IOException;
 import java.text.ParseException;
@@ -186,4 +188,23 @@ public class MergeCuboidMapperTest extends LocalFileMetadataTestCase {
 
         mapDriver.runTest();
     }
+
+    @Test
+    public void testIdRemap() throws IOException {
+        DictionaryInfo info = new DictionaryInfo("", "", 0, "string", new TableSignature(), "");
+
+        List<byte[]> sourceValues = new ArrayList<byte[]>();
+        sourceValues.add(new byte[] { 97, 97, 97 });
+        sourceValues.add(new byte[] { 99, 99, 99 });
+        Dictionary<?> sourceDict = DictionaryGenerator.buildDictionaryFromValueList(info, sourceValues);
+
+        List<byte[]> mergedValues = new ArrayList<byte[]>(sourceValues);
+        mergedValues.add(new byte[] { 98, 98, 98 });
+        Dictionary<?> mergedDict = DictionaryGenerator.buildDictionaryFromValueList(info, mergedValues);
+
+        int[] remap = MergeCuboidMapper.buildIdRemap(sourceDict, mergedDict);
+        assertEquals(2, remap.length);
+        assertEquals(mergedDict.getIdFromValueBytes(new byte[] { 97, 97, 97 }, 0, 3), remap[sourceDict.getIdFromValueBytes(new byte[] { 97, 97, 97 }, 0, 3) - sourceDict.getMinId()]);
+        assertEquals(mergedDict.getIdFromValueBytes(new byte[] { 99, 99, 99 }, 0, 3), remap[sourceDict.getIdFromValueBytes(new byte[] { 99, 99, 99 }, 0, 3) - sourceDict.getMinId()]);
+    }
 }
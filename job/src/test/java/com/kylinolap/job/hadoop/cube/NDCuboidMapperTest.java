@@ -23,7 +23,9 @@ import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mrunit.mapreduce.MapDriver;
 import org.apache.hadoop.mrunit.mapreduce.MapReduceDriver;
 import org.apache.hadoop.mrunit.types.Pair;
 import org.junit.After;
@@ -31,6 +33,8 @@ import org.junit.Before;
 import org.junit.Test;
 
 import com.kylinolap.common.util.LocalFileMetadataTestCase;
+import com.kylinolap.cube.CubeManager;
+import com.kylinolap.cube.measure.MeasureCodec;
 import com.kylinolap.job.constant.BatchConstants;
 
 /**
@@ -98,4 +102,29 @@ public class NDCuboidMapperTest extends LocalFileMetadataTestCase {
         assertArrayEquals(new long[] { 383, 447, 503, 504 }, keySet);
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMapSideAggregation() throws IOException {
+        String cubeName = "test_kylin_cube_with_slr_1_new_segment";
+        String segmentName = "20130331080000_20131212080000";
+        MapDriver<Text, Text, Text, Text> mapDriver = MapDriver.newMapDriver(new NDCuboidMapper());
+        mapDriver.getConfiguration().set(BatchConstants.CFG_CUBE_NAME, cubeName);
+        mapDriver.getConfiguration().set(BatchConstants.CFG_CUBE_SEGMENT_NAME, segmentName);
+
+        byte[] key = { 0, 0, 0, 0, 0, 0, 1, -1, 49, 48, 48, 48, 48, 48, 48, 48, 9, 9, 9, 9, 9, 9, 9, 9, 9, 9, 11, 54, -105, 55, 13, 71, 114, 65, 66, 73, 78, 9, 9, 9, 9, 9, 9, 9, 9, 0, 10, 0 };
+        byte[] value = { 14, 7, 23, -16, 56, 92, 114, -80, 118, 14, 7, 23, -16, 56, 92, 114, -80, 118, 14, 7, 23, -16, 56, 92, 114, -80, 118, 1 };
+        // the same parent row twice, each child row is output once
+        mapDriver.addInput(new Text(key), new Text(value));
+        mapDriver.addInput(new Text(key), new Text(value));
+
+        List<Pair<Text, Text>> result = mapDriver.run();
+        assertEquals(4, result.size());
+
+        MeasureCodec codec = new MeasureCodec(CubeManager.getInstance(getTestConfig()).getCube(cubeName).getDescriptor().getMeasures());
+        Object[] measures = new Object[4];
+        for (Pair<Text, Text> pair : result) {
+            codec.decode(pair.getSecond(), measures);
+            assertEquals(2, ((LongWritable) measures[3]).get());
+        }
+    }
+}
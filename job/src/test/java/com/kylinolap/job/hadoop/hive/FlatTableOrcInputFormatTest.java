@@ -0,0 +1,186 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.job.hadoop.hive;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Writer;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.StructTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.kylinolap.common.util.LocalFileMetadataTestCase;
+import com.kylinolap.cube.CubeManager;
+import com.kylinolap.job.constant.BatchConstants;
+
+public class FlatTableOrcInputFormatTest extends LocalFileMetadataTestCase {
+
+    private static final String DELIM = Character.toString(BatchConstants.INTERMEDIATE_TABLE_ROW_DELIMITER);
+
+    private static final String[] RECORDS = { //
+            "2012-12-15" + DELIM + "11848" + DELIM + "0" + DELIM + "Health & Beauty" + DELIM + "Fragrances" + DELIM + "Women" + DELIM + "Auction" + DELIM + "15" + DELIM + "123456789" + DELIM + "132.33", //
+            "2012-12-15" + DELIM + "11848" + DELIM + "0" + DELIM + "Health & Beauty" + DELIM + "Fragrances" + DELIM + "\\N" + DELIM + "Auction" + DELIM + "15" + DELIM + "123456789" + DELIM + "\\N" };
+
+    private JoinedFlatTableDesc flatTableDesc;
+    private File tmpDir;
+
+    @Before
+    public void setUp() throws Exception {
+        this.createTestMetadata();
+        flatTableDesc = new JoinedFlatTableDesc(CubeManager.getInstance(this.getTestConfig()).getCube("test_kylin_cube_with_slr_1_new_segment").getDescriptor(), null);
+        tmpDir = File.createTempFile("kylin_orc", "");
+        tmpDir.delete();
+        tmpDir.mkdirs();
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(tmpDir);
+        this.cleanupTestMetadata();
+    }
+
+    @Test
+    public void testReadAllColumns() throws Exception {
+        List<String> rows = read(null);
+        assertEquals(Arrays.asList(RECORDS), rows);
+    }
+
+    @Test
+    public void testReadSomeColumns() throws Exception {
+        List<String> rows = read(Arrays.asList(3, 5));
+        assertEquals(2, rows.size());
+        assertEquals(DELIM + DELIM + DELIM + "Health & Beauty" + DELIM + DELIM + "Women" + DELIM + DELIM + DELIM + DELIM, rows.get(0));
+        assertEquals(DELIM + DELIM + DELIM + "Health & Beauty" + DELIM + DELIM + "\\N" + DELIM + DELIM + DELIM + DELIM, rows.get(1));
+    }
+
+    @Test
+    public void testSameTextAsDelimitedTable() throws Exception {
+        String[] names = { "_col0", "_col1", "_col2", "_col3", "_col4", "_col5", "_col6", "_col7", "_col8" };
+        String[] types = { "timestamp", "double", "decimal(19,4)", "date", "boolean", "float", "char(5)", "varchar(10)", "binary" };
+        String[] records = { //
+                "2012-12-15 10:11:12.5" + DELIM + "0.00001" + DELIM + "132.3300" + DELIM + "2012-12-15" + DELIM + "true" + DELIM + "1.5" + DELIM + "ab" + DELIM + "abc " + DELIM + "xy", //
+                "2012-12-15 00:00:00" + DELIM + "12345678901234.5" + DELIM + "-0.5" + DELIM + "1970-01-01" + DELIM + "true" + DELIM + "100" + DELIM + "abcde" + DELIM + "a" + DELIM + "z" };
+        StringBuilder schema = new StringBuilder("struct<");
+        for (int i = 0; i < names.length; i++) {
+            schema.append(i > 0 ? "," : "").append(names[i]).append(":").append(types[i]);
+        }
+        schema.append(">");
+
+        // the text Hive writes into the delimited flat table
+        Properties props = new Properties();
+        props.setProperty(serdeConstants.LIST_COLUMNS, StringUtils.join(names, ","));
+        props.setProperty(serdeConstants.LIST_COLUMN_TYPES, StringUtils.join(types, ":"));
+        props.setProperty(serdeConstants.FIELD_DELIM, DELIM);
+        LazySimpleSerDe serde = new LazySimpleSerDe();
+        serde.initialize(new Configuration(), props);
+        ObjectInspector inspector = getJavaInspector(schema.toString());
+        List<String> expected = new ArrayList<String>();
+        for (String record : records) {
+            expected.add(serde.serialize(toRow(schema.toString(), record), inspector).toString());
+        }
+
+        assertEquals(expected, read(schema.toString(), records, null));
+    }
+
+    private List<String> read(List<Integer> readColumns) throws Exception {
+        return read(FlatTableOrcInputFormat.getSchema(flatTableDesc), RECORDS, readColumns);
+    }
+
+    private List<String> read(String schema, String[] records, List<Integer> readColumns) throws Exception {
+        Configuration conf = new Configuration();
+        conf.set("fs.defaultFS", "file:///");
+        Path file = new Path(tmpDir.getAbsolutePath(), "000000_0");
+        writeOrc(conf, file, schema, records);
+
+        Job job = Job.getInstance(conf);
+        FileInputFormat.setInputPaths(job, file);
+        FlatTableOrcInputFormat.setup(job, flatTableDesc, readColumns);
+        job.getConfiguration().set(FlatTableOrcInputFormat.CFG_FLAT_TABLE_ORC_SCHEMA, schema);
+
+        FlatTableOrcInputFormat inputFormat = new FlatTableOrcInputFormat();
+        List<String> result = new ArrayList<String>();
+        for (InputSplit split : inputFormat.getSplits(job)) {
+            TaskAttemptContext context = new TaskAttemptContextImpl(job.getConfiguration(), new TaskAttemptID());
+            RecordReader<?, Text> reader = inputFormat.createRecordReader(split, context);
+            reader.initialize(split, context);
+            while (reader.nextKeyValue()) {
+                result.add(reader.getCurrentValue().toString());
+            }
+            reader.close();
+        }
+        return result;
+    }
+
+    // writes the records as Hive does on INSERT into the ORC flat table
+    private void writeOrc(Configuration conf, Path file, String schema, String[] records) throws Exception {
+        Writer writer = OrcFile.createWriter(file, OrcFile.writerOptions(conf).inspector(getJavaInspector(schema)));
+        for (String record : records) {
+            writer.addRow(toRow(schema, record));
+        }
+        writer.close();
+    }
+
+    private ObjectInspector getJavaInspector(String schema) {
+        StructTypeInfo type = (StructTypeInfo) TypeInfoUtils.getTypeInfoFromTypeString(schema);
+        List<ObjectInspector> fieldInspectors = new ArrayList<ObjectInspector>();
+        for (TypeInfo fieldType : type.getAllStructFieldTypeInfos()) {
+            fieldInspectors.add(PrimitiveObjectInspectorFactory.getPrimitiveJavaObjectInspector((PrimitiveTypeInfo) fieldType));
+        }
+        return ObjectInspectorFactory.getStandardStructObjectInspector(type.getAllStructFieldNames(), fieldInspectors);
+    }
+
+    private List<Object> toRow(String schema, String record) {
+        StructTypeInfo type = (StructTypeInfo) TypeInfoUtils.getTypeInfoFromTypeString(schema);
+        String[] values = record.split(DELIM);
+        List<Object> row = new ArrayList<Object>();
+        for (int i = 0; i < values.length; i++) {
+            ObjectInspector oi = PrimitiveObjectInspectorFactory.getPrimitiveJavaObjectInspector((PrimitiveTypeInfo) type.getAllStructFieldTypeInfos().get(i));
+            Converter converter = ObjectInspectorConverters.getConverter(PrimitiveObjectInspectorFactory.javaStringObjectInspector, oi);
+            row.add("\\N".equals(values[i]) ? null : converter.convert(values[i]));
+        }
+        return row;
+    }
+}
@@ -17,6 +17,7 @@ package com.kylinolap.metadata;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -259,12 +260,12 @@ public class MetadataManager {
 
         srcTableMap.clear();
 
-        List<String> paths = store.collectResourceRecursively(ResourceStore.TABLE_RESOURCE_ROOT, MetadataConstances.FILE_SURFIX);
-        for (String path : paths) {
-            loadSourceTable(path);
+        List<TableDesc> tables = store.getAllResources(ResourceStore.TABLE_RESOURCE_ROOT, TableDesc.class, TABLE_SERIALIZER);
+        for (TableDesc t : tables) {
+            initSourceTable(t);
         }
 
-        logger.debug("Loaded " + paths.size() + " SourceTable(s)");
+        logger.debug("Loaded " + tables.size() + " SourceTable(s)");
     }
 
     @SuppressWarnings("unchecked")
@@ -287,10 +288,7 @@ public class MetadataManager {
         }
     }
 
-    private TableDesc loadSourceTable(String path) throws IOException {
-        ResourceStore store = getStore();
-
-        TableDesc t = store.getResource(path, TableDesc.class, TABLE_SERIALIZER);
+    private TableDesc initSourceTable(TableDesc t) {
         t.init();
 
         if (StringUtils.isBlank(t.getName()))
@@ -309,11 +307,13 @@ public class MetadataManager {
 
         cubeDescMap.clear();
 
-        List<String> paths = store.collectResourceRecursively(ResourceStore.CUBE_DESC_RESOURCE_ROOT, MetadataConstances.FILE_SURFIX);
-        for (String path : paths) {
+        List<String> paths = listResources(store, ResourceStore.CUBE_DESC_RESOURCE_ROOT, MetadataConstances.FILE_SURFIX);
+        List<CubeDesc> descs = store.getResources(paths, CubeDesc.class, CUBE_SERIALIZER);
+        for (int i = 0; i < paths.size(); i++) {
+            String path = paths.get(i);
             CubeDesc desc;
             try {
-                desc = loadCubeDesc(path);
+                desc = initCubeDesc(descs.get(i), path);
             } catch (Exception e) {
                 logger.error("Error loading cube desc " + path, e);
                 continue;
@@ -337,7 +337,13 @@ public class MetadataManager {
         ResourceStore store = getStore();
 
         CubeDesc ndesc = store.getResource(path, CubeDesc.class, CUBE_SERIALIZER);
+        return initCubeDesc(ndesc, path);
+    }
 
+    private CubeDesc initCubeDesc(CubeDesc ndesc, String path) {
+        if (ndesc == null) {
+            throw new IllegalStateException("Cube desc at " + path + " is not readable");
+        }
         if (StringUtils.isBlank(ndesc.getName())) {
             throw new IllegalStateException("CubeDesc name must not be blank");
         }
@@ -381,6 +387,19 @@ public class MetadataManager {
         logger.debug("Loaded " + iiDescMap.size() + " Inverted Index Desc(s)");
     }
 
+    // the resources directly under folder, by a single listing
+    private List<String> listResources(ResourceStore store, String folderPath, String suffix) throws IOException {
+        List<String> result = new ArrayList<String>();
+        List<String> children = store.listResources(folderPath);
+        if (children != null) {
+            for (String path : children) {
+                if (path.endsWith(suffix))
+                    result.add(path);
+            }
+        }
+        return result;
+    }
+
     private InvertedIndexDesc loadInvertedIndexDesc(String path) throws IOException {
         ResourceStore store = getStore();
 
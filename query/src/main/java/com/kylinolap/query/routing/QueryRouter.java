@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -92,13 +93,34 @@ public class QueryRouter {
         return cubeWithMostColumns;
     }
 
-    private static void sortByCost(List<CubeInstance> matchCubes) {
-        // sort cube candidates, 0) the cost indicator, 1) the lesser header
-        // columns the better, 2) the lesser body columns the better
+    private static void sortByCost(List<CubeInstance> matchCubes, Collection<TblColRef> dimensionColumns) {
+        // rows to scan by build statistics, used only if known for all
+        final Map<CubeInstance, Long> estimatedRows = new HashMap<CubeInstance, Long>();
+        for (CubeInstance cube : matchCubes) {
+            long rows = cube.estimateRowsToScan(dimensionColumns);
+            if (rows < 0) {
+                estimatedRows.clear();
+                break;
+            }
+            estimatedRows.put(cube, rows);
+        }
+        if (estimatedRows.isEmpty() == false) {
+            logger.info("Estimated rows to scan of candidates: " + estimatedRows);
+        }
+
+        // sort cube candidates, 0) the lesser rows to scan the better, 1) the
+        // cost indicator, 2) the lesser header columns the better, 3) the
+        // lesser body columns the better
         Collections.sort(matchCubes, new Comparator<CubeInstance>() {
             @Override
             public int compare(CubeInstance c1, CubeInstance c2) {
                 int comp = 0;
+                if (estimatedRows.isEmpty() == false) {
+                    comp = Long.compare(estimatedRows.get(c1), estimatedRows.get(c2));
+                    if (comp != 0)
+                        return comp;
+                }
+
                 comp = c1.getCost() - c2.getCost();
                 if (comp != 0) {
                     return comp;
@@ -175,11 +197,11 @@ public class QueryRouter {
 
         // normal case:
         if (!candidates.isEmpty()) {
-            return getCheapestCube(candidates);
+            return getCheapestCube(candidates, dimensionColumns);
         }
         // consider backup
         else if (!backups.isEmpty()) {
-            CubeInstance cube = getCheapestCube(backups);
+            CubeInstance cube = getCheapestCube(backups, dimensionColumns);
             // Using backup cubes indicates that previous judgment on dimensions/metrics is incorrect
             adjustOLAPContext(dimensionColumns, functions, metricsColumns, cube, rewriteFields, olapContext);
             logger.info("Use weak matched cube " + cube.getName());
@@ -188,8 +210,8 @@ public class QueryRouter {
         return null;
     }
 
-    private static CubeInstance getCheapestCube(List<CubeInstance> candidates) {
-        sortByCost(candidates);
+    private static CubeInstance getCheapestCube(List<CubeInstance> candidates, Collection<TblColRef> dimensionColumns) {
+        sortByCost(candidates, dimensionColumns);
         CubeInstance bestCube = null;
         if (!candidates.isEmpty()) {
             bestCube = candidates.iterator().next();
@@ -16,17 +16,21 @@
 package com.kylinolap.rest.controller;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.kylinolap.common.restclient.Broadcaster;
+import com.kylinolap.common.restclient.Broadcaster.BroadcastEvent;
 import com.kylinolap.common.restclient.Broadcaster.EVENT;
 import com.kylinolap.metadata.MetadataConstances;
 import com.kylinolap.rest.service.CubeService;
@@ -63,18 +67,44 @@ public class CacheController extends BasicController {
     @RequestMapping(value = "/{type}/{name}/{event}", method = { RequestMethod.PUT })
     @ResponseBody
     public void wipeCache(@PathVariable String type, @PathVariable String event, @PathVariable String name) throws IOException {
+        wipeCache(Collections.singletonList(new BroadcastEvent(type, event, name)));
+    }
+
+    /**
+     * Wipe system cache for a batch of events, metadata is reloaded once for
+     * the whole batch
+     * 
+     * @param events
+     * @throws IOException
+     */
+    @RequestMapping(value = "/batch", method = { RequestMethod.PUT })
+    @ResponseBody
+    public void wipeCache(@RequestBody List<BroadcastEvent> events) throws IOException {
+        for (BroadcastEvent one : events) {
+            if (Broadcaster.TYPE.METADATA == Broadcaster.TYPE.getType(one.getType())) {
+                logger.debug("Reload all metadata");
+                cubeMgmtService.reloadMetadataCache();
+                projectService.cleanDataCache();
+                cubeMgmtService.cleanDataCache();
+                return;
+            }
+        }
+
+        cubeMgmtService.reloadMetadataCache();
+        for (BroadcastEvent one : events) {
+            wipeCache(one);
+        }
+    }
+
+    private void wipeCache(BroadcastEvent one) throws IOException {
+        String type = one.getType();
+        String event = one.getAction();
+        String name = one.getName();
         Broadcaster.TYPE wipeType = Broadcaster.TYPE.getType(type);
         EVENT wipeEvent = Broadcaster.EVENT.getEvent(event);
         switch (wipeType) {
-        case METADATA:
-            logger.debug("Reload all metadata");
-            cubeMgmtService.reloadMetadataCache();
-            projectService.cleanDataCache();
-            cubeMgmtService.cleanDataCache();
-            break;
         case CUBE:
             logger.debug("Reload cube " + name + " with type:" + type + ", event type " + event);
-            cubeMgmtService.reloadMetadataCache();
             if ("ALL".equalsIgnoreCase(name.toUpperCase())) {
                 cubeMgmtService.cleanDataCache();
                 break;
@@ -92,7 +122,6 @@ public class CacheController extends BasicController {
             break;
         case PROJECT:
             logger.debug("Reload project " + name + " with type:" + type + ", event type " + event);
-            cubeMgmtService.reloadMetadataCache();
             if ("ALL".equalsIgnoreCase(name.toUpperCase())) {
                 projectService.cleanDataCache();
                 break;
@@ -108,6 +137,8 @@ public class CacheController extends BasicController {
                 break;
             }
             break;
+        default:
+            break;
         }
     }
 }
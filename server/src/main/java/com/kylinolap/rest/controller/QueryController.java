@@ -20,6 +20,7 @@
 package com.kylinolap.rest.controller;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -48,7 +49,9 @@ import org.supercsv.io.ICsvListWriter;
 import org.supercsv.prefs.CsvPreference;
 
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.kylinolap.common.KylinConfig;
+import com.kylinolap.common.util.JsonUtil;
 import com.kylinolap.cube.CubeInstance;
 import com.kylinolap.rest.constant.Constant;
 import com.kylinolap.rest.exception.ForbiddenException;
@@ -116,6 +119,24 @@ public class QueryController extends BasicController {
         return response;
     }
 
+    /**
+     * same as query(), but rows are written to client as they are fetched,
+     * instead of after the whole result is ready
+     */
+    @RequestMapping(value = "/query/stream", method = RequestMethod.POST)
+    @ResponseBody
+    @Timed(name = "queryStream")
+    public void queryStream(@RequestBody SQLRequest sqlRequest, HttpServletResponse response) throws IOException {
+        doStreamQuery(sqlRequest, new JsonResultWriter(response));
+    }
+
+    @RequestMapping(value = "/query/prestate/stream", method = RequestMethod.POST)
+    @ResponseBody
+    @Timed(name = "prepareQueryStream")
+    public void prepareQueryStream(@RequestBody PrepareSqlRequest sqlRequest, HttpServletResponse response) throws IOException {
+        doStreamQuery(sqlRequest, new JsonResultWriter(response));
+    }
+
     @RequestMapping(value = "/saved_queries", method = RequestMethod.POST)
     @ResponseBody
     @Timed(name = "saveQuery")
@@ -146,30 +167,10 @@ public class QueryController extends BasicController {
     @ResponseBody
     @Timed(name = "downloadResult")
     public void downloadQueryResult(@PathVariable String format, SQLRequest sqlRequest, HttpServletResponse response) {
-        SQLResponse result = doQuery(sqlRequest);
-        response.setContentType("text/" + format + ";charset=utf-8");
-        response.setHeader("Content-Disposition", "attachment; filename=\"result." + format + "\"");
-        ICsvListWriter csvWriter = null;
-
         try {
-            csvWriter = new CsvListWriter(response.getWriter(), CsvPreference.STANDARD_PREFERENCE);
-
-            List<String> headerList = new ArrayList<String>();
-
-            for (SelectedColumnMeta column : result.getColumnMetas()) {
-                headerList.add(column.getName());
-            }
-
-            String[] headers = new String[headerList.size()];
-            csvWriter.writeHeader(headerList.toArray(headers));
-
-            for (List<String> row : result.getResults()) {
-                csvWriter.write(row);
-            }
+            doStreamQuery(sqlRequest, new CsvResultWriter(format, response));
         } catch (IOException e) {
             logger.error("", e);
-        } finally {
-            IOUtils.closeQuietly(csvWriter);
         }
     }
 
@@ -185,20 +186,7 @@ public class QueryController extends BasicController {
     }
 
     private SQLResponse doQuery(SQLRequest sqlRequest) {
-        String sql = sqlRequest.getSql();
-        String project = sqlRequest.getProject();
-        logger.info("Using project: " + project);
-        logger.info("The original query:  " + sql);
-
-        String serverMode = KylinConfig.getInstanceFromEnv().getServerMode();
-        if (!(Constant.SERVER_MODE_QUERY.equals(serverMode.toLowerCase()) || Constant.SERVER_MODE_ALL.equals(serverMode.toLowerCase()))) {
-            throw new InternalErrorException("Query is not allowed in " + serverMode + " mode.");
-        }
-
-        if (sql.toLowerCase().contains("select") == false) {
-            logger.debug("Directly return expection as not supported");
-            throw new InternalErrorException(QueryUtil.makeErrorMsgUserFriendly("Not Supported SQL."));
-        }
+        checkQueryRequest(sqlRequest);
 
         SQLResponse sqlResponse = searchQueryInCache(sqlRequest);
         try {
@@ -229,6 +217,70 @@ public class QueryController extends BasicController {
         }
     }
 
+    /**
+     * like doQuery() but rows go to writer as they come; results are not
+     * held in memory, hence not put into query cache
+     */
+    private void doStreamQuery(SQLRequest sqlRequest, ResultWriter writer) throws IOException {
+        long startTimestamp = System.currentTimeMillis();
+        checkQueryRequest(sqlRequest);
+
+        SQLResponse response = searchQueryInCache(sqlRequest);
+        try {
+            if (null == response) {
+                response = queryService.query(sqlRequest, writer);
+            } else if (!response.getIsException()) {
+                writer.start(response.getColumnMetas(), response.getCube());
+                for (List<String> row : response.getResults()) {
+                    writer.row(row);
+                }
+            }
+        } catch (AccessDeniedException ade) {
+            // Access exception is bind with each user, it will not be cached
+            logger.error("Exception when execute sql", ade);
+            throw new ForbiddenException(ade.getLocalizedMessage());
+        } catch (Throwable e) { // calcite may throw AssertError
+            if (writer.getWriteError() != null) {
+                // e.g. client cancelled the download, not a query failure
+                logger.warn("Failed to write query result to client", e);
+                throw writer.getWriteError();
+            }
+            logger.error("Exception when execute sql", e);
+            response = new SQLResponse(null, null, 0, true, e.getMessage());
+            // once rows are written, failure could be a transient one in the middle of result
+            if (writer.isStarted() == false) {
+                cacheManager.getCache(EXCEPTION_QUERY_CACHE).put(new Element(sqlRequest, response));
+            }
+        }
+
+        response.setDuration(System.currentTimeMillis() - startTimestamp);
+        queryService.logQuery(sqlRequest, response, new Date(startTimestamp), new Date(System.currentTimeMillis()));
+
+        // nothing is written yet, fail as a normal query does
+        if (response.getIsException() && writer.isStarted() == false) {
+            throw new InternalErrorException(QueryUtil.makeErrorMsgUserFriendly(response.getExceptionMessage()));
+        }
+
+        writer.finish(response);
+    }
+
+    private void checkQueryRequest(SQLRequest sqlRequest) {
+        String sql = sqlRequest.getSql();
+        String project = sqlRequest.getProject();
+        logger.info("Using project: " + project);
+        logger.info("The original query:  " + sql);
+
+        String serverMode = KylinConfig.getInstanceFromEnv().getServerMode();
+        if (!(Constant.SERVER_MODE_QUERY.equals(serverMode.toLowerCase()) || Constant.SERVER_MODE_ALL.equals(serverMode.toLowerCase()))) {
+            throw new InternalErrorException("Query is not allowed in " + serverMode + " mode.");
+        }
+
+        if (sql.toLowerCase().contains("select") == false) {
+            logger.debug("Directly return expection as not supported");
+            throw new InternalErrorException(QueryUtil.makeErrorMsgUserFriendly("Not Supported SQL."));
+        }
+    }
+
     private SQLResponse searchQueryInCache(SQLRequest sqlRequest) {
         SQLResponse response = null;
         Cache exceptionCache = cacheManager.getCache(EXCEPTION_QUERY_CACHE);
@@ -248,8 +300,14 @@ public class QueryController extends BasicController {
     }
 
     private void checkQueryAuth(SQLResponse sqlResponse) throws AccessDeniedException {
-        if (!sqlResponse.getIsException() && KylinConfig.getInstanceFromEnv().isQuerySecureEnabled()) {
-            CubeInstance cubeInstance = this.queryService.getCubeManager().getCube(sqlResponse.getCube());
+        if (!sqlResponse.getIsException()) {
+            checkQueryAuth(sqlResponse.getCube());
+        }
+    }
+
+    private void checkQueryAuth(String cube) throws AccessDeniedException {
+        if (KylinConfig.getInstanceFromEnv().isQuerySecureEnabled()) {
+            CubeInstance cubeInstance = this.queryService.getCubeManager().getCube(cube);
             queryService.checkAuthorization(cubeInstance);
         }
     }
@@ -262,4 +320,142 @@ public class QueryController extends BasicController {
         this.cacheManager = cacheManager;
     }
 
+    /**
+     * writes query result to client as the rows come, nothing is written
+     * before the query is authorized
+     */
+    private abstract class ResultWriter implements QueryService.ResultListener {
+        private boolean started = false;
+        private IOException writeError = null;
+
+        @Override
+        public void start(List<SelectedColumnMeta> columnMetas, String cube) throws IOException {
+            checkQueryAuth(cube);
+            started = true;
+            try {
+                begin(columnMetas);
+            } catch (IOException e) {
+                writeError = e;
+                throw e;
+            }
+        }
+
+        @Override
+        public void row(List<String> row) throws IOException {
+            try {
+                writeRow(row);
+            } catch (IOException e) {
+                writeError = e;
+                throw e;
+            }
+        }
+
+        boolean isStarted() {
+            return started;
+        }
+
+        /** the error writing to client, which the query may see wrapped in its own exception */
+        IOException getWriteError() {
+            return writeError;
+        }
+
+        abstract void begin(List<SelectedColumnMeta> columnMetas) throws IOException;
+
+        abstract void writeRow(List<String> row) throws IOException;
+
+        /**
+         * summary has everything but the rows, and tells if the query failed
+         * after some rows are written
+         */
+        abstract void finish(SQLResponse summary) throws IOException;
+    }
+
+    /**
+     * same JSON as SQLResponse, with results before the fields known only
+     * at the end of query
+     */
+    private class JsonResultWriter extends ResultWriter {
+        private final HttpServletResponse response;
+        private JsonGenerator out;
+
+        JsonResultWriter(HttpServletResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        void begin(List<SelectedColumnMeta> columnMetas) throws IOException {
+            response.setContentType("application/json;charset=utf-8");
+            out = JsonUtil.createGenerator(response.getOutputStream());
+            out.writeStartObject();
+            out.writeObjectField("columnMetas", columnMetas);
+            out.writeArrayFieldStart("results");
+            out.flush(); // let client see the columns while rows are fetched
+        }
+
+        @Override
+        void writeRow(List<String> row) throws IOException {
+            out.writeStartArray();
+            for (String value : row) {
+                out.writeString(value);
+            }
+            out.writeEndArray();
+        }
+
+        @Override
+        void finish(SQLResponse summary) throws IOException {
+            out.writeEndArray();
+            out.writeStringField("cube", summary.getCube());
+            out.writeNumberField("affectedRowCount", summary.getAffectedRowCount());
+            out.writeBooleanField("isException", summary.getIsException());
+            out.writeStringField("exceptionMessage", summary.getExceptionMessage());
+            out.writeNumberField("duration", summary.getDuration());
+            out.writeBooleanField("partial", summary.isPartial());
+            out.writeNumberField("totalScanCount", summary.getTotalScanCount());
+            out.writeBooleanField("hitCache", summary.isHitCache());
+            out.writeEndObject();
+            out.close();
+        }
+    }
+
+    private class CsvResultWriter extends ResultWriter {
+        private final String format;
+        private final HttpServletResponse response;
+        private ICsvListWriter csvWriter;
+
+        CsvResultWriter(String format, HttpServletResponse response) {
+            this.format = format;
+            this.response = response;
+        }
+
+        @Override
+        void begin(List<SelectedColumnMeta> columnMetas) throws IOException {
+            response.setContentType("text/" + format + ";charset=utf-8");
+            response.setHeader("Content-Disposition", "attachment; filename=\"result." + format + "\"");
+            // not response.getWriter(), a PrintWriter hides errors of a cancelled download
+            csvWriter = new CsvListWriter(new OutputStreamWriter(response.getOutputStream(), "UTF-8"), CsvPreference.STANDARD_PREFERENCE);
+
+            List<String> headerList = new ArrayList<String>();
+
+            for (SelectedColumnMeta column : columnMetas) {
+                headerList.add(column.getName());
+            }
+
+            String[] headers = new String[headerList.size()];
+            csvWriter.writeHeader(headerList.toArray(headers));
+        }
+
+        @Override
+        void writeRow(List<String> row) throws IOException {
+            csvWriter.write(row);
+        }
+
+        @Override
+        void finish(SQLResponse summary) throws IOException {
+            if (summary.getIsException()) {
+                logger.error("Result download is incomplete, query failed with: " + summary.getExceptionMessage());
+            }
+            IOUtils.closeQuietly(csvWriter);
+        }
+    }
+
 }
\ No newline at end of file
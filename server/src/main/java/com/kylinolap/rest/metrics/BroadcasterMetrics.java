@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.rest.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.kylinolap.common.restclient.Broadcaster;
+
+/**
+ * Cache wipe events sent to other rest servers, see {@link Broadcaster}
+ */
+public class BroadcasterMetrics implements MetricSet {
+
+    static class BroadcasterMetricsHolder {
+        static final BroadcasterMetrics INSTANCE = new BroadcasterMetrics();
+    }
+
+    public static BroadcasterMetrics getInstance() {
+        return BroadcasterMetricsHolder.INSTANCE;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metricSet = new HashMap<String, Metric>();
+
+        metricSet.put("PendingEvents", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return Broadcaster.getPendingEventCount();
+            }
+        });
+
+        metricSet.put("QueuedEvents", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Broadcaster.getQueuedEventCount();
+            }
+        });
+
+        metricSet.put("CoalescedEvents", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Broadcaster.getCoalescedEventCount();
+            }
+        });
+
+        metricSet.put("SentBatches", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Broadcaster.getSentBatchCount();
+            }
+        });
+
+        metricSet.put("SentEvents", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Broadcaster.getSentEventCount();
+            }
+        });
+
+        metricSet.put("FailedBatches", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Broadcaster.getFailedBatchCount();
+            }
+        });
+
+        metricSet.put("DroppedEvents", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Broadcaster.getDroppedEventCount();
+            }
+        });
+
+        return metricSet;
+    }
+}
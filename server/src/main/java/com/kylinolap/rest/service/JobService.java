@@ -71,34 +71,16 @@ public class JobService extends BasicService {
     }
 
     public List<JobInstance> listAllJobs(String cubeName, String projectName, List<JobStatusEnum> statusList) throws IOException, JobException {
+        // status filtered by job index, jobs of other status are not read
         List<JobInstance> jobs = new ArrayList<JobInstance>();
-        jobs.addAll(this.getJobManager().listJobs(cubeName, projectName));
-
-        if (null == jobs || jobs.size() == 0) {
-            return jobs;
-        }
-
-        List<JobInstance> results = new ArrayList<JobInstance>();
-
-        for (JobInstance job : jobs) {
-            if (null != statusList && statusList.size() > 0) {
-                for (JobStatusEnum status : statusList) {
-                    if (job.getStatus() == status) {
-                        results.add(job);
-                    }
-                }
-            } else {
-                results.add(job);
-            }
-        }
-
-        return results;
+        jobs.addAll(this.getJobManager().listJobs(cubeName, projectName, statusList));
+        return jobs;
     }
 
     @PreAuthorize(Constant.ACCESS_HAS_ROLE_ADMIN + " or hasPermission(#cube, 'ADMINISTRATION') or hasPermission(#cube, 'OPERATION') or hasPermission(#cube, 'MANAGEMENT')")
     public String submitJob(CubeInstance cube, long startDate, long endDate, CubeBuildTypeEnum buildType,String submitter) throws IOException, JobException, InvalidJobInstanceException {
 
-        List<JobInstance> jobInstances = this.getJobManager().listJobs(cube.getName(), null);
+        List<JobInstance> jobInstances = this.getJobManager().listJobs(cube.getName(), null, Lists.newArrayList(JobStatusEnum.PENDING, JobStatusEnum.RUNNING));
         for (JobInstance jobInstance : jobInstances) {
             if (jobInstance.getStatus() == JobStatusEnum.PENDING || jobInstance.getStatus() == JobStatusEnum.RUNNING) {
                 throw new JobException("The cube " + cube.getName() + " has running job(" + jobInstance.getUuid() + ") please discard it and try again.");
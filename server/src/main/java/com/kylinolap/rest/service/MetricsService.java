@@ -23,6 +23,7 @@ import org.springframework.stereotype.Component;
 
 import com.codahale.metrics.MetricRegistry;
 import com.kylinolap.job.JobManager;
+import com.kylinolap.rest.metrics.BroadcasterMetrics;
 import com.kylinolap.rest.metrics.JobMetrics;
 import com.kylinolap.rest.metrics.QueryMetrics;
 
@@ -47,6 +48,10 @@ public class MetricsService implements InitializingBean {
         metricRegistry.register("QueryMetrics", QueryMetrics.getInstance());
     }
 
+    public void registerBroadcasterMetrics() {
+        metricRegistry.register("BroadcasterMetrics", BroadcasterMetrics.getInstance());
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -56,5 +61,6 @@ public class MetricsService implements InitializingBean {
     @Override
     public void afterPropertiesSet() throws Exception {
         registerQueryMetrics();
+        registerBroadcasterMetrics();
     }
 }
@@ -102,11 +102,51 @@ public class QueryService extends BasicService {
         return getMetadata(getCubeManager(), project, true);
     }
 
+    /**
+     * receives the result of a query row by row, as fetched from the result set
+     */
+    public static interface ResultListener {
+        /** called once before any row */
+        void start(List<SelectedColumnMeta> columnMetas, String cube) throws IOException;
+
+        void row(List<String> row) throws IOException;
+    }
+
     public SQLResponse query(SQLRequest sqlRequest) throws Exception {
+        final List<List<String>> results = new ArrayList<List<String>>();
+        SQLResponse response = query(sqlRequest, new ResultListener() {
+            @Override
+            public void start(List<SelectedColumnMeta> columnMetas, String cube) {
+            }
+
+            @Override
+            public void row(List<String> row) {
+                results.add(row);
+            }
+        });
+
+        if (response.getResults() == null) // not a fake response
+            response.setResults(results);
+        return response;
+    }
+
+    /**
+     * gives result rows to listener as they come, without holding the whole
+     * result; the returned response has no results
+     */
+    public SQLResponse query(SQLRequest sqlRequest, ResultListener listener) throws Exception {
         SQLResponse fakeResponse = QueryUtil.tableauIntercept(sqlRequest.getSql());
         if (null != fakeResponse) {
             logger.debug("Return fake response, is exception? " + fakeResponse.getIsException());
 
+            if (!fakeResponse.getIsException()) {
+                listener.start(fakeResponse.getColumnMetas(), fakeResponse.getCube());
+                if (fakeResponse.getResults() != null) {
+                    for (List<String> row : fakeResponse.getResults()) {
+                        listener.row(row);
+                    }
+                }
+            }
             return fakeResponse;
         }
 
@@ -114,7 +154,7 @@ public class QueryService extends BasicService {
         if (correctedSql.equals(sqlRequest.getSql()) == false)
             logger.debug("The corrected query: " + correctedSql);
 
-        return executeQuery(correctedSql, sqlRequest);
+        return executeQuery(correctedSql, sqlRequest, listener);
     }
 
     public void saveQuery(final String creator, final Query query) throws IOException {
@@ -256,7 +296,7 @@ public class QueryService extends BasicService {
     public void checkAuthorization(CubeInstance cube) throws AccessDeniedException {
     }
 
-    protected SQLResponse executeQuery(String sql, SQLRequest sqlRequest) throws Exception {
+    protected SQLResponse executeQuery(String sql, SQLRequest sqlRequest, ResultListener listener) throws Exception {
         sql = sql.trim().replace(";", "");
 
         int limit = sqlRequest.getLimit();
@@ -274,7 +314,7 @@ public class QueryService extends BasicService {
         parameters.put(OLAPContext.PRM_ACCEPT_PARTIAL_RESULT, String.valueOf(sqlRequest.isAcceptPartial()));
         OLAPContext.setParameters(parameters);
 
-        return execute(sql, sqlRequest);
+        return execute(sql, sqlRequest, listener);
     }
 
     protected List<TableMeta> getMetadata(CubeManager cubeMgr, String project, boolean cubedOnly) throws SQLException {
@@ -336,12 +376,12 @@ public class QueryService extends BasicService {
      * @return
      * @throws Exception
      */
-    private SQLResponse execute(String sql, SQLRequest sqlRequest) throws Exception {
+    private SQLResponse execute(String sql, SQLRequest sqlRequest, ResultListener listener) throws Exception {
         Connection conn = null;
         Statement stat = null;
         ResultSet resultSet = null;
-        List<List<String>> results = new LinkedList<List<String>>();
-        List<SelectedColumnMeta> columnMetas = new LinkedList<SelectedColumnMeta>();
+        List<SelectedColumnMeta> columnMetas = new ArrayList<SelectedColumnMeta>();
+        String cube = "";
 
         try {
             conn = getOLAPDataSource(sqlRequest.getProject()).getConnection();
@@ -367,33 +407,36 @@ public class QueryService extends BasicService {
                 columnMetas.add(new SelectedColumnMeta(metaData.isAutoIncrement(i), metaData.isCaseSensitive(i), metaData.isSearchable(i), metaData.isCurrency(i), metaData.isNullable(i), metaData.isSigned(i), metaData.getColumnDisplaySize(i), metaData.getColumnLabel(i), metaData.getColumnName(i), metaData.getSchemaName(i), metaData.getCatalogName(i), metaData.getTableName(i), metaData.getPrecision(i), metaData.getScale(i), metaData.getColumnType(i), metaData.getColumnTypeName(i), metaData.isReadOnly(i), metaData.isWritable(i), metaData.isDefinitelyWritable(i)));
             }
 
-            List<String> oneRow = new LinkedList<String>();
+            // the query is planned by now, cube is known
+            if (OLAPContext.getThreadLocalContexts() != null) { // contexts can be null in case of 'explain plan for'
+                for (OLAPContext ctx : OLAPContext.getThreadLocalContexts()) {
+                    cube = ctx.cubeInstance.getName();
+                }
+            }
+            listener.start(columnMetas, cube);
 
-            // fill in results
+            // pass on results
             while (resultSet.next()) {
+                String[] oneRow = new String[columnCount];
                 for (int i = 0; i < columnCount; i++) {
-                    oneRow.add((resultSet.getString(i + 1)));
+                    oneRow[i] = resultSet.getString(i + 1);
                 }
-
-                results.add(new LinkedList<String>(oneRow));
-                oneRow.clear();
+                listener.row(Arrays.asList(oneRow));
             }
         } finally {
             close(resultSet, stat, conn);
         }
 
         boolean isPartialResult = false;
-        String cube = "";
         long totalScanCount = 0;
-        if (OLAPContext.getThreadLocalContexts() != null) { // contexts can be null in case of 'explain plan for'
+        if (OLAPContext.getThreadLocalContexts() != null) {
             for (OLAPContext ctx : OLAPContext.getThreadLocalContexts()) {
                 isPartialResult |= ctx.storageContext.isPartialResultReturned();
-                cube = ctx.cubeInstance.getName();
                 totalScanCount += ctx.storageContext.getTotalScanCount();
             }
         }
 
-        SQLResponse response = new SQLResponse(columnMetas, results, cube, 0, false, null, isPartialResult);
+        SQLResponse response = new SQLResponse(columnMetas, null, cube, 0, false, null, isPartialResult);
         response.setTotalScanCount(totalScanCount);
 
         return response;
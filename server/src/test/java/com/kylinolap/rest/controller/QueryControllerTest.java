@@ -16,13 +16,23 @@
 
 package com.kylinolap.rest.controller;
 
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.servlet.ServletOutputStream;
+
 import net.sf.ehcache.CacheManager;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.DelegatingServletOutputStream;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 import com.kylinolap.cube.project.ProjectInstance;
+import com.kylinolap.rest.exception.InternalErrorException;
 import com.kylinolap.rest.request.MetaRequest;
 import com.kylinolap.rest.request.SQLRequest;
 import com.kylinolap.rest.service.QueryService;
@@ -58,6 +68,59 @@ public class QueryControllerTest extends ServiceTestBase {
         queryController.query(sqlRequest);
     }
 
+    @Test
+    public void testQueryStream() throws Exception {
+        SQLRequest sqlRequest = new SQLRequest();
+        sqlRequest.setSql("SELECT 1");
+        sqlRequest.setProject("default");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        queryController.queryStream(sqlRequest, response);
+
+        String content = response.getContentAsString();
+        assertTrue(content, content.contains("\"results\":[[\"1\"]]"));
+        assertTrue(content, content.contains("\"isException\":false"));
+    }
+
+    @Test
+    public void testQueryStreamException() throws Exception {
+        SQLRequest sqlRequest = new SQLRequest();
+        sqlRequest.setSql("select * from not_exist_table");
+        sqlRequest.setProject("default");
+        try {
+            queryController.queryStream(sqlRequest, new MockHttpServletResponse());
+            fail();
+        } catch (InternalErrorException e) {
+            // nothing written yet, fails as a normal query
+        }
+        assertNotNull(cacheManager.getCache(QueryController.EXCEPTION_QUERY_CACHE).get(sqlRequest));
+    }
+
+    @Test
+    public void testQueryStreamWriteError() throws Exception {
+        SQLRequest sqlRequest = new SQLRequest();
+        sqlRequest.setSql("SELECT 1");
+        sqlRequest.setProject("default");
+        MockHttpServletResponse response = new MockHttpServletResponse() {
+            @Override
+            public ServletOutputStream getOutputStream() {
+                // as if client cancelled the request
+                return new DelegatingServletOutputStream(new OutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        throw new IOException("Broken pipe");
+                    }
+                });
+            }
+        };
+        try {
+            queryController.queryStream(sqlRequest, response);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Broken pipe", e.getMessage());
+        }
+        assertNull(cacheManager.getCache(QueryController.EXCEPTION_QUERY_CACHE).get(sqlRequest));
+    }
+
     @Test
     public void testErrorMsg() {
         String errorMsg = "error while executing SQL \"select lkp.clsfd_ga_prfl_id, ga.sum_dt, sum(ga.bounces) as bounces, sum(ga.exits) as exits, sum(ga.entrances) as entrances, sum(ga.pageviews) as pageviews, count(distinct ga.GA_VSTR_ID, ga.GA_VST_ID) as visits, count(distinct ga.GA_VSTR_ID) as uniqVistors from CLSFD_GA_PGTYPE_CATEG_LOC ga left join clsfd_ga_prfl_lkp lkp on ga.SRC_GA_PRFL_ID = lkp.SRC_GA_PRFL_ID group by lkp.clsfd_ga_prfl_id,ga.sum_dt order by lkp.clsfd_ga_prfl_id,ga.sum_dt LIMIT 50000\": From line 14, column 14 to line 14, column 29: Column 'CLSFD_GA_PRFL_ID' not found in table 'LKP'";
@@ -23,12 +23,15 @@ public class BitMapFilterEvaluator {
         /** return the size of the group */
         int getRecordCount();
         
-        /** return the max value ID of a column according to dictionary */
+        /** return the max value ID of a column according to dictionary, or negative if the column has no bitmaps */
         int getMaxValueId(TblColRef col);
     }
     
     BitMapProvider provider;
     
+    // counts AND filters that skipped a child, their result is a superset
+    int inexactCount = 0;
+    
     public BitMapFilterEvaluator(BitMapProvider bitMapProvider) {
         this.provider = bitMapProvider;
     }
@@ -47,10 +50,23 @@ public class BitMapFilterEvaluator {
         if (filter instanceof CompareTupleFilter)
             return evalCompare((CompareTupleFilter) filter);
         
+        if (filter instanceof ConstantTupleFilter)
+            return evalConstant((ConstantTupleFilter) filter);
+        
         return null; // unable to evaluate
     }
 
+    private ConciseSet evalConstant(ConstantTupleFilter filter) {
+        ConciseSet set = new ConciseSet();
+        if (filter.getValues().isEmpty() == false) // TRUE
+            not(set);
+        return set;
+    }
+
     private ConciseSet evalCompare(CompareTupleFilter filter) {
+        if (filter.getColumn() == null || provider.getMaxValueId(filter.getColumn()) < 0)
+            return null; // no bitmaps to evaluate
+
         switch (filter.getOperator()) {
         case ISNULL:
             return evalCompareIsNull(filter);
@@ -185,8 +201,10 @@ public class BitMapFilterEvaluator {
         
         for (TupleFilter c : children) {
             ConciseSet t = evaluate(c);
-            if (t == null)
+            if (t == null) {
+                inexactCount++;
                 continue; // because it's AND
+            }
             
             set.retainAll(t);
         }
@@ -207,7 +225,11 @@ public class BitMapFilterEvaluator {
     }
 
     private ConciseSet evalLogicalNot(List<? extends TupleFilter> children) {
+        // complement of a superset drops matching records, only negate an exact result
+        int inexactBefore = inexactCount;
         ConciseSet set = evaluate(children.get(0));
+        if (inexactCount != inexactBefore)
+            return null;
         not(set);
         return set;
     }
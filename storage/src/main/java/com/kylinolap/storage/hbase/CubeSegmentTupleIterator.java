@@ -41,6 +41,7 @@ import org.apache.hadoop.hbase.util.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Maps;
 import com.kylinolap.common.persistence.StorageException;
 import com.kylinolap.common.util.Array;
 import com.kylinolap.cube.CubeInstance;
@@ -56,9 +57,12 @@ import com.kylinolap.metadata.model.cube.TblColRef;
 import com.kylinolap.storage.StorageContext;
 import com.kylinolap.storage.filter.TupleFilter;
 import com.kylinolap.storage.hbase.observer.CoprocessorEnabler;
+import com.kylinolap.storage.hbase.observer.SRowProjector;
+import com.kylinolap.storage.tuple.DictIdValueCache;
 import com.kylinolap.storage.tuple.ITupleIterator;
 import com.kylinolap.storage.tuple.Tuple;
 import com.kylinolap.storage.tuple.Tuple.IDerivedColumnFiller;
+import com.kylinolap.storage.tuple.TupleConverter;
 import com.kylinolap.storage.tuple.TupleInfo;
 
 /**
@@ -98,6 +102,18 @@ public class CubeSegmentTupleIterator implements ITupleIterator {
     private final HTableInterface table;
     private final RowKeyDecoder rowKeyDecoder;
     private final Iterator<HBaseKeyRange> rangeIterator;
+    private final boolean idTupleEnabled;
+    private final Map<TblColRef, DictIdValueCache> idValueCacheMap;
+
+    // per column of current cuboid, tuple field index or -1 if not in tuple
+    private int[] dimensionIndexes;
+    // per row value decoder and measure, tuple field index
+    private int[][] measureIndexes;
+
+    // to expand compact rows from coprocessor, per cuboid
+    private Cuboid cuboid;
+    private SRowProjector compactProjector;
+    private byte[] expandedRowkey;
 
     private Scan scan;
     private ResultScanner scanner;
@@ -116,6 +132,8 @@ public class CubeSegmentTupleIterator implements ITupleIterator {
         this.context = context;
         this.tableName = cubeSeg.getStorageLocationIdentifier();
         this.rowKeyDecoder = new RowKeyDecoder(this.cubeSeg);
+        this.idTupleEnabled = cube.getConfig().isQueryIdTupleEnabled();
+        this.idValueCacheMap = Maps.newHashMap();
         this.scanCount = 0;
 
         try {
@@ -197,6 +215,10 @@ public class CubeSegmentTupleIterator implements ITupleIterator {
             closeScanner();
             HBaseKeyRange keyRange = this.rangeIterator.next();
             this.tupleInfo = buildTupleInfo(keyRange.getCuboid());
+            if (this.cuboid != keyRange.getCuboid()) {
+                this.cuboid = keyRange.getCuboid();
+                this.compactProjector = null;
+            }
             this.tuple = new Tuple(this.tupleInfo);
 
             this.resultIterator = doScan(keyRange);
@@ -213,7 +235,7 @@ public class CubeSegmentTupleIterator implements ITupleIterator {
             applyFuzzyFilter(scan, keyRange);
             logScan(keyRange);
 
-            scanner = CoprocessorEnabler.scanWithCoprocessorIfBeneficial(cubeSeg, keyRange.getCuboid(), filter, groupBy, rowValueDecoders, context, table, scan);
+            scanner = CoprocessorEnabler.scanWithCoprocessorIfBeneficial(cubeSeg, keyRange.getCuboid(), filter, groupBy, dimensions, rowValueDecoders, context, table, scan);
 
             iter = scanner.iterator();
         } catch (Throwable t) {
@@ -289,12 +311,15 @@ public class CubeSegmentTupleIterator implements ITupleIterator {
         rowKeyDecoder.setCuboid(cuboid);
         List<TblColRef> rowColumns = rowKeyDecoder.getColumns();
         List<String> colNames = rowKeyDecoder.getNames(context.getAliasMap());
+        dimensionIndexes = new int[rowColumns.size()];
         for (int i = 0; i < rowColumns.size(); i++) {
             TblColRef column = rowColumns.get(i);
             if (!dimensions.contains(column)) {
+                dimensionIndexes[i] = -1;
                 continue;
             }
             // add normal column
+            dimensionIndexes[i] = index;
             info.setField(colNames.get(i), rowColumns.get(i), rowColumns.get(i).getType().getName(), index++);
         }
 
@@ -313,17 +338,39 @@ public class CubeSegmentTupleIterator implements ITupleIterator {
             }
         }
 
+        measureIndexes = new int[rowValueDecoders.size()][];
+        int d = 0;
         for (RowValueDecoder rowValueDecoder : this.rowValueDecoders) {
             List<String> names = rowValueDecoder.getNames();
             MeasureDesc[] measures = rowValueDecoder.getMeasures();
+            measureIndexes[d] = new int[measures.length];
             for (int i = 0; i < measures.length; i++) {
                 String dataType = measures[i].getFunction().getSQLType();
+                measureIndexes[d][i] = index;
                 info.setField(names.get(i), null, dataType, index++);
             }
+            d++;
+        }
+
+        if (idTupleEnabled) {
+            bindIdValueCaches(rowColumns, info.getConverter());
         }
         return info;
     }
 
+    private void bindIdValueCaches(List<TblColRef> rowColumns, TupleConverter converter) {
+        for (int i = 0; i < rowColumns.size(); i++) {
+            TblColRef column = rowColumns.get(i);
+            if (dimensionIndexes[i] < 0) {
+                continue;
+            }
+            if (!idValueCacheMap.containsKey(column)) {
+                idValueCacheMap.put(column, DictIdValueCache.newInstance(rowKeyDecoder.getDictionary(i), column.getType().getName()));
+            }
+            converter.setIdValueCache(dimensionIndexes[i], idValueCacheMap.get(column));
+        }
+    }
+
     private String getFieldName(TblColRef column, Map<TblColRef, String> aliasMap) {
         String name = null;
         if (aliasMap != null) {
@@ -338,16 +385,23 @@ public class CubeSegmentTupleIterator implements ITupleIterator {
     private void translateResult(Result res, Tuple tuple) throws IOException {
         // groups
         byte[] rowkey = res.getRow();
-        rowKeyDecoder.decode(rowkey);
-        List<TblColRef> columns = rowKeyDecoder.getColumns();
-        List<String> dimensionNames = rowKeyDecoder.getNames(context.getAliasMap());
-        List<String> dimensionValues = rowKeyDecoder.getValues();
-        for (int i = 0; i < dimensionNames.size(); i++) {
-            TblColRef column = columns.get(i);
-            if (!tuple.hasColumn(column)) {
-                continue;
+        if (rowkey[0] == SRowProjector.COMPACT_ROW_MARKER) {
+            rowkey = expandCompactRow(rowkey);
+        }
+        List<String> dimensionValues;
+        if (idTupleEnabled) {
+            rowKeyDecoder.decodeIds(rowkey);
+            translateDimensionsById(tuple);
+            dimensionValues = rowKeyDecoder.getLazyValues();
+        } else {
+            rowKeyDecoder.decode(rowkey);
+            dimensionValues = rowKeyDecoder.getValues();
+            for (int i = 0; i < dimensionIndexes.length; i++) {
+                if (dimensionIndexes[i] < 0) {
+                    continue;
+                }
+                tuple.setDimensionValue(dimensionIndexes[i], dimensionValues.get(i));
             }
-            tuple.setDimensionValue(dimensionNames.get(i), dimensionValues.get(i));
         }
 
         // derived
@@ -356,6 +410,7 @@ public class CubeSegmentTupleIterator implements ITupleIterator {
         }
 
         // aggregations
+        int d = 0;
         for (RowValueDecoder rowValueDecoder : this.rowValueDecoders) {
             HBaseColumnDesc hbaseColumn = rowValueDecoder.getHBaseColumn();
             String columnFamily = hbaseColumn.getColumnFamilyName();
@@ -363,11 +418,37 @@ public class CubeSegmentTupleIterator implements ITupleIterator {
             // FIXME: avoidable bytes array creation, why not use res.getValueAsByteBuffer directly?
             byte[] valueBytes = res.getValue(Bytes.toBytes(columnFamily), Bytes.toBytes(qualifier));
             rowValueDecoder.decode(valueBytes);
-            List<String> measureNames = rowValueDecoder.getNames();
             Object[] measureValues = rowValueDecoder.getValues();
             BitSet projectionIndex = rowValueDecoder.getProjectionIndex();
+            int[] indexes = measureIndexes[d++];
             for (int i = projectionIndex.nextSetBit(0); i >= 0; i = projectionIndex.nextSetBit(i + 1)) {
-                tuple.setMeasureValue(measureNames.get(i), measureValues[i]);
+                tuple.setMeasureValue(indexes[i], measureValues[i]);
+            }
+        }
+    }
+
+    private byte[] expandCompactRow(byte[] compactRow) {
+        if (compactProjector == null) {
+            compactProjector = SRowProjector.fromColumns(cubeSeg, cuboid, groupBy, dimensions);
+            expandedRowkey = new byte[compactProjector.getRowLength()];
+        }
+        compactProjector.expandRow(compactRow, expandedRowkey);
+        return expandedRowkey;
+    }
+
+    // dimension values stay as dictionary IDs, only columns in tuple get translated
+    private void translateDimensionsById(Tuple tuple) {
+        TupleConverter converter = tupleInfo.getConverter();
+        for (int i = 0; i < dimensionIndexes.length; i++) {
+            int index = dimensionIndexes[i];
+            if (index < 0) {
+                continue;
+            }
+            int id = rowKeyDecoder.getValueId(i);
+            if (id >= 0 && converter.hasIdValueCache(index)) {
+                tuple.setDimensionValueById(index, id);
+            } else {
+                tuple.setDimensionValue(index, rowKeyDecoder.getValue(i));
             }
         }
     }
@@ -16,6 +16,8 @@
 
 package com.kylinolap.storage.hbase;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -70,12 +72,19 @@ public class DerivedFilterTranslator {
         }
 
         Set<Array<String>> satisfyingHostRecords = Sets.newHashSet();
-        SingleColumnTuple tuple = new SingleColumnTuple(derivedCol);
-        for (String[] row : lookup.getAllRows()) {
-            tuple.value = row[di];
-            if (compf.evaluate(tuple)) {
+        Collection<String[]> satisfyingRows = findSatisfyingRows(lookup, derivedCol, compf);
+        if (satisfyingRows != null) {
+            for (String[] row : satisfyingRows) {
                 collect(row, pi, satisfyingHostRecords);
             }
+        } else {
+            SingleColumnTuple tuple = new SingleColumnTuple(derivedCol);
+            for (String[] row : lookup.getAllRows()) {
+                tuple.value = row[di];
+                if (compf.evaluate(tuple)) {
+                    collect(row, pi, satisfyingHostRecords);
+                }
+            }
         }
 
         TupleFilter translated;
@@ -91,6 +100,32 @@ public class DerivedFilterTranslator {
         return new Pair<TupleFilter, Boolean>(translated, loosened);
     }
 
+    // by the sorted column of lookup table, same as CompareTupleFilter.evaluate() on
+    // each row; null if the filter must be evaluated row by row
+    private static Collection<String[]> findSatisfyingRows(LookupStringTable lookup, TblColRef derivedCol, CompareTupleFilter compf) {
+        String col = derivedCol.getName();
+        String value = compf.getFirstValue();
+        if (value == null || compf.getNullString() != null)
+            return null;
+
+        switch (compf.getOperator()) {
+        case EQ:
+            return lookup.findRows(col, Collections.singleton(value));
+        case IN:
+            return lookup.findRows(col, compf.getValues());
+        case LT:
+            return lookup.findRows(col, null, false, value, false);
+        case LTE:
+            return lookup.findRows(col, null, false, value, true);
+        case GT:
+            return lookup.findRows(col, value, false, null, false);
+        case GTE:
+            return lookup.findRows(col, value, true, null, false);
+        default:
+            return null;
+        }
+    }
+
     private static void collect(String[] row, int[] pi, Set<Array<String>> satisfyingHostRecords) {
         // TODO when go beyond IN_THRESHOLD, only keep min/max is enough
         String[] rec = new String[pi.length];
@@ -16,7 +16,9 @@
 package com.kylinolap.storage.hbase;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -33,6 +35,7 @@ import com.kylinolap.cube.kv.AbstractRowKeyEncoder;
 import com.kylinolap.cube.kv.FuzzyKeyEncoder;
 import com.kylinolap.cube.kv.FuzzyMaskEncoder;
 import com.kylinolap.cube.kv.RowConstants;
+import com.kylinolap.cube.kv.RowKeyShard;
 import com.kylinolap.dict.DateStrDictionary;
 import com.kylinolap.metadata.model.cube.CubeDesc;
 import com.kylinolap.metadata.model.cube.TblColRef;
@@ -133,10 +136,37 @@ public class HBaseKeyRange implements Comparable<HBaseKeyRange> {
         // AbstractRowKeyEncoder.createInstance() caches instances)
         encoder.setBlankByte(AbstractRowKeyEncoder.DEFAULT_BLANK_BYTE);
 
+        // shard of the bounds means nothing, ranges are planned as of shard 0
+        // and then repeated for each shard by splitByShard()
+        if (cubeSeg.getRowKeyShardCount() > 0) {
+            RowKeyShard.writeShard(0, this.startKey, 0);
+            RowKeyShard.writeShard(0, this.stopKey, 0);
+        }
+
         // always fuzzy match cuboid ID to lock on the selected cuboid
         this.fuzzyKeys = buildFuzzyKeys(fuzzyValues);
     }
 
+    /**
+     * @return the range on each shard if the segment has row key shards, or
+     *         this range otherwise; fuzzy keys apply to any shard as is
+     */
+    public List<HBaseKeyRange> splitByShard() {
+        int shardCount = cubeSeg.getRowKeyShardCount();
+        if (shardCount <= 0)
+            return Collections.singletonList(this);
+
+        List<HBaseKeyRange> result = new ArrayList<HBaseKeyRange>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            byte[] shardStartKey = Arrays.copyOf(startKey, startKey.length);
+            byte[] shardStopKey = Arrays.copyOf(stopKey, stopKey.length);
+            RowKeyShard.writeShard(shard, shardStartKey, 0);
+            RowKeyShard.writeShard(shard, shardStopKey, 0);
+            result.add(new HBaseKeyRange(cubeSeg, cuboid, shardStartKey, shardStopKey, fuzzyKeys, flatOrAndFilter, partitionColumnStartDate, partitionColumnEndDate));
+        }
+        return result;
+    }
+
     private void initPartitionRange(ColumnValueRange dimRange) {
         if (null != dimRange.getBeginValue()) {
             this.partitionColumnStartDate = DateStrDictionary.stringToDate(dimRange.getBeginValue()).getTime();
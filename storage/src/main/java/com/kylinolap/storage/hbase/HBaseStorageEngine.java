@@ -117,7 +117,8 @@ public class HBaseStorageEngine implements IStorageEngine {
         TupleFilter flatFilter = flattenToOrAndFilter(filterD);
 
         // translate filter into segment scan ranges
-        List<HBaseKeyRange> scans = buildScanRanges(flatFilter, dimensionsD);
+        // scan the chosen cuboid, may be a cheaper ancestor than the default
+        List<HBaseKeyRange> scans = buildScanRanges(flatFilter, cuboid.getColumns());
 
         // check involved measures, build value decoder for each each family:column
         List<RowValueDecoder> valueDecoders = translateAggregation(cubeDesc.getHBaseMapping(), metrics, scans, context);
@@ -127,7 +128,23 @@ public class HBaseStorageEngine implements IStorageEngine {
         setLimit(filter, context);
 
         HConnection conn = HBaseConnection.get(context.getConnUrl());
-        return new SerializedHBaseTupleIterator(conn, scans, cubeInstance, dimensionsD, filterD, groupsCopD, valueDecoders, context);
+        if (isParallelScan(scans)) {
+            return new ConcurrentHBaseTupleIterator(conn, scans, cubeInstance, dimensionsD, filterD, groupsCopD, valueDecoders, context);
+        } else {
+            return new SerializedHBaseTupleIterator(conn, scans, cubeInstance, dimensionsD, filterD, groupsCopD, valueDecoders, context);
+        }
+    }
+
+    private boolean isParallelScan(List<HBaseKeyRange> scans) {
+        if (cubeInstance.getConfig().isQueryScanParallelEnabled() == false) {
+            return false;
+        }
+        // nothing to gain from a thread hop for a single range
+        if (scans.size() <= 1) {
+            return false;
+        }
+        logger.info("Parallel scan is enabled for " + scans.size() + " key ranges");
+        return true;
     }
 
     private Cuboid identifyCuboid(Set<TblColRef> dimensions) {
@@ -136,7 +153,8 @@ public class HBaseStorageEngine implements IStorageEngine {
             int index = cubeDesc.getRowkey().getColumnBitIndex(column);
             cuboidID |= 1L << index;
         }
-        return Cuboid.findById(cubeDesc, cuboidID);
+        // the ancestor of the fewest rows by build statistics, if there are
+        return cubeInstance.findCheapestCuboid(cuboidID);
     }
 
     private boolean isExactAggregation(Cuboid cuboid, Collection<TblColRef> groups, Set<TblColRef> othersD, Set<TblColRef> singleValuesD, Set<TblColRef> derivedPostAggregation) {
@@ -380,7 +398,11 @@ public class HBaseStorageEngine implements IStorageEngine {
 
             List<HBaseKeyRange> mergedRanges = mergeOverlapRanges(scanRanges);
             mergedRanges = mergeTooManyRanges(mergedRanges);
-            result.addAll(mergedRanges);
+
+            // a segment of row key shards is scanned per shard, in parallel if enabled
+            for (HBaseKeyRange mergedRange : mergedRanges) {
+                result.addAll(mergedRange.splitByShard());
+            }
         }
 
         dropUnhitSegments(result);
@@ -19,27 +19,54 @@ package com.kylinolap.storage.hbase;
 import static com.kylinolap.metadata.model.invertedindex.InvertedIndexDesc.*;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeSet;
 
 import com.kylinolap.cube.invertedindex.*;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.HConnection;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.io.ImmutableBytesWritable;
+import org.apache.hadoop.hbase.util.Bytes;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.ServiceException;
 import com.kylinolap.common.KylinConfig;
 import com.kylinolap.common.persistence.HBaseConnection;
 import com.kylinolap.common.persistence.StorageException;
+import com.kylinolap.common.util.BytesUtil;
 import com.kylinolap.cube.CubeInstance;
 import com.kylinolap.cube.CubeSegment;
+import com.kylinolap.cube.measure.MeasureCodec;
+import com.kylinolap.dict.Dictionary;
 import com.kylinolap.metadata.model.cube.FunctionDesc;
 import com.kylinolap.metadata.model.cube.TblColRef;
 import com.kylinolap.metadata.model.schema.ColumnDesc;
 import com.kylinolap.storage.IStorageEngine;
 import com.kylinolap.storage.StorageContext;
+import com.kylinolap.storage.filter.ColumnTupleFilter;
 import com.kylinolap.storage.filter.TupleFilter;
+import com.kylinolap.storage.filter.TupleFilterSerializer;
+import com.kylinolap.storage.hbase.coprocessor.generated.IIProtos;
+import com.kylinolap.storage.hbase.observer.SRowFilter.DictIdTranslator;
+import com.kylinolap.storage.tuple.DictIdValueCache;
 import com.kylinolap.storage.tuple.ITupleIterator;
 import com.kylinolap.storage.tuple.Tuple;
+import com.kylinolap.storage.tuple.TupleConverter;
 import com.kylinolap.storage.tuple.TupleInfo;
 
 /**
@@ -59,12 +86,283 @@ public class InvertedIndexStorageEngine implements IStorageEngine {
     public ITupleIterator search(Collection<TblColRef> dimensions, TupleFilter filter, Collection<TblColRef> groups, Collection<FunctionDesc> metrics, StorageContext context) {
 
         try {
-            return new IISegmentTupleIterator(context);
+            if (seg.getCubeInstance().getConfig().isQueryIIEndpointEnabled())
+                return new IIEndpointTupleIterator(dimensions, filter, metrics, context);
+            else
+                return new IISegmentTupleIterator(context);
         } catch (IOException e) {
             throw new StorageException(e.getMessage(), e);
         }
     }
 
+    /**
+     * Evaluates filter by bitmaps and projects columns in IIEndpoint, only the
+     * requested columns of matching records are transferred. The filter is a
+     * relaxed one, the query engine still filters the returned tuples.
+     * 
+     * When all metrics are simple aggregations of metric columns, IIEndpoint
+     * also groups records and returns partial aggregates per region, which the
+     * query engine aggregates further.
+     * 
+     * Regions are called one at a time, so only the rows of one region are
+     * held in memory, and the threshold and limit are checked as rows return.
+     */
+    private class IIEndpointTupleIterator implements ITupleIterator {
+        final StorageContext context;
+        final TableRecordInfo info;
+        final int[] columns;
+        final List<FunctionDesc> measures;
+        final MeasureCodec measureCodec;
+        final Object[] measureValues;
+        final IIProtos.IIRequest request;
+        final HTableInterface table;
+        final Iterator<HRegionLocation> regionIterator;
+        Iterator<ByteString> rowIterator = Collections.<ByteString> emptyList().iterator();
+        int scanCount;
+        final TableRecord rec;
+        final ImmutableBytesWritable temp = new ImmutableBytesWritable();
+        final TupleInfo tupleInfo;
+        final Tuple tuple;
+
+        IIEndpointTupleIterator(Collection<TblColRef> dimensions, TupleFilter filter, Collection<FunctionDesc> metrics, StorageContext context) throws IOException {
+            this.context = context;
+            this.info = new TableRecordInfo(seg);
+            if (isAggregationPushable(dimensions, filter, metrics)) {
+                this.columns = getProjectedColumns(dimensions, filter, Collections.<FunctionDesc> emptyList());
+                this.measures = getMeasures(metrics);
+                String[] returnTypes = new String[measures.size()];
+                for (int i = 0; i < returnTypes.length; i++) {
+                    returnTypes[i] = measures.get(i).getReturnType();
+                }
+                this.measureCodec = new MeasureCodec(returnTypes);
+                this.measureValues = new Object[returnTypes.length];
+            } else {
+                int[] projected = getProjectedColumns(dimensions, filter, metrics);
+                // e.g. count(*) unable to push down, still need a column for each record
+                this.columns = projected.length > 0 ? projected : new int[] { info.getTimestampColumn() };
+                this.measures = Collections.emptyList();
+                this.measureCodec = null;
+                this.measureValues = null;
+            }
+            this.rec = new TableRecord(info);
+            this.tupleInfo = buildTupleInfo();
+            this.tuple = new Tuple(tupleInfo);
+
+            this.request = buildRequest(filter);
+            HConnection hconn = HBaseConnection.get(hbaseUrl);
+            this.table = hconn.getTable(seg.getStorageLocationIdentifier());
+            try {
+                this.regionIterator = hconn.locateRegions(TableName.valueOf(seg.getStorageLocationIdentifier())).iterator();
+            } catch (IOException e) {
+                IOUtils.closeQuietly(table);
+                throw e;
+            }
+        }
+
+        private List<ByteString> callRegion(HRegionLocation region) {
+            byte[] startKey = region.getRegionInfo().getStartKey();
+            try {
+                IIProtos.RowsService.BlockingInterface rowsService = IIProtos.RowsService.newBlockingStub(table.coprocessorService(startKey));
+                return rowsService.getRows(null, request).getRowsList();
+            } catch (ServiceException e) {
+                throw new StorageException("Error calling IIEndpoint on " + region.getRegionInfo().getRegionNameAsString(), e);
+            }
+        }
+
+        private int[] getProjectedColumns(Collection<TblColRef> dimensions, TupleFilter filter, Collection<FunctionDesc> metrics) {
+            Set<TblColRef> cols = Sets.newHashSet(dimensions);
+            for (FunctionDesc func : metrics) {
+                List<TblColRef> paramCols = func.getParameter().getColRefs();
+                if (paramCols != null)
+                    cols.addAll(paramCols);
+            }
+            if (filter != null)
+                collectColumns(filter, cols);
+
+            TreeSet<Integer> result = Sets.newTreeSet();
+            for (TblColRef col : cols) {
+                int i = getColumnIndex(col);
+                if (i >= 0)
+                    result.add(i);
+            }
+            return Ints.toArray(result);
+        }
+
+        private boolean isAggregationPushable(Collection<TblColRef> dimensions, TupleFilter filter, Collection<FunctionDesc> metrics) {
+            if (metrics.isEmpty() || context.isAvoidAggregation())
+                return false;
+
+            int[] groupColumns = getProjectedColumns(dimensions, filter, Collections.<FunctionDesc> emptyList());
+            for (FunctionDesc func : metrics) {
+                if (func.isCount())
+                    continue;
+                if (func.isSum() == false && func.isMin() == false && func.isMax() == false)
+                    return false;
+                int i = getParameterColumn(func);
+                if (i < 0 || info.isMetrics(i) == false)
+                    return false;
+                // a sum is returned in field of its column, which must not be a group column too
+                if (func.isSum() && Ints.contains(groupColumns, i))
+                    return false;
+            }
+            return true;
+        }
+
+        private int getParameterColumn(FunctionDesc func) {
+            List<TblColRef> paramCols = func.getParameter().getColRefs();
+            if (paramCols == null || paramCols.size() != 1)
+                return -1;
+            return getColumnIndex(paramCols.get(0));
+        }
+
+        private List<FunctionDesc> getMeasures(Collection<FunctionDesc> metrics) {
+            // measures sharing a field, e.g. count(*) and count(1), are computed once
+            Map<String, FunctionDesc> result = Maps.newLinkedHashMap();
+            for (FunctionDesc func : metrics) {
+                if (result.containsKey(func.getRewriteFieldName()) == false)
+                    result.put(func.getRewriteFieldName(), func);
+            }
+            return Lists.newArrayList(result.values());
+        }
+
+        private void collectColumns(TupleFilter filter, Set<TblColRef> collector) {
+            if (filter instanceof ColumnTupleFilter) {
+                collector.add(((ColumnTupleFilter) filter).getColumn());
+            }
+            for (TupleFilter child : filter.getChildren()) {
+                collectColumns(child, collector);
+            }
+        }
+
+        private int getColumnIndex(TblColRef col) {
+            if (info.getDescriptor().getFactTable().equalsIgnoreCase(col.getTable()) == false)
+                return -1;
+            return col.getColumn().getZeroBasedIndex();
+        }
+
+        private IIProtos.IIRequest buildRequest(TupleFilter filter) {
+            IIProtos.IIRequest.Builder builder = IIProtos.IIRequest.newBuilder();
+            builder.setTableInfo(ByteString.copyFrom(TableRecordInfoDigest.serialize(info)));
+            for (int col : columns) {
+                builder.addColumns(col);
+            }
+            for (FunctionDesc func : measures) {
+                IIProtos.IIMeasure.Builder measure = IIProtos.IIMeasure.newBuilder();
+                measure.setExpression(func.getExpression());
+                measure.setReturnType(func.getReturnType());
+                if (func.isCount() == false) {
+                    int col = getParameterColumn(func);
+                    measure.setColumn(col);
+                    measure.setScale(info.getColumns()[col].getType().getScale());
+                }
+                builder.addMeasures(measure);
+            }
+            if (filter != null) {
+                byte[] filterBytes = TupleFilterSerializer.serialize(filter, new DictIdTranslator() {
+                    @Override
+                    protected boolean isTranslatable(TblColRef column) {
+                        int i = getColumnIndex(column);
+                        return i >= 0 && info.isMetrics(i) == false;
+                    }
+
+                    @Override
+                    protected int getColumnLength(TblColRef column) {
+                        return info.length(getColumnIndex(column));
+                    }
+
+                    @Override
+                    protected String translate(TblColRef column, String v, int roundingFlag) {
+                        Dictionary<String> dict = info.dict(getColumnIndex(column));
+                        byte[] value = Bytes.toBytes(v);
+                        byte[] id = new byte[dict.getSizeOfId()];
+                        try {
+                            BytesUtil.writeUnsigned(dict.getIdFromValueBytes(value, 0, value.length, roundingFlag), id, 0, id.length);
+                        } catch (IllegalArgumentException ex) {
+                            Arrays.fill(id, Dictionary.NULL);
+                        }
+                        return Dictionary.dictIdToString(id, 0, id.length);
+                    }
+                });
+                builder.setFilter(ByteString.copyFrom(filterBytes));
+                for (ColumnDesc col : info.getColumns()) {
+                    builder.addColumnNames(col.getName());
+                }
+            }
+            return builder.build();
+        }
+
+        private TupleInfo buildTupleInfo() {
+            TupleInfo result = new TupleInfo();
+            ColumnDesc[] allColumns = info.getColumns();
+            for (int i = 0; i < columns.length; i++) {
+                TblColRef col = new TblColRef(allColumns[columns[i]]);
+                result.setField(context.getFieldName(col), col, col.getType().getName(), i);
+            }
+            for (int i = 0; i < measures.size(); i++) {
+                FunctionDesc func = measures.get(i);
+                result.setField(func.getRewriteFieldName(), null, func.getSQLType(), columns.length + i);
+            }
+            TupleConverter converter = result.getConverter();
+            for (int i = 0; i < columns.length; i++) {
+                if (info.isMetrics(columns[i]) == false)
+                    converter.setIdValueCache(i, DictIdValueCache.newInstance(info.dict(columns[i]), result.getDataType(i)));
+            }
+            return result;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (context.isLimitEnabled() && scanCount >= context.getLimit()) {
+                return false;
+            }
+            if (scanCount >= context.getThreshold()) {
+                throw new ScanOutOfLimitException("Scan row count exceeded threshold: " + context.getThreshold() + ", please add filter condition to narrow down backend scan range, like where clause.");
+            }
+            while (rowIterator.hasNext() == false && regionIterator.hasNext()) {
+                rowIterator = callRegion(regionIterator.next()).iterator();
+            }
+            return rowIterator.hasNext();
+        }
+
+        @Override
+        public Tuple next() {
+            if (hasNext() == false)
+                throw new NoSuchElementException();
+
+            byte[] row = rowIterator.next().toByteArray();
+            scanCount++;
+            int pos = 0;
+            for (int col : columns) {
+                int len = info.length(col);
+                temp.set(row, pos, len);
+                rec.setValueBytes(col, temp);
+                pos += len;
+            }
+
+            TupleConverter converter = tupleInfo.getConverter();
+            for (int i = 0; i < columns.length; i++) {
+                if (converter.hasIdValueCache(i))
+                    tuple.setDimensionValueById(i, rec.getValueID(columns[i]));
+                else
+                    tuple.setDimensionValue(i, rec.getValueString(columns[i]));
+            }
+            if (measureCodec != null) {
+                measureCodec.decode(ByteBuffer.wrap(row, pos, row.length - pos), measureValues);
+                for (int i = 0; i < measureValues.length; i++) {
+                    tuple.setMeasureValue(columns.length + i, measureValues[i]);
+                }
+            }
+            return tuple;
+        }
+
+        @Override
+        public void close() {
+            context.setTotalScanCount(scanCount);
+            IOUtils.closeQuietly(table);
+        }
+
+    }
+
     private class IISegmentTupleIterator implements ITupleIterator {
         final StorageContext context;
         final HBaseClientKVIterator kvIterator;
@@ -93,6 +391,11 @@ public class InvertedIndexStorageEngine implements IStorageEngine {
                 TblColRef col = new TblColRef(columns[i]);
                 info.setField(context.getFieldName(col), col, col.getType().getName(), i);
             }
+            TupleConverter converter = info.getConverter();
+            for (int i = 0; i < columns.length; i++) {
+                if (recInfo.isMetrics(i) == false)
+                    converter.setIdValueCache(i, DictIdValueCache.newInstance(recInfo.dict(i), info.getDataType(i)));
+            }
             return info;
         }
 
@@ -102,9 +405,12 @@ public class InvertedIndexStorageEngine implements IStorageEngine {
                 tuple = new Tuple(tupleInfo);
             }
 
-            List<String> fieldNames = tupleInfo.getAllFields();
+            TupleConverter converter = tupleInfo.getConverter();
             for (int i = 0, n = tupleInfo.size(); i < n; i++) {
-                tuple.setDimensionValue(fieldNames.get(i), rec.getValueString(i));
+                if (converter.hasIdValueCache(i))
+                    tuple.setDimensionValueById(i, rec.getValueID(i));
+                else
+                    tuple.setDimensionValue(i, rec.getValueString(i));
             }
             return tuple;
         }
@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * Created by honma on 11/10/14.
@@ -39,32 +40,38 @@ public class HbaseServerKVIterator implements Iterable<Pair<ImmutableBytesWritab
             Pair<ImmutableBytesWritable, ImmutableBytesWritable> pair = new Pair<>(key, value);
 
             private boolean hasMore = true;
+            private boolean fetched = false;
 
-            @Override
-            public boolean hasNext() {
-                return hasMore;
-            }
-
-
-            @Override
-            public Pair<ImmutableBytesWritable, ImmutableBytesWritable> next() {
-                if (!hasNext()) {
+            private void fetch() {
+                // nextRaw() may return an empty result as the last call
+                while (results.isEmpty() && hasMore) {
                     try {
                         hasMore = innerScaner.nextRaw(results);
                     } catch (IOException e) {
                         throw new RuntimeException(e);
                     }
+                }
+                fetched = true;
+            }
 
-                    if (results.size() < 1)
-                        throw new IllegalStateException("Hbase row contains less than 1 row");
+            @Override
+            public boolean hasNext() {
+                if (!fetched)
+                    fetch();
+                return !results.isEmpty();
+            }
 
-                    Cell c = results.get(0);
-                    key.set(c.getRowArray(), c.getRowOffset(), c.getRowLength());
-                    value.set(c.getValueArray(), c.getValueOffset(), c.getValueLength());
-                    return pair;
-                } else {
-                    return null;
-                }
+            @Override
+            public Pair<ImmutableBytesWritable, ImmutableBytesWritable> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+
+                Cell c = results.get(0);
+                key.set(c.getRowArray(), c.getRowOffset(), c.getRowLength());
+                value.set(c.getValueArray(), c.getValueOffset(), c.getValueLength());
+                results.clear();
+                fetched = false;
+                return pair;
             }
 
             @Override
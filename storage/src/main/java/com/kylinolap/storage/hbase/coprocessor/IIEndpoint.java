@@ -4,8 +4,22 @@ import com.google.protobuf.ByteString;
 import com.google.protobuf.RpcCallback;
 import com.google.protobuf.RpcController;
 import com.google.protobuf.Service;
+import com.kylinolap.common.util.ByteArray;
 import com.kylinolap.cube.invertedindex.*;
+import com.kylinolap.cube.kv.RowConstants;
+import com.kylinolap.cube.measure.MeasureAggregator;
+import com.kylinolap.cube.measure.MeasureCodec;
+import com.kylinolap.cube.measure.fixedlen.FixedPointLongCodec;
+import com.kylinolap.metadata.model.cube.TblColRef;
+import com.kylinolap.storage.filter.BitMapFilterEvaluator;
+import com.kylinolap.storage.filter.TupleFilter;
+import com.kylinolap.storage.filter.TupleFilterSerializer;
 import com.kylinolap.storage.hbase.coprocessor.generated.IIProtos;
+import com.kylinolap.storage.hbase.observer.AggregateRegionObserver;
+import com.kylinolap.storage.hbase.observer.AggregationCache;
+
+import it.uniroma3.mat.extendedset.intset.ConciseSet;
+
 import org.apache.commons.io.IOUtils;
 import org.apache.hadoop.hbase.Coprocessor;
 import org.apache.hadoop.hbase.CoprocessorEnvironment;
@@ -16,9 +30,17 @@ import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.protobuf.ResponseConverter;
 import org.apache.hadoop.hbase.regionserver.HRegion;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Created by honma on 11/7/14.
@@ -47,11 +69,48 @@ public class IIEndpoint extends IIProtos.RowsService
             synchronized (innerScanner) {
                 IIProtos.IIResponse.Builder responseBuilder = IIProtos.IIResponse.newBuilder();
 
+                TupleFilter filter = request.hasFilter() ? TupleFilterSerializer.deserialize(request.getFilter().toByteArray()) : null;
+                int[] columns = getColumns(request, tableInfo);
+                byte[] rowBuf = new byte[getRowLength(columns, tableInfo)];
+
+                long memoryBudget = env.getConfiguration().getLong(AggregateRegionObserver.MEMORY_BUDGET_KEY, AggregationCache.MEMORY_USAGE_CAP);
+                GroupAggregation aggregation = request.getMeasuresCount() > 0 ? new GroupAggregation(request.getMeasuresList(), tableInfo, memoryBudget) : null;
+                // the response is held in memory too, it fails rather than be truncated silently
+                long responseBytes = 0;
+
                 IIKeyValueCodec codec = new IIKeyValueCodec(tableInfo);
                 for (Slice slice : codec.decodeKeyValue(new HbaseServerKVIterator(innerScanner))) {
-                    for (TableRecordBytes recordBytes : slice) {
-                        responseBuilder.addRows(ByteString.copyFrom(recordBytes.getBytes()));
+                    ConciseSet matches = null;
+                    if (filter != null) {
+                        BitMapFilterEvaluator evaluator = new BitMapFilterEvaluator(new SliceBitMapProvider(slice, request.getColumnNamesList()));
+                        matches = evaluator.evaluate(filter);
                     }
+
+                    Iterator<TableRecordBytes> records = matches == null ? slice.iterator() : slice.iterator(matches);
+                    while (records.hasNext()) {
+                        byte[] recordBytes = records.next().getBytes();
+                        int pos = 0;
+                        for (int col : columns) {
+                            int len = tableInfo.length(col);
+                            System.arraycopy(recordBytes, tableInfo.offset(col), rowBuf, pos, len);
+                            pos += len;
+                        }
+                        if (aggregation != null) {
+                            aggregation.aggregate(rowBuf, recordBytes);
+                            // over budget, flush partial groups, the query engine merges them anyway
+                            if (aggregation.isFull())
+                                responseBytes += aggregation.output(responseBuilder);
+                        } else {
+                            responseBuilder.addRows(ByteString.copyFrom(rowBuf));
+                            responseBytes += rowBuf.length;
+                        }
+                        checkResponseSize(responseBytes, memoryBudget);
+                    }
+                }
+
+                if (aggregation != null) {
+                    responseBytes += aggregation.output(responseBuilder);
+                    checkResponseSize(responseBytes, memoryBudget);
                 }
 
                 response = responseBuilder.build();
@@ -74,6 +133,199 @@ public class IIEndpoint extends IIProtos.RowsService
         done.run(response);
     }
 
+    private void checkResponseSize(long responseBytes, long memoryBudget) throws IOException {
+        if (responseBytes > memoryBudget)
+            throw new IOException("IIEndpoint response of region " + env.getRegion().getRegionNameAsString() + " exceeds " + memoryBudget + " bytes, please add filter condition to narrow down the query");
+    }
+
+    private int[] getColumns(IIProtos.IIRequest request, TableRecordInfoDigest tableInfo) {
+        int[] columns;
+        if (request.getColumnsCount() == 0 && request.getMeasuresCount() == 0) {
+            columns = new int[tableInfo.getColumnCount()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = i;
+            }
+        } else {
+            columns = new int[request.getColumnsCount()];
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = request.getColumns(i);
+            }
+        }
+        return columns;
+    }
+
+    private int getRowLength(int[] columns, TableRecordInfoDigest tableInfo) {
+        int len = 0;
+        for (int col : columns) {
+            len += tableInfo.length(col);
+        }
+        return len;
+    }
+
+    /**
+     * Groups records by the projected columns and aggregates measures over
+     * metric columns, the output rows are partial aggregates of this region.
+     * Memory is accounted per group like AggregationCache does, the caller
+     * flushes the groups once over budget. This bounds the groups only, the
+     * flushed rows still add up in the response.
+     */
+    private static class GroupAggregation {
+
+        // hash map entry, key wrapper and aggregator array
+        static final int GROUP_OVERHEAD = 32 + 16 + 16 + 16;
+        static final int OBJECT_OVERHEAD = 16;
+
+        final TableRecordInfoDigest tableInfo;
+        final int nMeasures;
+        final String[] expressions;
+        final String[] returnTypes;
+        final int[] metricColumns;
+        final FixedPointLongCodec[] metricCodecs;
+        final double[] scalePowers;
+        final int[] scales;
+        final MeasureCodec measureCodec;
+        final Map<ByteArray, MeasureAggregator[]> groups = new HashMap<ByteArray, MeasureAggregator[]>();
+        final ByteArray probe = new ByteArray(null);
+        // aggregators copy LongWritable and DoubleWritable, so the values are
+        // reused; values of count measures stay 1
+        final Object[] values;
+        final long memoryBudget;
+        long memBytes;
+
+        GroupAggregation(List<IIProtos.IIMeasure> measures, TableRecordInfoDigest tableInfo, long memoryBudget) {
+            this.tableInfo = tableInfo;
+            this.nMeasures = measures.size();
+            this.expressions = new String[nMeasures];
+            this.returnTypes = new String[nMeasures];
+            this.metricColumns = new int[nMeasures];
+            this.metricCodecs = new FixedPointLongCodec[nMeasures];
+            this.scales = new int[nMeasures];
+            this.scalePowers = new double[nMeasures];
+            this.values = new Object[nMeasures];
+            for (int i = 0; i < nMeasures; i++) {
+                IIProtos.IIMeasure m = measures.get(i);
+                expressions[i] = m.getExpression();
+                returnTypes[i] = m.getReturnType();
+                metricColumns[i] = m.hasColumn() ? m.getColumn() : -1;
+                metricCodecs[i] = m.hasColumn() ? new FixedPointLongCodec(m.getScale()) : null;
+                scales[i] = m.hasColumn() ? Math.max(0, m.getScale()) : 0;
+                scalePowers[i] = Math.pow(10, scales[i]);
+                if (MeasureAggregator.isDouble(returnTypes[i]))
+                    values[i] = new DoubleWritable(1);
+                else if (MeasureAggregator.isBigDecimal(returnTypes[i]))
+                    values[i] = BigDecimal.ONE;
+                else
+                    values[i] = new LongWritable(1);
+            }
+            this.measureCodec = new MeasureCodec(returnTypes);
+            this.memoryBudget = memoryBudget;
+        }
+
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        void aggregate(byte[] groupKey, byte[] recordBytes) {
+            probe.data = groupKey;
+            MeasureAggregator[] aggrs = groups.get(probe);
+            if (aggrs == null) {
+                aggrs = new MeasureAggregator[nMeasures];
+                memBytes += GROUP_OVERHEAD + groupKey.length;
+                for (int i = 0; i < nMeasures; i++) {
+                    aggrs[i] = MeasureAggregator.create(expressions[i], returnTypes[i]);
+                    memBytes += OBJECT_OVERHEAD + Math.max(0, aggrs[i].getMemBytes());
+                }
+                groups.put(new ByteArray(Bytes.copy(groupKey)), aggrs);
+            }
+
+            for (int i = 0; i < nMeasures; i++) {
+                Object value = values[i];
+                if (metricColumns[i] >= 0) { // otherwise count
+                    // the fixed point long is turned into measure value directly, no String in between
+                    long v = metricCodecs[i].read(recordBytes, tableInfo.offset(metricColumns[i])).get();
+                    if (value instanceof LongWritable)
+                        ((LongWritable) value).set(scales[i] == 0 ? v : (long) (v / scalePowers[i]));
+                    else if (value instanceof DoubleWritable)
+                        ((DoubleWritable) value).set(v / scalePowers[i]);
+                    else
+                        value = BigDecimal.valueOf(v, scales[i]);
+                }
+                aggrs[i].aggregate(value);
+            }
+        }
+
+        boolean isFull() {
+            return memBytes > memoryBudget;
+        }
+
+        /** writes the groups as rows of response, and clears them */
+        /**
+         * @return bytes of rows added to the response
+         */
+        long output(IIProtos.IIResponse.Builder responseBuilder) {
+            long bytes = 0;
+            ByteBuffer buf = ByteBuffer.allocate(RowConstants.ROWVALUE_BUFFER_SIZE);
+            Object[] states = new Object[nMeasures];
+            for (Map.Entry<ByteArray, MeasureAggregator[]> entry : groups.entrySet()) {
+                byte[] groupKey = entry.getKey().data;
+                MeasureAggregator[] aggrs = entry.getValue();
+                for (int i = 0; i < nMeasures; i++) {
+                    states[i] = aggrs[i].getState();
+                }
+                buf.clear();
+                buf.put(groupKey);
+                measureCodec.encode(states, buf);
+                responseBuilder.addRows(ByteString.copyFrom(buf.array(), 0, buf.position()));
+                bytes += buf.position();
+            }
+            groups.clear();
+            memBytes = 0;
+            return bytes;
+        }
+    }
+
+    /**
+     * Bitmaps of a slice, only available for columns stored in BitMapContainer.
+     */
+    private static class SliceBitMapProvider implements BitMapFilterEvaluator.BitMapProvider {
+
+        final Slice slice;
+        final Map<String, Integer> columnIndex;
+
+        SliceBitMapProvider(Slice slice, List<String> columnNames) {
+            this.slice = slice;
+            this.columnIndex = new HashMap<String, Integer>();
+            for (int i = 0; i < columnNames.size(); i++) {
+                columnIndex.put(columnNames.get(i), i);
+            }
+        }
+
+        private BitMapContainer getContainer(TblColRef col) {
+            Integer i = columnIndex.get(col.getName());
+            if (i == null)
+                return null;
+            ColumnValueContainer container = slice.getColumnValueContainer(i);
+            return container instanceof BitMapContainer ? (BitMapContainer) container : null;
+        }
+
+        @Override
+        public ConciseSet getBitMap(TblColRef col, int valueId) {
+            BitMapContainer container = getContainer(col);
+            if (container == null)
+                return null;
+            ConciseSet set = container.getBitMap(valueId);
+            return set == null ? new ConciseSet() : set;
+        }
+
+        @Override
+        public int getRecordCount() {
+            return slice.getRecordCount();
+        }
+
+        @Override
+        public int getMaxValueId(TblColRef col) {
+            BitMapContainer container = getContainer(col);
+            return container == null ? -1 : container.getMaxValueId();
+        }
+    }
+
     @Override
     public void start(CoprocessorEnvironment env) throws IOException {
         if (env instanceof RegionCoprocessorEnvironment) {
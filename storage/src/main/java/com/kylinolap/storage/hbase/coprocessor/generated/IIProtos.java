@@ -20,26 +20,1618 @@ public final class IIProtos {
      * <code>required bytes tableInfo = 1;</code>
      */
     com.google.protobuf.ByteString getTableInfo();
+
+    // optional bytes filter = 2;
+    /**
+     * <code>optional bytes filter = 2;</code>
+     *
+     * <pre>
+     * serialized TupleFilter with constants translated into dictionary IDs
+     * </pre>
+     */
+    boolean hasFilter();
+    /**
+     * <code>optional bytes filter = 2;</code>
+     *
+     * <pre>
+     * serialized TupleFilter with constants translated into dictionary IDs
+     * </pre>
+     */
+    com.google.protobuf.ByteString getFilter();
+
+    // repeated string columnNames = 3;
+    /**
+     * <code>repeated string columnNames = 3;</code>
+     *
+     * <pre>
+     * names of table columns by column index, to resolve filter columns
+     * </pre>
+     */
+    java.util.List<java.lang.String>
+    getColumnNamesList();
+    /**
+     * <code>repeated string columnNames = 3;</code>
+     *
+     * <pre>
+     * names of table columns by column index, to resolve filter columns
+     * </pre>
+     */
+    int getColumnNamesCount();
+    /**
+     * <code>repeated string columnNames = 3;</code>
+     *
+     * <pre>
+     * names of table columns by column index, to resolve filter columns
+     * </pre>
+     */
+    java.lang.String getColumnNames(int index);
+    /**
+     * <code>repeated string columnNames = 3;</code>
+     *
+     * <pre>
+     * names of table columns by column index, to resolve filter columns
+     * </pre>
+     */
+    com.google.protobuf.ByteString
+        getColumnNamesBytes(int index);
+
+    // repeated int32 columns = 4;
+    /**
+     * <code>repeated int32 columns = 4;</code>
+     *
+     * <pre>
+     * index of columns to return, all columns if empty and not aggregating
+     * </pre>
+     */
+    java.util.List<java.lang.Integer> getColumnsList();
+    /**
+     * <code>repeated int32 columns = 4;</code>
+     *
+     * <pre>
+     * index of columns to return, all columns if empty and not aggregating
+     * </pre>
+     */
+    int getColumnsCount();
+    /**
+     * <code>repeated int32 columns = 4;</code>
+     *
+     * <pre>
+     * index of columns to return, all columns if empty and not aggregating
+     * </pre>
+     */
+    int getColumns(int index);
+
+    // repeated .IIMeasure measures = 5;
+    /**
+     * <code>repeated .IIMeasure measures = 5;</code>
+     *
+     * <pre>
+     * if present, rows are grouped by the returned columns and measures aggregated
+     * </pre>
+     */
+    java.util.List<com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure> 
+        getMeasuresList();
+    /**
+     * <code>repeated .IIMeasure measures = 5;</code>
+     *
+     * <pre>
+     * if present, rows are grouped by the returned columns and measures aggregated
+     * </pre>
+     */
+    com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure getMeasures(int index);
+    /**
+     * <code>repeated .IIMeasure measures = 5;</code>
+     *
+     * <pre>
+     * if present, rows are grouped by the returned columns and measures aggregated
+     * </pre>
+     */
+    int getMeasuresCount();
+    /**
+     * <code>repeated .IIMeasure measures = 5;</code>
+     *
+     * <pre>
+     * if present, rows are grouped by the returned columns and measures aggregated
+     * </pre>
+     */
+    java.util.List<? extends com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasureOrBuilder> 
+        getMeasuresOrBuilderList();
+    /**
+     * <code>repeated .IIMeasure measures = 5;</code>
+     *
+     * <pre>
+     * if present, rows are grouped by the returned columns and measures aggregated
+     * </pre>
+     */
+    com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasureOrBuilder getMeasuresOrBuilder(
+        int index);
+  }
+  /**
+   * Protobuf type {@code IIRequest}
+   */
+  public static final class IIRequest extends
+      com.google.protobuf.GeneratedMessage
+      implements IIRequestOrBuilder {
+    // Use IIRequest.newBuilder() to construct.
+    private IIRequest(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      super(builder);
+      this.unknownFields = builder.getUnknownFields();
+    }
+    private IIRequest(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+
+    private static final IIRequest defaultInstance;
+    public static IIRequest getDefaultInstance() {
+      return defaultInstance;
+    }
+
+    public IIRequest getDefaultInstanceForType() {
+      return defaultInstance;
+    }
+
+    private final com.google.protobuf.UnknownFieldSet unknownFields;
+    @java.lang.Override
+    public final com.google.protobuf.UnknownFieldSet
+        getUnknownFields() {
+      return this.unknownFields;
+    }
+    private IIRequest(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      initFields();
+      int mutable_bitField0_ = 0;
+      com.google.protobuf.UnknownFieldSet.Builder unknownFields =
+          com.google.protobuf.UnknownFieldSet.newBuilder();
+      try {
+        boolean done = false;
+        while (!done) {
+          int tag = input.readTag();
+          switch (tag) {
+            case 0:
+              done = true;
+              break;
+            default: {
+              if (!parseUnknownField(input, unknownFields,
+                                     extensionRegistry, tag)) {
+                done = true;
+              }
+              break;
+            }
+            case 10: {
+              bitField0_ |= 0x00000001;
+              tableInfo_ = input.readBytes();
+              break;
+            }
+            case 18: {
+              bitField0_ |= 0x00000002;
+              filter_ = input.readBytes();
+              break;
+            }
+            case 26: {
+              if (!((mutable_bitField0_ & 0x00000004) == 0x00000004)) {
+                columnNames_ = new com.google.protobuf.LazyStringArrayList();
+                mutable_bitField0_ |= 0x00000004;
+              }
+              columnNames_.add(input.readBytes());
+              break;
+            }
+            case 32: {
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+                columns_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              columns_.add(input.readInt32());
+              break;
+            }
+            case 34: {
+              int length = input.readRawVarint32();
+              int limit = input.pushLimit(length);
+              if (!((mutable_bitField0_ & 0x00000008) == 0x00000008) && input.getBytesUntilLimit() > 0) {
+                columns_ = new java.util.ArrayList<java.lang.Integer>();
+                mutable_bitField0_ |= 0x00000008;
+              }
+              while (input.getBytesUntilLimit() > 0) {
+                columns_.add(input.readInt32());
+              }
+              input.popLimit(limit);
+              break;
+            }
+            case 42: {
+              if (!((mutable_bitField0_ & 0x00000010) == 0x00000010)) {
+                measures_ = new java.util.ArrayList<com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure>();
+                mutable_bitField0_ |= 0x00000010;
+              }
+              measures_.add(input.readMessage(com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.PARSER, extensionRegistry));
+              break;
+            }
+          }
+        }
+      } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+        throw e.setUnfinishedMessage(this);
+      } catch (java.io.IOException e) {
+        throw new com.google.protobuf.InvalidProtocolBufferException(
+            e.getMessage()).setUnfinishedMessage(this);
+      } finally {
+        if (((mutable_bitField0_ & 0x00000004) == 0x00000004)) {
+          columnNames_ = new com.google.protobuf.UnmodifiableLazyStringList(columnNames_);
+        }
+        if (((mutable_bitField0_ & 0x00000008) == 0x00000008)) {
+          columns_ = java.util.Collections.unmodifiableList(columns_);
+        }
+        if (((mutable_bitField0_ & 0x00000010) == 0x00000010)) {
+          measures_ = java.util.Collections.unmodifiableList(measures_);
+        }
+        this.unknownFields = unknownFields.build();
+        makeExtensionsImmutable();
+      }
+    }
+    public static final com.google.protobuf.Descriptors.Descriptor
+        getDescriptor() {
+      return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIRequest_descriptor;
+    }
+
+    protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+        internalGetFieldAccessorTable() {
+      return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIRequest_fieldAccessorTable
+          .ensureFieldAccessorsInitialized(
+              com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.class, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.Builder.class);
+    }
+
+    public static com.google.protobuf.Parser<IIRequest> PARSER =
+        new com.google.protobuf.AbstractParser<IIRequest>() {
+      public IIRequest parsePartialFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws com.google.protobuf.InvalidProtocolBufferException {
+        return new IIRequest(input, extensionRegistry);
+      }
+    };
+
+    @java.lang.Override
+    public com.google.protobuf.Parser<IIRequest> getParserForType() {
+      return PARSER;
+    }
+
+    private int bitField0_;
+    // required bytes tableInfo = 1;
+    public static final int TABLEINFO_FIELD_NUMBER = 1;
+    private com.google.protobuf.ByteString tableInfo_;
+    /**
+     * <code>required bytes tableInfo = 1;</code>
+     */
+    public boolean hasTableInfo() {
+      return ((bitField0_ & 0x00000001) == 0x00000001);
+    }
+    /**
+     * <code>required bytes tableInfo = 1;</code>
+     */
+    public com.google.protobuf.ByteString getTableInfo() {
+      return tableInfo_;
+    }
+
+    // optional bytes filter = 2;
+    public static final int FILTER_FIELD_NUMBER = 2;
+    private com.google.protobuf.ByteString filter_;
+    /**
+     * <code>optional bytes filter = 2;</code>
+     *
+     * <pre>
+     * serialized TupleFilter with constants translated into dictionary IDs
+     * </pre>
+     */
+    public boolean hasFilter() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    /**
+     * <code>optional bytes filter = 2;</code>
+     *
+     * <pre>
+     * serialized TupleFilter with constants translated into dictionary IDs
+     * </pre>
+     */
+    public com.google.protobuf.ByteString getFilter() {
+      return filter_;
+    }
+
+    // repeated string columnNames = 3;
+    public static final int COLUMNNAMES_FIELD_NUMBER = 3;
+    private com.google.protobuf.LazyStringList columnNames_;
+    /**
+     * <code>repeated string columnNames = 3;</code>
+     *
+     * <pre>
+     * names of table columns by column index, to resolve filter columns
+     * </pre>
+     */
+    public java.util.List<java.lang.String>
+        getColumnNamesList() {
+      return columnNames_;
+    }
+    /**
+     * <code>repeated string columnNames = 3;</code>
+     *
+     * <pre>
+     * names of table columns by column index, to resolve filter columns
+     * </pre>
+     */
+    public int getColumnNamesCount() {
+      return columnNames_.size();
+    }
+    /**
+     * <code>repeated string columnNames = 3;</code>
+     *
+     * <pre>
+     * names of table columns by column index, to resolve filter columns
+     * </pre>
+     */
+    public java.lang.String getColumnNames(int index) {
+      return columnNames_.get(index);
+    }
+    /**
+     * <code>repeated string columnNames = 3;</code>
+     *
+     * <pre>
+     * names of table columns by column index, to resolve filter columns
+     * </pre>
+     */
+    public com.google.protobuf.ByteString
+        getColumnNamesBytes(int index) {
+      return columnNames_.getByteString(index);
+    }
+
+    // repeated int32 columns = 4;
+    public static final int COLUMNS_FIELD_NUMBER = 4;
+    private java.util.List<java.lang.Integer> columns_;
+    /**
+     * <code>repeated int32 columns = 4;</code>
+     *
+     * <pre>
+     * index of columns to return, all columns if empty and not aggregating
+     * </pre>
+     */
+    public java.util.List<java.lang.Integer>
+        getColumnsList() {
+      return columns_;
+    }
+    /**
+     * <code>repeated int32 columns = 4;</code>
+     *
+     * <pre>
+     * index of columns to return, all columns if empty and not aggregating
+     * </pre>
+     */
+    public int getColumnsCount() {
+      return columns_.size();
+    }
+    /**
+     * <code>repeated int32 columns = 4;</code>
+     *
+     * <pre>
+     * index of columns to return, all columns if empty and not aggregating
+     * </pre>
+     */
+    public int getColumns(int index) {
+      return columns_.get(index);
+    }
+
+    // repeated .IIMeasure measures = 5;
+    public static final int MEASURES_FIELD_NUMBER = 5;
+    private java.util.List<com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure> measures_;
+    /**
+     * <code>repeated .IIMeasure measures = 5;</code>
+     *
+     * <pre>
+     * if present, rows are grouped by the returned columns and measures aggregated
+     * </pre>
+     */
+    public java.util.List<com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure> getMeasuresList() {
+      return measures_;
+    }
+    /**
+     * <code>repeated .IIMeasure measures = 5;</code>
+     *
+     * <pre>
+     * if present, rows are grouped by the returned columns and measures aggregated
+     * </pre>
+     */
+    public java.util.List<? extends com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasureOrBuilder> 
+        getMeasuresOrBuilderList() {
+      return measures_;
+    }
+    /**
+     * <code>repeated .IIMeasure measures = 5;</code>
+     *
+     * <pre>
+     * if present, rows are grouped by the returned columns and measures aggregated
+     * </pre>
+     */
+    public int getMeasuresCount() {
+      return measures_.size();
+    }
+    /**
+     * <code>repeated .IIMeasure measures = 5;</code>
+     *
+     * <pre>
+     * if present, rows are grouped by the returned columns and measures aggregated
+     * </pre>
+     */
+    public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure getMeasures(int index) {
+      return measures_.get(index);
+    }
+    /**
+     * <code>repeated .IIMeasure measures = 5;</code>
+     *
+     * <pre>
+     * if present, rows are grouped by the returned columns and measures aggregated
+     * </pre>
+     */
+    public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasureOrBuilder getMeasuresOrBuilder(
+        int index) {
+      return measures_.get(index);
+    }
+
+    private void initFields() {
+      tableInfo_ = com.google.protobuf.ByteString.EMPTY;
+      filter_ = com.google.protobuf.ByteString.EMPTY;
+      columnNames_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      columns_ = java.util.Collections.emptyList();
+      measures_ = java.util.Collections.emptyList();
+    }
+    private byte memoizedIsInitialized = -1;
+    public final boolean isInitialized() {
+      byte isInitialized = memoizedIsInitialized;
+      if (isInitialized != -1) return isInitialized == 1;
+
+      if (!hasTableInfo()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      for (int i = 0; i < getMeasuresCount(); i++) {
+        if (!getMeasures(i).isInitialized()) {
+          memoizedIsInitialized = 0;
+          return false;
+        }
+      }
+      memoizedIsInitialized = 1;
+      return true;
+    }
+
+    public void writeTo(com.google.protobuf.CodedOutputStream output)
+                        throws java.io.IOException {
+      getSerializedSize();
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        output.writeBytes(1, tableInfo_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeBytes(2, filter_);
+      }
+      for (int i = 0; i < columnNames_.size(); i++) {
+        output.writeBytes(3, columnNames_.getByteString(i));
+      }
+      for (int i = 0; i < columns_.size(); i++) {
+        output.writeInt32(4, columns_.get(i));
+      }
+      for (int i = 0; i < measures_.size(); i++) {
+        output.writeMessage(5, measures_.get(i));
+      }
+      getUnknownFields().writeTo(output);
+    }
+
+    private int memoizedSerializedSize = -1;
+    public int getSerializedSize() {
+      int size = memoizedSerializedSize;
+      if (size != -1) return size;
+
+      size = 0;
+      if (((bitField0_ & 0x00000001) == 0x00000001)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(1, tableInfo_);
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(2, filter_);
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < columnNames_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeBytesSizeNoTag(columnNames_.getByteString(i));
+        }
+        size += dataSize;
+        size += 1 * getColumnNamesList().size();
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < columns_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeInt32SizeNoTag(columns_.get(i));
+        }
+        size += dataSize;
+        size += 1 * getColumnsList().size();
+      }
+      for (int i = 0; i < measures_.size(); i++) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(5, measures_.get(i));
+      }
+      size += getUnknownFields().getSerializedSize();
+      memoizedSerializedSize = size;
+      return size;
+    }
+
+    private static final long serialVersionUID = 0L;
+    @java.lang.Override
+    protected java.lang.Object writeReplace()
+        throws java.io.ObjectStreamException {
+      return super.writeReplace();
+    }
+
+    @java.lang.Override
+    public boolean equals(final java.lang.Object obj) {
+      if (obj == this) {
+       return true;
+      }
+      if (!(obj instanceof com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest)) {
+        return super.equals(obj);
+      }
+      com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest other = (com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest) obj;
+
+      boolean result = true;
+      result = result && (hasTableInfo() == other.hasTableInfo());
+      if (hasTableInfo()) {
+        result = result && getTableInfo()
+            .equals(other.getTableInfo());
+      }
+      result = result && (hasFilter() == other.hasFilter());
+      if (hasFilter()) {
+        result = result && getFilter()
+            .equals(other.getFilter());
+      }
+      result = result && getColumnNamesList()
+          .equals(other.getColumnNamesList());
+      result = result && getColumnsList()
+          .equals(other.getColumnsList());
+      result = result && getMeasuresList()
+          .equals(other.getMeasuresList());
+      result = result &&
+          getUnknownFields().equals(other.getUnknownFields());
+      return result;
+    }
+
+    private int memoizedHashCode = 0;
+    @java.lang.Override
+    public int hashCode() {
+      if (memoizedHashCode != 0) {
+        return memoizedHashCode;
+      }
+      int hash = 41;
+      hash = (19 * hash) + getDescriptorForType().hashCode();
+      if (hasTableInfo()) {
+        hash = (37 * hash) + TABLEINFO_FIELD_NUMBER;
+        hash = (53 * hash) + getTableInfo().hashCode();
+      }
+      if (hasFilter()) {
+        hash = (37 * hash) + FILTER_FIELD_NUMBER;
+        hash = (53 * hash) + getFilter().hashCode();
+      }
+      if (getColumnNamesCount() > 0) {
+        hash = (37 * hash) + COLUMNNAMES_FIELD_NUMBER;
+        hash = (53 * hash) + getColumnNamesList().hashCode();
+      }
+      if (getColumnsCount() > 0) {
+        hash = (37 * hash) + COLUMNS_FIELD_NUMBER;
+        hash = (53 * hash) + getColumnsList().hashCode();
+      }
+      if (getMeasuresCount() > 0) {
+        hash = (37 * hash) + MEASURES_FIELD_NUMBER;
+        hash = (53 * hash) + getMeasuresList().hashCode();
+      }
+      hash = (29 * hash) + getUnknownFields().hashCode();
+      memoizedHashCode = hash;
+      return hash;
+    }
+
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(
+        com.google.protobuf.ByteString data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(
+        com.google.protobuf.ByteString data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(byte[] data)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data);
+    }
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(
+        byte[] data,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws com.google.protobuf.InvalidProtocolBufferException {
+      return PARSER.parseFrom(data, extensionRegistry);
+    }
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseDelimitedFrom(java.io.InputStream input)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input);
+    }
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseDelimitedFrom(
+        java.io.InputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseDelimitedFrom(input, extensionRegistry);
+    }
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(
+        com.google.protobuf.CodedInputStream input)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input);
+    }
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(
+        com.google.protobuf.CodedInputStream input,
+        com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+        throws java.io.IOException {
+      return PARSER.parseFrom(input, extensionRegistry);
+    }
+
+    public static Builder newBuilder() { return Builder.create(); }
+    public Builder newBuilderForType() { return newBuilder(); }
+    public static Builder newBuilder(com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest prototype) {
+      return newBuilder().mergeFrom(prototype);
+    }
+    public Builder toBuilder() { return newBuilder(this); }
+
+    @java.lang.Override
+    protected Builder newBuilderForType(
+        com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+      Builder builder = new Builder(parent);
+      return builder;
+    }
+    /**
+     * Protobuf type {@code IIRequest}
+     */
+    public static final class Builder extends
+        com.google.protobuf.GeneratedMessage.Builder<Builder>
+       implements com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequestOrBuilder {
+      public static final com.google.protobuf.Descriptors.Descriptor
+          getDescriptor() {
+        return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIRequest_descriptor;
+      }
+
+      protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
+          internalGetFieldAccessorTable() {
+        return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIRequest_fieldAccessorTable
+            .ensureFieldAccessorsInitialized(
+                com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.class, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.Builder.class);
+      }
+
+      // Construct using com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.newBuilder()
+      private Builder() {
+        maybeForceBuilderInitialization();
+      }
+
+      private Builder(
+          com.google.protobuf.GeneratedMessage.BuilderParent parent) {
+        super(parent);
+        maybeForceBuilderInitialization();
+      }
+      private void maybeForceBuilderInitialization() {
+        if (com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders) {
+          getMeasuresFieldBuilder();
+        }
+      }
+      private static Builder create() {
+        return new Builder();
+      }
+
+      public Builder clear() {
+        super.clear();
+        tableInfo_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000001);
+        filter_ = com.google.protobuf.ByteString.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000002);
+        columnNames_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        columns_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
+        if (measuresBuilder_ == null) {
+          measures_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000010);
+        } else {
+          measuresBuilder_.clear();
+        }
+        return this;
+      }
+
+      public Builder clone() {
+        return create().mergeFrom(buildPartial());
+      }
+
+      public com.google.protobuf.Descriptors.Descriptor
+          getDescriptorForType() {
+        return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIRequest_descriptor;
+      }
+
+      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest getDefaultInstanceForType() {
+        return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.getDefaultInstance();
+      }
+
+      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest build() {
+        com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest result = buildPartial();
+        if (!result.isInitialized()) {
+          throw newUninitializedMessageException(result);
+        }
+        return result;
+      }
+
+      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest buildPartial() {
+        com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest result = new com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest(this);
+        int from_bitField0_ = bitField0_;
+        int to_bitField0_ = 0;
+        if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
+          to_bitField0_ |= 0x00000001;
+        }
+        result.tableInfo_ = tableInfo_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.filter_ = filter_;
+        if (((bitField0_ & 0x00000004) == 0x00000004)) {
+          columnNames_ = new com.google.protobuf.UnmodifiableLazyStringList(
+              columnNames_);
+          bitField0_ = (bitField0_ & ~0x00000004);
+        }
+        result.columnNames_ = columnNames_;
+        if (((bitField0_ & 0x00000008) == 0x00000008)) {
+          columns_ = java.util.Collections.unmodifiableList(columns_);
+          bitField0_ = (bitField0_ & ~0x00000008);
+        }
+        result.columns_ = columns_;
+        if (measuresBuilder_ == null) {
+          if (((bitField0_ & 0x00000010) == 0x00000010)) {
+            measures_ = java.util.Collections.unmodifiableList(measures_);
+            bitField0_ = (bitField0_ & ~0x00000010);
+          }
+          result.measures_ = measures_;
+        } else {
+          result.measures_ = measuresBuilder_.build();
+        }
+        result.bitField0_ = to_bitField0_;
+        onBuilt();
+        return result;
+      }
+
+      public Builder mergeFrom(com.google.protobuf.Message other) {
+        if (other instanceof com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest) {
+          return mergeFrom((com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest)other);
+        } else {
+          super.mergeFrom(other);
+          return this;
+        }
+      }
+
+      public Builder mergeFrom(com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest other) {
+        if (other == com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.getDefaultInstance()) return this;
+        if (other.hasTableInfo()) {
+          setTableInfo(other.getTableInfo());
+        }
+        if (other.hasFilter()) {
+          setFilter(other.getFilter());
+        }
+        if (!other.columnNames_.isEmpty()) {
+          if (columnNames_.isEmpty()) {
+            columnNames_ = other.columnNames_;
+            bitField0_ = (bitField0_ & ~0x00000004);
+          } else {
+            ensureColumnNamesIsMutable();
+            columnNames_.addAll(other.columnNames_);
+          }
+          onChanged();
+        }
+        if (!other.columns_.isEmpty()) {
+          if (columns_.isEmpty()) {
+            columns_ = other.columns_;
+            bitField0_ = (bitField0_ & ~0x00000008);
+          } else {
+            ensureColumnsIsMutable();
+            columns_.addAll(other.columns_);
+          }
+          onChanged();
+        }
+        if (measuresBuilder_ == null) {
+          if (!other.measures_.isEmpty()) {
+            if (measures_.isEmpty()) {
+              measures_ = other.measures_;
+              bitField0_ = (bitField0_ & ~0x00000010);
+            } else {
+              ensureMeasuresIsMutable();
+              measures_.addAll(other.measures_);
+            }
+            onChanged();
+          }
+        } else {
+          if (!other.measures_.isEmpty()) {
+            if (measuresBuilder_.isEmpty()) {
+              measuresBuilder_.dispose();
+              measuresBuilder_ = null;
+              measures_ = other.measures_;
+              bitField0_ = (bitField0_ & ~0x00000010);
+              measuresBuilder_ = 
+                com.google.protobuf.GeneratedMessage.alwaysUseFieldBuilders ?
+                   getMeasuresFieldBuilder() : null;
+            } else {
+              measuresBuilder_.addAllMessages(other.measures_);
+            }
+          }
+        }
+        this.mergeUnknownFields(other.getUnknownFields());
+        return this;
+      }
+
+      public final boolean isInitialized() {
+        if (!hasTableInfo()) {
+          
+          return false;
+        }
+        for (int i = 0; i < getMeasuresCount(); i++) {
+          if (!getMeasures(i).isInitialized()) {
+            
+            return false;
+          }
+        }
+        return true;
+      }
+
+      public Builder mergeFrom(
+          com.google.protobuf.CodedInputStream input,
+          com.google.protobuf.ExtensionRegistryLite extensionRegistry)
+          throws java.io.IOException {
+        com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parsedMessage = null;
+        try {
+          parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
+        } catch (com.google.protobuf.InvalidProtocolBufferException e) {
+          parsedMessage = (com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest) e.getUnfinishedMessage();
+          throw e;
+        } finally {
+          if (parsedMessage != null) {
+            mergeFrom(parsedMessage);
+          }
+        }
+        return this;
+      }
+      private int bitField0_;
+
+      // required bytes tableInfo = 1;
+      private com.google.protobuf.ByteString tableInfo_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <code>required bytes tableInfo = 1;</code>
+       */
+      public boolean hasTableInfo() {
+        return ((bitField0_ & 0x00000001) == 0x00000001);
+      }
+      /**
+       * <code>required bytes tableInfo = 1;</code>
+       */
+      public com.google.protobuf.ByteString getTableInfo() {
+        return tableInfo_;
+      }
+      /**
+       * <code>required bytes tableInfo = 1;</code>
+       */
+      public Builder setTableInfo(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000001;
+        tableInfo_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required bytes tableInfo = 1;</code>
+       */
+      public Builder clearTableInfo() {
+        bitField0_ = (bitField0_ & ~0x00000001);
+        tableInfo_ = getDefaultInstance().getTableInfo();
+        onChanged();
+        return this;
+      }
+
+      // optional bytes filter = 2;
+      private com.google.protobuf.ByteString filter_ = com.google.protobuf.ByteString.EMPTY;
+      /**
+       * <code>optional bytes filter = 2;</code>
+       *
+       * <pre>
+       * serialized TupleFilter with constants translated into dictionary IDs
+       * </pre>
+       */
+      public boolean hasFilter() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      /**
+       * <code>optional bytes filter = 2;</code>
+       *
+       * <pre>
+       * serialized TupleFilter with constants translated into dictionary IDs
+       * </pre>
+       */
+      public com.google.protobuf.ByteString getFilter() {
+        return filter_;
+      }
+      /**
+       * <code>optional bytes filter = 2;</code>
+       *
+       * <pre>
+       * serialized TupleFilter with constants translated into dictionary IDs
+       * </pre>
+       */
+      public Builder setFilter(com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000002;
+        filter_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bytes filter = 2;</code>
+       *
+       * <pre>
+       * serialized TupleFilter with constants translated into dictionary IDs
+       * </pre>
+       */
+      public Builder clearFilter() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        filter_ = getDefaultInstance().getFilter();
+        onChanged();
+        return this;
+      }
+
+      // repeated string columnNames = 3;
+      private com.google.protobuf.LazyStringList columnNames_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+      private void ensureColumnNamesIsMutable() {
+        if (!((bitField0_ & 0x00000004) == 0x00000004)) {
+          columnNames_ = new com.google.protobuf.LazyStringArrayList(columnNames_);
+          bitField0_ |= 0x00000004;
+         }
+      }
+      /**
+       * <code>repeated string columnNames = 3;</code>
+       *
+       * <pre>
+       * names of table columns by column index, to resolve filter columns
+       * </pre>
+       */
+      public java.util.List<java.lang.String>
+          getColumnNamesList() {
+        return java.util.Collections.unmodifiableList(columnNames_);
+      }
+      /**
+       * <code>repeated string columnNames = 3;</code>
+       *
+       * <pre>
+       * names of table columns by column index, to resolve filter columns
+       * </pre>
+       */
+      public int getColumnNamesCount() {
+        return columnNames_.size();
+      }
+      /**
+       * <code>repeated string columnNames = 3;</code>
+       *
+       * <pre>
+       * names of table columns by column index, to resolve filter columns
+       * </pre>
+       */
+      public java.lang.String getColumnNames(int index) {
+        return columnNames_.get(index);
+      }
+      /**
+       * <code>repeated string columnNames = 3;</code>
+       *
+       * <pre>
+       * names of table columns by column index, to resolve filter columns
+       * </pre>
+       */
+      public com.google.protobuf.ByteString
+          getColumnNamesBytes(int index) {
+        return columnNames_.getByteString(index);
+      }
+      /**
+       * <code>repeated string columnNames = 3;</code>
+       *
+       * <pre>
+       * names of table columns by column index, to resolve filter columns
+       * </pre>
+       */
+      public Builder setColumnNames(
+          int index, java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureColumnNamesIsMutable();
+        columnNames_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated string columnNames = 3;</code>
+       *
+       * <pre>
+       * names of table columns by column index, to resolve filter columns
+       * </pre>
+       */
+      public Builder addColumnNames(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureColumnNamesIsMutable();
+        columnNames_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated string columnNames = 3;</code>
+       *
+       * <pre>
+       * names of table columns by column index, to resolve filter columns
+       * </pre>
+       */
+      public Builder addAllColumnNames(
+          java.lang.Iterable<java.lang.String> values) {
+        ensureColumnNamesIsMutable();
+        super.addAll(values, columnNames_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated string columnNames = 3;</code>
+       *
+       * <pre>
+       * names of table columns by column index, to resolve filter columns
+       * </pre>
+       */
+      public Builder clearColumnNames() {
+        columnNames_ = com.google.protobuf.LazyStringArrayList.EMPTY;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated string columnNames = 3;</code>
+       *
+       * <pre>
+       * names of table columns by column index, to resolve filter columns
+       * </pre>
+       */
+      public Builder addColumnNamesBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  ensureColumnNamesIsMutable();
+        columnNames_.add(value);
+        onChanged();
+        return this;
+      }
+
+      // repeated int32 columns = 4;
+      private java.util.List<java.lang.Integer> columns_ = java.util.Collections.emptyList();
+      private void ensureColumnsIsMutable() {
+        if (!((bitField0_ & 0x00000008) == 0x00000008)) {
+          columns_ = new java.util.ArrayList<java.lang.Integer>(columns_);
+          bitField0_ |= 0x00000008;
+         }
+      }
+      /**
+       * <code>repeated int32 columns = 4;</code>
+       *
+       * <pre>
+       * index of columns to return, all columns if empty and not aggregating
+       * </pre>
+       */
+      public java.util.List<java.lang.Integer>
+          getColumnsList() {
+        return java.util.Collections.unmodifiableList(columns_);
+      }
+      /**
+       * <code>repeated int32 columns = 4;</code>
+       *
+       * <pre>
+       * index of columns to return, all columns if empty and not aggregating
+       * </pre>
+       */
+      public int getColumnsCount() {
+        return columns_.size();
+      }
+      /**
+       * <code>repeated int32 columns = 4;</code>
+       *
+       * <pre>
+       * index of columns to return, all columns if empty and not aggregating
+       * </pre>
+       */
+      public int getColumns(int index) {
+        return columns_.get(index);
+      }
+      /**
+       * <code>repeated int32 columns = 4;</code>
+       *
+       * <pre>
+       * index of columns to return, all columns if empty and not aggregating
+       * </pre>
+       */
+      public Builder setColumns(
+          int index, int value) {
+        ensureColumnsIsMutable();
+        columns_.set(index, value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 columns = 4;</code>
+       *
+       * <pre>
+       * index of columns to return, all columns if empty and not aggregating
+       * </pre>
+       */
+      public Builder addColumns(int value) {
+        ensureColumnsIsMutable();
+        columns_.add(value);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 columns = 4;</code>
+       *
+       * <pre>
+       * index of columns to return, all columns if empty and not aggregating
+       * </pre>
+       */
+      public Builder addAllColumns(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureColumnsIsMutable();
+        super.addAll(values, columns_);
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>repeated int32 columns = 4;</code>
+       *
+       * <pre>
+       * index of columns to return, all columns if empty and not aggregating
+       * </pre>
+       */
+      public Builder clearColumns() {
+        columns_ = java.util.Collections.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000008);
+        onChanged();
+        return this;
+      }
+
+      // repeated .IIMeasure measures = 5;
+      private java.util.List<com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure> measures_ =
+        java.util.Collections.emptyList();
+      private void ensureMeasuresIsMutable() {
+        if (!((bitField0_ & 0x00000010) == 0x00000010)) {
+          measures_ = new java.util.ArrayList<com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure>(measures_);
+          bitField0_ |= 0x00000010;
+         }
+      }
+
+      private com.google.protobuf.RepeatedFieldBuilder<
+          com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.Builder, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasureOrBuilder> measuresBuilder_;
+
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public java.util.List<com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure> getMeasuresList() {
+        if (measuresBuilder_ == null) {
+          return java.util.Collections.unmodifiableList(measures_);
+        } else {
+          return measuresBuilder_.getMessageList();
+        }
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public int getMeasuresCount() {
+        if (measuresBuilder_ == null) {
+          return measures_.size();
+        } else {
+          return measuresBuilder_.getCount();
+        }
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure getMeasures(int index) {
+        if (measuresBuilder_ == null) {
+          return measures_.get(index);
+        } else {
+          return measuresBuilder_.getMessage(index);
+        }
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public Builder setMeasures(
+          int index, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure value) {
+        if (measuresBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureMeasuresIsMutable();
+          measures_.set(index, value);
+          onChanged();
+        } else {
+          measuresBuilder_.setMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public Builder setMeasures(
+          int index, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.Builder builderForValue) {
+        if (measuresBuilder_ == null) {
+          ensureMeasuresIsMutable();
+          measures_.set(index, builderForValue.build());
+          onChanged();
+        } else {
+          measuresBuilder_.setMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public Builder addMeasures(com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure value) {
+        if (measuresBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureMeasuresIsMutable();
+          measures_.add(value);
+          onChanged();
+        } else {
+          measuresBuilder_.addMessage(value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public Builder addMeasures(
+          int index, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure value) {
+        if (measuresBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          ensureMeasuresIsMutable();
+          measures_.add(index, value);
+          onChanged();
+        } else {
+          measuresBuilder_.addMessage(index, value);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public Builder addMeasures(
+          com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.Builder builderForValue) {
+        if (measuresBuilder_ == null) {
+          ensureMeasuresIsMutable();
+          measures_.add(builderForValue.build());
+          onChanged();
+        } else {
+          measuresBuilder_.addMessage(builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public Builder addMeasures(
+          int index, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.Builder builderForValue) {
+        if (measuresBuilder_ == null) {
+          ensureMeasuresIsMutable();
+          measures_.add(index, builderForValue.build());
+          onChanged();
+        } else {
+          measuresBuilder_.addMessage(index, builderForValue.build());
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public Builder addAllMeasures(
+          java.lang.Iterable<? extends com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure> values) {
+        if (measuresBuilder_ == null) {
+          ensureMeasuresIsMutable();
+          super.addAll(values, measures_);
+          onChanged();
+        } else {
+          measuresBuilder_.addAllMessages(values);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public Builder clearMeasures() {
+        if (measuresBuilder_ == null) {
+          measures_ = java.util.Collections.emptyList();
+          bitField0_ = (bitField0_ & ~0x00000010);
+          onChanged();
+        } else {
+          measuresBuilder_.clear();
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public Builder removeMeasures(int index) {
+        if (measuresBuilder_ == null) {
+          ensureMeasuresIsMutable();
+          measures_.remove(index);
+          onChanged();
+        } else {
+          measuresBuilder_.remove(index);
+        }
+        return this;
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.Builder getMeasuresBuilder(
+          int index) {
+        return getMeasuresFieldBuilder().getBuilder(index);
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasureOrBuilder getMeasuresOrBuilder(
+          int index) {
+        if (measuresBuilder_ == null) {
+          return measures_.get(index);  } else {
+          return measuresBuilder_.getMessageOrBuilder(index);
+        }
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public java.util.List<? extends com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasureOrBuilder> 
+           getMeasuresOrBuilderList() {
+        if (measuresBuilder_ != null) {
+          return measuresBuilder_.getMessageOrBuilderList();
+        } else {
+          return java.util.Collections.unmodifiableList(measures_);
+        }
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.Builder addMeasuresBuilder() {
+        return getMeasuresFieldBuilder().addBuilder(
+            com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.Builder addMeasuresBuilder(
+          int index) {
+        return getMeasuresFieldBuilder().addBuilder(
+            index, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.getDefaultInstance());
+      }
+      /**
+       * <code>repeated .IIMeasure measures = 5;</code>
+       *
+       * <pre>
+       * if present, rows are grouped by the returned columns and measures aggregated
+       * </pre>
+       */
+      public java.util.List<com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.Builder> 
+           getMeasuresBuilderList() {
+        return getMeasuresFieldBuilder().getBuilderList();
+      }
+      private com.google.protobuf.RepeatedFieldBuilder<
+          com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.Builder, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasureOrBuilder> 
+          getMeasuresFieldBuilder() {
+        if (measuresBuilder_ == null) {
+          measuresBuilder_ = new com.google.protobuf.RepeatedFieldBuilder<
+              com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.Builder, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasureOrBuilder>(
+                  measures_,
+                  ((bitField0_ & 0x00000010) == 0x00000010),
+                  getParentForChildren(),
+                  isClean());
+          measures_ = null;
+        }
+        return measuresBuilder_;
+      }
+
+      // @@protoc_insertion_point(builder_scope:IIRequest)
+    }
+
+    static {
+      defaultInstance = new IIRequest(true);
+      defaultInstance.initFields();
+    }
+
+    // @@protoc_insertion_point(class_scope:IIRequest)
+  }
+
+  public interface IIMeasureOrBuilder
+      extends com.google.protobuf.MessageOrBuilder {
+
+    // required string expression = 1;
+    /**
+     * <code>required string expression = 1;</code>
+     */
+    boolean hasExpression();
+    /**
+     * <code>required string expression = 1;</code>
+     */
+    java.lang.String getExpression();
+    /**
+     * <code>required string expression = 1;</code>
+     */
+    com.google.protobuf.ByteString
+        getExpressionBytes();
+
+    // required string returnType = 2;
+    /**
+     * <code>required string returnType = 2;</code>
+     */
+    boolean hasReturnType();
+    /**
+     * <code>required string returnType = 2;</code>
+     */
+    java.lang.String getReturnType();
+    /**
+     * <code>required string returnType = 2;</code>
+     */
+    com.google.protobuf.ByteString
+        getReturnTypeBytes();
+
+    // optional int32 column = 3;
+    /**
+     * <code>optional int32 column = 3;</code>
+     *
+     * <pre>
+     * index of the metric column as parameter, absent for count
+     * </pre>
+     */
+    boolean hasColumn();
+    /**
+     * <code>optional int32 column = 3;</code>
+     *
+     * <pre>
+     * index of the metric column as parameter, absent for count
+     * </pre>
+     */
+    int getColumn();
+
+    // optional int32 scale = 4;
+    /**
+     * <code>optional int32 scale = 4;</code>
+     *
+     * <pre>
+     * scale of the metric column
+     * </pre>
+     */
+    boolean hasScale();
+    /**
+     * <code>optional int32 scale = 4;</code>
+     *
+     * <pre>
+     * scale of the metric column
+     * </pre>
+     */
+    int getScale();
   }
   /**
-   * Protobuf type {@code IIRequest}
+   * Protobuf type {@code IIMeasure}
    */
-  public static final class IIRequest extends
+  public static final class IIMeasure extends
       com.google.protobuf.GeneratedMessage
-      implements IIRequestOrBuilder {
-    // Use IIRequest.newBuilder() to construct.
-    private IIRequest(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
+      implements IIMeasureOrBuilder {
+    // Use IIMeasure.newBuilder() to construct.
+    private IIMeasure(com.google.protobuf.GeneratedMessage.Builder<?> builder) {
       super(builder);
       this.unknownFields = builder.getUnknownFields();
     }
-    private IIRequest(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
+    private IIMeasure(boolean noInit) { this.unknownFields = com.google.protobuf.UnknownFieldSet.getDefaultInstance(); }
 
-    private static final IIRequest defaultInstance;
-    public static IIRequest getDefaultInstance() {
+    private static final IIMeasure defaultInstance;
+    public static IIMeasure getDefaultInstance() {
       return defaultInstance;
     }
 
-    public IIRequest getDefaultInstanceForType() {
+    public IIMeasure getDefaultInstanceForType() {
       return defaultInstance;
     }
 
@@ -49,7 +1641,7 @@ public final class IIProtos {
         getUnknownFields() {
       return this.unknownFields;
     }
-    private IIRequest(
+    private IIMeasure(
         com.google.protobuf.CodedInputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
@@ -74,7 +1666,22 @@ public final class IIProtos {
             }
             case 10: {
               bitField0_ |= 0x00000001;
-              tableInfo_ = input.readBytes();
+              expression_ = input.readBytes();
+              break;
+            }
+            case 18: {
+              bitField0_ |= 0x00000002;
+              returnType_ = input.readBytes();
+              break;
+            }
+            case 24: {
+              bitField0_ |= 0x00000004;
+              column_ = input.readInt32();
+              break;
+            }
+            case 32: {
+              bitField0_ |= 0x00000008;
+              scale_ = input.readInt32();
               break;
             }
           }
@@ -91,57 +1698,182 @@ public final class IIProtos {
     }
     public static final com.google.protobuf.Descriptors.Descriptor
         getDescriptor() {
-      return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIRequest_descriptor;
+      return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIMeasure_descriptor;
     }
 
     protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
         internalGetFieldAccessorTable() {
-      return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIRequest_fieldAccessorTable
+      return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIMeasure_fieldAccessorTable
           .ensureFieldAccessorsInitialized(
-              com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.class, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.Builder.class);
+              com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.class, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.Builder.class);
     }
 
-    public static com.google.protobuf.Parser<IIRequest> PARSER =
-        new com.google.protobuf.AbstractParser<IIRequest>() {
-      public IIRequest parsePartialFrom(
+    public static com.google.protobuf.Parser<IIMeasure> PARSER =
+        new com.google.protobuf.AbstractParser<IIMeasure>() {
+      public IIMeasure parsePartialFrom(
           com.google.protobuf.CodedInputStream input,
           com.google.protobuf.ExtensionRegistryLite extensionRegistry)
           throws com.google.protobuf.InvalidProtocolBufferException {
-        return new IIRequest(input, extensionRegistry);
+        return new IIMeasure(input, extensionRegistry);
       }
     };
 
     @java.lang.Override
-    public com.google.protobuf.Parser<IIRequest> getParserForType() {
+    public com.google.protobuf.Parser<IIMeasure> getParserForType() {
       return PARSER;
     }
 
     private int bitField0_;
-    // required bytes tableInfo = 1;
-    public static final int TABLEINFO_FIELD_NUMBER = 1;
-    private com.google.protobuf.ByteString tableInfo_;
+    // required string expression = 1;
+    public static final int EXPRESSION_FIELD_NUMBER = 1;
+    private java.lang.Object expression_;
     /**
-     * <code>required bytes tableInfo = 1;</code>
+     * <code>required string expression = 1;</code>
      */
-    public boolean hasTableInfo() {
+    public boolean hasExpression() {
       return ((bitField0_ & 0x00000001) == 0x00000001);
     }
     /**
-     * <code>required bytes tableInfo = 1;</code>
+     * <code>required string expression = 1;</code>
      */
-    public com.google.protobuf.ByteString getTableInfo() {
-      return tableInfo_;
+    public java.lang.String getExpression() {
+      java.lang.Object ref = expression_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        if (bs.isValidUtf8()) {
+          expression_ = s;
+        }
+        return s;
+      }
+    }
+    /**
+     * <code>required string expression = 1;</code>
+     */
+    public com.google.protobuf.ByteString
+        getExpressionBytes() {
+      java.lang.Object ref = expression_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        expression_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    // required string returnType = 2;
+    public static final int RETURNTYPE_FIELD_NUMBER = 2;
+    private java.lang.Object returnType_;
+    /**
+     * <code>required string returnType = 2;</code>
+     */
+    public boolean hasReturnType() {
+      return ((bitField0_ & 0x00000002) == 0x00000002);
+    }
+    /**
+     * <code>required string returnType = 2;</code>
+     */
+    public java.lang.String getReturnType() {
+      java.lang.Object ref = returnType_;
+      if (ref instanceof java.lang.String) {
+        return (java.lang.String) ref;
+      } else {
+        com.google.protobuf.ByteString bs = 
+            (com.google.protobuf.ByteString) ref;
+        java.lang.String s = bs.toStringUtf8();
+        if (bs.isValidUtf8()) {
+          returnType_ = s;
+        }
+        return s;
+      }
+    }
+    /**
+     * <code>required string returnType = 2;</code>
+     */
+    public com.google.protobuf.ByteString
+        getReturnTypeBytes() {
+      java.lang.Object ref = returnType_;
+      if (ref instanceof java.lang.String) {
+        com.google.protobuf.ByteString b = 
+            com.google.protobuf.ByteString.copyFromUtf8(
+                (java.lang.String) ref);
+        returnType_ = b;
+        return b;
+      } else {
+        return (com.google.protobuf.ByteString) ref;
+      }
+    }
+
+    // optional int32 column = 3;
+    public static final int COLUMN_FIELD_NUMBER = 3;
+    private int column_;
+    /**
+     * <code>optional int32 column = 3;</code>
+     *
+     * <pre>
+     * index of the metric column as parameter, absent for count
+     * </pre>
+     */
+    public boolean hasColumn() {
+      return ((bitField0_ & 0x00000004) == 0x00000004);
+    }
+    /**
+     * <code>optional int32 column = 3;</code>
+     *
+     * <pre>
+     * index of the metric column as parameter, absent for count
+     * </pre>
+     */
+    public int getColumn() {
+      return column_;
+    }
+
+    // optional int32 scale = 4;
+    public static final int SCALE_FIELD_NUMBER = 4;
+    private int scale_;
+    /**
+     * <code>optional int32 scale = 4;</code>
+     *
+     * <pre>
+     * scale of the metric column
+     * </pre>
+     */
+    public boolean hasScale() {
+      return ((bitField0_ & 0x00000008) == 0x00000008);
+    }
+    /**
+     * <code>optional int32 scale = 4;</code>
+     *
+     * <pre>
+     * scale of the metric column
+     * </pre>
+     */
+    public int getScale() {
+      return scale_;
     }
 
     private void initFields() {
-      tableInfo_ = com.google.protobuf.ByteString.EMPTY;
+      expression_ = "";
+      returnType_ = "";
+      column_ = 0;
+      scale_ = 0;
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
       byte isInitialized = memoizedIsInitialized;
       if (isInitialized != -1) return isInitialized == 1;
 
-      if (!hasTableInfo()) {
+      if (!hasExpression()) {
+        memoizedIsInitialized = 0;
+        return false;
+      }
+      if (!hasReturnType()) {
         memoizedIsInitialized = 0;
         return false;
       }
@@ -153,7 +1885,16 @@ public final class IIProtos {
                         throws java.io.IOException {
       getSerializedSize();
       if (((bitField0_ & 0x00000001) == 0x00000001)) {
-        output.writeBytes(1, tableInfo_);
+        output.writeBytes(1, getExpressionBytes());
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        output.writeBytes(2, getReturnTypeBytes());
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        output.writeInt32(3, column_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        output.writeInt32(4, scale_);
       }
       getUnknownFields().writeTo(output);
     }
@@ -166,7 +1907,19 @@ public final class IIProtos {
       size = 0;
       if (((bitField0_ & 0x00000001) == 0x00000001)) {
         size += com.google.protobuf.CodedOutputStream
-          .computeBytesSize(1, tableInfo_);
+          .computeBytesSize(1, getExpressionBytes());
+      }
+      if (((bitField0_ & 0x00000002) == 0x00000002)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBytesSize(2, getReturnTypeBytes());
+      }
+      if (((bitField0_ & 0x00000004) == 0x00000004)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(3, column_);
+      }
+      if (((bitField0_ & 0x00000008) == 0x00000008)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeInt32Size(4, scale_);
       }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
@@ -185,16 +1938,31 @@ public final class IIProtos {
       if (obj == this) {
        return true;
       }
-      if (!(obj instanceof com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest)) {
+      if (!(obj instanceof com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure)) {
         return super.equals(obj);
       }
-      com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest other = (com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest) obj;
+      com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure other = (com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure) obj;
 
       boolean result = true;
-      result = result && (hasTableInfo() == other.hasTableInfo());
-      if (hasTableInfo()) {
-        result = result && getTableInfo()
-            .equals(other.getTableInfo());
+      result = result && (hasExpression() == other.hasExpression());
+      if (hasExpression()) {
+        result = result && getExpression()
+            .equals(other.getExpression());
+      }
+      result = result && (hasReturnType() == other.hasReturnType());
+      if (hasReturnType()) {
+        result = result && getReturnType()
+            .equals(other.getReturnType());
+      }
+      result = result && (hasColumn() == other.hasColumn());
+      if (hasColumn()) {
+        result = result && (getColumn()
+            == other.getColumn());
+      }
+      result = result && (hasScale() == other.hasScale());
+      if (hasScale()) {
+        result = result && (getScale()
+            == other.getScale());
       }
       result = result &&
           getUnknownFields().equals(other.getUnknownFields());
@@ -209,62 +1977,74 @@ public final class IIProtos {
       }
       int hash = 41;
       hash = (19 * hash) + getDescriptorForType().hashCode();
-      if (hasTableInfo()) {
-        hash = (37 * hash) + TABLEINFO_FIELD_NUMBER;
-        hash = (53 * hash) + getTableInfo().hashCode();
+      if (hasExpression()) {
+        hash = (37 * hash) + EXPRESSION_FIELD_NUMBER;
+        hash = (53 * hash) + getExpression().hashCode();
+      }
+      if (hasReturnType()) {
+        hash = (37 * hash) + RETURNTYPE_FIELD_NUMBER;
+        hash = (53 * hash) + getReturnType().hashCode();
+      }
+      if (hasColumn()) {
+        hash = (37 * hash) + COLUMN_FIELD_NUMBER;
+        hash = (53 * hash) + getColumn();
+      }
+      if (hasScale()) {
+        hash = (37 * hash) + SCALE_FIELD_NUMBER;
+        hash = (53 * hash) + getScale();
       }
       hash = (29 * hash) + getUnknownFields().hashCode();
       memoizedHashCode = hash;
       return hash;
     }
 
-    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure parseFrom(
         com.google.protobuf.ByteString data)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return PARSER.parseFrom(data);
     }
-    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure parseFrom(
         com.google.protobuf.ByteString data,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return PARSER.parseFrom(data, extensionRegistry);
     }
-    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(byte[] data)
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure parseFrom(byte[] data)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return PARSER.parseFrom(data);
     }
-    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure parseFrom(
         byte[] data,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws com.google.protobuf.InvalidProtocolBufferException {
       return PARSER.parseFrom(data, extensionRegistry);
     }
-    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(java.io.InputStream input)
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure parseFrom(java.io.InputStream input)
         throws java.io.IOException {
       return PARSER.parseFrom(input);
     }
-    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure parseFrom(
         java.io.InputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
       return PARSER.parseFrom(input, extensionRegistry);
     }
-    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseDelimitedFrom(java.io.InputStream input)
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure parseDelimitedFrom(java.io.InputStream input)
         throws java.io.IOException {
       return PARSER.parseDelimitedFrom(input);
     }
-    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseDelimitedFrom(
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure parseDelimitedFrom(
         java.io.InputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
       return PARSER.parseDelimitedFrom(input, extensionRegistry);
     }
-    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure parseFrom(
         com.google.protobuf.CodedInputStream input)
         throws java.io.IOException {
       return PARSER.parseFrom(input);
     }
-    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parseFrom(
+    public static com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure parseFrom(
         com.google.protobuf.CodedInputStream input,
         com.google.protobuf.ExtensionRegistryLite extensionRegistry)
         throws java.io.IOException {
@@ -273,7 +2053,7 @@ public final class IIProtos {
 
     public static Builder newBuilder() { return Builder.create(); }
     public Builder newBuilderForType() { return newBuilder(); }
-    public static Builder newBuilder(com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest prototype) {
+    public static Builder newBuilder(com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure prototype) {
       return newBuilder().mergeFrom(prototype);
     }
     public Builder toBuilder() { return newBuilder(this); }
@@ -285,24 +2065,24 @@ public final class IIProtos {
       return builder;
     }
     /**
-     * Protobuf type {@code IIRequest}
+     * Protobuf type {@code IIMeasure}
      */
     public static final class Builder extends
         com.google.protobuf.GeneratedMessage.Builder<Builder>
-       implements com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequestOrBuilder {
+       implements com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasureOrBuilder {
       public static final com.google.protobuf.Descriptors.Descriptor
           getDescriptor() {
-        return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIRequest_descriptor;
+        return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIMeasure_descriptor;
       }
 
       protected com.google.protobuf.GeneratedMessage.FieldAccessorTable
           internalGetFieldAccessorTable() {
-        return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIRequest_fieldAccessorTable
+        return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIMeasure_fieldAccessorTable
             .ensureFieldAccessorsInitialized(
-                com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.class, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.Builder.class);
+                com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.class, com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.Builder.class);
       }
 
-      // Construct using com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.newBuilder()
+      // Construct using com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.newBuilder()
       private Builder() {
         maybeForceBuilderInitialization();
       }
@@ -322,8 +2102,14 @@ public final class IIProtos {
 
       public Builder clear() {
         super.clear();
-        tableInfo_ = com.google.protobuf.ByteString.EMPTY;
+        expression_ = "";
         bitField0_ = (bitField0_ & ~0x00000001);
+        returnType_ = "";
+        bitField0_ = (bitField0_ & ~0x00000002);
+        column_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000004);
+        scale_ = 0;
+        bitField0_ = (bitField0_ & ~0x00000008);
         return this;
       }
 
@@ -333,54 +2119,83 @@ public final class IIProtos {
 
       public com.google.protobuf.Descriptors.Descriptor
           getDescriptorForType() {
-        return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIRequest_descriptor;
+        return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.internal_static_IIMeasure_descriptor;
       }
 
-      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest getDefaultInstanceForType() {
-        return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.getDefaultInstance();
+      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure getDefaultInstanceForType() {
+        return com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.getDefaultInstance();
       }
 
-      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest build() {
-        com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest result = buildPartial();
+      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure build() {
+        com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure result = buildPartial();
         if (!result.isInitialized()) {
           throw newUninitializedMessageException(result);
         }
         return result;
       }
 
-      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest buildPartial() {
-        com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest result = new com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest(this);
+      public com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure buildPartial() {
+        com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure result = new com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure(this);
         int from_bitField0_ = bitField0_;
         int to_bitField0_ = 0;
         if (((from_bitField0_ & 0x00000001) == 0x00000001)) {
           to_bitField0_ |= 0x00000001;
         }
-        result.tableInfo_ = tableInfo_;
+        result.expression_ = expression_;
+        if (((from_bitField0_ & 0x00000002) == 0x00000002)) {
+          to_bitField0_ |= 0x00000002;
+        }
+        result.returnType_ = returnType_;
+        if (((from_bitField0_ & 0x00000004) == 0x00000004)) {
+          to_bitField0_ |= 0x00000004;
+        }
+        result.column_ = column_;
+        if (((from_bitField0_ & 0x00000008) == 0x00000008)) {
+          to_bitField0_ |= 0x00000008;
+        }
+        result.scale_ = scale_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
       }
 
       public Builder mergeFrom(com.google.protobuf.Message other) {
-        if (other instanceof com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest) {
-          return mergeFrom((com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest)other);
+        if (other instanceof com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure) {
+          return mergeFrom((com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure)other);
         } else {
           super.mergeFrom(other);
           return this;
         }
       }
 
-      public Builder mergeFrom(com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest other) {
-        if (other == com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest.getDefaultInstance()) return this;
-        if (other.hasTableInfo()) {
-          setTableInfo(other.getTableInfo());
+      public Builder mergeFrom(com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure other) {
+        if (other == com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure.getDefaultInstance()) return this;
+        if (other.hasExpression()) {
+          bitField0_ |= 0x00000001;
+          expression_ = other.expression_;
+          onChanged();
+        }
+        if (other.hasReturnType()) {
+          bitField0_ |= 0x00000002;
+          returnType_ = other.returnType_;
+          onChanged();
+        }
+        if (other.hasColumn()) {
+          setColumn(other.getColumn());
+        }
+        if (other.hasScale()) {
+          setScale(other.getScale());
         }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
 
       public final boolean isInitialized() {
-        if (!hasTableInfo()) {
+        if (!hasExpression()) {
+          
+          return false;
+        }
+        if (!hasReturnType()) {
           
           return false;
         }
@@ -391,11 +2206,11 @@ public final class IIProtos {
           com.google.protobuf.CodedInputStream input,
           com.google.protobuf.ExtensionRegistryLite extensionRegistry)
           throws java.io.IOException {
-        com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest parsedMessage = null;
+        com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure parsedMessage = null;
         try {
           parsedMessage = PARSER.parsePartialFrom(input, extensionRegistry);
         } catch (com.google.protobuf.InvalidProtocolBufferException e) {
-          parsedMessage = (com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIRequest) e.getUnfinishedMessage();
+          parsedMessage = (com.kylinolap.storage.hbase.coprocessor.generated.IIProtos.IIMeasure) e.getUnfinishedMessage();
           throw e;
         } finally {
           if (parsedMessage != null) {
@@ -406,51 +2221,261 @@ public final class IIProtos {
       }
       private int bitField0_;
 
-      // required bytes tableInfo = 1;
-      private com.google.protobuf.ByteString tableInfo_ = com.google.protobuf.ByteString.EMPTY;
+      // required string expression = 1;
+      private java.lang.Object expression_ = "";
       /**
-       * <code>required bytes tableInfo = 1;</code>
+       * <code>required string expression = 1;</code>
        */
-      public boolean hasTableInfo() {
+      public boolean hasExpression() {
         return ((bitField0_ & 0x00000001) == 0x00000001);
       }
       /**
-       * <code>required bytes tableInfo = 1;</code>
+       * <code>required string expression = 1;</code>
        */
-      public com.google.protobuf.ByteString getTableInfo() {
-        return tableInfo_;
+      public java.lang.String getExpression() {
+        java.lang.Object ref = expression_;
+        if (!(ref instanceof java.lang.String)) {
+          java.lang.String s = ((com.google.protobuf.ByteString) ref)
+              .toStringUtf8();
+          expression_ = s;
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
       }
       /**
-       * <code>required bytes tableInfo = 1;</code>
+       * <code>required string expression = 1;</code>
        */
-      public Builder setTableInfo(com.google.protobuf.ByteString value) {
+      public com.google.protobuf.ByteString
+          getExpressionBytes() {
+        java.lang.Object ref = expression_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          expression_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>required string expression = 1;</code>
+       */
+      public Builder setExpression(
+          java.lang.String value) {
         if (value == null) {
     throw new NullPointerException();
   }
   bitField0_ |= 0x00000001;
-        tableInfo_ = value;
+        expression_ = value;
         onChanged();
         return this;
       }
       /**
-       * <code>required bytes tableInfo = 1;</code>
+       * <code>required string expression = 1;</code>
        */
-      public Builder clearTableInfo() {
+      public Builder clearExpression() {
         bitField0_ = (bitField0_ & ~0x00000001);
-        tableInfo_ = getDefaultInstance().getTableInfo();
+        expression_ = getDefaultInstance().getExpression();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required string expression = 1;</code>
+       */
+      public Builder setExpressionBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000001;
+        expression_ = value;
         onChanged();
         return this;
       }
 
-      // @@protoc_insertion_point(builder_scope:IIRequest)
+      // required string returnType = 2;
+      private java.lang.Object returnType_ = "";
+      /**
+       * <code>required string returnType = 2;</code>
+       */
+      public boolean hasReturnType() {
+        return ((bitField0_ & 0x00000002) == 0x00000002);
+      }
+      /**
+       * <code>required string returnType = 2;</code>
+       */
+      public java.lang.String getReturnType() {
+        java.lang.Object ref = returnType_;
+        if (!(ref instanceof java.lang.String)) {
+          java.lang.String s = ((com.google.protobuf.ByteString) ref)
+              .toStringUtf8();
+          returnType_ = s;
+          return s;
+        } else {
+          return (java.lang.String) ref;
+        }
+      }
+      /**
+       * <code>required string returnType = 2;</code>
+       */
+      public com.google.protobuf.ByteString
+          getReturnTypeBytes() {
+        java.lang.Object ref = returnType_;
+        if (ref instanceof String) {
+          com.google.protobuf.ByteString b = 
+              com.google.protobuf.ByteString.copyFromUtf8(
+                  (java.lang.String) ref);
+          returnType_ = b;
+          return b;
+        } else {
+          return (com.google.protobuf.ByteString) ref;
+        }
+      }
+      /**
+       * <code>required string returnType = 2;</code>
+       */
+      public Builder setReturnType(
+          java.lang.String value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000002;
+        returnType_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required string returnType = 2;</code>
+       */
+      public Builder clearReturnType() {
+        bitField0_ = (bitField0_ & ~0x00000002);
+        returnType_ = getDefaultInstance().getReturnType();
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>required string returnType = 2;</code>
+       */
+      public Builder setReturnTypeBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) {
+    throw new NullPointerException();
+  }
+  bitField0_ |= 0x00000002;
+        returnType_ = value;
+        onChanged();
+        return this;
+      }
+
+      // optional int32 column = 3;
+      private int column_ ;
+      /**
+       * <code>optional int32 column = 3;</code>
+       *
+       * <pre>
+       * index of the metric column as parameter, absent for count
+       * </pre>
+       */
+      public boolean hasColumn() {
+        return ((bitField0_ & 0x00000004) == 0x00000004);
+      }
+      /**
+       * <code>optional int32 column = 3;</code>
+       *
+       * <pre>
+       * index of the metric column as parameter, absent for count
+       * </pre>
+       */
+      public int getColumn() {
+        return column_;
+      }
+      /**
+       * <code>optional int32 column = 3;</code>
+       *
+       * <pre>
+       * index of the metric column as parameter, absent for count
+       * </pre>
+       */
+      public Builder setColumn(int value) {
+        bitField0_ |= 0x00000004;
+        column_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional int32 column = 3;</code>
+       *
+       * <pre>
+       * index of the metric column as parameter, absent for count
+       * </pre>
+       */
+      public Builder clearColumn() {
+        bitField0_ = (bitField0_ & ~0x00000004);
+        column_ = 0;
+        onChanged();
+        return this;
+      }
+
+      // optional int32 scale = 4;
+      private int scale_ ;
+      /**
+       * <code>optional int32 scale = 4;</code>
+       *
+       * <pre>
+       * scale of the metric column
+       * </pre>
+       */
+      public boolean hasScale() {
+        return ((bitField0_ & 0x00000008) == 0x00000008);
+      }
+      /**
+       * <code>optional int32 scale = 4;</code>
+       *
+       * <pre>
+       * scale of the metric column
+       * </pre>
+       */
+      public int getScale() {
+        return scale_;
+      }
+      /**
+       * <code>optional int32 scale = 4;</code>
+       *
+       * <pre>
+       * scale of the metric column
+       * </pre>
+       */
+      public Builder setScale(int value) {
+        bitField0_ |= 0x00000008;
+        scale_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional int32 scale = 4;</code>
+       *
+       * <pre>
+       * scale of the metric column
+       * </pre>
+       */
+      public Builder clearScale() {
+        bitField0_ = (bitField0_ & ~0x00000008);
+        scale_ = 0;
+        onChanged();
+        return this;
+      }
+
+      // @@protoc_insertion_point(builder_scope:IIMeasure)
     }
 
     static {
-      defaultInstance = new IIRequest(true);
+      defaultInstance = new IIMeasure(true);
       defaultInstance.initFields();
     }
 
-    // @@protoc_insertion_point(class_scope:IIRequest)
+    // @@protoc_insertion_point(class_scope:IIMeasure)
   }
 
   public interface IIResponseOrBuilder
@@ -459,14 +2484,29 @@ public final class IIProtos {
     // repeated bytes rows = 1;
     /**
      * <code>repeated bytes rows = 1;</code>
+     *
+     * <pre>
+     * each row concatenates bytes of requested columns, followed by
+     * encoded measure states if aggregated
+     * </pre>
      */
     java.util.List<com.google.protobuf.ByteString> getRowsList();
     /**
      * <code>repeated bytes rows = 1;</code>
+     *
+     * <pre>
+     * each row concatenates bytes of requested columns, followed by
+     * encoded measure states if aggregated
+     * </pre>
      */
     int getRowsCount();
     /**
      * <code>repeated bytes rows = 1;</code>
+     *
+     * <pre>
+     * each row concatenates bytes of requested columns, followed by
+     * encoded measure states if aggregated
+     * </pre>
      */
     com.google.protobuf.ByteString getRows(int index);
   }
@@ -576,6 +2616,11 @@ public final class IIProtos {
     private java.util.List<com.google.protobuf.ByteString> rows_;
     /**
      * <code>repeated bytes rows = 1;</code>
+     *
+     * <pre>
+     * each row concatenates bytes of requested columns, followed by
+     * encoded measure states if aggregated
+     * </pre>
      */
     public java.util.List<com.google.protobuf.ByteString>
         getRowsList() {
@@ -583,12 +2628,22 @@ public final class IIProtos {
     }
     /**
      * <code>repeated bytes rows = 1;</code>
+     *
+     * <pre>
+     * each row concatenates bytes of requested columns, followed by
+     * encoded measure states if aggregated
+     * </pre>
      */
     public int getRowsCount() {
       return rows_.size();
     }
     /**
      * <code>repeated bytes rows = 1;</code>
+     *
+     * <pre>
+     * each row concatenates bytes of requested columns, followed by
+     * encoded measure states if aggregated
+     * </pre>
      */
     public com.google.protobuf.ByteString getRows(int index) {
       return rows_.get(index);
@@ -877,6 +2932,11 @@ public final class IIProtos {
       }
       /**
        * <code>repeated bytes rows = 1;</code>
+       *
+       * <pre>
+       * each row concatenates bytes of requested columns, followed by
+       * encoded measure states if aggregated
+       * </pre>
        */
       public java.util.List<com.google.protobuf.ByteString>
           getRowsList() {
@@ -884,18 +2944,33 @@ public final class IIProtos {
       }
       /**
        * <code>repeated bytes rows = 1;</code>
+       *
+       * <pre>
+       * each row concatenates bytes of requested columns, followed by
+       * encoded measure states if aggregated
+       * </pre>
        */
       public int getRowsCount() {
         return rows_.size();
       }
       /**
        * <code>repeated bytes rows = 1;</code>
+       *
+       * <pre>
+       * each row concatenates bytes of requested columns, followed by
+       * encoded measure states if aggregated
+       * </pre>
        */
       public com.google.protobuf.ByteString getRows(int index) {
         return rows_.get(index);
       }
       /**
        * <code>repeated bytes rows = 1;</code>
+       *
+       * <pre>
+       * each row concatenates bytes of requested columns, followed by
+       * encoded measure states if aggregated
+       * </pre>
        */
       public Builder setRows(
           int index, com.google.protobuf.ByteString value) {
@@ -909,6 +2984,11 @@ public final class IIProtos {
       }
       /**
        * <code>repeated bytes rows = 1;</code>
+       *
+       * <pre>
+       * each row concatenates bytes of requested columns, followed by
+       * encoded measure states if aggregated
+       * </pre>
        */
       public Builder addRows(com.google.protobuf.ByteString value) {
         if (value == null) {
@@ -921,6 +3001,11 @@ public final class IIProtos {
       }
       /**
        * <code>repeated bytes rows = 1;</code>
+       *
+       * <pre>
+       * each row concatenates bytes of requested columns, followed by
+       * encoded measure states if aggregated
+       * </pre>
        */
       public Builder addAllRows(
           java.lang.Iterable<? extends com.google.protobuf.ByteString> values) {
@@ -931,6 +3016,11 @@ public final class IIProtos {
       }
       /**
        * <code>repeated bytes rows = 1;</code>
+       *
+       * <pre>
+       * each row concatenates bytes of requested columns, followed by
+       * encoded measure states if aggregated
+       * </pre>
        */
       public Builder clearRows() {
         rows_ = java.util.Collections.emptyList();
@@ -1187,6 +3277,11 @@ public final class IIProtos {
   private static
     com.google.protobuf.GeneratedMessage.FieldAccessorTable
       internal_static_IIRequest_fieldAccessorTable;
+  private static com.google.protobuf.Descriptors.Descriptor
+    internal_static_IIMeasure_descriptor;
+  private static
+    com.google.protobuf.GeneratedMessage.FieldAccessorTable
+      internal_static_IIMeasure_fieldAccessorTable;
   private static com.google.protobuf.Descriptors.Descriptor
     internal_static_IIResponse_descriptor;
   private static
@@ -1201,11 +3296,15 @@ public final class IIProtos {
       descriptor;
   static {
     java.lang.String[] descriptorData = {
-      "\n\010II.proto\"\036\n\tIIRequest\022\021\n\ttableInfo\030\001 \002" +
-      "(\014\"\032\n\nIIResponse\022\014\n\004rows\030\001 \003(\01421\n\013RowsSe" +
-      "rvice\022\"\n\007getRows\022\n.IIRequest\032\013.IIRespons" +
-      "eBE\n1com.kylinolap.storage.hbase.coproce" +
-      "ssor.generatedB\010IIProtosH\001\210\001\001\240\001\001"
+      "\n\010II.proto\"r\n\tIIRequest\022\021\n\ttableInfo\030\001 \002" +
+      "(\014\022\016\n\006filter\030\002 \001(\014\022\023\n\013columnNames\030\003 \003(\t\022" +
+      "\017\n\007columns\030\004 \003(\005\022\034\n\010measures\030\005 \003(\0132\n.IIM" +
+      "easure\"R\n\tIIMeasure\022\022\n\nexpression\030\001 \002(\t\022" +
+      "\022\n\nreturnType\030\002 \002(\t\022\016\n\006column\030\003 \001(\005\022\r\n\005s" +
+      "cale\030\004 \001(\005\"\032\n\nIIResponse\022\014\n\004rows\030\001 \003(\01421" +
+      "\n\013RowsService\022\"\n\007getRows\022\n.IIRequest\032\013.I" +
+      "IResponseBE\n1com.kylinolap.storage.hbase" +
+      ".coprocessor.generatedB\010IIProtosH\001\210\001\001\240\001\001"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
       new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
@@ -1217,9 +3316,15 @@ public final class IIProtos {
           internal_static_IIRequest_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_IIRequest_descriptor,
-              new java.lang.String[] { "TableInfo", });
-          internal_static_IIResponse_descriptor =
+              new java.lang.String[] { "TableInfo", "Filter", "ColumnNames", "Columns", "Measures", });
+          internal_static_IIMeasure_descriptor =
             getDescriptor().getMessageTypes().get(1);
+          internal_static_IIMeasure_fieldAccessorTable = new
+            com.google.protobuf.GeneratedMessage.FieldAccessorTable(
+              internal_static_IIMeasure_descriptor,
+              new java.lang.String[] { "Expression", "ReturnType", "Column", "Scale", });
+          internal_static_IIResponse_descriptor =
+            getDescriptor().getMessageTypes().get(2);
           internal_static_IIResponse_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_IIResponse_descriptor,
@@ -27,6 +27,7 @@ import org.apache.hadoop.hbase.coprocessor.RegionCoprocessorEnvironment;
 import org.apache.hadoop.hbase.regionserver.HRegion;
 import org.apache.hadoop.hbase.regionserver.RegionCoprocessorHost;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.util.Bytes;
 
 /**
  * @author yangli9
@@ -41,6 +42,13 @@ public class AggregateRegionObserver extends BaseRegionObserver {
     static final String PROJECTOR = "_Projector";
     static final String AGGREGATORS = "_Aggregators";
     static final String FILTER = "_Filter";
+    // optional, present when the client does not need rows in key order
+    static final String UNSORTED_OUTPUT = "_UnsortedOutput";
+    // optional, rows per partial aggregation batch, see AggregationScanner
+    static final String FLUSH_ROWS = "_FlushRows";
+
+    // region server configuration
+    public static final String MEMORY_BUDGET_KEY = "kylin.coprocessor.aggregation.memory.budget";
 
     @Override
     public final RegionScanner postScannerOpen(final ObserverContext<RegionCoprocessorEnvironment> ctxt, final Scan scan, final RegionScanner innerScanner) throws IOException {
@@ -78,14 +86,20 @@ public class AggregateRegionObserver extends BaseRegionObserver {
         byte[] filterBytes = scan.getAttribute(FILTER);
         SRowFilter filter = SRowFilter.deserialize(filterBytes);
 
+        boolean sortedOutput = scan.getAttribute(UNSORTED_OUTPUT) == null;
+        byte[] flushRowsBytes = scan.getAttribute(FLUSH_ROWS);
+        int flushRows = flushRowsBytes == null ? 0 : Bytes.toInt(flushRowsBytes);
+        long memoryBudget = ctxt.getEnvironment().getConfiguration().getLong(MEMORY_BUDGET_KEY, AggregationCache.MEMORY_USAGE_CAP);
+
         // start/end region operation & sync on scanner is suggested by the
-        // javadoc of RegionScanner.nextRaw()
+        // javadoc of RegionScanner.nextRaw(); they cover the construction
+        // only, a streaming AggregationScanner reads later batches by next()
         // FIXME: will the lock still work when a iterator is returned? is it safe? Is readonly attribute helping here? by mhb
         HRegion region = ctxt.getEnvironment().getRegion();
         region.startRegionOperation();
         try {
             synchronized (innerScanner) {
-                return new AggregationScanner(type, filter, projector, aggregators, innerScanner);
+                return new AggregationScanner(type, filter, projector, aggregators, innerScanner, memoryBudget, sortedOutput, flushRows);
             }
         } finally {
             region.closeRegionOperation();
@@ -16,12 +16,21 @@
 
 package com.kylinolap.storage.hbase.observer;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map.Entry;
-import java.util.SortedMap;
+import java.util.PriorityQueue;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.HConstants;
@@ -30,99 +39,461 @@ import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.KeyValue.Type;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
 
-import com.google.common.collect.Maps;
 import com.kylinolap.cube.measure.MeasureAggregator;
 import com.kylinolap.storage.hbase.observer.SRowProjector.AggrKey;
 
 /**
+ * Group-by buffer of the aggregation coprocessor. Groups live in an open
+ * addressing hash table over packed key bytes. Memory is accounted per group,
+ * and once the budget is exceeded the groups are sorted and spilled to a local
+ * file as a sorted run. The output merges all runs.
+ *
  * @author yangli9
- * 
+ *
  */
 @SuppressWarnings("rawtypes")
 public class AggregationCache {
 
-    static final int MEMORY_USAGE_CAP = 500 * 1024 * 1024; // 500 MB
+    public static final long MEMORY_USAGE_CAP = 500 * 1024 * 1024; // 500 MB
+
+    static final int INITIAL_CAPACITY = 1024;
+    static final int ARRAY_OVERHEAD = 16;
+    static final int OBJECT_OVERHEAD = 16;
+    static final int REF_SIZE = 4;
 
-    private final SortedMap<AggrKey, MeasureAggregator[]> aggBufMap;
+    private final SRowProjector projector;
     private final SRowAggregators aggregators;
+    private final int keyLength;
+    private final long memoryBudget;
+
+    // open addressing, a slot holds group index + 1, 0 means empty
+    private int[] slots;
+    private int[] hashes;
+    private byte[] keys; // keyLength bytes per group
+    private MeasureAggregator[][] buffers;
+    private int size;
+
+    private long memBytes;
+    private int unaccountedGroup = -1;
 
-    transient int rowMemBytes;
+    private final List<File> spillFiles = new ArrayList<File>();
+    private long spilledGroups;
 
-    public AggregationCache(SRowAggregators aggregators, int estSize) {
+    public AggregationCache(SRowProjector projector, SRowAggregators aggregators) {
+        this(projector, aggregators, MEMORY_USAGE_CAP);
+    }
+
+    public AggregationCache(SRowProjector projector, SRowAggregators aggregators, long memoryBudget) {
+        this.projector = projector;
         this.aggregators = aggregators;
-        this.aggBufMap = Maps.newTreeMap();
+        this.keyLength = projector.getKeyLength();
+        this.memoryBudget = memoryBudget;
+        init();
+    }
+
+    private void init() {
+        this.slots = new int[INITIAL_CAPACITY];
+        this.hashes = new int[INITIAL_CAPACITY / 2];
+        this.keys = new byte[INITIAL_CAPACITY / 2 * keyLength];
+        this.buffers = new MeasureAggregator[INITIAL_CAPACITY / 2][];
+        this.size = 0;
+        this.unaccountedGroup = -1;
+        this.memBytes = arraysMemBytes();
+    }
+
+    private long arraysMemBytes() {
+        return 4 * ARRAY_OVERHEAD + 4L * slots.length + 4L * hashes.length + keys.length + (long) REF_SIZE * buffers.length;
     }
 
     public MeasureAggregator[] getBuffer(AggrKey aggkey) {
-        MeasureAggregator[] aggBuf = aggBufMap.get(aggkey);
-        if (aggBuf == null) {
-            aggBuf = aggregators.createBuffer();
-            aggBufMap.put(aggkey.copy(), aggBuf);
+        int hash = aggkey.hashCode();
+        int mask = slots.length - 1;
+        int pos = mix(hash) & mask;
+        while (true) {
+            int g = slots[pos] - 1;
+            if (g < 0) {
+                break;
+            }
+            if (hashes[g] == hash && aggkey.compareTo(keys, g * keyLength) == 0) {
+                return buffers[g];
+            }
+            pos = (pos + 1) & mask;
+        }
+
+        // new group
+        int g = size++;
+        ensureGroupCapacity(size);
+        hashes[g] = hash;
+        System.arraycopy(aggkey.get(), aggkey.offset(), keys, g * keyLength, keyLength);
+        buffers[g] = aggregators.createBuffer();
+        slots[pos] = g + 1;
+        unaccountedGroup = g;
+
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
         }
-        return aggBuf;
+        return buffers[g];
     }
 
-    public RegionScanner getScanner(RegionScanner innerScanner) {
-        return new AggregationRegionScanner(innerScanner);
+    private static int mix(int hash) {
+        // spread the bits, the table size is power of 2
+        hash ^= (hash >>> 16);
+        hash *= 0x85ebca6b;
+        hash ^= (hash >>> 13);
+        return hash;
     }
 
+    private void ensureGroupCapacity(int n) {
+        if (n <= hashes.length)
+            return;
+
+        int newCapacity = hashes.length * 2;
+        memBytes -= arraysMemBytes();
+        hashes = Arrays.copyOf(hashes, newCapacity);
+        keys = Arrays.copyOf(keys, newCapacity * keyLength);
+        buffers = Arrays.copyOf(buffers, newCapacity);
+        memBytes += arraysMemBytes();
+    }
+
+    private void rehash(int newCapacity) {
+        memBytes -= arraysMemBytes();
+        slots = new int[newCapacity];
+        int mask = newCapacity - 1;
+        for (int g = 0; g < size; g++) {
+            int pos = mix(hashes[g]) & mask;
+            while (slots[pos] != 0) {
+                pos = (pos + 1) & mask;
+            }
+            slots[pos] = g + 1;
+        }
+        memBytes += arraysMemBytes();
+    }
+
+    public RegionScanner getScanner(RegionScanner innerScanner) throws IOException {
+        return getScanner(innerScanner, true);
+    }
+
+    public RegionScanner getScanner(RegionScanner innerScanner, boolean sortedOutput) throws IOException {
+        GroupIterator groups;
+        if (spillFiles.isEmpty()) {
+            groups = new MemoryGroupIterator(sortedOutput);
+        } else {
+            // spilled runs are sorted, output has to go through a sorted merge
+            List<Run> runs = new ArrayList<Run>();
+            for (File file : spillFiles) {
+                runs.add(new FileRun(file));
+            }
+            if (size > 0) {
+                runs.add(new MemoryRun());
+            }
+            groups = new MergeGroupIterator(runs);
+        }
+        return new AggregationRegionScanner(innerScanner, groups);
+    }
+
+    /**
+     * @return number of groups in memory, plus those spilled (groups spilled
+     *         in different runs may overlap)
+     */
     public long getSize() {
-        return aggBufMap.size();
-    }
-
-    public void checkMemoryUsage() {
-        // about memory calculation,
-        // http://seniorjava.wordpress.com/2013/09/01/java-objects-memory-size-reference/
-        if (rowMemBytes <= 0) {
-            if (aggBufMap.size() > 0) {
-                rowMemBytes = 0;
-                MeasureAggregator[] measureAggregators = aggBufMap.get(aggBufMap.firstKey());
-                for (MeasureAggregator agg : measureAggregators) {
-                    rowMemBytes += agg.getMemBytes();
+        return size + spilledGroups;
+    }
+
+    public long getMemBytes() {
+        return memBytes;
+    }
+
+    public int getSpillCount() {
+        return spillFiles.size();
+    }
+
+    public void checkMemoryUsage() throws IOException {
+        if (isFull()) {
+            spill();
+        }
+    }
+
+    /**
+     * @return true if the cache is over its memory budget; used by streaming
+     *         aggregation to flush partial results instead of spilling
+     */
+    public boolean isFull() {
+        // account the group created by last getBuffer(), now that it holds a value
+        if (unaccountedGroup >= 0) {
+            memBytes += groupMemBytes(buffers[unaccountedGroup]);
+            unaccountedGroup = -1;
+        }
+        return memBytes > memoryBudget;
+    }
+
+    private long groupMemBytes(MeasureAggregator[] aggBuf) {
+        long bytes = ARRAY_OVERHEAD + REF_SIZE * aggBuf.length;
+        for (MeasureAggregator agg : aggBuf) {
+            bytes += OBJECT_OVERHEAD + Math.max(0, agg.getMemBytes());
+        }
+        return bytes;
+    }
+
+    private void spill() throws IOException {
+        File file = File.createTempFile("kylin_aggr_", ".spill");
+        file.deleteOnExit();
+        spillFiles.add(file);
+
+        AggregateRegionObserver.LOG.info("Kylin Coprocessor spills " + size + " groups (" + memBytes + " bytes) to " + file);
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            int nHCols = aggregators.getHColsNum();
+            for (int g : sortedGroups()) {
+                out.write(keys, g * keyLength, keyLength);
+                ByteBuffer[] values = aggregators.getHColValues(buffers[g]);
+                for (int i = 0; i < nHCols; i++) {
+                    out.writeInt(values[i].position());
+                    out.write(values[i].array(), 0, values[i].position());
                 }
             }
+        } finally {
+            out.close();
+        }
+
+        spilledGroups += size;
+        init();
+    }
+
+    private int[] sortedGroups() {
+        Integer[] order = new Integer[size];
+        for (int g = 0; g < size; g++) {
+            order[g] = g;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer g1, Integer g2) {
+                return projector.compareKeys(keys, g1 * keyLength, keys, g2 * keyLength);
+            }
+        });
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = order[i];
         }
-        int size = aggBufMap.size();
-        int memUsage = (40 + rowMemBytes) * size;
-        if (memUsage > MEMORY_USAGE_CAP) {
-            throw new RuntimeException("Kylin coprocess memory usage goes beyond cap, (40 + " + rowMemBytes + ") * " + size + " > " + MEMORY_USAGE_CAP + ". Abord coprocessor.");
+        return result;
+    }
+
+    public void close() {
+        for (File file : spillFiles) {
+            if (file.delete() == false) {
+                AggregateRegionObserver.LOG.warn("Failed to delete " + file);
+            }
         }
+        spillFiles.clear();
     }
 
+    // ============================================================================
+
+    private interface GroupIterator {
+        boolean next() throws IOException;
+
+        byte[] keyArray();
+
+        int keyOffset();
+
+        MeasureAggregator[] buffer();
+
+        void close();
+    }
+
+    private class MemoryGroupIterator implements GroupIterator {
+        final int[] order;
+        int i = -1;
+        int g;
+
+        MemoryGroupIterator(boolean sorted) {
+            this.order = sorted ? sortedGroups() : null;
+        }
+
+        @Override
+        public boolean next() {
+            if (i + 1 >= size)
+                return false;
+            i++;
+            g = order == null ? i : order[i];
+            return true;
+        }
+
+        @Override
+        public byte[] keyArray() {
+            return keys;
+        }
+
+        @Override
+        public int keyOffset() {
+            return g * keyLength;
+        }
+
+        @Override
+        public MeasureAggregator[] buffer() {
+            return buffers[g];
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private class MergeGroupIterator implements GroupIterator {
+        final PriorityQueue<Run> heap;
+        final List<Run> runs;
+        final byte[] key = new byte[keyLength];
+        MeasureAggregator[] aggBuf;
+
+        MergeGroupIterator(List<Run> runs) throws IOException {
+            this.runs = runs;
+            this.heap = new PriorityQueue<Run>(runs.size(), new Comparator<Run>() {
+                @Override
+                public int compare(Run r1, Run r2) {
+                    return projector.compareKeys(r1.key, 0, r2.key, 0);
+                }
+            });
+            for (Run run : runs) {
+                if (run.advance())
+                    heap.add(run);
+            }
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            if (heap.isEmpty())
+                return false;
+
+            Run top = heap.peek();
+            System.arraycopy(top.key, 0, key, 0, keyLength);
+            aggBuf = aggregators.createBuffer();
+            while (heap.isEmpty() == false && projector.compareKeys(heap.peek().key, 0, key, 0) == 0) {
+                Run run = heap.poll();
+                aggregators.aggregate(aggBuf, run.values);
+                if (run.advance())
+                    heap.add(run);
+            }
+            return true;
+        }
+
+        @Override
+        public byte[] keyArray() {
+            return key;
+        }
+
+        @Override
+        public int keyOffset() {
+            return 0;
+        }
+
+        @Override
+        public MeasureAggregator[] buffer() {
+            return aggBuf;
+        }
+
+        @Override
+        public void close() {
+            for (Run run : runs) {
+                run.close();
+            }
+        }
+    }
+
+    private abstract class Run {
+        final byte[] key = new byte[keyLength];
+        final ByteBuffer[] values = new ByteBuffer[aggregators.getHColsNum()];
+
+        abstract boolean advance() throws IOException;
+
+        void close() {
+        }
+    }
+
+    private class FileRun extends Run {
+        final DataInputStream in;
+
+        FileRun(File file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            try {
+                in.readFully(key);
+            } catch (EOFException e) {
+                return false;
+            }
+            for (int i = 0; i < values.length; i++) {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                values[i] = ByteBuffer.wrap(bytes);
+            }
+            return true;
+        }
+
+        @Override
+        void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                AggregateRegionObserver.LOG.warn("Failed to close spill file", e);
+            }
+        }
+    }
+
+    private class MemoryRun extends Run {
+        final int[] order = sortedGroups();
+        int i = 0;
+
+        @Override
+        boolean advance() {
+            if (i >= order.length)
+                return false;
+            int g = order[i++];
+            System.arraycopy(keys, g * keyLength, key, 0, keyLength);
+            ByteBuffer[] encoded = aggregators.getHColValues(buffers[g]);
+            for (int c = 0; c < values.length; c++) {
+                // the encode buffers are reused, take a copy
+                values[c] = ByteBuffer.wrap(Arrays.copyOf(encoded[c].array(), encoded[c].position()));
+            }
+            return true;
+        }
+    }
+
+    // ============================================================================
+
     private class AggregationRegionScanner implements RegionScanner {
 
         private final RegionScanner innerScanner;
-        private final Iterator<Entry<AggrKey, MeasureAggregator[]>> iterator;
+        private final GroupIterator groups;
+        private boolean hasNext;
 
-        public AggregationRegionScanner(RegionScanner innerScanner) {
+        public AggregationRegionScanner(RegionScanner innerScanner, GroupIterator groups) throws IOException {
             this.innerScanner = innerScanner;
-            this.iterator = aggBufMap.entrySet().iterator();
+            this.groups = groups;
+            this.hasNext = groups.next();
         }
 
         @Override
         public boolean next(List<Cell> results) throws IOException {
             // AggregateRegionObserver.LOG.info("Kylin Scanner next()");
-            boolean hasMore = false;
-            if (iterator.hasNext()) {
-                Entry<AggrKey, MeasureAggregator[]> entry = iterator.next();
-                makeCells(entry, results);
-                hasMore = iterator.hasNext();
+            if (hasNext) {
+                makeCells(groups.keyArray(), groups.keyOffset(), groups.buffer(), results);
+                hasNext = groups.next();
             }
             // AggregateRegionObserver.LOG.info("Kylin Scanner next() done");
-            return hasMore;
+            return hasNext;
         }
 
-        private void makeCells(Entry<AggrKey, MeasureAggregator[]> entry, List<Cell> results) {
+        private void makeCells(byte[] key, int keyOffset, MeasureAggregator[] aggBuf, List<Cell> results) {
             byte[][] families = aggregators.getHColFamilies();
             byte[][] qualifiers = aggregators.getHColQualifiers();
             int nHCols = aggregators.getHColsNum();
 
-            AggrKey rowKey = entry.getKey();
-            MeasureAggregator[] aggBuf = entry.getValue();
             ByteBuffer[] rowValues = aggregators.getHColValues(aggBuf);
 
             if (nHCols == 0) {
-                Cell keyValue = new KeyValue(rowKey.get(), rowKey.offset(), rowKey.length(), //
+                Cell keyValue = new KeyValue(key, keyOffset, keyLength, //
                         null, 0, 0, //
                         null, 0, 0, //
                         HConstants.LATEST_TIMESTAMP, Type.Put, //
@@ -130,7 +501,7 @@ public class AggregationCache {
                 results.add(keyValue);
             } else {
                 for (int i = 0; i < nHCols; i++) {
-                    Cell keyValue = new KeyValue(rowKey.get(), rowKey.offset(), rowKey.length(), //
+                    Cell keyValue = new KeyValue(key, keyOffset, keyLength, //
                             families[i], 0, families[i].length, //
                             qualifiers[i], 0, qualifiers[i].length, //
                             HConstants.LATEST_TIMESTAMP, Type.Put, //
@@ -158,6 +529,8 @@ public class AggregationCache {
         @Override
         public void close() throws IOException {
             // AggregateRegionObserver.LOG.info("Kylin Scanner close()");
+            groups.close();
+            AggregationCache.this.close();
             innerScanner.close();
             // AggregateRegionObserver.LOG.info("Kylin Scanner close() done");
         }
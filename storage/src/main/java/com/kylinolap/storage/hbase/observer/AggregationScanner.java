@@ -36,30 +36,65 @@ public class AggregationScanner implements RegionScanner {
     private RegionScanner outerScanner;
 
     public AggregationScanner(SRowType type, SRowFilter filter, SRowProjector groupBy, SRowAggregators aggrs, RegionScanner innerScanner) throws IOException {
+        this(type, filter, groupBy, aggrs, innerScanner, AggregationCache.MEMORY_USAGE_CAP, true);
+    }
+
+    public AggregationScanner(SRowType type, SRowFilter filter, SRowProjector groupBy, SRowAggregators aggrs, RegionScanner innerScanner, long memoryBudget, boolean sortedOutput) throws IOException {
+        this(type, filter, groupBy, aggrs, innerScanner, memoryBudget, sortedOutput, 0);
+    }
+
+    /**
+     * @param flushRows
+     *            if positive, aggregation is streamed: partial results are
+     *            flushed whenever the cache reaches flushRows groups or the
+     *            memory budget, and the client is expected to merge groups
+     *            repeating across batches
+     */
+    public AggregationScanner(SRowType type, SRowFilter filter, SRowProjector groupBy, SRowAggregators aggrs, RegionScanner innerScanner, long memoryBudget, boolean sortedOutput, int flushRows) throws IOException {
 
         AggregateRegionObserver.LOG.info("Kylin Coprocessor start");
 
+        if (flushRows > 0) {
+            this.outerScanner = new StreamingScanner(innerScanner, type, groupBy, aggrs, filter, memoryBudget, sortedOutput, flushRows);
+            return;
+        }
+
         AggregationCache aggCache;
         Stats stats = new Stats();
 
-        aggCache = buildAggrCache(innerScanner, type, groupBy, aggrs, filter, stats);
+        aggCache = buildAggrCache(innerScanner, type, groupBy, aggrs, filter, memoryBudget, stats);
         stats.countOutputRow(aggCache.getSize());
-        this.outerScanner = aggCache.getScanner(innerScanner);
+        stats.countSpill(aggCache.getSpillCount());
+        this.outerScanner = aggCache.getScanner(innerScanner, sortedOutput);
 
         AggregateRegionObserver.LOG.info("Kylin Coprocessor aggregation done: " + stats);
     }
 
-    @SuppressWarnings("rawtypes")
-    AggregationCache buildAggrCache(final RegionScanner innerScanner, SRowType type, SRowProjector projector, SRowAggregators aggregators, SRowFilter filter, Stats stats) throws IOException {
+    AggregationCache buildAggrCache(final RegionScanner innerScanner, SRowType type, SRowProjector projector, SRowAggregators aggregators, SRowFilter filter, long memoryBudget, Stats stats) throws IOException {
 
-        AggregationCache aggCache = new AggregationCache(aggregators, 0);
+        AggregationCache aggCache = new AggregationCache(projector, aggregators, memoryBudget);
+        aggregate(innerScanner, new SRowTuple(type), projector, aggregators, filter, aggCache, 0, stats);
+        return aggCache;
+    }
 
-        SRowTuple tuple = new SRowTuple(type);
+    /**
+     * Feeds rows from inner scanner into the cache. With a positive flushRows,
+     * stops once the cache is full (by group count or memory), otherwise
+     * consumes all rows and lets the cache spill.
+     * <p>
+     * A streamed batch is read long after the observer returns, out of the
+     * region operation and the lock on the scanner that nextRaw() requires,
+     * so it reads by next() which takes both by itself.
+     * 
+     * @return true if the inner scanner has more rows
+     */
+    @SuppressWarnings("rawtypes")
+    static boolean aggregate(RegionScanner innerScanner, SRowTuple tuple, SRowProjector projector, SRowAggregators aggregators, SRowFilter filter, AggregationCache aggCache, int flushRows, Stats stats) throws IOException {
         boolean hasMore = true;
         List<Cell> results = new ArrayList<Cell>();
         while (hasMore) {
             results.clear();
-            hasMore = innerScanner.nextRaw(results);
+            hasMore = flushRows > 0 ? innerScanner.next(results) : innerScanner.nextRaw(results);
             if (results.isEmpty())
                 continue;
 
@@ -75,9 +110,131 @@ public class AggregationScanner implements RegionScanner {
             MeasureAggregator[] bufs = aggCache.getBuffer(aggKey);
             aggregators.aggregate(bufs, results);
 
-            aggCache.checkMemoryUsage();
+            if (flushRows > 0) {
+                if (aggCache.isFull() || aggCache.getSize() >= flushRows)
+                    break;
+            } else {
+                aggCache.checkMemoryUsage();
+            }
+        }
+        return hasMore;
+    }
+
+    /**
+     * Aggregates the inner scanner batch by batch, so the first rows reach the
+     * client before the region is fully scanned, and a client closing the
+     * scanner early (e.g. limit reached) saves the rest of the scan.
+     */
+    private static class StreamingScanner implements RegionScanner {
+
+        final RegionScanner inner;
+        final SRowTuple tuple;
+        final SRowProjector projector;
+        final SRowAggregators aggregators;
+        final SRowFilter filter;
+        final long memoryBudget;
+        final boolean sortedOutput;
+        final int flushRows;
+        final Stats stats = new Stats();
+
+        boolean innerHasMore = true;
+        AggregationCache batchCache;
+        RegionScanner batch;
+
+        StreamingScanner(RegionScanner innerScanner, SRowType type, SRowProjector projector, SRowAggregators aggregators, SRowFilter filter, long memoryBudget, boolean sortedOutput, int flushRows) {
+            this.inner = innerScanner;
+            this.tuple = new SRowTuple(type);
+            this.projector = projector;
+            this.aggregators = aggregators;
+            this.filter = filter;
+            this.memoryBudget = memoryBudget;
+            this.sortedOutput = sortedOutput;
+            this.flushRows = flushRows;
+        }
+
+        @Override
+        public boolean next(List<Cell> results) throws IOException {
+            while (true) {
+                if (batch != null) {
+                    boolean batchHasMore = batch.next(results);
+                    if (batchHasMore == false)
+                        closeBatch();
+                    if (results.isEmpty() == false)
+                        return batch != null || innerHasMore;
+                }
+                if (innerHasMore == false) {
+                    AggregateRegionObserver.LOG.info("Kylin Coprocessor streaming aggregation done: " + stats);
+                    return false;
+                }
+                nextBatch();
+            }
+        }
+
+        private void nextBatch() throws IOException {
+            batchCache = new AggregationCache(projector, aggregators, memoryBudget);
+            innerHasMore = aggregate(inner, tuple, projector, aggregators, filter, batchCache, flushRows, stats);
+            stats.countOutputRow(batchCache.getSize());
+            stats.countFlush();
+            // the batch scanner is only drained, never closed, for it would close inner scanner too
+            batch = batchCache.getScanner(inner, sortedOutput);
+        }
+
+        private void closeBatch() {
+            batch = null;
+            if (batchCache != null) {
+                batchCache.close();
+                batchCache = null;
+            }
+        }
+
+        @Override
+        public boolean next(List<Cell> result, int limit) throws IOException {
+            return next(result);
+        }
+
+        @Override
+        public boolean nextRaw(List<Cell> result) throws IOException {
+            return next(result);
+        }
+
+        @Override
+        public boolean nextRaw(List<Cell> result, int limit) throws IOException {
+            return next(result);
+        }
+
+        @Override
+        public void close() throws IOException {
+            closeBatch();
+            inner.close();
+        }
+
+        @Override
+        public HRegionInfo getRegionInfo() {
+            return inner.getRegionInfo();
+        }
+
+        @Override
+        public boolean isFilterDone() throws IOException {
+            return false;
+        }
+
+        @Override
+        public boolean reseek(byte[] row) throws IOException {
+            // groups of the current batch are dropped, next batch aggregates from row on
+            closeBatch();
+            innerHasMore = true;
+            return inner.reseek(row);
+        }
+
+        @Override
+        public long getMaxResultSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public long getMvccReadPoint() {
+            return Long.MAX_VALUE;
         }
-        return aggCache;
     }
 
     @Override
@@ -134,6 +291,8 @@ public class AggregationScanner implements RegionScanner {
         long inputRows = 0;
         long inputBytes = 0;
         long outputRows = 0;
+        int spills = 0;
+        int flushes = 0;
 
         // have no outputBytes because that requires actual serialize all the
         // aggregator buffers
@@ -150,9 +309,17 @@ public class AggregationScanner implements RegionScanner {
             outputRows += rowCount;
         }
 
+        public void countSpill(int spillCount) {
+            spills += spillCount;
+        }
+
+        public void countFlush() {
+            flushes++;
+        }
+
         public String toString() {
             double percent = (double) outputRows / inputRows * 100;
-            return Math.round(percent) + "% = " + outputRows + " (out rows) / " + inputRows + " (in rows); in bytes = " + inputBytes + "; est. out bytes = " + Math.round(inputBytes * percent / 100);
+            return Math.round(percent) + "% = " + outputRows + " (out rows) / " + inputRows + " (in rows); in bytes = " + inputBytes + "; est. out bytes = " + Math.round(inputBytes * percent / 100) + "; spills = " + spills + "; flushes = " + flushes;
         }
     }
 }
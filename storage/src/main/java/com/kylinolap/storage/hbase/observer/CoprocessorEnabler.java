@@ -25,6 +25,7 @@ import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,7 +54,7 @@ public class CoprocessorEnabler {
     static final Map<String, Boolean> CUBE_OVERRIDES = Maps.newConcurrentMap();
 
     public static ResultScanner scanWithCoprocessorIfBeneficial(CubeSegment segment, Cuboid cuboid, TupleFilter tupleFiler, //
-            Collection<TblColRef> groupBy, Collection<RowValueDecoder> rowValueDecoders, StorageContext context, HTableInterface table, Scan scan) throws IOException {
+            Collection<TblColRef> groupBy, Collection<TblColRef> dimensions, Collection<RowValueDecoder> rowValueDecoders, StorageContext context, HTableInterface table, Scan scan) throws IOException {
 
         if (context.isCoprocessorEnabled() == false) {
             return table.getScanner(scan);
@@ -61,7 +62,7 @@ public class CoprocessorEnabler {
 
         SRowType type = SRowType.fromCuboid(segment, cuboid);
         SRowFilter filter = SRowFilter.fromFilter(segment, tupleFiler);
-        SRowProjector projector = SRowProjector.fromColumns(segment, cuboid, groupBy);
+        SRowProjector projector = newProjector(segment, cuboid, groupBy, dimensions);
         SRowAggregators aggrs = SRowAggregators.fromValuDecoders(rowValueDecoders);
 
         if (DEBUG_LOCAL_COPROCESSOR) {
@@ -74,10 +75,52 @@ public class CoprocessorEnabler {
             scan.setAttribute(AggregateRegionObserver.PROJECTOR, SRowProjector.serialize(projector));
             scan.setAttribute(AggregateRegionObserver.AGGREGATORS, SRowAggregators.serialize(aggrs));
             scan.setAttribute(AggregateRegionObserver.FILTER, SRowFilter.serialize(filter));
+            int flushRows = getFlushRows(segment, context);
+            if (flushRows > 0) {
+                scan.setAttribute(AggregateRegionObserver.FLUSH_ROWS, Bytes.toBytes(flushRows));
+            }
+            setOutputOrder(scan, context);
             return table.getScanner(scan);
         }
     }
 
+    /**
+     * In compact mode, rows returned carry only the group by columns and the
+     * other dimensions (e.g. on filter) the client needs. Client expands them
+     * by a projector made the same way.
+     */
+    public static SRowProjector newProjector(CubeSegment segment, Cuboid cuboid, Collection<TblColRef> groupBy, Collection<TblColRef> dimensions) {
+        if (segment.getCubeInstance().getConfig().isCoprocessorCompactRowsEnabled())
+            return SRowProjector.fromColumns(segment, cuboid, groupBy, dimensions);
+        else
+            return SRowProjector.fromColumns(segment, cuboid, groupBy);
+    }
+
+    /**
+     * Partial aggregates are merged again by the query engine, since
+     * coprocessor is only on for non-exact aggregation unless forced. When
+     * limit is enabled, groups are final already, and flushing every limit
+     * rows lets the client stop the region scan early.
+     */
+    private static int getFlushRows(CubeSegment segment, StorageContext context) {
+        int flushRows = segment.getCubeInstance().getConfig().getCoprocessorFlushRows();
+        if (context.isLimitEnabled() && context.getLimit() > 0) {
+            flushRows = flushRows > 0 ? Math.min(flushRows, context.getLimit()) : context.getLimit();
+        }
+        return flushRows;
+    }
+
+    /**
+     * Sorting the groups costs the region server, and the query engine merges
+     * rows by hash anyway. Key order is kept only when the query sorts, the
+     * same condition limit push down checks.
+     */
+    static void setOutputOrder(Scan scan, StorageContext context) {
+        if (context.hasSort() == false) {
+            scan.setAttribute(AggregateRegionObserver.UNSORTED_OUTPUT, new byte[] { 0x01 });
+        }
+    }
+
     public static void enableCoprocessorIfBeneficial(CubeInstance cube, Collection<TblColRef> groupBy, Collection<RowValueDecoder> rowValueDecoders, StorageContext context) {
         if (isCoprocessorBeneficial(cube, groupBy, rowValueDecoders, context)) {
             context.enableCoprocessor();
@@ -178,6 +178,27 @@ public class SRowAggregators {
         }
     }
 
+    /**
+     * aggregate encoded partial results, e.g. read back from a spilled run,
+     * values are per HBase column in the order of getHColFamilies()
+     */
+    public void aggregate(MeasureAggregator[] measureAggrs, ByteBuffer[] hColValues) {
+        int i = 0;
+        for (int ci = 0; ci < nHCols; ci++) {
+            HCol col = hcols[ci];
+            ByteBuffer input = hColValues[ci];
+
+            if (input == null) {
+                i += col.nMeasures;
+                continue;
+            }
+
+            col.measureCodec.decode(input, col.measureValues);
+            for (int j = 0; j < col.nMeasures; j++)
+                measureAggrs[i++].aggregate(col.measureValues[j]);
+        }
+    }
+
     private Cell findCell(HCol col, List<Cell> cells) {
         // cells are ordered by timestamp asc, thus search from back, first hit
         // is the latest version
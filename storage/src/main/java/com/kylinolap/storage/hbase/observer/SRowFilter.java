@@ -44,131 +44,166 @@ public class SRowFilter {
 
     public static SRowFilter fromFilter(final CubeSegment seg, TupleFilter rootFilter) {
         // translate constants into dictionary IDs via a serialize copy
-        byte[] bytes = TupleFilterSerializer.serialize(rootFilter, new Decorator() {
+        byte[] bytes = TupleFilterSerializer.serialize(rootFilter, new DictIdTranslator() {
             RowKeyColumnIO columnIO = new RowKeyColumnIO(seg);
 
             @Override
-            public TupleFilter onSerialize(TupleFilter filter) {
-                if (filter == null)
-                    return filter;
-                
-                if (filter.getOperator() == FilterOperatorEnum.NOT && TupleFilter.isEvaluableRecursively(filter) == false)
-                    return ConstantTupleFilter.TRUE;
-
-                if ((filter instanceof CompareTupleFilter) == false)
-                    return filter;
-
-                if (TupleFilter.isEvaluableRecursively(filter) == false)
-                    return ConstantTupleFilter.TRUE;
-
-                // extract ColumnFilter & ConstantFilter
-                CompareTupleFilter compf = (CompareTupleFilter) filter;
-                TblColRef col = compf.getColumn();
-                if (col == null) {
-                    return filter;
-                }
-                String nullString = nullString(col);
-                Collection<String> constValues = compf.getValues();
-                if (constValues == null || constValues.isEmpty()) {
-                    compf.setNullString(nullString); // maybe ISNULL
-                    return filter;
-                }
-
-                TupleFilter result;
-                CompareTupleFilter newComp = new CompareTupleFilter(compf.getOperator());
-                newComp.setNullString(nullString);
-                newComp.addChild(new ColumnTupleFilter(col));
-                String v;
-                String firstValue = constValues.iterator().next();
-
-                // translate constant into rowkey ID
-                switch (newComp.getOperator()) {
-                case EQ:
-                case IN:
-                    Set<String> newValues = Sets.newHashSet();
-                    for (String value : constValues) {
-                        v = translate(col, value, 0);
-                        if (nullString.equals(v) == false)
-                            newValues.add(v);
-                    }
-                    if (newValues.isEmpty()) {
-                        result = ConstantTupleFilter.FALSE;
-                    } else {
-                        newComp.addChild(new ConstantTupleFilter(newValues));
-                        result = newComp;
-                    }
-                    break;
-                case NEQ:
-                    v = translate(col, firstValue, 0);
-                    if (nullString.equals(v)) {
-                        result = ConstantTupleFilter.TRUE;
-                    } else {
-                        newComp.addChild(new ConstantTupleFilter(v));
-                        result = newComp;
-                    }
-                    break;
-                case LT:
-                    v = translate(col, firstValue, 1);
-                    if (nullString.equals(v)) {
-                        result = ConstantTupleFilter.TRUE;
-                    } else {
-                        newComp.addChild(new ConstantTupleFilter(v));
-                        result = newComp;
-                    }
-                    break;
-                case LTE:
-                    v = translate(col, firstValue, -1);
-                    if (nullString.equals(v)) {
-                        result = ConstantTupleFilter.FALSE;
-                    } else {
-                        newComp.addChild(new ConstantTupleFilter(v));
-                        result = newComp;
-                    }
-                    break;
-                case GT:
-                    v = translate(col, firstValue, -1);
-                    if (nullString.equals(v)) {
-                        result = ConstantTupleFilter.TRUE;
-                    } else {
-                        newComp.addChild(new ConstantTupleFilter(v));
-                        result = newComp;
-                    }
-                    break;
-                case GTE:
-                    v = translate(col, firstValue, 1);
-                    if (nullString.equals(v)) {
-                        result = ConstantTupleFilter.FALSE;
-                    } else {
-                        newComp.addChild(new ConstantTupleFilter(v));
-                        result = newComp;
-                    }
-                    break;
-                default:
-                    throw new IllegalStateException("Cannot handle operator " + newComp.getOperator());
-                }
-                return result;
+            protected int getColumnLength(TblColRef column) {
+                return columnIO.getColumnLength(column);
             }
 
-            private String nullString(TblColRef column) {
-                byte[] id = new byte[columnIO.getColumnLength(column)];
-                for (int i = 0; i < id.length; i++) {
-                    id[i] = Dictionary.NULL;
-                }
-                return Dictionary.dictIdToString(id, 0, id.length);
-            }
-
-            private String translate(TblColRef column, String v, int roundingFlag) {
+            @Override
+            protected String translate(TblColRef column, String v, int roundingFlag) {
                 byte[] value = Bytes.toBytes(v);
                 byte[] id = new byte[columnIO.getColumnLength(column)];
                 columnIO.writeColumn(column, value, value.length, roundingFlag, Dictionary.NULL, id, 0);
                 return Dictionary.dictIdToString(id, 0, id.length);
             }
-
         });
         TupleFilter copy = TupleFilterSerializer.deserialize(bytes);
         return new SRowFilter(copy);
     }
 
+    /**
+     * Translates compare constants into dictionary IDs (in form of
+     * Dictionary.dictIdToString()), filters unable to translate are relaxed to
+     * TRUE.
+     */
+    public static abstract class DictIdTranslator implements Decorator {
+
+        @Override
+        public TupleFilter onSerialize(TupleFilter filter) {
+            if (filter == null)
+                return filter;
+
+            if (filter.getOperator() == FilterOperatorEnum.NOT && (TupleFilter.isEvaluableRecursively(filter) == false || isTranslatableRecursively(filter) == false))
+                return ConstantTupleFilter.TRUE;
+
+            if ((filter instanceof CompareTupleFilter) == false)
+                return filter;
+
+            if (TupleFilter.isEvaluableRecursively(filter) == false)
+                return ConstantTupleFilter.TRUE;
+
+            // extract ColumnFilter & ConstantFilter
+            CompareTupleFilter compf = (CompareTupleFilter) filter;
+            TblColRef col = compf.getColumn();
+            if (col == null) {
+                return filter;
+            }
+            if (isTranslatable(col) == false) {
+                return ConstantTupleFilter.TRUE;
+            }
+            String nullString = nullString(col);
+            Collection<String> constValues = compf.getValues();
+            if (constValues == null || constValues.isEmpty()) {
+                compf.setNullString(nullString); // maybe ISNULL
+                return filter;
+            }
+
+            TupleFilter result;
+            CompareTupleFilter newComp = new CompareTupleFilter(compf.getOperator());
+            newComp.setNullString(nullString);
+            newComp.addChild(new ColumnTupleFilter(col));
+            String v;
+            String firstValue = constValues.iterator().next();
+
+            // translate constant into rowkey ID
+            switch (newComp.getOperator()) {
+            case EQ:
+            case IN:
+                Set<String> newValues = Sets.newHashSet();
+                for (String value : constValues) {
+                    v = translate(col, value, 0);
+                    if (nullString.equals(v) == false)
+                        newValues.add(v);
+                }
+                if (newValues.isEmpty()) {
+                    result = ConstantTupleFilter.FALSE;
+                } else {
+                    newComp.addChild(new ConstantTupleFilter(newValues));
+                    result = newComp;
+                }
+                break;
+            case NEQ:
+                v = translate(col, firstValue, 0);
+                if (nullString.equals(v)) {
+                    result = ConstantTupleFilter.TRUE;
+                } else {
+                    newComp.addChild(new ConstantTupleFilter(v));
+                    result = newComp;
+                }
+                break;
+            case LT:
+                v = translate(col, firstValue, 1);
+                if (nullString.equals(v)) {
+                    result = ConstantTupleFilter.TRUE;
+                } else {
+                    newComp.addChild(new ConstantTupleFilter(v));
+                    result = newComp;
+                }
+                break;
+            case LTE:
+                v = translate(col, firstValue, -1);
+                if (nullString.equals(v)) {
+                    result = ConstantTupleFilter.FALSE;
+                } else {
+                    newComp.addChild(new ConstantTupleFilter(v));
+                    result = newComp;
+                }
+                break;
+            case GT:
+                v = translate(col, firstValue, -1);
+                if (nullString.equals(v)) {
+                    result = ConstantTupleFilter.TRUE;
+                } else {
+                    newComp.addChild(new ConstantTupleFilter(v));
+                    result = newComp;
+                }
+                break;
+            case GTE:
+                v = translate(col, firstValue, 1);
+                if (nullString.equals(v)) {
+                    result = ConstantTupleFilter.FALSE;
+                } else {
+                    newComp.addChild(new ConstantTupleFilter(v));
+                    result = newComp;
+                }
+                break;
+            default:
+                throw new IllegalStateException("Cannot handle operator " + newComp.getOperator());
+            }
+            return result;
+        }
+
+        private boolean isTranslatableRecursively(TupleFilter filter) {
+            if (filter instanceof ColumnTupleFilter && isTranslatable(((ColumnTupleFilter) filter).getColumn()) == false)
+                return false;
+            for (TupleFilter child : filter.getChildren()) {
+                if (isTranslatableRecursively(child) == false)
+                    return false;
+            }
+            return true;
+        }
+
+        private String nullString(TblColRef column) {
+            byte[] id = new byte[getColumnLength(column)];
+            for (int i = 0; i < id.length; i++) {
+                id[i] = Dictionary.NULL;
+            }
+            return Dictionary.dictIdToString(id, 0, id.length);
+        }
+
+        /** whether constants on the column can be translated, true by default */
+        protected boolean isTranslatable(TblColRef column) {
+            return true;
+        }
+
+        protected abstract int getColumnLength(TblColRef column);
+
+        protected abstract String translate(TblColRef column, String v, int roundingFlag);
+    }
+
     public static byte[] serialize(SRowFilter o) {
         return (o.filter == null) ? BytesUtil.EMPTY_BYTE_ARRAY : TupleFilterSerializer.serialize(o.filter);
     }
@@ -184,6 +219,10 @@ public class SRowFilter {
 
     protected final TupleFilter filter;
 
+    // compiled for the row type last seen, see SRowFilterCompiler
+    private SRowType compiledType;
+    private SRowFilterCompiler.CompiledFilter compiled;
+
     protected SRowFilter(TupleFilter filter) {
         this.filter = filter;
     }
@@ -195,4 +234,19 @@ public class SRowFilter {
             return filter.evaluate(tuple);
     }
 
+    /**
+     * evaluates on row key bytes directly, without converting column values
+     * into String
+     */
+    public boolean evaluate(SRowTuple tuple) {
+        if (filter == null)
+            return true;
+
+        if (compiledType != tuple.type) {
+            compiled = SRowFilterCompiler.compile(filter, tuple.type);
+            compiledType = tuple.type;
+        }
+        return compiled.evaluate(tuple);
+    }
+
 }
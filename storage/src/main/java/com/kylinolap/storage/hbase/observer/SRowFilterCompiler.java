@@ -0,0 +1,398 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.storage.hbase.observer;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.hadoop.hbase.util.Bytes;
+
+import com.kylinolap.metadata.model.cube.TblColRef;
+import com.kylinolap.storage.filter.ColumnTupleFilter;
+import com.kylinolap.storage.filter.CompareTupleFilter;
+import com.kylinolap.storage.filter.ConstantTupleFilter;
+import com.kylinolap.storage.filter.LogicalTupleFilter;
+import com.kylinolap.storage.filter.TupleFilter;
+
+/**
+ * Compiles a filter, whose constants are translated into dictionary IDs by
+ * SRowFilter.DictIdTranslator, into comparisons on the fixed-width column
+ * bytes of row key. No String is created per row.
+ *
+ * Columns up to 4 bytes are compared as unsigned integer IDs, IN / NOTIN go
+ * to a bitset if the IDs are dense, or a sorted array otherwise. Longer
+ * columns are compared as unsigned bytes, the same order as the String
+ * compare of Dictionary.dictIdToString(). A sub-filter that cannot be
+ * compiled is evaluated on SRowTuple as before.
+ *
+ * @see CompareTupleFilter#evaluate(com.kylinolap.storage.tuple.ITuple)
+ */
+public class SRowFilterCompiler {
+
+    // max span of IDs in a bitset, 8 KB
+    private static final int MAX_BITSET_RANGE = 1 << 16;
+
+    public static abstract class CompiledFilter {
+        public abstract boolean evaluate(SRowTuple tuple);
+    }
+
+    public static CompiledFilter compile(TupleFilter filter, SRowType type) {
+        if (filter instanceof ConstantTupleFilter) {
+            return new ConstantNode(filter.getValues().size() > 0);
+        }
+
+        if (filter instanceof LogicalTupleFilter) {
+            List<? extends TupleFilter> children = filter.getChildren();
+            CompiledFilter[] compiledChildren = new CompiledFilter[children.size()];
+            for (int i = 0; i < compiledChildren.length; i++) {
+                compiledChildren[i] = compile(children.get(i), type);
+            }
+            switch (filter.getOperator()) {
+            case AND:
+                return new AndNode(compiledChildren);
+            case OR:
+                return new OrNode(compiledChildren);
+            case NOT:
+                return new NotNode(compiledChildren[0]);
+            default:
+                return new ConstantNode(false);
+            }
+        }
+
+        if (filter instanceof CompareTupleFilter) {
+            CompiledFilter result = compileCompare((CompareTupleFilter) filter, type);
+            if (result != null)
+                return result;
+        }
+
+        return new FallbackNode(filter);
+    }
+
+    private static CompiledFilter compileCompare(CompareTupleFilter compf, SRowType type) {
+        TblColRef column = compf.getColumn();
+        if (column == null || type.columnIdxMap.containsKey(column) == false || compf.isEvaluable() == false)
+            return null;
+
+        // only COLUMN {op} CONST, dynamic variables and others are left to fallback
+        for (TupleFilter child : compf.getChildren()) {
+            if ((child instanceof ColumnTupleFilter) == false && (child instanceof ConstantTupleFilter) == false)
+                return null;
+        }
+
+        switch (compf.getOperator()) {
+        case EQ:
+        case NEQ:
+        case LT:
+        case LTE:
+        case GT:
+        case GTE:
+        case IN:
+        case NOTIN:
+            break;
+        default:
+            return null;
+        }
+
+        // always false if compare to null
+        String nullString = compf.getNullString();
+        if (nullString != null && nullString.equals(compf.getFirstValue()))
+            return new ConstantNode(false);
+
+        int col = type.columnIdxMap.get(column);
+        int offset = type.columnOffsets[col];
+        int length = type.columnSizes[col];
+        byte[] nullBytes = nullString == null ? null : toBytes(nullString);
+        byte[] first = toBytes(compf.getFirstValue());
+        Collection<String> values = compf.getValues();
+        byte[][] valueBytes = new byte[values.size()][];
+        int i = 0;
+        for (String v : values) {
+            valueBytes[i++] = toBytes(v);
+        }
+
+        boolean asId = length <= 4 && first.length == length && (nullBytes == null || nullBytes.length == length);
+        for (byte[] v : valueBytes) {
+            asId = asId && v.length == length;
+        }
+
+        switch (compf.getOperator()) {
+        case IN:
+        case NOTIN:
+            boolean in = compf.getOperator() == TupleFilter.FilterOperatorEnum.IN;
+            if (asId) {
+                long[] ids = new long[valueBytes.length];
+                for (int j = 0; j < ids.length; j++) {
+                    ids[j] = readId(valueBytes[j], 0, length);
+                }
+                Arrays.sort(ids);
+                if (ids[ids.length - 1] - ids[0] < MAX_BITSET_RANGE)
+                    return new IdBitSetNode(offset, length, nullBytes, in, ids);
+                else
+                    return new IdArrayNode(offset, length, nullBytes, in, ids);
+            } else {
+                Arrays.sort(valueBytes, Bytes.BYTES_COMPARATOR);
+                return new BytesArrayNode(offset, length, nullBytes, in, valueBytes);
+            }
+        default:
+            if (asId)
+                return new IdCompareNode(offset, length, nullBytes, compf.getOperator(), readId(first, 0, length));
+            else
+                return new BytesCompareNode(offset, length, nullBytes, compf.getOperator(), first);
+        }
+    }
+
+    private static byte[] toBytes(String dictIdString) {
+        try {
+            return dictIdString.getBytes("ISO-8859-1"); // reverse of Dictionary.dictIdToString()
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e); // never happen
+        }
+    }
+
+    // unsigned, up to 4 bytes
+    private static long readId(byte[] bytes, int offset, int length) {
+        long id = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            id = (id << 8) | (bytes[i] & 0xff);
+        }
+        return id;
+    }
+
+    private static boolean compareResult(TupleFilter.FilterOperatorEnum op, int comp) {
+        switch (op) {
+        case EQ:
+            return comp == 0;
+        case NEQ:
+            return comp != 0;
+        case LT:
+            return comp < 0;
+        case LTE:
+            return comp <= 0;
+        case GT:
+            return comp > 0;
+        case GTE:
+            return comp >= 0;
+        default:
+            return false;
+        }
+    }
+
+    // ============================================================================
+
+    private static class ConstantNode extends CompiledFilter {
+        final boolean result;
+
+        ConstantNode(boolean result) {
+            this.result = result;
+        }
+
+        @Override
+        public boolean evaluate(SRowTuple tuple) {
+            return result;
+        }
+    }
+
+    private static class AndNode extends CompiledFilter {
+        final CompiledFilter[] children;
+
+        AndNode(CompiledFilter[] children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean evaluate(SRowTuple tuple) {
+            for (CompiledFilter child : children) {
+                if (child.evaluate(tuple) == false)
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    private static class OrNode extends CompiledFilter {
+        final CompiledFilter[] children;
+
+        OrNode(CompiledFilter[] children) {
+            this.children = children;
+        }
+
+        @Override
+        public boolean evaluate(SRowTuple tuple) {
+            for (CompiledFilter child : children) {
+                if (child.evaluate(tuple))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    private static class NotNode extends CompiledFilter {
+        final CompiledFilter child;
+
+        NotNode(CompiledFilter child) {
+            this.child = child;
+        }
+
+        @Override
+        public boolean evaluate(SRowTuple tuple) {
+            return child.evaluate(tuple) == false;
+        }
+    }
+
+    private static class FallbackNode extends CompiledFilter {
+        final TupleFilter filter;
+
+        FallbackNode(TupleFilter filter) {
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean evaluate(SRowTuple tuple) {
+            return filter.evaluate(tuple);
+        }
+    }
+
+    private static abstract class ColumnNode extends CompiledFilter {
+        final int offset;
+        final int length;
+        final byte[] nullBytes;
+
+        ColumnNode(int offset, int length, byte[] nullBytes) {
+            this.offset = offset;
+            this.length = length;
+            this.nullBytes = nullBytes;
+        }
+
+        @Override
+        public boolean evaluate(SRowTuple tuple) {
+            byte[] row = tuple.rowkey.get();
+            int o = tuple.rowkey.getOffset() + offset;
+            // null compares to nothing
+            if (nullBytes != null && Bytes.equals(row, o, length, nullBytes, 0, nullBytes.length))
+                return false;
+            return evaluate(row, o);
+        }
+
+        abstract boolean evaluate(byte[] row, int o);
+    }
+
+    private static class IdCompareNode extends ColumnNode {
+        final TupleFilter.FilterOperatorEnum op;
+        final long id;
+
+        IdCompareNode(int offset, int length, byte[] nullBytes, TupleFilter.FilterOperatorEnum op, long id) {
+            super(offset, length, nullBytes);
+            this.op = op;
+            this.id = id;
+        }
+
+        @Override
+        boolean evaluate(byte[] row, int o) {
+            long v = readId(row, o, length);
+            return compareResult(op, v < id ? -1 : (v == id ? 0 : 1));
+        }
+    }
+
+    private static class IdBitSetNode extends ColumnNode {
+        final boolean in;
+        final long min;
+        final BitSet bits;
+
+        IdBitSetNode(int offset, int length, byte[] nullBytes, boolean in, long[] sortedIds) {
+            super(offset, length, nullBytes);
+            this.in = in;
+            this.min = sortedIds[0];
+            this.bits = new BitSet((int) (sortedIds[sortedIds.length - 1] - min + 1));
+            for (long id : sortedIds) {
+                bits.set((int) (id - min));
+            }
+        }
+
+        @Override
+        boolean evaluate(byte[] row, int o) {
+            long i = readId(row, o, length) - min;
+            boolean found = i >= 0 && i < MAX_BITSET_RANGE && bits.get((int) i);
+            return found == in;
+        }
+    }
+
+    private static class IdArrayNode extends ColumnNode {
+        final boolean in;
+        final long[] sortedIds;
+
+        IdArrayNode(int offset, int length, byte[] nullBytes, boolean in, long[] sortedIds) {
+            super(offset, length, nullBytes);
+            this.in = in;
+            this.sortedIds = sortedIds;
+        }
+
+        @Override
+        boolean evaluate(byte[] row, int o) {
+            boolean found = Arrays.binarySearch(sortedIds, readId(row, o, length)) >= 0;
+            return found == in;
+        }
+    }
+
+    private static class BytesCompareNode extends ColumnNode {
+        final TupleFilter.FilterOperatorEnum op;
+        final byte[] value;
+
+        BytesCompareNode(int offset, int length, byte[] nullBytes, TupleFilter.FilterOperatorEnum op, byte[] value) {
+            super(offset, length, nullBytes);
+            this.op = op;
+            this.value = value;
+        }
+
+        @Override
+        boolean evaluate(byte[] row, int o) {
+            return compareResult(op, Bytes.compareTo(row, o, length, value, 0, value.length));
+        }
+    }
+
+    private static class BytesArrayNode extends ColumnNode {
+        final boolean in;
+        final byte[][] sortedValues;
+
+        BytesArrayNode(int offset, int length, byte[] nullBytes, boolean in, byte[][] sortedValues) {
+            super(offset, length, nullBytes);
+            this.in = in;
+            this.sortedValues = sortedValues;
+        }
+
+        @Override
+        boolean evaluate(byte[] row, int o) {
+            int low = 0;
+            int high = sortedValues.length - 1;
+            boolean found = false;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int comp = Bytes.compareTo(sortedValues[mid], 0, sortedValues[mid].length, row, o, length);
+                if (comp < 0) {
+                    low = mid + 1;
+                } else if (comp > 0) {
+                    high = mid - 1;
+                } else {
+                    found = true;
+                    break;
+                }
+            }
+            return found == in;
+        }
+    }
+}
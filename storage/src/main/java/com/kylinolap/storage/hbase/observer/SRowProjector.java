@@ -22,38 +22,87 @@ import java.util.Collection;
 import java.util.List;
 
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.util.Bytes;
 
 import com.kylinolap.common.util.BytesSerializer;
 import com.kylinolap.common.util.BytesUtil;
 import com.kylinolap.cube.CubeSegment;
 import com.kylinolap.cube.cuboid.Cuboid;
+import com.kylinolap.cube.kv.RowConstants;
 import com.kylinolap.cube.kv.RowKeyEncoder;
+import com.kylinolap.cube.kv.RowKeyShard;
+import com.kylinolap.dict.Dictionary;
 import com.kylinolap.metadata.model.cube.TblColRef;
 
 /**
+ * Projects row keys into group-by keys of the aggregation coprocessor.
+ * 
+ * By default a group key is as wide as the row key, columns not grouped are
+ * just masked out when hashing and comparing. In compact mode, a group key
+ * packs only the grouped columns, followed by the carried columns (needed by
+ * client but not grouped, value of any row of the group will do), and starts
+ * with COMPACT_ROW_MARKER instead of cuboid ID. Rows returned are the compact
+ * keys, client tells them by the marker and restores them by expandRow().
+ * 
+ * The shard prefix of row key, if any, is masked out in both modes, so rows of
+ * a group aggregate together whatever the shard.
+ * 
  * @author yangli9
  * 
  */
 public class SRowProjector {
 
+    /**
+     * first byte of a compact row, never the first byte of a cuboid ID, which
+     * is a positive long, nor of a shard, which is less than
+     * RowKeyShard.MAX_SHARD_COUNT
+     */
+    public static final byte COMPACT_ROW_MARKER = (byte) 0xff;
+
     public static SRowProjector fromColumns(final CubeSegment cubeSegment, final Cuboid cuboid, final Collection<TblColRef> dimensionColumns) {
+        byte[] mask = buildMask(cubeSegment, cuboid, dimensionColumns);
+        return new SRowProjector(mask);
+    }
+
+    /**
+     * @param carriedColumns
+     *            columns client needs besides the grouped ones, e.g. for
+     *            filter
+     * @return a compact projector, or a default one if compact does not save
+     *         anything
+     */
+    public static SRowProjector fromColumns(final CubeSegment cubeSegment, final Cuboid cuboid, final Collection<TblColRef> dimensionColumns, final Collection<TblColRef> carriedColumns) {
+        byte[] mask = buildMask(cubeSegment, cuboid, dimensionColumns);
+        byte[] carryMask = buildMask(cubeSegment, cuboid, carriedColumns);
+        int headerLength = RowKeyShard.getHeaderLength(cubeSegment);
+        SRowProjector result = new SRowProjector(mask, carryMask, headerLength);
+        if (result.getKeyLength() >= mask.length)
+            return new SRowProjector(mask);
 
+        // shard is left 0 in a restored row, not needed after scan
+        result.rowHeader = new byte[headerLength];
+        System.arraycopy(cuboid.getBytes(), 0, result.rowHeader, headerLength - RowConstants.ROWKEY_CUBOIDID_LEN, RowConstants.ROWKEY_CUBOIDID_LEN);
+        return result;
+    }
+
+    private static byte[] buildMask(final CubeSegment cubeSegment, final Cuboid cuboid, final Collection<TblColRef> columns) {
         RowKeyEncoder rowKeyMaskEncoder = new RowKeyEncoder(cubeSegment, cuboid) {
             @Override
             protected int fillHeader(byte[] bytes, byte[][] values) {
-                Arrays.fill(bytes, 0, this.headerLength, (byte) 0xff);
+                int cuboidStart = this.headerLength - RowConstants.ROWKEY_CUBOIDID_LEN;
+                Arrays.fill(bytes, 0, cuboidStart, (byte) 0x00);
+                Arrays.fill(bytes, cuboidStart, this.headerLength, (byte) 0xff);
                 return this.headerLength;
             }
 
             @Override
             protected void fillColumnValue(TblColRef column, int columnLen, byte[] value, int valueLen, byte[] outputValue, int outputValueOffset) {
-                byte bits = dimensionColumns.contains(column) ? (byte) 0xff : 0x00;
+                byte bits = columns.contains(column) ? (byte) 0xff : 0x00;
                 Arrays.fill(outputValue, outputValueOffset, outputValueOffset + columnLen, bits);
             }
         };
 
-        byte[] mask = rowKeyMaskEncoder.encode(new byte[cuboid.getColumns().size()][]);
-        return new SRowProjector(mask);
+        return rowKeyMaskEncoder.encode(new byte[cuboid.getColumns().size()][]);
     }
 
     public static byte[] serialize(SRowProjector o) {
@@ -75,12 +124,17 @@ public class SRowProjector {
         @Override
         public void serialize(SRowProjector value, ByteBuffer out) {
             BytesUtil.writeByteArray(value.groupByMask, out);
+            // appended, a region server of older version reads only the mask and returns full rows
+            BytesUtil.writeByteArray(value.carryMask, out);
+            BytesUtil.writeVInt(value.headerLength, out);
         }
 
         @Override
         public SRowProjector deserialize(ByteBuffer in) {
             byte[] mask = BytesUtil.readByteArray(in);
-            return new SRowProjector(mask);
+            byte[] carryMask = in.hasRemaining() ? BytesUtil.readByteArray(in) : null;
+            int headerLength = in.hasRemaining() ? BytesUtil.readVInt(in) : RowConstants.ROWKEY_CUBOIDID_LEN;
+            return carryMask == null ? new SRowProjector(mask) : new SRowProjector(mask, carryMask, headerLength);
         }
     }
 
@@ -89,19 +143,180 @@ public class SRowProjector {
     final byte[] groupByMask; // mask out columns that are not needed (by group by)
     final AggrKey aggrKey = new AggrKey();
 
+    // compact mode only, null otherwise
+    final byte[] carryMask; // columns carried but not grouped
+    final int headerLength; // shard and cuboid ID, left out of a compact key
+    final int[] groupRuns; // offset & length pairs of grouped bytes in row key
+    final int[] carryRuns;
+    final int groupLength; // grouped bytes in a compact key, after marker
+    final int keyLength;
+    final byte[] packBuf;
+    byte[] rowHeader; // shard and cuboid ID, to restore a row, not serialized
+
     public SRowProjector(byte[] groupByMask) {
         this.groupByMask = groupByMask;
+        this.carryMask = null;
+        this.headerLength = RowConstants.ROWKEY_CUBOIDID_LEN;
+        this.groupRuns = null;
+        this.carryRuns = null;
+        this.groupLength = groupByMask.length;
+        this.keyLength = groupByMask.length;
+        this.packBuf = null;
+    }
+
+    /**
+     * compact mode, see class comment
+     */
+    public SRowProjector(byte[] groupByMask, byte[] carryMask) {
+        this(groupByMask, carryMask, RowConstants.ROWKEY_CUBOIDID_LEN);
+    }
+
+    /**
+     * compact mode of row keys with shard prefix
+     */
+    public SRowProjector(byte[] groupByMask, byte[] carryMask, int headerLength) {
+        assert groupByMask.length == carryMask.length;
+        this.groupByMask = groupByMask;
+        this.carryMask = carryMask;
+        this.headerLength = headerLength;
+
+        // grouped bytes win if a column is in both
+        byte[] carryOnly = new byte[carryMask.length];
+        for (int i = 0; i < carryMask.length; i++) {
+            carryOnly[i] = groupByMask[i] == 0 ? carryMask[i] : 0;
+        }
+        this.groupRuns = findRuns(groupByMask, headerLength);
+        this.carryRuns = findRuns(carryOnly, headerLength);
+        this.groupLength = sumRuns(groupRuns);
+        this.keyLength = 1 + groupLength + sumRuns(carryRuns);
+        this.packBuf = new byte[keyLength];
+        this.packBuf[0] = COMPACT_ROW_MARKER;
+    }
+
+    // the header is left out, cuboid ID is constant in a scan and shard is not grouped
+    private static int[] findRuns(byte[] mask, int headerLength) {
+        int[] runs = new int[mask.length * 2];
+        int n = 0;
+        int i = headerLength;
+        while (i < mask.length) {
+            if (mask[i] == 0) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < mask.length && mask[i] != 0)
+                i++;
+            runs[n++] = start;
+            runs[n++] = i - start;
+        }
+        return Arrays.copyOf(runs, n);
+    }
+
+    private static int sumRuns(int[] runs) {
+        int sum = 0;
+        for (int i = 1; i < runs.length; i += 2) {
+            sum += runs[i];
+        }
+        return sum;
+    }
+
+    public boolean isCompact() {
+        return carryMask != null;
     }
 
     public AggrKey getRowKey(List<Cell> rowCells) {
-        int length = groupByMask.length;
         Cell cell = rowCells.get(0);
-        assert length == cell.getRowLength();
-
-        aggrKey.set(cell.getRowArray(), cell.getRowOffset());
+        assert groupByMask.length == cell.getRowLength();
+
+        if (isCompact()) {
+            byte[] row = cell.getRowArray();
+            int rowOffset = cell.getRowOffset();
+            int o = pack(row, rowOffset, groupRuns, 1);
+            pack(row, rowOffset, carryRuns, o);
+            aggrKey.set(packBuf, 0);
+        } else {
+            aggrKey.set(cell.getRowArray(), cell.getRowOffset());
+        }
         return aggrKey;
     }
 
+    private int pack(byte[] row, int rowOffset, int[] runs, int o) {
+        for (int i = 0; i < runs.length; i += 2) {
+            System.arraycopy(row, rowOffset + runs[i], packBuf, o, runs[i + 1]);
+            o += runs[i + 1];
+        }
+        return o;
+    }
+
+    /**
+     * restores a compact row into a full row key of the cuboid, columns
+     * neither grouped nor carried are filled by Dictionary.NULL; only for a
+     * projector created by fromColumns() on client side
+     */
+    public void expandRow(byte[] compactRow, byte[] fullRow) {
+        assert compactRow.length == keyLength && fullRow.length == groupByMask.length;
+        Arrays.fill(fullRow, Dictionary.NULL);
+        System.arraycopy(rowHeader, 0, fullRow, 0, rowHeader.length);
+        int o = unpack(compactRow, 1, groupRuns, fullRow);
+        unpack(compactRow, o, carryRuns, fullRow);
+    }
+
+    private int unpack(byte[] compactRow, int o, int[] runs, byte[] fullRow) {
+        for (int i = 0; i < runs.length; i += 2) {
+            System.arraycopy(compactRow, o, fullRow, runs[i], runs[i + 1]);
+            o += runs[i + 1];
+        }
+        return o;
+    }
+
+    /**
+     * @return length of full row key of the cuboid
+     */
+    public int getRowLength() {
+        return groupByMask.length;
+    }
+
+    public int getKeyLength() {
+        return keyLength;
+    }
+
+    /**
+     * hash of a packed row key, only grouped columns count
+     */
+    public int hashKey(byte[] data, int offset) {
+        int hash = 1;
+        if (isCompact()) {
+            for (int j = offset + 1, end = offset + 1 + groupLength; j < end; j++) {
+                hash = (31 * hash) + (int) data[j];
+            }
+            return hash;
+        }
+
+        for (int i = 0, j = offset, n = groupByMask.length; i < n; i++, j++) {
+            if (groupByMask[i] != 0)
+                hash = (31 * hash) + (int) data[j];
+        }
+        return hash;
+    }
+
+    /**
+     * compare two packed row keys, only grouped columns count
+     */
+    public int compareKeys(byte[] data1, int offset1, byte[] data2, int offset2) {
+        if (isCompact()) {
+            return Bytes.compareTo(data1, offset1 + 1, groupLength, data2, offset2 + 1, groupLength);
+        }
+
+        for (int i = 0, j = offset1, k = offset2, n = groupByMask.length; i < n; i++, j++, k++) {
+            if (groupByMask[i] != 0) {
+                int comp = BytesUtil.compareByteUnsigned(data1[j], data2[k]);
+                if (comp != 0)
+                    return comp;
+            }
+        }
+        return 0;
+    }
+
     public class AggrKey implements Comparable<AggrKey> {
         byte[] data;
         int offset;
@@ -115,7 +330,7 @@ public class SRowProjector {
         }
 
         public int length() {
-            return groupByMask.length;
+            return keyLength;
         }
 
         void set(byte[] data, int offset) {
@@ -132,12 +347,7 @@ public class SRowProjector {
 
         @Override
         public int hashCode() {
-            int hash = 1;
-            for (int i = 0, j = offset, n = length(); i < n; i++, j++) {
-                if (groupByMask[i] != 0)
-                    hash = (31 * hash) + (int) data[j];
-            }
-            return hash;
+            return hashKey(data, offset);
         }
 
         @Override
@@ -161,15 +371,11 @@ public class SRowProjector {
             if (comp != 0)
                 return comp;
 
-            int n = this.length();
-            for (int i = 0, j = offset, k = o.offset; i < n; i++, j++, k++) {
-                if (groupByMask[i] != 0) {
-                    comp = BytesUtil.compareByteUnsigned(this.data[j], o.data[k]);
-                    if (comp != 0)
-                        return comp;
-                }
-            }
-            return 0;
+            return compareKeys(this.data, this.offset, o.data, o.offset);
+        }
+
+        public int compareTo(byte[] otherData, int otherOffset) {
+            return compareKeys(this.data, this.offset, otherData, otherOffset);
         }
     }
 
@@ -28,6 +28,7 @@ import com.kylinolap.cube.CubeSegment;
 import com.kylinolap.cube.cuboid.Cuboid;
 import com.kylinolap.cube.kv.RowConstants;
 import com.kylinolap.cube.kv.RowKeyColumnIO;
+import com.kylinolap.cube.kv.RowKeyShard;
 import com.kylinolap.metadata.model.cube.TblColRef;
 import com.kylinolap.metadata.model.schema.ColumnDesc;
 import com.kylinolap.metadata.model.schema.TableDesc;
@@ -46,7 +47,7 @@ public class SRowType {
         for (int i = 0; i < cols.length; i++) {
             colSizes[i] = colIO.getColumnLength(cols[i]);
         }
-        return new SRowType(cols, colSizes);
+        return new SRowType(cols, colSizes, RowKeyShard.getHeaderLength(seg));
     }
 
     public static byte[] serialize(SRowType o) {
@@ -74,6 +75,8 @@ public class SRowType {
                 BytesUtil.writeAsciiString(o.columns[i].getName(), out);
                 BytesUtil.writeVInt(o.columnSizes[i], out);
             }
+            // appended, absent from an older client
+            BytesUtil.writeVInt(o.headerLength, out);
         }
 
         @Override
@@ -94,7 +97,8 @@ public class SRowType {
                 int colSize = BytesUtil.readVInt(in);
                 colSizes[i] = colSize;
             }
-            return new SRowType(cols, colSizes);
+            int headerLength = in.hasRemaining() ? BytesUtil.readVInt(in) : RowConstants.ROWKEY_CUBOIDID_LEN;
+            return new SRowType(cols, colSizes, headerLength);
         }
     }
 
@@ -102,20 +106,26 @@ public class SRowType {
 
     TblColRef[] columns;
     int[] columnSizes;
+    int headerLength; // shard and cuboid ID
 
     int[] columnOffsets;
     List<TblColRef> columnsAsList;
     HashMap<TblColRef, Integer> columnIdxMap;
 
     public SRowType(TblColRef[] columns, int[] columnSizes) {
+        this(columns, columnSizes, RowConstants.ROWKEY_CUBOIDID_LEN);
+    }
+
+    public SRowType(TblColRef[] columns, int[] columnSizes, int headerLength) {
         this.columns = columns;
         this.columnSizes = columnSizes;
+        this.headerLength = headerLength;
         init();
     }
 
     private void init() {
         int[] offsets = new int[columns.length];
-        int o = RowConstants.ROWKEY_CUBOIDID_LEN;
+        int o = headerLength;
         for (int i = 0; i < columns.length; i++) {
             offsets[i] = o;
             o += columnSizes[i];
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.storage.tuple;
+
+import com.kylinolap.dict.DateStrDictionary;
+import com.kylinolap.dict.Dictionary;
+
+/**
+ * Caches tuple cell values by dictionary ID, so a value repeating in many rows
+ * is looked up in the dictionary and converted to optiq type only once.
+ *
+ * Only dictionaries up to MAX_CACHE_SIZE IDs are cached, the cache is a plain
+ * array indexed by ID. For date and timestamp columns the array is filled
+ * up front, an ID to epoch day table. A DateStrDictionary is not cached at
+ * all, its IDs are epoch days plus a constant and convert by arithmetic.
+ */
+public class DictIdValueCache {
+
+    public static final int MAX_CACHE_SIZE = 1 << 16;
+
+    private static final Object NULL_VALUE = new Object();
+
+    private final Dictionary<String> dict;
+    private final ValueConverter converter;
+    private final int minId;
+    private final Object[] cache;
+    private final DateStrDictionary dateDict;
+
+    private DictIdValueCache(Dictionary<String> dict, ValueConverter converter, boolean cached) {
+        this.dict = dict;
+        this.converter = converter;
+        this.minId = dict.getMinId();
+        this.cache = cached ? new Object[dict.getMaxId() - minId + 1] : null;
+        this.dateDict = cached ? null : (DateStrDictionary) dict;
+
+        if (cached && isDateType(converter)) {
+            for (int i = 0; i < cache.length; i++) {
+                try {
+                    Object value = convert(minId + i);
+                    cache[i] = value == null ? NULL_VALUE : value;
+                } catch (IllegalArgumentException e) {
+                    // not a valid date, left to getValue() to report if ever met
+                }
+            }
+        }
+    }
+
+    private static boolean isDateType(ValueConverter converter) {
+        return converter == ValueConverter.DATE || converter == ValueConverter.TIMESTAMP;
+    }
+
+    /**
+     * @return a cache for the dictionary, or null if the dictionary is too
+     *         large to cache
+     */
+    public static DictIdValueCache newInstance(Dictionary<String> dict, String dataType) {
+        if (dict == null)
+            return null;
+        ValueConverter converter = ValueConverter.getInstance(dataType);
+        if (dict instanceof DateStrDictionary && isDateType(converter))
+            return new DictIdValueCache(dict, converter, false);
+        long size = (long) dict.getMaxId() - dict.getMinId() + 1;
+        if (size <= 0 || size > MAX_CACHE_SIZE)
+            return null;
+        return new DictIdValueCache(dict, converter, true);
+    }
+
+    /**
+     * @return the converted value of given ID, see Tuple.convertOptiqCellValue()
+     */
+    public Object getValue(int id) {
+        if (dateDict != null) {
+            return convertDate(id);
+        }
+
+        int index = id - minId;
+        if (index < 0 || index >= cache.length) {
+            // e.g. the NULL ID
+            return convert(id);
+        }
+
+        Object value = cache[index];
+        if (value == null) {
+            value = convert(id);
+            cache[index] = value == null ? NULL_VALUE : value;
+            return value;
+        }
+        return value == NULL_VALUE ? null : value;
+    }
+
+    private Object convertDate(int id) {
+        if (dateDict.isNullId(id) || id < minId)
+            return convert(id);
+
+        int epochDay = dateDict.getEpochDayFromId(id);
+        if (converter == ValueConverter.DATE)
+            return Integer.valueOf(epochDay);
+        else
+            return Long.valueOf(epochDay * ValueConverter.MILLIS_PER_DAY);
+    }
+
+    private Object convert(int id) {
+        String strValue;
+        try {
+            strValue = dict.getValueFromId(id);
+        } catch (IllegalArgumentException e) {
+            // same as RowKeyColumnIO.readColumnString()
+            strValue = "";
+        }
+        return converter.convert(strValue);
+    }
+}
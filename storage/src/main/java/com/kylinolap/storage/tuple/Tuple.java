@@ -15,14 +15,12 @@
  */
 package com.kylinolap.storage.tuple;
 
-import java.math.BigDecimal;
-import java.util.Date;
 import java.util.List;
 
+import com.kylinolap.common.hll.HyperLogLogPlusCounter;
 import com.kylinolap.common.util.Array;
 import com.kylinolap.cube.CubeManager;
 import com.kylinolap.cube.CubeSegment;
-import com.kylinolap.dict.DateStrDictionary;
 import com.kylinolap.dict.lookup.LookupStringTable;
 import com.kylinolap.metadata.model.cube.CubeDesc.DeriveInfo;
 import com.kylinolap.metadata.model.cube.TblColRef;
@@ -40,6 +38,19 @@ public class Tuple implements ITuple {
         this.values = new Object[info.size()];
     }
 
+    // iterators reuse one tuple instance, a copy is needed to hand it over to another thread;
+    // the HLLC measure is also reused by its decoder, so it is copied too
+    public Tuple makeCopy() {
+        Tuple copy = new Tuple(info);
+        for (int i = 0; i < values.length; i++) {
+            Object v = values[i];
+            if (v instanceof HyperLogLogPlusCounter)
+                v = new HyperLogLogPlusCounter((HyperLogLogPlusCounter) v);
+            copy.values[i] = v;
+        }
+        return copy;
+    }
+
     public List<String> getAllFields() {
         return info.getAllFields();
     }
@@ -76,21 +87,31 @@ public class Tuple implements ITuple {
     }
 
     public void setDimensionValue(String fieldName, String fieldValue) {
-        String dataType = info.getDataType(fieldName);
-        Object objectValue = convertOptiqCellValue(fieldValue, dataType);
+        setDimensionValue(info.getFieldIndex(fieldName), fieldValue);
+    }
+
+    // by field index, no name lookup, see TupleConverter
+    public void setDimensionValue(int index, String fieldValue) {
+        info.getConverter().setDimensionValue(values, index, fieldValue);
+    }
+
+    // the slot must have a DictIdValueCache, see TupleConverter
+    public void setDimensionValueById(int index, int id) {
+        info.getConverter().setDimensionValueById(values, index, id);
+    }
+
+    // for value already converted, e.g. by DictIdValueCache
+    public void setDimensionObjectValue(String fieldName, Object objectValue) {
         setFieldObjectValue(fieldName, objectValue);
     }
 
     public void setMeasureValue(String fieldName, Object fieldValue) {
-        String dataType = info.getDataType(fieldName);
-        // special handling for BigDecimal, allow double be aggregated as
-        // BigDecimal during cube build for best precision
-        if ("double".equals(dataType) && fieldValue instanceof BigDecimal) {
-            fieldValue = ((BigDecimal) fieldValue).doubleValue();
-        } else if ("integer".equals(dataType) && !(fieldValue instanceof Integer)) {
-            fieldValue = ((Number) fieldValue).intValue();
-        }
-        setFieldObjectValue(fieldName, fieldValue);
+        setMeasureValue(info.getFieldIndex(fieldName), fieldValue);
+    }
+
+    // double may be aggregated as BigDecimal during cube build, see ValueConverter
+    public void setMeasureValue(int index, Object fieldValue) {
+        info.getConverter().setMeasureValue(values, index, fieldValue);
     }
 
     public boolean hasColumn(TblColRef column) {
@@ -110,36 +131,7 @@ public class Tuple implements ITuple {
     }
 
     public static Object convertOptiqCellValue(String strValue, String dataType) {
-        if (strValue == null)
-            return null;
-
-        if ((strValue.equals("") || strValue.equals("\\N")) && !dataType.equals("string"))
-            return null;
-
-        // TODO use data type enum instead of string comparison
-        if ("date".equals(dataType)) {
-            // convert epoch time
-            Date dateValue = DateStrDictionary.stringToDate(strValue); // NOTE: forces GMT timezone
-            long millis = dateValue.getTime();
-            long days = millis / (1000 * 3600 * 24);
-            return Integer.valueOf((int) days); // Optiq expects Integer instead of Long. by honma
-        } else if ("tinyint".equals(dataType)) {
-            return Byte.valueOf(strValue);
-        } else if ("short".equals(dataType) || "smallint".equals(dataType)) {
-            return Short.valueOf(strValue);
-        } else if ("integer".equals(dataType)) {
-            return Integer.valueOf(strValue);
-        } else if ("long".equals(dataType) || "bigint".equals(dataType)) {
-            return Long.valueOf(strValue);
-        } else if ("double".equals(dataType)) {
-            return Double.valueOf(strValue);
-        } else if ("decimal".equals(dataType)) {
-            return new BigDecimal(strValue);
-        } else if ("timestamp".equals(dataType)) {
-            return Long.valueOf(DateStrDictionary.stringToMillis(strValue));
-        } else {
-            return strValue;
-        }
+        return ValueConverter.getInstance(dataType).convert(strValue);
     }
 
     // ============================================================================
@@ -150,18 +142,18 @@ public class Tuple implements ITuple {
         for (int i = 0; i < hostCols.length; i++) {
             hostIndex[i] = rowColumns.indexOf(hostCols[i]);
         }
-        String[] derivedFieldNames = new String[deriveInfo.columns.length];
+        int[] derivedFieldIndex = new int[deriveInfo.columns.length];
         for (int i = 0; i < deriveInfo.columns.length; i++) {
-            derivedFieldNames[i] = tupleInfo.getFieldName(deriveInfo.columns[i]);
+            derivedFieldIndex[i] = tupleInfo.getColumnIndex(deriveInfo.columns[i]);
         }
 
         switch (deriveInfo.type) {
         case LOOKUP:
             LookupStringTable lookupTable = cubeMgr.getLookupTable(cubeSegment, deriveInfo.dimension);
-            return new LookupFiller(hostIndex, lookupTable, deriveInfo, derivedFieldNames);
+            return new LookupFiller(hostIndex, lookupTable, deriveInfo, derivedFieldIndex);
         case PK_FK:
             // composite key are split, see CubeDesc.initDimensionColumns()
-            return new PKFKFiller(hostIndex[0], derivedFieldNames[0]);
+            return new PKFKFiller(hostIndex[0], derivedFieldIndex[0]);
         default:
             throw new IllegalArgumentException();
         }
@@ -173,17 +165,17 @@ public class Tuple implements ITuple {
 
     static class PKFKFiller implements IDerivedColumnFiller {
         final int hostIndex;
-        final String derivedFieldName;
+        final int derivedFieldIndex;
 
-        public PKFKFiller(int hostIndex, String derivedFieldName) {
+        public PKFKFiller(int hostIndex, int derivedFieldIndex) {
             this.hostIndex = hostIndex;
-            this.derivedFieldName = derivedFieldName;
+            this.derivedFieldIndex = derivedFieldIndex;
         }
 
         @Override
         public void fillDerivedColumns(List<String> rowValues, Tuple tuple) {
             String value = rowValues.get(hostIndex);
-            tuple.setDimensionValue(derivedFieldName, value);
+            tuple.setDimensionValue(derivedFieldIndex, value);
         }
     }
 
@@ -195,16 +187,16 @@ public class Tuple implements ITuple {
         final LookupStringTable lookupTable;
         final int[] derivedIndex;
         final int derivedLen;
-        final String[] derivedFieldNames;
+        final int[] derivedFieldIndex;
 
-        public LookupFiller(int[] hostIndex, LookupStringTable lookupTable, DeriveInfo deriveInfo, String[] derivedFieldNames) {
+        public LookupFiller(int[] hostIndex, LookupStringTable lookupTable, DeriveInfo deriveInfo, int[] derivedFieldIndex) {
             this.hostIndex = hostIndex;
             this.hostLen = hostIndex.length;
             this.lookupKey = new Array<String>(new String[hostLen]);
             this.lookupTable = lookupTable;
             this.derivedIndex = new int[deriveInfo.columns.length];
             this.derivedLen = derivedIndex.length;
-            this.derivedFieldNames = derivedFieldNames;
+            this.derivedFieldIndex = derivedFieldIndex;
 
             for (int i = 0; i < derivedLen; i++) {
                 derivedIndex[i] = deriveInfo.columns[i].getColumn().getZeroBasedIndex();
@@ -222,11 +214,11 @@ public class Tuple implements ITuple {
             if (lookupRow != null) {
                 for (int i = 0; i < derivedLen; i++) {
                     String value = lookupRow[derivedIndex[i]];
-                    tuple.setDimensionValue(derivedFieldNames[i], value);
+                    tuple.setDimensionValue(derivedFieldIndex[i], value);
                 }
             } else {
                 for (int i = 0; i < derivedLen; i++) {
-                    tuple.setDimensionValue(derivedFieldNames[i], null);
+                    tuple.setDimensionValue(derivedFieldIndex[i], null);
                 }
             }
         }
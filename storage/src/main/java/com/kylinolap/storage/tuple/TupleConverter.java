@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.storage.tuple;
+
+/**
+ * Writes values into tuple slots by field index, compiled once per TupleInfo.
+ * Each slot has its typed ValueConverter resolved up front, and optionally a
+ * DictIdValueCache to convert straight from dictionary ID. Per row, there is
+ * no field name lookup nor data type comparison.
+ */
+public class TupleConverter {
+
+    private final ValueConverter[] converters;
+    private final DictIdValueCache[] idValueCaches;
+
+    public TupleConverter(TupleInfo info) {
+        int n = info.size();
+        this.converters = new ValueConverter[n];
+        this.idValueCaches = new DictIdValueCache[n];
+        for (int i = 0; i < n; i++) {
+            converters[i] = ValueConverter.getInstance(info.getDataType(i));
+        }
+    }
+
+    /**
+     * enables setDimensionValueById() of the slot, the cache shall be built of
+     * the same data type as the slot
+     */
+    public void setIdValueCache(int index, DictIdValueCache idValueCache) {
+        idValueCaches[index] = idValueCache;
+    }
+
+    public boolean hasIdValueCache(int index) {
+        return idValueCaches[index] != null;
+    }
+
+    public ValueConverter getConverter(int index) {
+        return converters[index];
+    }
+
+    public void setDimensionValue(Object[] values, int index, String strValue) {
+        values[index] = converters[index].convert(strValue);
+    }
+
+    public void setDimensionValueById(Object[] values, int index, int id) {
+        values[index] = idValueCaches[index].getValue(id);
+    }
+
+    public void setMeasureValue(Object[] values, int index, Object value) {
+        values[index] = converters[index].convertMeasure(value);
+    }
+}
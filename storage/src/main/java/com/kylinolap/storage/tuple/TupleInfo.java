@@ -36,6 +36,7 @@ public class TupleInfo {
     private final List<TblColRef> columns;
     private final List<String> dataTypes;
     private final List<IDerivedColumnFiller> derivedColumnFillers;
+    private TupleConverter converter;
 
     public TupleInfo() {
         fieldMap = new HashMap<String, Integer>();
@@ -60,6 +61,10 @@ public class TupleInfo {
         return dataTypes.get(idx);
     }
 
+    public String getDataType(int index) {
+        return dataTypes.get(index);
+    }
+
     public int getFieldIndex(String fieldName) {
         return fieldMap.get(fieldName);
     }
@@ -74,6 +79,7 @@ public class TupleInfo {
     }
 
     public void setField(String fieldName, TblColRef col, String dataType, int index) {
+        converter = null;
         fieldMap.put(fieldName, index);
         if (col != null)
             columnMap.put(col, index);
@@ -106,6 +112,15 @@ public class TupleInfo {
         return columns;
     }
 
+    /**
+     * @return the converter compiled of current fields
+     */
+    public TupleConverter getConverter() {
+        if (converter == null)
+            converter = new TupleConverter(this);
+        return converter;
+    }
+
     public void addDerivedColumnFiller(IDerivedColumnFiller derivedColumnFiller) {
         derivedColumnFillers.add(derivedColumnFiller);
     }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.storage.tuple;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.kylinolap.dict.DateStrDictionary;
+
+/**
+ * Converts cell values to the java type optiq expects of a SQL data type.
+ * There is one instance per data type, resolved once per column by
+ * getInstance(), so converting a value involves no data type comparison.
+ */
+public abstract class ValueConverter {
+
+    public static final long MILLIS_PER_DAY = 1000L * 3600 * 24;
+
+    // empty string is kept, unlike all other types
+    public static final ValueConverter STRING = new ValueConverter() {
+        @Override
+        public Object convert(String strValue) {
+            return strValue;
+        }
+
+        @Override
+        protected Object convertNonEmpty(String strValue) {
+            return strValue;
+        }
+    };
+
+    // epoch days, optiq expects Integer instead of Long
+    public static final ValueConverter DATE = new ValueConverter() {
+        @Override
+        protected Object convertNonEmpty(String strValue) {
+            long millis = DateStrDictionary.stringToDate(strValue).getTime(); // NOTE: forces GMT timezone
+            return Integer.valueOf((int) (millis / MILLIS_PER_DAY));
+        }
+    };
+
+    // epoch millis
+    public static final ValueConverter TIMESTAMP = new ValueConverter() {
+        @Override
+        protected Object convertNonEmpty(String strValue) {
+            return Long.valueOf(DateStrDictionary.stringToMillis(strValue));
+        }
+    };
+
+    public static final ValueConverter TINYINT = new ValueConverter() {
+        @Override
+        protected Object convertNonEmpty(String strValue) {
+            return Byte.valueOf(strValue);
+        }
+    };
+
+    public static final ValueConverter SMALLINT = new ValueConverter() {
+        @Override
+        protected Object convertNonEmpty(String strValue) {
+            return Short.valueOf(strValue);
+        }
+    };
+
+    public static final ValueConverter INTEGER = new ValueConverter() {
+        @Override
+        protected Object convertNonEmpty(String strValue) {
+            return Integer.valueOf(strValue);
+        }
+
+        @Override
+        public Object convertMeasure(Object value) {
+            return value == null || value instanceof Integer ? value : Integer.valueOf(((Number) value).intValue());
+        }
+    };
+
+    public static final ValueConverter BIGINT = new ValueConverter() {
+        @Override
+        protected Object convertNonEmpty(String strValue) {
+            return Long.valueOf(strValue);
+        }
+    };
+
+    public static final ValueConverter DOUBLE = new ValueConverter() {
+        @Override
+        protected Object convertNonEmpty(String strValue) {
+            return Double.valueOf(strValue);
+        }
+
+        // double may be aggregated as BigDecimal during cube build for best precision
+        @Override
+        public Object convertMeasure(Object value) {
+            return value instanceof BigDecimal ? Double.valueOf(((BigDecimal) value).doubleValue()) : value;
+        }
+    };
+
+    public static final ValueConverter DECIMAL = new ValueConverter() {
+        @Override
+        protected Object convertNonEmpty(String strValue) {
+            return new BigDecimal(strValue);
+        }
+    };
+
+    // any other type stays as String, but empty is null
+    public static final ValueConverter OTHER = new ValueConverter() {
+        @Override
+        protected Object convertNonEmpty(String strValue) {
+            return strValue;
+        }
+    };
+
+    private static final Map<String, ValueConverter> instances = new HashMap<String, ValueConverter>();
+
+    static {
+        instances.put("string", STRING);
+        instances.put("date", DATE);
+        instances.put("timestamp", TIMESTAMP);
+        instances.put("tinyint", TINYINT);
+        instances.put("short", SMALLINT);
+        instances.put("smallint", SMALLINT);
+        instances.put("integer", INTEGER);
+        instances.put("long", BIGINT);
+        instances.put("bigint", BIGINT);
+        instances.put("double", DOUBLE);
+        instances.put("decimal", DECIMAL);
+    }
+
+    public static ValueConverter getInstance(String dataType) {
+        ValueConverter converter = instances.get(dataType);
+        return converter == null ? OTHER : converter;
+    }
+
+    /**
+     * converts a dimension value, "" and "\N" are taken as null except for
+     * string type
+     */
+    public Object convert(String strValue) {
+        if (strValue == null)
+            return null;
+
+        if (strValue.length() == 0 || strValue.equals("\\N"))
+            return null;
+
+        return convertNonEmpty(strValue);
+    }
+
+    protected abstract Object convertNonEmpty(String strValue);
+
+    /**
+     * converts a measure value as aggregated during cube build
+     */
+    public Object convertMeasure(Object value) {
+        return value;
+    }
+}
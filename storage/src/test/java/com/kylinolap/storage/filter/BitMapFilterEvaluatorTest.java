@@ -15,6 +15,7 @@ import com.kylinolap.metadata.model.schema.ColumnDesc;
 import com.kylinolap.metadata.model.schema.TableDesc;
 import com.kylinolap.storage.filter.BitMapFilterEvaluator.BitMapProvider;
 import com.kylinolap.storage.filter.TupleFilter.FilterOperatorEnum;
+import com.kylinolap.storage.hbase.observer.SRowFilter.DictIdTranslator;
 
 public class BitMapFilterEvaluatorTest {
 
@@ -153,6 +154,59 @@ public class BitMapFilterEvaluatorTest {
         assertEquals(basicResults.get(1), eval.evaluate(and));
     }
     
+    @Test
+    public void testConstant() {
+        assertEquals(set(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), eval.evaluate(ConstantTupleFilter.TRUE));
+        assertEquals(set(), eval.evaluate(ConstantTupleFilter.FALSE));
+    }
+    
+    @Test
+    public void testLogicalNot() {
+        // NOT over a child folded into constant by SRowFilter.DictIdTranslator
+        LogicalTupleFilter and = logical(FilterOperatorEnum.AND, ConstantTupleFilter.FALSE, basicFilters.get(2));
+        assertEquals(set(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), eval.evaluate(logical(FilterOperatorEnum.NOT, and)));
+        
+        LogicalTupleFilter or = logical(FilterOperatorEnum.OR, ConstantTupleFilter.TRUE, basicFilters.get(2));
+        assertEquals(set(), eval.evaluate(logical(FilterOperatorEnum.NOT, or)));
+        
+        // AND skipping a child gives a superset, its complement is unknown
+        CompareTupleFilter notEvaluable = compare(colB, FilterOperatorEnum.EQ, 0);
+        and = logical(FilterOperatorEnum.AND, notEvaluable, basicFilters.get(2));
+        assertEquals(set(0), eval.evaluate(and));
+        assertEquals(null, eval.evaluate(logical(FilterOperatorEnum.NOT, and)));
+        
+        LogicalTupleFilter outer = logical(FilterOperatorEnum.AND, basicFilters.get(1), logical(FilterOperatorEnum.NOT, and));
+        assertEquals(basicResults.get(1), eval.evaluate(outer));
+        
+        assertEquals(basicResults.get(3), eval.evaluate(logical(FilterOperatorEnum.AND, basicFilters.get(1), logical(FilterOperatorEnum.NOT, basicFilters.get(2)))));
+    }
+    
+    @Test
+    public void testTranslatedNot() {
+        // as IIEndpoint receives it, EQ on a value not in dictionary is folded into FALSE
+        CompareTupleFilter eq = new CompareTupleFilter(FilterOperatorEnum.EQ);
+        eq.addChild(columnFilter(colA));
+        eq.addChild(new ConstantTupleFilter("missing"));
+        CompareTupleFilter notNull = new CompareTupleFilter(FilterOperatorEnum.ISNOTNULL);
+        notNull.addChild(columnFilter(colA));
+        LogicalTupleFilter not = logical(FilterOperatorEnum.NOT, logical(FilterOperatorEnum.AND, eq, notNull));
+
+        byte[] bytes = TupleFilterSerializer.serialize(not, new DictIdTranslator() {
+            @Override
+            protected int getColumnLength(TblColRef column) {
+                return 1;
+            }
+
+            @Override
+            protected String translate(TblColRef column, String v, int roundingFlag) {
+                return v.equals("missing") ? idToStr(Dictionary.NULL_ID[1]) : idToStr(Integer.parseInt(v));
+            }
+        });
+        TupleFilter translated = TupleFilterSerializer.deserialize(bytes);
+
+        assertEquals(set(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), eval.evaluate(translated));
+    }
+    
     private CompareTupleFilter compare(TblColRef col, FilterOperatorEnum op, int... ids) {
         CompareTupleFilter filter = new CompareTupleFilter(op);
         filter.setNullString(idToStr(Dictionary.NULL_ID[1]));
@@ -23,6 +23,7 @@ import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 
@@ -31,6 +32,7 @@ import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.KeyValue.Type;
+import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.io.LongWritable;
@@ -42,6 +44,7 @@ import com.kylinolap.cube.kv.RowConstants;
 import com.kylinolap.metadata.model.cube.TblColRef;
 import com.kylinolap.metadata.model.schema.ColumnDesc;
 import com.kylinolap.metadata.model.schema.TableDesc;
+import com.kylinolap.storage.StorageContext;
 import com.kylinolap.storage.hbase.observer.AggregationScanner;
 import com.kylinolap.storage.hbase.observer.SRowAggregators;
 import com.kylinolap.storage.hbase.observer.SRowFilter;
@@ -106,6 +109,34 @@ public class AggregateRegionObserverTest {
 
     @Test
     public void test() throws IOException {
+        verifyAggregation(AggregationCache.MEMORY_USAGE_CAP, true);
+    }
+
+    @Test
+    public void testUnsorted() throws IOException {
+        verifyAggregation(AggregationCache.MEMORY_USAGE_CAP, false);
+    }
+
+    @Test
+    public void testSpill() throws IOException {
+        // tiny budget, every row spills a run
+        verifyAggregation(1, true);
+    }
+
+    @Test
+    public void testOutputOrder() {
+        Scan scan = new Scan();
+        StorageContext context = new StorageContext();
+        CoprocessorEnabler.setOutputOrder(scan, context);
+        assertNotNull(scan.getAttribute(AggregateRegionObserver.UNSORTED_OUTPUT));
+
+        scan = new Scan();
+        context.markSort();
+        CoprocessorEnabler.setOutputOrder(scan, context);
+        assertNull(scan.getAttribute(AggregateRegionObserver.UNSORTED_OUTPUT));
+    }
+
+    private void verifyAggregation(long memoryBudget, boolean sortedOutput) throws IOException {
 
         SRowType rowType = newRowType();
         SRowProjector projector = new SRowProjector(mask);
@@ -122,8 +153,9 @@ public class AggregateRegionObserverTest {
 
         MockupRegionScanner innerScanner = new MockupRegionScanner(cellsInput);
 
-        RegionScanner aggrScanner = new AggregationScanner(rowType, filter, projector, aggregators, innerScanner);
+        RegionScanner aggrScanner = new AggregationScanner(rowType, filter, projector, aggregators, innerScanner, memoryBudget, sortedOutput);
         ArrayList<Cell> result = Lists.newArrayList();
+        int resultCount = 0;
         boolean hasMore = true;
         while (hasMore) {
             result.clear();
@@ -131,6 +163,7 @@ public class AggregateRegionObserverTest {
             if (result.isEmpty())
                 continue;
 
+            resultCount += result.size();
             Cell cell = result.get(0);
             HCol hcol = null;
             if (SRowAggregators.match(c1, cell)) {
@@ -153,6 +186,61 @@ public class AggregateRegionObserverTest {
             assertTrue(expectedResult.contains(rowKey + ", " + col + ", " + values));
         }
         aggrScanner.close();
+        assertEquals(expectedResult.size(), resultCount);
+    }
+
+    @Test
+    public void testStreaming() throws IOException {
+
+        SRowType rowType = newRowType();
+        SRowProjector projector = new SRowProjector(mask);
+        SRowAggregators aggregators = new SRowAggregators(new HCol[] { c1, c2 });
+        SRowFilter filter = SRowFilter.deserialize(null);
+
+        // flush every 2 groups, each input cell is a row, the 8 rows come out
+        // as 7 partial groups in 4 batches; output is sorted within a batch,
+        // so a key not greater than the previous one starts a new batch
+        MockupRegionScanner innerScanner = new MockupRegionScanner(cellsInput);
+        RegionScanner aggrScanner = new AggregationScanner(rowType, filter, projector, aggregators, innerScanner, AggregationCache.MEMORY_USAGE_CAP, true, 2);
+
+        HashMap<String, BigDecimal> merged = new HashMap<String, BigDecimal>();
+        ArrayList<Cell> result = Lists.newArrayList();
+        int rowCount = 0;
+        int batchCount = 0;
+        String lastRowKey = null;
+        boolean hasMore = true;
+        while (hasMore) {
+            result.clear();
+            hasMore = aggrScanner.next(result);
+            if (result.isEmpty())
+                continue;
+
+            rowCount++;
+            Cell first = result.get(0);
+            String rowKey = toString(first.getRowArray(), first.getRowOffset(), first.getRowLength(), mask);
+            if (lastRowKey == null || rowKey.compareTo(lastRowKey) <= 0)
+                batchCount++;
+            lastRowKey = rowKey;
+            for (Cell cell : result) {
+                HCol hcol = SRowAggregators.match(c1, cell) ? c1 : c2;
+                hcol.measureCodec.decode(ByteBuffer.wrap(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength()), hcol.measureValues);
+                String key = toString(cell.getRowArray(), cell.getRowOffset(), cell.getRowLength(), mask) + ", " + Bytes.toString(hcol.qualifier);
+                BigDecimal sum = merged.get(key);
+                BigDecimal value = (BigDecimal) hcol.measureValues[0];
+                if (value == null)
+                    continue;
+                merged.put(key, sum == null ? value : sum.add(value));
+            }
+        }
+        aggrScanner.close();
+
+        assertEquals(7, rowCount);
+        assertEquals(4, batchCount);
+        assertEquals(4, merged.size());
+        assertEquals(0, new BigDecimal("22.0").compareTo(merged.get("\\x01\\x01\\x00\\x00, q1")));
+        assertEquals(0, new BigDecimal("44.0").compareTo(merged.get("\\x01\\x01\\x00\\x00, q2")));
+        assertEquals(0, new BigDecimal("26.0").compareTo(merged.get("\\x02\\x02\\x00\\x00, q1")));
+        assertEquals(0, new BigDecimal("48.0").compareTo(merged.get("\\x02\\x02\\x00\\x00, q2")));
     }
 
     @Test
@@ -80,6 +80,68 @@ public class RowProjectorTest {
         assertTrue(rowKey.compareTo(rowKey2) > 0);
     }
 
+    // 8 bytes cuboid ID, then 4 columns of 2 bytes; group by A & C, carry B
+    byte[] compactGroupMask = new byte[] { -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0, 0, -1, -1, 0, 0 };
+    byte[] compactCarryMask = new byte[] { -1, -1, -1, -1, -1, -1, -1, -1, 0, 0, -1, -1, -1, -1, 0, 0 };
+    SRowProjector compact = new SRowProjector(compactGroupMask, compactCarryMask);
+
+    @Test
+    public void testCompactSerialize() {
+        SRowProjector copy = SRowProjector.deserialize(SRowProjector.serialize(compact));
+        assertTrue(copy.isCompact());
+        assertTrue(Arrays.equals(compact.carryMask, copy.carryMask));
+        assertEquals(compact.getKeyLength(), copy.getKeyLength());
+
+        assertFalse(SRowProjector.deserialize(SRowProjector.serialize(sample)).isCompact());
+    }
+
+    @Test
+    public void testCompactProject() {
+        byte[] row1 = new byte[] { 0, 0, 0, 0, 0, 0, 0, 7, 1, 2, 3, 4, 5, 6, 7, 8 };
+        byte[] row2 = new byte[] { 0, 0, 0, 0, 0, 0, 0, 7, 1, 2, 9, 9, 5, 6, 9, 9 };
+        byte[] row3 = new byte[] { 0, 0, 0, 0, 0, 0, 0, 7, 1, 2, 3, 4, 5, -1, 7, 8 };
+
+        assertEquals(7, compact.getKeyLength()); // marker, A, C, B
+        AggrKey key = compact.getRowKey(newCellWithRowKey(row1));
+        assertTrue(Bytes.equals(new byte[] { SRowProjector.COMPACT_ROW_MARKER, 1, 2, 5, 6, 3, 4 }, 0, 7, key.get(), key.offset(), key.length()));
+        AggrKey key1 = key.copy();
+
+        // carried B does not count
+        key = compact.getRowKey(newCellWithRowKey(row2));
+        assertTrue(key.hashCode() == key1.hashCode());
+        assertTrue(key.equals(key1));
+
+        key = compact.getRowKey(newCellWithRowKey(row3));
+        assertTrue(key.equals(key1) == false);
+        assertTrue(key.compareTo(key1) > 0); // unsigned compare
+
+        // back to full row, D is lost
+        byte[] full = new byte[compact.getRowLength()];
+        compact.rowHeader = new byte[] { 0, 0, 0, 0, 0, 0, 0, 7 };
+        compact.expandRow(key1.get(), full);
+        assertTrue(Arrays.equals(new byte[] { 0, 0, 0, 0, 0, 0, 0, 7, 1, 2, 3, 4, 5, 6, -1, -1 }, full));
+    }
+
+    @Test
+    public void testShardedProject() {
+        // 2 bytes shard not grouped, 8 bytes cuboid ID, then 2 columns of 2 bytes; group by A, carry B
+        byte[] groupMask = new byte[] { 0, 0, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 0, 0 };
+        byte[] carryMask = new byte[] { 0, 0, -1, -1, -1, -1, -1, -1, -1, -1, 0, 0, -1, -1 };
+        SRowProjector sharded = SRowProjector.deserialize(SRowProjector.serialize(new SRowProjector(groupMask, carryMask, 10)));
+        assertEquals(5, sharded.getKeyLength()); // marker, A, B
+
+        byte[] row1 = new byte[] { 0, 3, 0, 0, 0, 0, 0, 0, 0, 7, 1, 2, 3, 4 };
+        byte[] row2 = new byte[] { 0, 5, 0, 0, 0, 0, 0, 0, 0, 7, 1, 2, 9, 9 };
+        AggrKey key1 = sharded.getRowKey(newCellWithRowKey(row1)).copy();
+        assertTrue(Bytes.equals(new byte[] { SRowProjector.COMPACT_ROW_MARKER, 1, 2, 3, 4 }, 0, 5, key1.get(), key1.offset(), key1.length()));
+        assertTrue(sharded.getRowKey(newCellWithRowKey(row2)).equals(key1));
+
+        // rows of different shards aggregate together in default mode too
+        SRowProjector plain = new SRowProjector(groupMask);
+        AggrKey plainKey1 = plain.getRowKey(newCellWithRowKey(row1)).copy();
+        assertTrue(plain.getRowKey(newCellWithRowKey(row2)).equals(plainKey1));
+    }
+
     private List<Cell> newCellWithRowKey(byte[] rowkey) {
         ArrayList<Cell> list = Lists.newArrayList();
         list.add(new KeyValue(rowkey, null, null, null));
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.storage.hbase.observer;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.kylinolap.cube.kv.RowConstants;
+import com.kylinolap.dict.Dictionary;
+import com.kylinolap.metadata.model.cube.TblColRef;
+import com.kylinolap.metadata.model.schema.ColumnDesc;
+import com.kylinolap.metadata.model.schema.TableDesc;
+import com.kylinolap.storage.filter.ColumnTupleFilter;
+import com.kylinolap.storage.filter.CompareTupleFilter;
+import com.kylinolap.storage.filter.ConstantTupleFilter;
+import com.kylinolap.storage.filter.LogicalTupleFilter;
+import com.kylinolap.storage.filter.TupleFilter;
+import com.kylinolap.storage.filter.TupleFilter.FilterOperatorEnum;
+import com.kylinolap.storage.tuple.ITuple;
+
+public class SRowFilterCompilerTest {
+
+    // 1 and 3 bytes compare as ID, 6 bytes as byte array
+    private static final int[] SIZES = new int[] { 1, 3, 6 };
+
+    private final Random rand = new Random(0);
+    private final SRowType type = newRowType();
+
+    @Test
+    public void testCompareOperators() {
+        FilterOperatorEnum[] ops = { FilterOperatorEnum.EQ, FilterOperatorEnum.NEQ, FilterOperatorEnum.LT, FilterOperatorEnum.LTE, FilterOperatorEnum.GT, FilterOperatorEnum.GTE };
+        for (int col = 0; col < SIZES.length; col++) {
+            for (FilterOperatorEnum op : ops) {
+                verify(compare(col, op, 1));
+            }
+            verify(compare(col, FilterOperatorEnum.IN, 5));
+            verify(compare(col, FilterOperatorEnum.NOTIN, 5));
+        }
+    }
+
+    @Test
+    public void testSparseIn() {
+        // IDs far apart go to sorted array instead of bitset
+        CompareTupleFilter in = newCompare(1, FilterOperatorEnum.IN);
+        in.addChild(new ConstantTupleFilter(Arrays.asList(idString(1, 3), idString(0x100000, 3), idString(3, 3))));
+        verify(in);
+    }
+
+    @Test
+    public void testLogical() {
+        LogicalTupleFilter and = new LogicalTupleFilter(FilterOperatorEnum.AND);
+        and.addChild(compare(0, FilterOperatorEnum.GT, 1));
+        and.addChild(compare(2, FilterOperatorEnum.IN, 3));
+
+        LogicalTupleFilter not = new LogicalTupleFilter(FilterOperatorEnum.NOT);
+        not.addChild(compare(1, FilterOperatorEnum.EQ, 1));
+
+        LogicalTupleFilter or = new LogicalTupleFilter(FilterOperatorEnum.OR);
+        or.addChild(and);
+        or.addChild(not);
+        or.addChild(ConstantTupleFilter.FALSE);
+        verify(or);
+    }
+
+    @Test
+    public void testCompareToNull() {
+        CompareTupleFilter eq = newCompare(0, FilterOperatorEnum.EQ);
+        eq.addChild(new ConstantTupleFilter(nullString(0)));
+        SRowFilter filter = new SRowFilter(eq);
+        SRowTuple tuple = new SRowTuple(type);
+        byte[] row = randomRow();
+        tuple.setUnderlying(row, 0, row.length);
+        assertFalse(filter.evaluate(tuple));
+    }
+
+    private void verify(TupleFilter f) {
+        SRowFilter filter = new SRowFilter(f);
+        SRowTuple tuple = new SRowTuple(type);
+        int matches = 0;
+        for (int i = 0; i < 2000; i++) {
+            byte[] row = randomRow();
+            tuple.setUnderlying(row, 0, row.length);
+            boolean expected = filter.evaluate((ITuple) tuple);
+            tuple.setUnderlying(row, 0, row.length);
+            assertEquals(f.toString(), expected, filter.evaluate(tuple));
+            matches += expected ? 1 : 0;
+        }
+        assertTrue(f.toString(), matches > 0 || f.getOperator() == FilterOperatorEnum.OR);
+    }
+
+    private CompareTupleFilter compare(int col, FilterOperatorEnum op, int nValues) {
+        CompareTupleFilter result = newCompare(col, op);
+        List<String> values = new ArrayList<String>();
+        for (int i = 0; i < nValues; i++) {
+            values.add(idString(1 + rand.nextInt(5), SIZES[col])); // so every operator matches some
+        }
+        result.addChild(new ConstantTupleFilter(values));
+        return result;
+    }
+
+    private CompareTupleFilter newCompare(int col, FilterOperatorEnum op) {
+        CompareTupleFilter result = new CompareTupleFilter(op);
+        result.setNullString(nullString(col));
+        result.addChild(new ColumnTupleFilter(type.columns[col]));
+        return result;
+    }
+
+    // small values repeat a lot, 1 in 8 is null
+    private int randomId() {
+        return rand.nextInt(8);
+    }
+
+    private byte[] randomRow() {
+        int len = RowConstants.ROWKEY_CUBOIDID_LEN;
+        for (int size : SIZES)
+            len += size;
+        byte[] row = new byte[len + 2];
+        int o = RowConstants.ROWKEY_CUBOIDID_LEN;
+        for (int size : SIZES) {
+            int id = randomId();
+            if (id == 7) {
+                Arrays.fill(row, o, o + size, Dictionary.NULL);
+            } else {
+                writeId(id, row, o, size);
+            }
+            o += size;
+        }
+        return row;
+    }
+
+    private static void writeId(int id, byte[] bytes, int offset, int size) {
+        for (int i = offset + size - 1; i >= offset; i--) {
+            bytes[i] = (byte) id;
+            id >>>= 8;
+        }
+    }
+
+    private static String idString(int id, int size) {
+        byte[] bytes = new byte[size];
+        writeId(id, bytes, 0, size);
+        return Dictionary.dictIdToString(bytes, 0, size);
+    }
+
+    private static String nullString(int col) {
+        byte[] bytes = new byte[SIZES[col]];
+        Arrays.fill(bytes, Dictionary.NULL);
+        return Dictionary.dictIdToString(bytes, 0, bytes.length);
+    }
+
+    private static SRowType newRowType() {
+        TableDesc t = new TableDesc();
+        t.setName("TABLE");
+        TblColRef[] cols = new TblColRef[] { newCol("A", t), newCol("B", t), newCol("C", t) };
+        return new SRowType(cols, SIZES);
+    }
+
+    private static TblColRef newCol(String name, TableDesc t) {
+        ColumnDesc col = new ColumnDesc();
+        col.setName(name);
+        col.setTable(t);
+        return new TblColRef(col);
+    }
+}
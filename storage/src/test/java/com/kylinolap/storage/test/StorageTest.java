@@ -18,7 +18,9 @@ package com.kylinolap.storage.test;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.After;
 import org.junit.Before;
@@ -26,6 +28,7 @@ import org.junit.Ignore;
 import org.junit.Test;
 
 import com.kylinolap.common.KylinConfig;
+import com.kylinolap.common.hll.HyperLogLogPlusCounter;
 import com.kylinolap.common.util.HBaseMetadataTestCase;
 import com.kylinolap.cube.CubeInstance;
 import com.kylinolap.cube.CubeManager;
@@ -129,6 +132,50 @@ public class StorageTest extends HBaseMetadataTestCase {
         assertTrue(count > 0);
     }
 
+    @Test
+    public void testParallelCountDistinct() {
+        List<TblColRef> groups = buildGroups();
+        List<FunctionDesc> aggregations = buildAggregations();
+        TupleFilter filter = buildOrFilter(groups);
+
+        Map<String, Long> serial = searchCountDistinct(groups, aggregations, filter, new StorageContext());
+        assertTrue(serial.size() > 0);
+
+        KylinConfig config = cube.getConfig();
+        config.setProperty("kylin.query.scan.parallel.enabled", "true");
+        try {
+            // tuples pass between threads, each must keep its own counter
+            Map<String, Long> parallel = searchCountDistinct(groups, aggregations, filter, new StorageContext());
+            assertEquals(serial, parallel);
+        } finally {
+            config.setProperty("kylin.query.scan.parallel.enabled", "false");
+        }
+    }
+
+    // group ==> estimate of the count distinct measure
+    private Map<String, Long> searchCountDistinct(List<TblColRef> groups, List<FunctionDesc> aggregations, TupleFilter filter, StorageContext context) {
+        context.setConnUrl(KylinConfig.getInstanceFromEnv().getStorageUrl());
+        Map<String, Long> result = new HashMap<String, Long>();
+        ITupleIterator iterator = storageEngine.search(groups, filter, groups, aggregations, context);
+        try {
+            List<ITuple> tuples = new ArrayList<ITuple>();
+            while (iterator.hasNext()) {
+                tuples.add(iterator.next());
+            }
+            // read after all tuples are out, a shared counter would show by now
+            for (ITuple tuple : tuples) {
+                String group = tuple.getValue(groups.get(0)) + "," + tuple.getValue(groups.get(1));
+                for (Object value : tuple.getAllValues()) {
+                    if (value instanceof HyperLogLogPlusCounter)
+                        result.put(group, ((HyperLogLogPlusCounter) value).getCountEstimate());
+                }
+            }
+        } finally {
+            iterator.close();
+        }
+        return result;
+    }
+
     private int search(List<TblColRef> groups, List<FunctionDesc> aggregations, TupleFilter filter, StorageContext context) {
         int count = 0;
         ITupleIterator iterator = null;
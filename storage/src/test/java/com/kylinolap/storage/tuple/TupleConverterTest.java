@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013-2014 eBay Software Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.kylinolap.storage.tuple;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import com.kylinolap.common.hll.HyperLogLogPlusCounter;
+import com.kylinolap.dict.DateStrDictionary;
+import com.kylinolap.dict.Dictionary;
+import com.kylinolap.dict.StringBytesConverter;
+import com.kylinolap.dict.TrieDictionaryBuilder;
+
+public class TupleConverterTest {
+
+    private static final String[] DATES = { "1969-12-31", "1970-01-01", "2012-01-02", "2012-12-15", "2038-01-19" };
+
+    @Test
+    public void testDateStrDictionaryById() {
+        DateStrDictionary dict = new DateStrDictionary();
+        DictIdValueCache dateCache = DictIdValueCache.newInstance(dict, "date");
+        DictIdValueCache timestampCache = DictIdValueCache.newInstance(dict, "timestamp");
+        assertNotNull(dateCache);
+        assertNotNull(timestampCache);
+
+        for (String date : DATES) {
+            int id = dict.getIdFromValue(date);
+            assertEquals(Tuple.convertOptiqCellValue(date, "date"), dateCache.getValue(id));
+            assertEquals(Tuple.convertOptiqCellValue(date, "timestamp"), timestampCache.getValue(id));
+        }
+        assertNull(dateCache.getValue(dict.nullId()));
+    }
+
+    @Test
+    public void testTrieDictionaryById() {
+        TrieDictionaryBuilder<String> b = new TrieDictionaryBuilder<String>(new StringBytesConverter());
+        for (String date : DATES)
+            b.addValue(date);
+        Dictionary<String> dict = b.build(0);
+
+        DictIdValueCache dateCache = DictIdValueCache.newInstance(dict, "date");
+        DictIdValueCache stringCache = DictIdValueCache.newInstance(dict, "string");
+        for (String date : DATES) {
+            int id = dict.getIdFromValue(date);
+            assertEquals(Tuple.convertOptiqCellValue(date, "date"), dateCache.getValue(id));
+            assertEquals(date, stringCache.getValue(id));
+        }
+        assertNull(dateCache.getValue(dict.nullId()));
+    }
+
+    @Test
+    public void testSetByIndex() {
+        TupleInfo info = new TupleInfo();
+        info.setField("CAL_DT", null, "date", 0);
+        info.setField("NAME", null, "string", 1);
+        info.setField("SITE_ID", null, "integer", 2);
+        info.setField("PRICE", null, "double", 3);
+        info.setField("CNT", null, "integer", 4);
+
+        DateStrDictionary dict = new DateStrDictionary();
+        info.getConverter().setIdValueCache(0, DictIdValueCache.newInstance(dict, "date"));
+        assertTrue(info.getConverter().hasIdValueCache(0));
+        assertFalse(info.getConverter().hasIdValueCache(1));
+
+        Tuple tuple = new Tuple(info);
+        tuple.setDimensionValueById(0, dict.getIdFromValue("2012-12-15"));
+        tuple.setDimensionValue(1, "");
+        tuple.setDimensionValue(2, "");
+        tuple.setMeasureValue(3, new BigDecimal("1.5"));
+        tuple.setMeasureValue(4, Long.valueOf(7));
+
+        assertEquals(Tuple.convertOptiqCellValue("2012-12-15", "date"), tuple.getValue("CAL_DT"));
+        assertEquals("", tuple.getValue("NAME"));
+        assertNull(tuple.getValue("SITE_ID"));
+        assertEquals(Double.valueOf(1.5), tuple.getValue("PRICE"));
+        assertEquals(Integer.valueOf(7), tuple.getValue("CNT"));
+
+        // by name goes the same way
+        tuple.setDimensionValue("SITE_ID", "\\N");
+        assertNull(tuple.getValue("SITE_ID"));
+        tuple.setDimensionValue("SITE_ID", "12");
+        assertEquals(Integer.valueOf(12), tuple.getValue("SITE_ID"));
+    }
+
+    @Test
+    public void testMakeCopy() {
+        TupleInfo info = new TupleInfo();
+        info.setField("NAME", null, "string", 0);
+        info.setField("SELLERS", null, "hllc10", 1);
+
+        // the decoder hands out one counter for all rows
+        HyperLogLogPlusCounter counter = new HyperLogLogPlusCounter(10);
+        counter.add("a");
+        Tuple tuple = new Tuple(info);
+        tuple.setDimensionValue(0, "x");
+        tuple.setMeasureValue(1, counter);
+
+        Tuple copy = tuple.makeCopy();
+        counter.clear();
+        counter.add("b");
+        counter.add("c");
+
+        assertEquals("x", copy.getValue("NAME"));
+        HyperLogLogPlusCounter copied = (HyperLogLogPlusCounter) copy.getValue("SELLERS");
+        assertNotSame(counter, copied);
+        assertEquals(1, copied.getCountEstimate());
+        assertEquals(2, ((HyperLogLogPlusCounter) tuple.getValue("SELLERS")).getCountEstimate());
+    }
+}